@@ -2,13 +2,21 @@ package com.egeniq.lpsolver;
 
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
-import android.support.v8.renderscript.RenderScript;
 import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.egeniq.lpsolver.renderscript.SimplexRS;
+import com.egeniq.lpsolver.renderscript.SimplexSession;
 import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.AsyncSimplexSolver;
+import com.egeniq.lpsolver.simplex.PresolvedProblem;
+import com.egeniq.lpsolver.simplex.Presolver;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexEngineFactory;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveCallback;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolveStatus;
 
 import org.apache.commons.math3.optim.MaxIter;
 import org.apache.commons.math3.optim.PointValuePair;
@@ -20,19 +28,40 @@ import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main activity, which is opened when the app starts.
- * The optimization process is done on the UI thread for both options, which is not nice,
+ * The Apache Math optimization is done on the UI thread, which is not nice,
  * but for the sake of the brevity of the code, and for this being a demonstrational app, it can be overlooked.
+ * The RenderScript optimization runs on a worker thread, with a time budget.
  */
 public class MainActivity extends AppCompatActivity {
 
+    // The time the RenderScript optimization may take.
+    private static final long TIME_BUDGET_MILLIS = 5000;
+
+    // Kept alive between the clicks, so the session with its script and allocations is only created once.
+    private AsyncSimplexSolver _simplexSolver;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         Log.setLogTextView((TextView)findViewById(R.id.log));
+        // A single worker thread, and a single waiting problem, the demo does not need more.
+        _simplexSolver = new AsyncSimplexSolver(new SimplexEngineFactory() {
+            @Override
+            public SimplexEngine create() {
+                return new SimplexSession(getApplicationContext());
+            }
+
+            @Override
+            public void release(SimplexEngine engine) {
+                ((SimplexSession)engine).destroy();
+            }
+        }, 1, 1);
         findViewById(R.id.solve_apache_math).setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -47,6 +76,12 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        _simplexSolver.shutdown();
+        super.onDestroy();
+    }
+
     /**
      * Solves the optimization problem using the Apache Math package.
      */
@@ -76,17 +111,66 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Solves the optimization problem using our own RenderScript code.
+     * Solves the optimization problem using our own RenderScript code, on the worker thread of the solver.
      */
     public void solveRenderScript() {
         Log.clear();
         Log.logWithTimeStamp("Started looking for optimal solution with RenderScript...");
-        float[] solution;
-        RenderScript renderScript = RenderScript.create(this);
-        SimplexRS simplexRS = new SimplexRS(renderScript);
-        long startTime = System.currentTimeMillis();
-        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
-        solution = simplexRS.solve(TableauConverter.convertMinimize(objectiveFunction, TestData.getLinearConstraints()), true);
+        final long startTime = System.currentTimeMillis();
+        final LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        final PresolvedProblem problem = new Presolver().presolve(objectiveFunction, TestData.getLinearConstraints(), GoalType.MINIMIZE);
+        if (problem.isInfeasible() || problem.isUnbounded()) {
+            _showRenderScriptSolution(objectiveFunction, problem, null, startTime);
+            return;
+        } else if (problem.isSolved()) {
+            _showRenderScriptSolution(objectiveFunction, problem, problem.postsolve(new float[0]), startTime);
+            return;
+        }
+        float[][] tableau = TableauConverter.convertMinimize(problem.getObjectiveFunction(), problem.getConstraintsWithBounds());
+        SolveLimits limits = new SolveLimits(0, TIME_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            _simplexSolver.solve(tableau, true, limits, new SolveCallback() {
+                @Override
+                public void onSolved(final SimplexResult result) {
+                    runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (result.getStatus() == SolveStatus.TIME_LIMIT) {
+                                Log.logWithTimeStamp("The optimization did not finish within " + TIME_BUDGET_MILLIS + "ms");
+                            }
+                            _showRenderScriptSolution(objectiveFunction, problem, problem.postsolve(result.getSolution()), startTime);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailed(Throwable error) {
+                    runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            _showRenderScriptSolution(objectiveFunction, problem, null, startTime);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.logWithTimeStamp("The previous optimization is still running");
+        }
+    }
+
+    /**
+     * Shows the solution of the RenderScript optimization.
+     *
+     * @param objectiveFunction The objective function of the problem.
+     * @param problem           The presolved problem.
+     * @param solution          The solution of the original problem, or null if there is none.
+     * @param startTime         The time the optimization has been started at.
+     */
+    private void _showRenderScriptSolution(LinearObjectiveFunction objectiveFunction, PresolvedProblem problem, float[] solution, long startTime) {
+        if (isFinishing()) {
+            // The result arrived after the activity has been closed.
+            return;
+        }
         long endTime = System.currentTimeMillis();
         // Very simple way to show how much time it required to finish.
         Toast.makeText(this, String.valueOf(endTime - startTime) + "ms", Toast.LENGTH_LONG).show();
@@ -94,6 +178,7 @@ public class MainActivity extends AppCompatActivity {
             Log.logWithTimeStamp("No solution found");
             return;
         }
+        Log.log("Presolve removed " + problem.getRemovedRowCount() + " constraints and " + problem.getRemovedColumnCount() + " variables");
         float bestPrice = 0;
         for (int i = 0; i < solution.length; ++i) {
             bestPrice += solution[i] * objectiveFunction.getCoefficients().getEntry(i);
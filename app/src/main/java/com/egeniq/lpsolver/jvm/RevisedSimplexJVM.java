@@ -0,0 +1,1820 @@
+package com.egeniq.lpsolver.jvm;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.DenseTableau;
+import com.egeniq.lpsolver.simplex.PricingRule;
+import com.egeniq.lpsolver.simplex.SensitivityReport;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolvePhase;
+import com.egeniq.lpsolver.simplex.SolveStats;
+import com.egeniq.lpsolver.simplex.SolveStatsListener;
+import com.egeniq.lpsolver.simplex.SolveStatsRecorder;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+import com.egeniq.lpsolver.simplex.TableauBuilder;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pure Java implementation of the revised simplex method, for large problems with sparse constraint matrices.
+ * It accepts the same tableaus as {@link SimplexJVM}, but instead of the full tableau with the slack variables,
+ * it only keeps the nonzeros of the constraint matrix, and a factorization of the basis.
+ * <p>
+ * The slack columns of the basis are unit columns, so only the rows which are not covered by a basic slack variable,
+ * and the structural columns of the basis are factorized, with a dense LU decomposition.
+ * After each pivot, the factorization is updated with an eta vector (product form of the inverse),
+ * and it is recreated from scratch after {@link #REFACTORIZATION_INTERVAL} updates, which also limits the rounding errors.
+ * This way an iteration costs time in proportion to the nonzeros and the size of the basis, instead of the whole tableau.
+ * <p>
+ * The final basis of the last solve is kept, so the problem can be re-solved from it,
+ * see {@link #resolveWithObjective(float[])} and {@link #resolveWithRhs(float[])}.
+ * The time spent in each phase of a solve is returned in its result, and passed to the listener set in
+ * {@link #setStatsListener(SolveStatsListener)}.
+ * The optimal results can contain the sensitivity analysis of the final basis, see {@link #setSensitivityAnalysis(boolean)}.
+ * Problems with equality constraints are solved with the two-phase method, see {@link #solveTwoPhase(float[][], Relationship[], boolean)},
+ * which also handles the bounds of the variables without constraint rows, see {@link #solveTwoPhase(float[][], Relationship[], VariableBounds, boolean)}.
+ * Instances are not thread-safe, use one instance per thread.
+ */
+public class RevisedSimplexJVM implements SimplexEngine {
+
+    // When comparing two values, if the difference between them is smaller than epsilon, they are considered equal.
+    private static final double EPSILON = 1.0e-6;
+    // The value below which we treat values as zero.
+    private static final double CUT_OFF = 1.0e-10;
+    // The smallest pivot cell we accept. Larger than the cut off, since the cells are calculated from the factorization.
+    private static final double PIVOT_TOLERANCE = 1.0e-9;
+
+    // After this many eta updates, the basis is factorized again.
+    private static final int REFACTORIZATION_INTERVAL = 50;
+    // After this many degenerate pivots in a row, Bland's rule is used to choose the pivot, until the objective improves again.
+    private static final int DEGENERATE_PIVOT_LIMIT = 10;
+    // Partial pricing splits the columns into this many segments, and only scans until it finds an improving column.
+    private static final int PARTIAL_PRICING_SEGMENTS = 8;
+    // Returned by the ratio test when the entering variable reaches its own upper bound first, so there is nothing to pivot.
+    private static final int BOUND_FLIP = -2;
+
+    private PricingRule _pricingRule = PricingRule.DANTZIG;
+    private boolean _sensitivityAnalysis;
+
+    // The size of the problem, without the objective row and the 'b' vector.
+    private int _constraintCount;
+    private int _variableCount;
+    private boolean _dualProgram;
+    // The amount of variables of the input data. For the two-phase method, the slack columns are stored as variables after these.
+    private int _inputVariableCount;
+    // The amount of columns the pricing rules choose from. The unit columns are the artificial variables of the two-phase method,
+    // which can never enter the basis.
+    private int _pricedColumnCount;
+    // For each constraint row, -1 if the two-phase method has negated it to make its 'b' value non-negative, 1 otherwise.
+    private float[] _rowSigns = new float[0];
+    // If the costs maximize the negated objective function of a minimization problem.
+    private boolean _negatedObjective;
+    // If the variables have bounds. The lower bounds are subtracted from the variables, so each column is between zero
+    // and its upper bound. A column is complemented when its variable is at the upper bound: it is negated, and stands
+    // for the distance to the bound, so the variable can be nonbasic at zero again.
+    private boolean _bounded;
+    private double[] _lowerBounds = new double[0];
+    private double[] _upperBounds = new double[0];
+    private boolean[] _complemented = new boolean[0];
+    // The 'b' vector of the last solve of a bounded problem, the re-solves apply the change to it.
+    private double[] _boundedRhs = new double[0];
+    // If the basic variable at the departing position leaves at its upper bound instead of at zero.
+    private boolean _departingAtUpperBound;
+
+    // The nonzeros of the constraint matrix, column by column. The slack columns are not stored.
+    private int[] _columnStart = new int[1];
+    private int[] _rowIndex = new int[0];
+    private double[] _values = new double[0];
+    // The objective function of the maximization, for each variable. The slack variables have zero cost.
+    private double[] _cost = new double[0];
+    private double[] _rhs = new double[0];
+
+    // For each position of the basis, the index of the column which is in the basis. Slack columns come after the variables.
+    private int[] _basis = new int[0];
+    // For each column, its position in the basis, or -1 if it is not basic.
+    private int[] _basisPosition = new int[0];
+    // The values of the basic variables, for each position of the basis.
+    private double[] _basicValues = new double[0];
+    // The simplex multipliers of the last pricing, for each constraint row.
+    private double[] _multipliers = new double[0];
+    // The reduced costs of the last pricing, for each column. Negative values improve the objective.
+    private double[] _reducedCosts = new double[0];
+    // The reference weights of the devex pricing rule, for each column.
+    private double[] _pricingWeights = new double[0];
+
+    // The basis at the time of the last factorization, the eta vectors are applied on top of this.
+    private int[] _factorBasis = new int[0];
+    // The LU decomposition of the structural part of the basis, with the columns concatenated after each other,
+    // so the solves can skip the columns belonging to zero cells of the vector.
+    private int _factorSize;
+    private double[] _factor = new double[0];
+    // The row swaps of the partial pivoting, for each row of the factor.
+    private int[] _factorPivots = new int[0];
+    // For each row of the factor, the constraint row it belongs to.
+    private int[] _factorRows = new int[0];
+    // For each column of the factor, the basis position it belongs to.
+    private int[] _factorPositions = new int[0];
+    // For each constraint row, its row in the factor, or -1 if it is covered by a basic slack variable.
+    private int[] _factorRowOfRow = new int[0];
+
+    // The eta vectors of the updates since the last factorization. Only the nonzeros are stored.
+    private int _etaCount;
+    private int[] _etaPositions = new int[REFACTORIZATION_INTERVAL];
+    private double[] _etaPivots = new double[REFACTORIZATION_INTERVAL];
+    private int[] _etaStart = new int[REFACTORIZATION_INTERVAL + 1];
+    private int[] _etaIndex = new int[0];
+    private double[] _etaValues = new double[0];
+
+    // Work vectors for the FTRAN and BTRAN operations.
+    private double[] _column = new double[0];
+    private double[] _row = new double[0];
+    private double[] _work = new double[0];
+    private double[] _factorWork = new double[0];
+
+    // If Bland's rule is used instead of the pricing rule, because of degeneracy.
+    private boolean _bland;
+    private int _degeneratePivots;
+    // The segment partial pricing starts the next search with.
+    private int _partialStart;
+    // The amount of pivots done since the start of the current solve.
+    private int _iterations;
+    // If there is a factorized final basis of a solve, which can be used to re-solve from.
+    private boolean _hasFinalBasis;
+    // The time spent in each phase of the current solve.
+    private final SolveStatsRecorder _stats = new SolveStatsRecorder();
+    private SolveStatsListener _statsListener;
+    // The limits of the solves, and the value of System.nanoTime() when the time budget of the current solve runs out.
+    private SolveLimits _limits = SolveLimits.NONE;
+    private long _deadline;
+
+    /**
+     * Sets the rule for choosing the entering column. Dantzig's rule is the default.
+     * The steepest edge rule would need the norm of every column in the current basis, which is too expensive
+     * without the tableau, so it is approximated with the devex rule.
+     *
+     * @param pricingRule The pricing rule to use from the next solve on.
+     */
+    public void setPricingRule(PricingRule pricingRule) {
+        _pricingRule = pricingRule;
+    }
+
+    /**
+     * Sets the limits of the next solves. Besides the time budget, the solver also stops when its thread is interrupted.
+     * When solving a batch, the limits apply to each problem separately.
+     *
+     * @param limits The limits, or {@link SolveLimits#NONE}.
+     */
+    @Override
+    public void setLimits(SolveLimits limits) {
+        _limits = limits;
+    }
+
+    /**
+     * Enables the sensitivity analysis of the optimal solutions. It is disabled by default.
+     * It needs a row and a column of the final tableau for each constraint, calculated from the factorization.
+     * The problems of a batch are never analysed.
+     *
+     * @param enabled True to add a {@link SensitivityReport} to the optimal results.
+     */
+    @Override
+    public void setSensitivityAnalysis(boolean enabled) {
+        _sensitivityAnalysis = enabled;
+    }
+
+    /**
+     * Sets the listener which receives the statistics of each solve.
+     *
+     * @param statsListener The listener, or null to remove it.
+     */
+    public void setStatsListener(SolveStatsListener statsListener) {
+        _statsListener = statsListener;
+    }
+
+    /**
+     * Solves the linear programming problem.
+     *
+     * @param data     The input data. Use the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(float[][] data, boolean minimize) {
+        _startSolve();
+        long time = System.nanoTime();
+        _loadProblem(data, minimize);
+        _stats.record(SolvePhase.CONVERSION, time);
+        return _solveFromSlackBasis();
+    }
+
+    /**
+     * Solves the linear programming problem given as a flat tableau.
+     *
+     * @param tableau  The input data. Use a {@link TableauBuilder} to write the problem straight into it.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(DenseTableau tableau, boolean minimize) {
+        _startSolve();
+        long time = System.nanoTime();
+        _loadProblem(tableau, minimize);
+        _stats.record(SolvePhase.CONVERSION, time);
+        return _solveFromSlackBasis();
+    }
+
+    /**
+     * Solves the linear programming problem given as a sparse tableau.
+     * The nonzeros are copied directly, so the conversion only takes time in proportion to the nonzeros.
+     *
+     * @param tableau  The input data. Use the sparse methods of the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(SparseTableau tableau, boolean minimize) {
+        _startSolve();
+        long time = System.nanoTime();
+        _loadProblem(tableau, minimize);
+        _stats.record(SolvePhase.CONVERSION, time);
+        return _solveFromSlackBasis();
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method. The slack variables of the inequality constraints
+     * are stored as variables, and the unit columns become the artificial variables, so the factorization still only
+     * covers the rows without a basic unit column. The first phase maximizes the negated sum of the artificial variables
+     * of the rows which start without a slack variable, the second phase optimizes the objective function from there.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, boolean minimize) {
+        return solveTwoPhase(data, relationships, null, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method and bounded variables. The lower bounds are
+     * subtracted from the variables when loading the problem. The upper bounds are checked in the ratio test, next to
+     * the basic variables: when the entering variable reaches its upper bound first, its column is complemented instead
+     * of pivoted, and when a basic variable reaches its upper bound, it leaves the basis and its column is complemented
+     * after the pivot. Complementing a nonbasic column does not change the basis, so the factorization stays valid.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, VariableBounds bounds, boolean minimize) {
+        _startSolve();
+        if (bounds != null && bounds.hasEmptyRange()) {
+            SimplexResult result = _finish(new SimplexResult(SolveStatus.INFEASIBLE, null, 0));
+            _hasFinalBasis = false;
+            return result;
+        }
+        long time = System.nanoTime();
+        _loadTwoPhaseProblem(data, relationships, bounds);
+        _negatedObjective = minimize;
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        double largestValue = 0;
+        for (int j = 0; j < _variableCount + _constraintCount; ++j) {
+            _basisPosition[j] = -1;
+        }
+        // Less-or-equal rows start with their slack variable in the basis, the other rows with their artificial variable.
+        // The costs of the first phase are the sum of the rows of the artificial variables, which is the negated sum of
+        // the artificial variables, apart from a constant.
+        Arrays.fill(_cost, 0, _variableCount, 0);
+        for (int i = 0; i < _constraintCount; ++i) {
+            largestValue = Math.max(largestValue, _rhs[i]);
+            int slackColumn = _inputVariableCount + i;
+            boolean hasSlack = _columnStart[slackColumn + 1] > _columnStart[slackColumn];
+            _basis[i] = hasSlack && _values[_columnStart[slackColumn]] > 0 ? slackColumn : _variableCount + i;
+            _basisPosition[_basis[i]] = i;
+        }
+        for (int j = 0; j < _variableCount; ++j) {
+            for (int k = _columnStart[j]; k < _columnStart[j + 1]; ++k) {
+                if (_basis[_rowIndex[k]] >= _variableCount) {
+                    _cost[j] += _values[k];
+                }
+            }
+        }
+        boolean factorized = _refactorize();
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        if (!factorized) {
+            return _finish(new SimplexResult(SolveStatus.FAILED, null, _iterations));
+        }
+        SimplexResult result = _iterate();
+        SolveStatus status = result.getStatus();
+        if (status == SolveStatus.OPTIMAL && _getInfeasibility() > EPSILON * (1 + largestValue)) {
+            status = SolveStatus.INFEASIBLE;
+        }
+        if (status != SolveStatus.OPTIMAL) {
+            // The basis of the first phase is not feasible for the problem, so there is no solution, and nothing to re-solve from.
+            result = _finish(new SimplexResult(status, null, _iterations));
+            _hasFinalBasis = false;
+            return result;
+        }
+        time = System.nanoTime();
+        if (!_driveOutArtificials()) {
+            // Theoretically this should not happen.
+            return _finish(new SimplexResult(SolveStatus.FAILED, null, _iterations));
+        }
+        // The slack variables have zero cost.
+        Arrays.fill(_cost, _inputVariableCount, _variableCount, 0);
+        _setCosts(data[_constraintCount]);
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Calculates how far the basis of the first phase is from being feasible for the problem.
+     *
+     * @return The largest value of an artificial variable in the basis.
+     */
+    private double _getInfeasibility() {
+        double infeasibility = 0;
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_basis[p] >= _variableCount) {
+                infeasibility = Math.max(infeasibility, _basicValues[p]);
+            }
+        }
+        return infeasibility;
+    }
+
+    /**
+     * Pivots the artificial variables which are still in the basis after the first phase out of it.
+     * Their values are zero, so the pivots do not change the solution, even with a negative pivot cell.
+     * If the tableau row of an artificial variable has no nonzero cells in the other columns, the constraint is redundant,
+     * and the artificial variable stays in the basis at zero.
+     *
+     * @return True if everything went fine. False if there was an unexpected problem, the program should abort in this case.
+     */
+    private boolean _driveOutArtificials() {
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_basis[p] < _variableCount) {
+                continue;
+            }
+            _computeTableauRow(p);
+            int enteringColumn = -1;
+            double largest = EPSILON;
+            for (int j = 0; j < _variableCount; ++j) {
+                if (_basisPosition[j] >= 0) {
+                    continue;
+                }
+                double cell = Math.abs(_dot(_row, j));
+                if (cell > largest) {
+                    largest = cell;
+                    enteringColumn = j;
+                }
+            }
+            if (enteringColumn < 0) {
+                continue;
+            }
+            _ftran(enteringColumn);
+            if (!_doPivoting(p, enteringColumn)) {
+                return false;
+            }
+            ++_iterations;
+        }
+        return true;
+    }
+
+    /**
+     * Solves the loaded problem, starting from the basis of the slack variables.
+     * The basis is only feasible if the 'b' value of each constraint row is non-negative.
+     *
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value.
+     */
+    private SimplexResult _solveFromSlackBasis() {
+        for (int i = 0; i < _constraintCount; ++i) {
+            if (_rhs[i] < -CUT_OFF) {
+                // The buffers have been overwritten, so there is nothing to re-solve from either.
+                _hasFinalBasis = false;
+                throw new IllegalArgumentException("Row " + i + " of the tableau has a negative 'b' value, "
+                        + "so the slack variables are not a feasible basis. Use the two-phase method for this problem.");
+            }
+        }
+        long time = System.nanoTime();
+        // The slack variables form the starting basis.
+        for (int j = 0; j < _variableCount; ++j) {
+            _basisPosition[j] = -1;
+        }
+        for (int i = 0; i < _constraintCount; ++i) {
+            _basis[i] = _variableCount + i;
+            _basisPosition[_variableCount + i] = i;
+        }
+        boolean factorized = _refactorize();
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        if (!factorized) {
+            return _finish(new SimplexResult(SolveStatus.FAILED, null, _iterations));
+        }
+        return _finish(_iterate());
+    }
+
+    /**
+     * Solves multiple independent linear programming problems. They are solved one by one,
+     * use {@link SimplexJVM#solveBatch(List, boolean[])} for a better throughput on a lot of small problems.
+     *
+     * @param problems The input data of each problem. Use the {@link TableauConverter} to generate these.
+     * @param minimize For each problem, if it is a minimization problem.
+     * @return The result of each problem, in the same order as the input.
+     */
+    @Override
+    public List<SimplexResult> solveBatch(List<float[][]> problems, boolean[] minimize) {
+        List<SimplexResult> results = new ArrayList<>(problems.size());
+        for (int p = 0; p < problems.size(); ++p) {
+            results.add(solve(problems.get(p), minimize[p]));
+        }
+        return results;
+    }
+
+    /**
+     * Re-solves the last problem with a different objective row, starting from the final basis of the last solve.
+     * Since the basis stays feasible, the primal simplex continues from there, which usually only takes a few pivots.
+     * Note that for dual programs the objective row contains the constraint values of the original problem.
+     *
+     * @param objective The new objective row, in the same format as the last row of the input data.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithObjective(float[] objective) {
+        _checkFinalBasis();
+        _startSolve();
+        long time = System.nanoTime();
+        _setCosts(objective);
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Sets the costs of the variables of the input data.
+     *
+     * @param objective The objective row, in the same format as the last row of the input data.
+     */
+    private void _setCosts(float[] objective) {
+        for (int j = 0; j < _inputVariableCount; ++j) {
+            // The objective row contains the negated objective function.
+            _cost[j] = -objective[j];
+            if (_bounded && _complemented[j]) {
+                // The column stands for the distance to the upper bound.
+                _cost[j] = -_cost[j];
+            }
+        }
+    }
+
+    /**
+     * Re-solves the last problem with a different 'b' vector, starting from the final basis of the last solve.
+     * The basis stays optimal, but it can become infeasible, which is fixed by the dual simplex method.
+     * Note that for dual programs the 'b' vector contains the objective function of the original problem.
+     *
+     * @param rhs The new 'b' vector, in the same format as the last column of the input data, including the objective row.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithRhs(float[] rhs) {
+        _checkFinalBasis();
+        _startSolve();
+        long time = System.nanoTime();
+        for (int i = 0; i < _constraintCount; ++i) {
+            // The rows which the two-phase method has negated get a negated 'b' value as well.
+            // For bounded problems the 'b' vector also contains the bounds, so only the change is applied.
+            if (_bounded) {
+                _rhs[i] += _rowSigns[i] * (rhs[i] - _boundedRhs[i]);
+                _boundedRhs[i] = rhs[i];
+            } else {
+                _rhs[i] = _rowSigns[i] * rhs[i];
+            }
+        }
+        _computeBasicValues();
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_dualSimplex());
+    }
+
+    /**
+     * Re-solves the last problem with different bounds of the variables, starting from the final basis of the last solve,
+     * which has to be a bounded two-phase solve. Moving the bound a column is measured from moves the shifted 'b' vector
+     * by a multiple of the column, so only the basic values change. The basis stays optimal, but it can become infeasible,
+     * which is fixed by the dual simplex method.
+     *
+     * @param bounds The new bounds of the variables.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithBounds(VariableBounds bounds) {
+        _checkFinalBasis();
+        if (!_bounded) {
+            throw new IllegalStateException("The last solve had no bounds to change, solve the problem with bounds first.");
+        }
+        _startSolve();
+        if (bounds.hasEmptyRange()) {
+            // The basis is left as it is, so the next re-solve can still start from it.
+            return _finish(new SimplexResult(SolveStatus.INFEASIBLE, null, 0));
+        }
+        long time = System.nanoTime();
+        for (int j = 0; j < bounds.getVariableCount(); ++j) {
+            double lower = bounds.getLower(j);
+            double range = (double)bounds.getUpper(j) - lower;
+            if (_complemented[j] && range == Double.POSITIVE_INFINITY) {
+                // Without an upper bound the variable has to be measured from its lower bound again.
+                int position = _findBasisPosition(j);
+                if (position < 0) {
+                    _negateColumn(j);
+                } else if (!_complementBasicVariable(position)) {
+                    return _finish(new SimplexResult(SolveStatus.FAILED, null, _iterations));
+                }
+            }
+            double shift = _complemented[j] ? _lowerBounds[j] + _upperBounds[j] - lower - range : lower - _lowerBounds[j];
+            if (shift != 0) {
+                for (int k = _columnStart[j]; k < _columnStart[j + 1]; ++k) {
+                    _rhs[_rowIndex[k]] -= _values[k] * shift;
+                }
+            }
+            _lowerBounds[j] = lower;
+            _upperBounds[j] = range;
+        }
+        _computeBasicValues();
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_dualSimplex());
+    }
+
+    /**
+     * Runs the dual simplex method from the current basis, which has to be dual feasible, until it is feasible again,
+     * and then continues with the primal simplex method.
+     *
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    private SimplexResult _dualSimplex() {
+        long time = System.nanoTime();
+        int iter = 0;
+        while (true) {
+            ++iter;
+            int departingPosition = _findDualDepartingPosition();
+            time = _stats.record(SolvePhase.PRICING, time);
+            if (departingPosition < 0) {
+                // The basis is feasible again, the primal simplex takes care of the rest.
+                return _iterate();
+            }
+            if (_basicValues[departingPosition] > 0 && !_complementBasicVariable(departingPosition)) {
+                // The basic variable is above its upper bound, complementing it makes its distance to the bound negative.
+                return new SimplexResult(SolveStatus.FAILED, null, _iterations);
+            }
+            _computeMultipliers();
+            int enteringColumn = _findDualEnteringColumn(departingPosition);
+            time = _stats.record(SolvePhase.RATIO_TEST, time);
+            if (enteringColumn < 0) {
+                // The row can not become non-negative, so there are no feasible solutions.
+                return new SimplexResult(SolveStatus.INFEASIBLE, null, _iterations);
+            }
+            _ftran(enteringColumn);
+            if (!_doPivoting(departingPosition, enteringColumn)) {
+                // Theoretically this should not happen.
+                return new SimplexResult(SolveStatus.FAILED, null, _iterations);
+            }
+            time = _stats.record(SolvePhase.PIVOT, time);
+            ++_iterations;
+            if (iter > _getIterationLimit()) {
+                // Too many iterations, the current basis is not feasible, so there is no solution.
+                return new SimplexResult(SolveStatus.ITERATION_LIMIT, null, _iterations);
+            }
+            SolveStatus interruption = _checkInterruption();
+            if (interruption != null) {
+                // The current basis is not feasible, so there is no solution.
+                return new SimplexResult(interruption, null, _iterations);
+            }
+        }
+    }
+
+    /**
+     * Runs the primal simplex method from the current basis, which has to be feasible.
+     *
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    private SimplexResult _iterate() {
+        _resetPricing();
+        long time = System.nanoTime();
+        int iter = 0;
+        while (true) {
+            ++iter;
+            _computeMultipliers();
+            // The entering column is chosen by the pricing rule from the columns with a negative reduced cost.
+            int enteringColumn = _bland ? _findBlandColumn() : _findEnteringColumn();
+            time = _stats.record(SolvePhase.PRICING, time);
+            if (enteringColumn < 0) {
+                // If all reduced costs are positive, we have reached the optimal solution.
+                return new SimplexResult(SolveStatus.OPTIMAL, _writeResult(), _iterations);
+            }
+            // The entering column expressed in the current basis.
+            _ftran(enteringColumn);
+            // The departing position is the one with the smallest non-negative ratio.
+            int departingPosition = _findDepartingPosition(enteringColumn);
+            time = _stats.record(SolvePhase.RATIO_TEST, time);
+            if (departingPosition == BOUND_FLIP) {
+                // The entering variable reaches its upper bound before any basic variable reaches one of its bounds,
+                // so it stays nonbasic at the other end of its range.
+                _complementColumn(enteringColumn);
+            } else if (departingPosition < 0) {
+                // The solution is unbound, so we can't find a max possible value.
+                return new SimplexResult(SolveStatus.UNBOUNDED, null, _iterations);
+            } else {
+                _updateDegeneracy(departingPosition);
+                if (_pricingRule == PricingRule.DEVEX || _pricingRule == PricingRule.STEEPEST_EDGE) {
+                    // The weights are updated with the pivot row, which has to be calculated before the basis changes.
+                    _updateDevexWeights(departingPosition, enteringColumn);
+                }
+                int leavingColumn = _basis[departingPosition];
+                boolean leavingAtUpperBound = _departingAtUpperBound;
+                if (!_doPivoting(departingPosition, enteringColumn)) {
+                    // Theoretically this should not happen.
+                    return new SimplexResult(SolveStatus.FAILED, null, _iterations);
+                }
+                if (leavingAtUpperBound) {
+                    // The leaving variable is nonbasic at its upper bound.
+                    _complementColumn(leavingColumn);
+                }
+            }
+            time = _stats.record(SolvePhase.PIVOT, time);
+            ++_iterations;
+            if (iter > _getIterationLimit()) {
+                // Too many iterations, we return the suboptimal result, which is only feasible for maximization problems.
+                return new SimplexResult(SolveStatus.ITERATION_LIMIT, _dualProgram ? null : _writeResult(), _iterations);
+            }
+            SolveStatus interruption = _checkInterruption();
+            if (interruption != null) {
+                // The basis is feasible, but for dual programs the solution is only feasible for the original problem
+                // when it is optimal, so we can only return the current solution of maximization problems.
+                return new SimplexResult(interruption, _dualProgram ? null : _writeResult(), _iterations);
+            }
+        }
+    }
+
+    /**
+     * Resets the counters of the solver at the start of a solve.
+     */
+    private void _startSolve() {
+        _iterations = 0;
+        _stats.reset();
+        _deadline = System.nanoTime() + _limits.getTimeBudgetNanos();
+    }
+
+    /**
+     * @return The iteration limit of the loaded problem, the default limit depends on its size.
+     */
+    private int _getIterationLimit() {
+        return _limits.getIterationLimit(_constraintCount, _inputVariableCount);
+    }
+
+    /**
+     * Checks if the solve has to stop before it could finish.
+     *
+     * @return The status to stop with, or null if the solve can continue.
+     */
+    private SolveStatus _checkInterruption() {
+        if (Thread.currentThread().isInterrupted()) {
+            return SolveStatus.CANCELLED;
+        }
+        // The difference is compared, because the value of System.nanoTime() can overflow.
+        if (_limits.hasTimeBudget() && System.nanoTime() - _deadline >= 0) {
+            return SolveStatus.TIME_LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * Remembers if the basis can be used to re-solve from after this result, and adds the statistics to it,
+     * and the sensitivity analysis if it is enabled and the solution is optimal.
+     *
+     * @param result The result of the solve.
+     * @return The same result, with the statistics of the solve.
+     */
+    private SimplexResult _finish(SimplexResult result) {
+        // After a failed pivot or factorization the basis is broken, in all other cases it is still valid.
+        _hasFinalBasis = result.getStatus() != SolveStatus.FAILED;
+        SensitivityReport sensitivity = null;
+        if (_sensitivityAnalysis && result.getStatus() == SolveStatus.OPTIMAL) {
+            sensitivity = _writeSensitivity();
+        }
+        SolveStats stats = _stats.build(result.getStatus(), result.getIterations());
+        if (_statsListener != null) {
+            _statsListener.onSolveFinished(stats);
+        }
+        return new SimplexResult(result.getStatus(), result.getSolution(), result.getIterations(), stats, sensitivity);
+    }
+
+    /**
+     * Makes sure there is a final basis to re-solve from.
+     */
+    private void _checkFinalBasis() {
+        if (!_hasFinalBasis) {
+            throw new IllegalStateException("There is no final basis to re-solve from, solve the problem first.");
+        }
+    }
+
+    /**
+     * Copies the nonzeros of the input data to the sparse matrix, and sizes the buffers for the problem.
+     * The buffers are kept between the solves, and only grow when a larger problem arrives.
+     *
+     * @param data     The input tableau.
+     * @param minimize If the program is a minimization problem, solved as the dual program.
+     */
+    private void _loadProblem(float[][] data, boolean minimize) {
+        _resize(data.length - 1, data[0].length - 1, minimize);
+        // The matrix is copied column by column, so we first count the nonzeros.
+        int nonZeroCount = 0;
+        for (int i = 0; i < _constraintCount; ++i) {
+            float[] row = data[i];
+            for (int j = 0; j < _variableCount; ++j) {
+                if (row[j] != 0) {
+                    ++nonZeroCount;
+                }
+            }
+        }
+        _ensureNonZeroCapacity(nonZeroCount);
+        int index = 0;
+        for (int j = 0; j < _variableCount; ++j) {
+            _columnStart[j] = index;
+            for (int i = 0; i < _constraintCount; ++i) {
+                float value = data[i][j];
+                if (value != 0) {
+                    _rowIndex[index] = i;
+                    _values[index] = value;
+                    ++index;
+                }
+            }
+            // The objective row contains the negated objective function.
+            _cost[j] = -data[_constraintCount][j];
+        }
+        _columnStart[_variableCount] = index;
+        for (int i = 0; i < _constraintCount; ++i) {
+            _rhs[i] = data[i][_variableCount];
+        }
+    }
+
+    /**
+     * Copies the nonzeros of the flat input data to the sparse matrix, and sizes the buffers for the problem.
+     *
+     * @param tableau  The input tableau.
+     * @param minimize If the program is a minimization problem, solved as the dual program.
+     * @see #_loadProblem(float[][], boolean)
+     */
+    private void _loadProblem(DenseTableau tableau, boolean minimize) {
+        _resize(tableau.getRowCount() - 1, tableau.getColumnCount() - 1, minimize);
+        int inputColumns = tableau.getColumnCount();
+        float[] data = tableau.getValues();
+        // The matrix is copied column by column, so we first count the nonzeros.
+        int nonZeroCount = 0;
+        for (int i = 0; i < _constraintCount; ++i) {
+            int offset = i * inputColumns;
+            for (int j = 0; j < _variableCount; ++j) {
+                if (data[offset + j] != 0) {
+                    ++nonZeroCount;
+                }
+            }
+        }
+        _ensureNonZeroCapacity(nonZeroCount);
+        int index = 0;
+        for (int j = 0; j < _variableCount; ++j) {
+            _columnStart[j] = index;
+            for (int i = 0; i < _constraintCount; ++i) {
+                float value = data[i * inputColumns + j];
+                if (value != 0) {
+                    _rowIndex[index] = i;
+                    _values[index] = value;
+                    ++index;
+                }
+            }
+            // The objective row contains the negated objective function.
+            _cost[j] = -data[_constraintCount * inputColumns + j];
+        }
+        _columnStart[_variableCount] = index;
+        for (int i = 0; i < _constraintCount; ++i) {
+            _rhs[i] = data[i * inputColumns + _variableCount];
+        }
+    }
+
+    /**
+     * Copies the nonzeros of the sparse input data to the sparse matrix, and sizes the buffers for the problem.
+     * The rows are converted to columns by counting the nonzeros of each column first.
+     *
+     * @param tableau  The input tableau.
+     * @param minimize If the program is a minimization problem, solved as the dual program.
+     */
+    private void _loadProblem(SparseTableau tableau, boolean minimize) {
+        _resize(tableau.getRowCount() - 1, tableau.getColumnCount() - 1, minimize);
+        int[] rowStart = tableau.getRowStart();
+        int[] columnIndices = tableau.getColumnIndices();
+        float[] values = tableau.getValues();
+        Arrays.fill(_columnStart, 0, _variableCount + 1, 0);
+        Arrays.fill(_cost, 0, _variableCount, 0);
+        Arrays.fill(_rhs, 0, _constraintCount, 0);
+        for (int k = 0; k < rowStart[_constraintCount]; ++k) {
+            if (columnIndices[k] < _variableCount) {
+                _columnStart[columnIndices[k] + 1]++;
+            }
+        }
+        for (int j = 0; j < _variableCount; ++j) {
+            _columnStart[j + 1] += _columnStart[j];
+        }
+        _ensureNonZeroCapacity(_columnStart[_variableCount]);
+        // The next free index of each column, the column starts are restored afterwards.
+        for (int i = 0; i < _constraintCount; ++i) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                int column = columnIndices[k];
+                if (column == _variableCount) {
+                    _rhs[i] = values[k];
+                } else {
+                    int index = _columnStart[column]++;
+                    _rowIndex[index] = i;
+                    _values[index] = values[k];
+                }
+            }
+        }
+        for (int j = _variableCount; j > 0; --j) {
+            _columnStart[j] = _columnStart[j - 1];
+        }
+        _columnStart[0] = 0;
+        for (int k = rowStart[_constraintCount]; k < rowStart[_constraintCount + 1]; ++k) {
+            if (columnIndices[k] < _variableCount) {
+                // The objective row contains the negated objective function.
+                _cost[columnIndices[k]] = -values[k];
+            }
+        }
+    }
+
+    /**
+     * Copies the nonzeros of the input data of the two-phase method to the sparse matrix, followed by a slack column
+     * for each inequality constraint. The lower bounds of the variables are subtracted from the 'b' values first.
+     * Rows with a negative 'b' value are negated, so the starting basis is non-negative, and the relationship
+     * of their constraint is reversed.
+     *
+     * @param data          The input tableau.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     */
+    private void _loadTwoPhaseProblem(float[][] data, Relationship[] relationships, VariableBounds bounds) {
+        int inputVariableCount = data[0].length - 1;
+        _resize(data.length - 1, inputVariableCount + data.length - 1, false);
+        _inputVariableCount = inputVariableCount;
+        _pricedColumnCount = _variableCount;
+        if (bounds != null) {
+            _loadBounds(bounds, data);
+        }
+        int nonZeroCount = _constraintCount;
+        for (int i = 0; i < _constraintCount; ++i) {
+            float[] row = data[i];
+            double value = row[_inputVariableCount];
+            for (int j = 0; j < _inputVariableCount; ++j) {
+                if (row[j] != 0) {
+                    ++nonZeroCount;
+                    if (_bounded) {
+                        value -= row[j] * _lowerBounds[j];
+                    }
+                }
+            }
+            if (value < 0) {
+                _rowSigns[i] = -1;
+            }
+            _rhs[i] = _rowSigns[i] * value;
+        }
+        _ensureNonZeroCapacity(nonZeroCount);
+        int index = 0;
+        for (int j = 0; j < _inputVariableCount; ++j) {
+            _columnStart[j] = index;
+            for (int i = 0; i < _constraintCount; ++i) {
+                float value = data[i][j];
+                if (value != 0) {
+                    _rowIndex[index] = i;
+                    _values[index] = _rowSigns[i] * value;
+                    ++index;
+                }
+            }
+        }
+        for (int i = 0; i < _constraintCount; ++i) {
+            _columnStart[_inputVariableCount + i] = index;
+            // Equality constraints have no slack variable, their column stays empty.
+            if (relationships[i] != Relationship.EQ) {
+                boolean lessOrEqual = (relationships[i] == Relationship.LEQ) == (_rowSigns[i] > 0);
+                _rowIndex[index] = i;
+                _values[index] = lessOrEqual ? 1 : -1;
+                ++index;
+            }
+        }
+        _columnStart[_variableCount] = index;
+    }
+
+    /**
+     * Copies the bounds of the variables, as the ranges of the columns. The slack and unit columns are non-negative
+     * without upper bound.
+     *
+     * @param bounds The bounds of the variables.
+     * @param data   The input tableau, of which the 'b' vector is kept for the re-solves.
+     */
+    private void _loadBounds(VariableBounds bounds, float[][] data) {
+        int variableCount = bounds.getVariableCount();
+        int columnCount = _variableCount + _constraintCount;
+        _bounded = true;
+        if (_upperBounds.length < columnCount) {
+            _lowerBounds = new double[columnCount];
+            _upperBounds = new double[columnCount];
+            _complemented = new boolean[columnCount];
+        }
+        if (_boundedRhs.length < _constraintCount) {
+            _boundedRhs = new double[_constraintCount];
+        }
+        for (int j = 0; j < variableCount; ++j) {
+            _lowerBounds[j] = bounds.getLower(j);
+            _upperBounds[j] = (double)bounds.getUpper(j) - bounds.getLower(j);
+        }
+        Arrays.fill(_lowerBounds, variableCount, columnCount, 0);
+        Arrays.fill(_upperBounds, variableCount, columnCount, Double.POSITIVE_INFINITY);
+        Arrays.fill(_complemented, 0, columnCount, false);
+        for (int i = 0; i < _constraintCount; ++i) {
+            _boundedRhs[i] = data[i][data[i].length - 1];
+        }
+    }
+
+    /**
+     * Sets the size of the problem, and grows the buffers if they are too small for it.
+     * The buffers are kept between the solves, and only grow when a larger problem arrives.
+     *
+     * @param constraintCount The amount of constraint rows.
+     * @param variableCount   The amount of variables.
+     * @param minimize        If the program is a minimization problem, solved as the dual program.
+     */
+    private void _resize(int constraintCount, int variableCount, boolean minimize) {
+        _constraintCount = constraintCount;
+        _variableCount = variableCount;
+        _dualProgram = minimize;
+        _inputVariableCount = variableCount;
+        _pricedColumnCount = variableCount + constraintCount;
+        _negatedObjective = false;
+        _bounded = false;
+        int columnCount = _variableCount + _constraintCount;
+        if (_columnStart.length < _variableCount + 1) {
+            _columnStart = new int[_variableCount + 1];
+        }
+        if (_cost.length < _variableCount) {
+            _cost = new double[_variableCount];
+        }
+        if (_basisPosition.length < columnCount) {
+            _basisPosition = new int[columnCount];
+            _reducedCosts = new double[columnCount];
+            _pricingWeights = new double[columnCount];
+        }
+        if (_rhs.length < _constraintCount) {
+            _rhs = new double[_constraintCount];
+            _basis = new int[_constraintCount];
+            _basicValues = new double[_constraintCount];
+            _multipliers = new double[_constraintCount];
+            _column = new double[_constraintCount];
+            _row = new double[_constraintCount];
+            _work = new double[_constraintCount];
+            _factorWork = new double[_constraintCount];
+            _factorBasis = new int[_constraintCount];
+            _factorPivots = new int[_constraintCount];
+            _factorRows = new int[_constraintCount];
+            _factorPositions = new int[_constraintCount];
+            _factorRowOfRow = new int[_constraintCount];
+            _rowSigns = new float[_constraintCount];
+        }
+        Arrays.fill(_rowSigns, 0, _constraintCount, 1);
+    }
+
+    /**
+     * Makes sure the sparse matrix can hold the given amount of nonzeros.
+     *
+     * @param nonZeroCount The amount of nonzeros of the constraint matrix.
+     */
+    private void _ensureNonZeroCapacity(int nonZeroCount) {
+        if (_values.length < nonZeroCount) {
+            _rowIndex = new int[nonZeroCount];
+            _values = new double[nonZeroCount];
+        }
+    }
+
+    /**
+     * Factorizes the current basis from scratch, and recalculates the values of the basic variables.
+     *
+     * @return True if everything went fine. False if the basis is singular, the program should abort in this case.
+     */
+    private boolean _refactorize() {
+        _etaCount = 0;
+        System.arraycopy(_basis, 0, _factorBasis, 0, _constraintCount);
+        // The rows which are covered by a basic slack variable are not part of the factor.
+        Arrays.fill(_factorRowOfRow, 0, _constraintCount, 0);
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_basis[p] >= _variableCount) {
+                _factorRowOfRow[_basis[p] - _variableCount] = -1;
+            }
+        }
+        int size = 0;
+        for (int i = 0; i < _constraintCount; ++i) {
+            if (_factorRowOfRow[i] == 0) {
+                _factorRowOfRow[i] = size;
+                _factorRows[size] = i;
+                ++size;
+            }
+        }
+        int columnCount = 0;
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_basis[p] < _variableCount) {
+                _factorPositions[columnCount++] = p;
+            }
+        }
+        if (columnCount != size) {
+            // A slack variable is in the basis twice, which can not happen with a valid basis.
+            return false;
+        }
+        _factorSize = size;
+        if (_factor.length < size * size) {
+            _factor = new double[size * size];
+        }
+        Arrays.fill(_factor, 0, size * size, 0);
+        for (int c = 0; c < size; ++c) {
+            int column = _basis[_factorPositions[c]];
+            for (int k = _columnStart[column]; k < _columnStart[column + 1]; ++k) {
+                int factorRow = _factorRowOfRow[_rowIndex[k]];
+                if (factorRow >= 0) {
+                    _factor[c * size + factorRow] = _values[k];
+                }
+            }
+        }
+        // LU decomposition with partial pivoting, the multipliers of L are stored below the diagonal of U.
+        for (int c = 0; c < size; ++c) {
+            int pivotColumnOffset = c * size;
+            int pivotRow = c;
+            double largest = Math.abs(_factor[pivotColumnOffset + c]);
+            for (int r = c + 1; r < size; ++r) {
+                double value = Math.abs(_factor[pivotColumnOffset + r]);
+                if (value > largest) {
+                    largest = value;
+                    pivotRow = r;
+                }
+            }
+            if (largest <= CUT_OFF) {
+                return false;
+            }
+            _factorPivots[c] = pivotRow;
+            if (pivotRow != c) {
+                for (int k = 0; k < size; ++k) {
+                    double swap = _factor[k * size + c];
+                    _factor[k * size + c] = _factor[k * size + pivotRow];
+                    _factor[k * size + pivotRow] = swap;
+                }
+            }
+            double pivot = _factor[pivotColumnOffset + c];
+            for (int r = c + 1; r < size; ++r) {
+                _factor[pivotColumnOffset + r] /= pivot;
+            }
+            for (int k = c + 1; k < size; ++k) {
+                int columnOffset = k * size;
+                double multiplier = _factor[columnOffset + c];
+                if (multiplier == 0) {
+                    continue;
+                }
+                for (int r = c + 1; r < size; ++r) {
+                    _factor[columnOffset + r] -= multiplier * _factor[pivotColumnOffset + r];
+                }
+            }
+        }
+        _computeBasicValues();
+        return true;
+    }
+
+    /**
+     * Calculates the values of the basic variables from the 'b' vector, with the current factorization.
+     */
+    private void _computeBasicValues() {
+        System.arraycopy(_rhs, 0, _column, 0, _constraintCount);
+        _solveBasis(_column);
+        System.arraycopy(_column, 0, _basicValues, 0, _constraintCount);
+    }
+
+    /**
+     * Expresses a column of the constraint matrix in the current basis (FTRAN). The result is written to the column buffer,
+     * for each position of the basis.
+     *
+     * @param column The index of the column, slack columns come after the variables.
+     */
+    private void _ftran(int column) {
+        Arrays.fill(_column, 0, _constraintCount, 0);
+        if (column >= _variableCount) {
+            _column[column - _variableCount] = 1;
+        } else {
+            for (int k = _columnStart[column]; k < _columnStart[column + 1]; ++k) {
+                _column[_rowIndex[k]] = _values[k];
+            }
+        }
+        _solveBasis(_column);
+    }
+
+    /**
+     * Solves B x = v in place, where B is the current basis.
+     *
+     * @param vector The vector v, for each constraint row. Overwritten with x, for each position of the basis.
+     */
+    private void _solveBasis(double[] vector) {
+        // Solve the factor with the rows which are not covered by slack variables.
+        for (int r = 0; r < _factorSize; ++r) {
+            _factorWork[r] = vector[_factorRows[r]];
+        }
+        _solveFactor(_factorWork);
+        System.arraycopy(vector, 0, _work, 0, _constraintCount);
+        for (int c = 0; c < _factorSize; ++c) {
+            int position = _factorPositions[c];
+            double value = _factorWork[c];
+            vector[position] = value;
+            if (value == 0) {
+                continue;
+            }
+            // The basic slack variables take up the rest of their row.
+            int column = _factorBasis[position];
+            for (int k = _columnStart[column]; k < _columnStart[column + 1]; ++k) {
+                _work[_rowIndex[k]] -= _values[k] * value;
+            }
+        }
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_factorBasis[p] >= _variableCount) {
+                vector[p] = _work[_factorBasis[p] - _variableCount];
+            }
+        }
+        // Apply the updates since the last factorization, in order.
+        for (int e = 0; e < _etaCount; ++e) {
+            int position = _etaPositions[e];
+            double value = vector[position] / _etaPivots[e];
+            vector[position] = value;
+            if (value == 0) {
+                continue;
+            }
+            for (int k = _etaStart[e]; k < _etaStart[e + 1]; ++k) {
+                vector[_etaIndex[k]] -= _etaValues[k] * value;
+            }
+        }
+    }
+
+    /**
+     * Solves y B = w in place, where B is the current basis (BTRAN).
+     *
+     * @param vector The vector w, for each position of the basis. Overwritten with y, for each constraint row.
+     */
+    private void _solveBasisTransposed(double[] vector) {
+        // Apply the updates since the last factorization, in reverse order.
+        for (int e = _etaCount - 1; e >= 0; --e) {
+            int position = _etaPositions[e];
+            double value = vector[position];
+            for (int k = _etaStart[e]; k < _etaStart[e + 1]; ++k) {
+                value -= _etaValues[k] * vector[_etaIndex[k]];
+            }
+            vector[position] = value / _etaPivots[e];
+        }
+        System.arraycopy(vector, 0, _work, 0, _constraintCount);
+        // The rows covered by a slack variable get the value of its position directly.
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_factorBasis[p] >= _variableCount) {
+                vector[_factorBasis[p] - _variableCount] = _work[p];
+            }
+        }
+        for (int c = 0; c < _factorSize; ++c) {
+            int column = _factorBasis[_factorPositions[c]];
+            double value = _work[_factorPositions[c]];
+            for (int k = _columnStart[column]; k < _columnStart[column + 1]; ++k) {
+                if (_factorRowOfRow[_rowIndex[k]] < 0) {
+                    value -= _values[k] * vector[_rowIndex[k]];
+                }
+            }
+            _factorWork[c] = value;
+        }
+        _solveFactorTransposed(_factorWork);
+        for (int r = 0; r < _factorSize; ++r) {
+            vector[_factorRows[r]] = _factorWork[r];
+        }
+    }
+
+    /**
+     * Solves F x = v in place, where F is the factorized part of the basis.
+     *
+     * @param vector The vector v, overwritten with x.
+     */
+    private void _solveFactor(double[] vector) {
+        int size = _factorSize;
+        for (int c = 0; c < size; ++c) {
+            int pivotRow = _factorPivots[c];
+            if (pivotRow != c) {
+                double swap = vector[c];
+                vector[c] = vector[pivotRow];
+                vector[pivotRow] = swap;
+            }
+        }
+        for (int c = 0; c < size; ++c) {
+            double value = vector[c];
+            if (value == 0) {
+                continue;
+            }
+            int columnOffset = c * size;
+            for (int r = c + 1; r < size; ++r) {
+                vector[r] -= _factor[columnOffset + r] * value;
+            }
+        }
+        for (int c = size - 1; c >= 0; --c) {
+            if (vector[c] == 0) {
+                continue;
+            }
+            int columnOffset = c * size;
+            double value = vector[c] / _factor[columnOffset + c];
+            vector[c] = value;
+            for (int r = 0; r < c; ++r) {
+                vector[r] -= _factor[columnOffset + r] * value;
+            }
+        }
+    }
+
+    /**
+     * Solves x F = v in place, where F is the factorized part of the basis.
+     *
+     * @param vector The vector v, overwritten with x.
+     */
+    private void _solveFactorTransposed(double[] vector) {
+        int size = _factorSize;
+        for (int c = 0; c < size; ++c) {
+            int columnOffset = c * size;
+            double value = vector[c];
+            for (int k = 0; k < c; ++k) {
+                value -= _factor[columnOffset + k] * vector[k];
+            }
+            vector[c] = value / _factor[columnOffset + c];
+        }
+        for (int c = size - 1; c >= 0; --c) {
+            int columnOffset = c * size;
+            double value = vector[c];
+            for (int k = c + 1; k < size; ++k) {
+                value -= _factor[columnOffset + k] * vector[k];
+            }
+            vector[c] = value;
+        }
+        for (int c = size - 1; c >= 0; --c) {
+            int pivotRow = _factorPivots[c];
+            if (pivotRow != c) {
+                double swap = vector[c];
+                vector[c] = vector[pivotRow];
+                vector[pivotRow] = swap;
+            }
+        }
+    }
+
+    /**
+     * Calculates the simplex multipliers of the current basis, and the reduced costs of the nonbasic columns.
+     */
+    private void _computeMultipliers() {
+        for (int p = 0; p < _constraintCount; ++p) {
+            _multipliers[p] = _basis[p] < _variableCount ? _cost[_basis[p]] : 0;
+        }
+        _solveBasisTransposed(_multipliers);
+        for (int j = 0; j < _variableCount + _constraintCount; ++j) {
+            if (_basisPosition[j] >= 0 || j >= _pricedColumnCount) {
+                _reducedCosts[j] = 0;
+            } else {
+                _reducedCosts[j] = _dot(_multipliers, j) - (j < _variableCount ? _cost[j] : 0);
+            }
+        }
+    }
+
+    /**
+     * Calculates the dot product of a vector and a column of the constraint matrix.
+     *
+     * @param vector The vector, for each constraint row.
+     * @param column The index of the column, slack columns come after the variables.
+     * @return The dot product.
+     */
+    private double _dot(double[] vector, int column) {
+        if (column >= _variableCount) {
+            return vector[column - _variableCount];
+        }
+        double result = 0;
+        for (int k = _columnStart[column]; k < _columnStart[column + 1]; ++k) {
+            result += _values[k] * vector[_rowIndex[k]];
+        }
+        return result;
+    }
+
+    /**
+     * Calculates a row of the current tableau into the row buffer, for each constraint row.
+     * The cell of a column in the tableau row is the dot product of the buffer and the column.
+     *
+     * @param position The position of the basis which the row belongs to.
+     */
+    private void _computeTableauRow(int position) {
+        Arrays.fill(_row, 0, _constraintCount, 0);
+        _row[position] = 1;
+        _solveBasisTransposed(_row);
+    }
+
+    /**
+     * Resets the state of the pricing rule before running the primal simplex method.
+     */
+    private void _resetPricing() {
+        _bland = false;
+        _degeneratePivots = 0;
+        _partialStart = 0;
+        // The reference framework starts with the current nonbasic columns.
+        Arrays.fill(_pricingWeights, 0, _variableCount + _constraintCount, 1);
+    }
+
+    /**
+     * Switches to Bland's rule after too many degenerate pivots in a row, and back when the objective improves again.
+     *
+     * @param departingPosition The departing position of the next pivot, with the entering column in the column buffer.
+     */
+    private void _updateDegeneracy(int departingPosition) {
+        double step = _basicValues[departingPosition] / _column[departingPosition];
+        if (_departingAtUpperBound) {
+            double range = _upperBounds[_basis[departingPosition]];
+            step = (range - _basicValues[departingPosition]) / -_column[departingPosition];
+        }
+        if (step < EPSILON) {
+            ++_degeneratePivots;
+            _bland = _bland || _degeneratePivots >= DEGENERATE_PIVOT_LIMIT;
+        } else {
+            _degeneratePivots = 0;
+            _bland = false;
+        }
+    }
+
+    /**
+     * Finds the entering column with the pricing rule.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findEnteringColumn() {
+        switch (_pricingRule) {
+            case DEVEX:
+            case STEEPEST_EDGE:
+                return _findWeightedColumn();
+            case PARTIAL:
+                return _findPartialColumn();
+            default:
+                return _findMostNegativeColumn(0, _pricedColumnCount);
+        }
+    }
+
+    /**
+     * Finds the column with the most negative reduced cost in a range of the columns.
+     *
+     * @param fromColumn The first column to check, inclusive.
+     * @param toColumn   The last column to check, exclusive.
+     * @return The column index of the most negative column, or -1 if there are no negative columns in the range.
+     */
+    private int _findMostNegativeColumn(int fromColumn, int toColumn) {
+        int enteringColumn = -1;
+        double lowest = -CUT_OFF;
+        for (int j = fromColumn; j < toColumn; ++j) {
+            if (_reducedCosts[j] < lowest) {
+                lowest = _reducedCosts[j];
+                enteringColumn = j;
+            }
+        }
+        return enteringColumn;
+    }
+
+    /**
+     * Finds the entering column by Bland's rule, which is the first column with a negative reduced cost.
+     * Slower than the other rules, but it can not cycle.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findBlandColumn() {
+        for (int j = 0; j < _pricedColumnCount; ++j) {
+            if (_reducedCosts[j] < -CUT_OFF) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the entering column by partial pricing. The columns are split into segments, and only the segments
+     * until the first one containing a negative reduced cost are scanned. The next search continues with the segment after that one.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findPartialColumn() {
+        int columnCount = _pricedColumnCount;
+        int segmentSize = (columnCount + PARTIAL_PRICING_SEGMENTS - 1) / PARTIAL_PRICING_SEGMENTS;
+        for (int s = 0; s < PARTIAL_PRICING_SEGMENTS; ++s) {
+            int segment = (_partialStart + s) % PARTIAL_PRICING_SEGMENTS;
+            int enteringColumn = _findMostNegativeColumn(segment * segmentSize, Math.min((segment + 1) * segmentSize, columnCount));
+            if (enteringColumn >= 0) {
+                _partialStart = (segment + 1) % PARTIAL_PRICING_SEGMENTS;
+                return enteringColumn;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the entering column by the devex rule, which is the column with the largest squared reduced cost
+     * relative to its reference weight.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findWeightedColumn() {
+        int enteringColumn = -1;
+        double bestScore = 0;
+        for (int j = 0; j < _pricedColumnCount; ++j) {
+            double value = _reducedCosts[j];
+            if (value >= -CUT_OFF) {
+                continue;
+            }
+            double score = value * value / _pricingWeights[j];
+            if (score > bestScore) {
+                bestScore = score;
+                enteringColumn = j;
+            }
+        }
+        return enteringColumn;
+    }
+
+    /**
+     * Updates the devex reference weights with the pivot row, before pivoting.
+     *
+     * @param departingPosition The departing position, with the entering column in the column buffer.
+     * @param enteringColumn    The entering column.
+     */
+    private void _updateDevexWeights(int departingPosition, int enteringColumn) {
+        _computeTableauRow(departingPosition);
+        double pivot = _column[departingPosition];
+        double enteringWeight = _pricingWeights[enteringColumn];
+        for (int j = 0; j < _variableCount + _constraintCount; ++j) {
+            if (_basisPosition[j] >= 0) {
+                continue;
+            }
+            double ratio = _dot(_row, j) / pivot;
+            _pricingWeights[j] = Math.max(_pricingWeights[j], ratio * ratio * enteringWeight);
+        }
+        int leavingColumn = _basis[departingPosition];
+        _pricingWeights[leavingColumn] = Math.max(enteringWeight / (pivot * pivot), 1);
+        _pricingWeights[enteringColumn] = 1;
+    }
+
+    /**
+     * Finds the departing position, which is the one with the smallest non-negative ratio: basic value / pivot cell.
+     * Only positions with a positive cell in the entering column are considered.
+     * When using Bland's rule, ties are broken by choosing the position with the smallest basis column.
+     * For bounded problems, the positions with a negative cell are considered as well, their basic variable increases
+     * until it reaches its upper bound. If the entering variable reaches its own upper bound first, no position departs.
+     *
+     * @param enteringColumn The entering column, which is in the column buffer.
+     * @return The departing position, {@link #BOUND_FLIP} if the entering variable reaches its upper bound first,
+     * or -1 if the solution is unbound.
+     */
+    private int _findDepartingPosition(int enteringColumn) {
+        int departingPosition = -1;
+        double smallestRatio = Double.MAX_VALUE;
+        _departingAtUpperBound = false;
+        for (int p = 0; p < _constraintCount; ++p) {
+            double cell = _column[p];
+            double ratio;
+            boolean atUpperBound = false;
+            // Rounding errors can make the basic values slightly negative, or slightly above their upper bound.
+            if (cell > PIVOT_TOLERANCE) {
+                ratio = Math.max(_basicValues[p], 0) / cell;
+            } else if (_bounded && cell < -PIVOT_TOLERANCE && _upperBounds[_basis[p]] != Double.POSITIVE_INFINITY) {
+                ratio = Math.max(_upperBounds[_basis[p]] - _basicValues[p], 0) / -cell;
+                atUpperBound = true;
+            } else {
+                continue;
+            }
+            if (ratio < smallestRatio ||
+                    (_bland && Math.abs(ratio - smallestRatio) < EPSILON && _basis[p] < _basis[departingPosition])) {
+                smallestRatio = ratio;
+                departingPosition = p;
+                _departingAtUpperBound = atUpperBound;
+            }
+        }
+        if (_bounded && _upperBounds[enteringColumn] <= smallestRatio) {
+            return BOUND_FLIP;
+        }
+        return departingPosition;
+    }
+
+    /**
+     * Finds the departing position of the dual simplex method, which is the one with the most negative basic value.
+     * For bounded problems, a basic value above its upper bound counts as negative as well, by the amount it exceeds the bound.
+     *
+     * @return The departing position, or -1 if all basic values are non-negative.
+     */
+    private int _findDualDepartingPosition() {
+        int departingPosition = -1;
+        double lowest = -EPSILON;
+        for (int p = 0; p < _constraintCount; ++p) {
+            double value = _basicValues[p];
+            if (_bounded) {
+                value = Math.min(value, _upperBounds[_basis[p]] - value);
+            }
+            if (value < lowest) {
+                lowest = value;
+                departingPosition = p;
+            }
+        }
+        return departingPosition;
+    }
+
+    /**
+     * @param column The index of the column.
+     * @return The position of the column in the basis, or -1 if it is nonbasic.
+     */
+    private int _findBasisPosition(int column) {
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (_basis[p] == column) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Complements a nonbasic column of a bounded problem: the column stands for the distance of its variable to the
+     * upper bound from now on, or to the lower bound again. The 'b' vector takes the variable at the other end of its range,
+     * which changes the basic values, but not the basis.
+     *
+     * @param column The nonbasic column to complement.
+     */
+    private void _complementColumn(int column) {
+        _negateColumn(column);
+        _computeBasicValues();
+    }
+
+    /**
+     * Complements the basic variable at a position of a bounded problem. This negates a column of the basis,
+     * so the basis is factorized again.
+     *
+     * @param position The position of the basic variable.
+     * @return True if everything went fine. False if the basis is singular, the program should abort in this case.
+     */
+    private boolean _complementBasicVariable(int position) {
+        _negateColumn(_basis[position]);
+        return _refactorize();
+    }
+
+    /**
+     * Negates a column of a bounded problem, and moves its variable to the other end of its range in the 'b' vector.
+     *
+     * @param column The column to negate, one of the variables of the input data.
+     */
+    private void _negateColumn(int column) {
+        double range = _upperBounds[column];
+        for (int k = _columnStart[column]; k < _columnStart[column + 1]; ++k) {
+            _rhs[_rowIndex[k]] -= _values[k] * range;
+            _values[k] = -_values[k];
+        }
+        _cost[column] = -_cost[column];
+        _complemented[column] = !_complemented[column];
+    }
+
+    /**
+     * Finds the entering column of the dual simplex method, which is the column with the smallest ratio:
+     * reduced cost / -pivot cell, where the pivot cells are the negative cells of the tableau row of the departing position.
+     * This keeps the reduced costs non-negative.
+     *
+     * @param departingPosition The departing position, which has a negative basic value.
+     * @return The column index of the entering column, or -1 if there are no feasible solutions.
+     */
+    private int _findDualEnteringColumn(int departingPosition) {
+        _computeTableauRow(departingPosition);
+        int enteringColumn = -1;
+        double smallestRatio = Double.MAX_VALUE;
+        for (int j = 0; j < _pricedColumnCount; ++j) {
+            if (_basisPosition[j] >= 0) {
+                continue;
+            }
+            double cell = _dot(_row, j);
+            if (cell >= -PIVOT_TOLERANCE) {
+                continue;
+            }
+            double ratio = Math.max(_reducedCosts[j], 0) / -cell;
+            if (ratio < smallestRatio) {
+                smallestRatio = ratio;
+                enteringColumn = j;
+            }
+        }
+        return enteringColumn;
+    }
+
+    /**
+     * Replaces the basic variable at the departing position with the entering column, which is in the column buffer.
+     * The basic values are updated, and the factorization is updated with an eta vector, or factorized again.
+     *
+     * @param departingPosition The departing position.
+     * @param enteringColumn    The entering column.
+     * @return True if everything went fine. False if there was an unexpected problem, the program should abort in this case.
+     */
+    private boolean _doPivoting(int departingPosition, int enteringColumn) {
+        double pivot = _column[departingPosition];
+        // The pivot is positive for the primal simplex, and negative for the dual simplex.
+        if (Math.abs(pivot) <= CUT_OFF) {
+            return false;
+        }
+        double step = _basicValues[departingPosition] / pivot;
+        for (int p = 0; p < _constraintCount; ++p) {
+            _basicValues[p] -= step * _column[p];
+        }
+        _basicValues[departingPosition] = step;
+        _basisPosition[_basis[departingPosition]] = -1;
+        _basisPosition[enteringColumn] = departingPosition;
+        _basis[departingPosition] = enteringColumn;
+        if (_etaCount == REFACTORIZATION_INTERVAL) {
+            return _refactorize();
+        }
+        _addEta(departingPosition, pivot);
+        return true;
+    }
+
+    /**
+     * Stores the entering column in the column buffer as an eta vector, which updates the factorization with the last pivot.
+     *
+     * @param departingPosition The position the entering column has replaced.
+     * @param pivot             The pivot cell.
+     */
+    private void _addEta(int departingPosition, double pivot) {
+        int start = _etaStart[_etaCount];
+        int end = start;
+        if (_etaIndex.length < start + _constraintCount) {
+            int capacity = Math.max(2 * _etaIndex.length, start + _constraintCount);
+            _etaIndex = Arrays.copyOf(_etaIndex, capacity);
+            _etaValues = Arrays.copyOf(_etaValues, capacity);
+        }
+        for (int p = 0; p < _constraintCount; ++p) {
+            if (p != departingPosition && _column[p] != 0) {
+                _etaIndex[end] = p;
+                _etaValues[end] = _column[p];
+                ++end;
+            }
+        }
+        _etaPositions[_etaCount] = departingPosition;
+        _etaPivots[_etaCount] = pivot;
+        ++_etaCount;
+        _etaStart[_etaCount] = end;
+    }
+
+    /**
+     * Reads out the final values from the basis.
+     *
+     * @return The solution vector. For dual programs, this contains the slack variable solutions.
+     */
+    private float[] _writeResult() {
+        long time = System.nanoTime();
+        float[] result;
+        if (_dualProgram) {
+            // The reduced costs of the slack variables are the solutions of the dual program.
+            result = new float[_constraintCount];
+            for (int i = 0; i < _constraintCount; ++i) {
+                result[i] = (float)_multipliers[i];
+            }
+        } else {
+            // Non-basic variables are zero.
+            result = new float[_inputVariableCount];
+            if (_bounded) {
+                for (int j = 0; j < _inputVariableCount; ++j) {
+                    result[j] = (float)_getVariableValue(j, 0);
+                }
+            }
+            for (int p = 0; p < _constraintCount; ++p) {
+                if (_basis[p] < _inputVariableCount) {
+                    result[_basis[p]] = (float)_getVariableValue(_basis[p], _basicValues[p]);
+                }
+            }
+        }
+        _stats.record(SolvePhase.READBACK, time);
+        return result;
+    }
+
+    /**
+     * Calculates the value of a variable from the value of its column.
+     *
+     * @param column      The column of the variable.
+     * @param columnValue The value of the column, zero for nonbasic columns.
+     * @return The value of the variable. For bounded problems, the column stands for the distance to the lower bound,
+     * or to the upper bound when it is complemented.
+     */
+    private double _getVariableValue(int column, double columnValue) {
+        if (!_bounded) {
+            return columnValue;
+        }
+        double distance = _complemented[column] ? _upperBounds[column] - columnValue : columnValue;
+        return _lowerBounds[column] + distance;
+    }
+
+    /**
+     * Calculates the sensitivity analysis of the final basis, in the same layout as the tableau solvers.
+     * The multipliers and reduced costs are still the ones of the optimality check.
+     * For the two-phase method, the unit columns are analysed instead of the slack columns, like the tableau solvers do.
+     * The complemented columns of bounded problems are mirrored, and the basic values are limited by their upper bounds too.
+     *
+     * @return The analysis of the original problem.
+     */
+    private SensitivityReport _writeSensitivity() {
+        long time = System.nanoTime();
+        int columnCount = _inputVariableCount + _constraintCount;
+        float[] analysis = new float[SensitivityReport.getTableauSize(_constraintCount + 1, _inputVariableCount + 1)];
+        // The nonbasic columns are zero, and their objective coefficient can decrease without limit.
+        // It can increase until their reduced cost becomes negative. The reduced cost of a unit column is its multiplier.
+        for (int a = 0; a < columnCount; ++a) {
+            double reducedCost = a < _inputVariableCount ? _reducedCosts[a] : _multipliers[a - _inputVariableCount];
+            if (a < _inputVariableCount) {
+                analysis[a] = (float)_getVariableValue(a, 0);
+            }
+            if (_bounded && a < _inputVariableCount && _complemented[a]) {
+                // The variable is at its upper bound, its objective coefficient can increase without limit.
+                analysis[columnCount + a] = (float)-reducedCost;
+                analysis[2 * columnCount + a] = (float)Math.max(reducedCost, 0);
+                analysis[3 * columnCount + a] = Float.POSITIVE_INFINITY;
+                continue;
+            }
+            analysis[columnCount + a] = (float)reducedCost;
+            analysis[2 * columnCount + a] = Float.POSITIVE_INFINITY;
+            analysis[3 * columnCount + a] = (float)Math.max(reducedCost, 0);
+        }
+        for (int p = 0; p < _constraintCount; ++p) {
+            int basicColumn = _basis[p];
+            if (basicColumn >= _inputVariableCount && basicColumn < _variableCount) {
+                // A slack column of the two-phase method, which is not analysed.
+                continue;
+            }
+            int a = basicColumn < _inputVariableCount ? basicColumn : basicColumn - _variableCount + _inputVariableCount;
+            analysis[a] = (float)_getVariableValue(basicColumn, _basicValues[p]);
+            // Changing the cost of a basic column changes the reduced costs by a multiple of its tableau row,
+            // the range ends where the first reduced cost becomes negative.
+            _computeTableauRow(p);
+            double decrease = Double.POSITIVE_INFINITY;
+            double increase = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < _pricedColumnCount; ++j) {
+                if (_basisPosition[j] >= 0) {
+                    continue;
+                }
+                double cell = _dot(_row, j);
+                if (Math.abs(cell) <= CUT_OFF) {
+                    continue;
+                }
+                double reducedCost = Math.max(_reducedCosts[j], 0);
+                if (cell > 0) {
+                    decrease = Math.min(decrease, reducedCost / cell);
+                } else {
+                    increase = Math.min(increase, reducedCost / -cell);
+                }
+            }
+            if (_bounded && _complemented[basicColumn]) {
+                analysis[2 * columnCount + a] = (float)increase;
+                analysis[3 * columnCount + a] = (float)decrease;
+            } else {
+                analysis[2 * columnCount + a] = (float)decrease;
+                analysis[3 * columnCount + a] = (float)increase;
+            }
+        }
+        // Changing the 'b' value of a row changes the basic values by a multiple of its unit column in the basis,
+        // the range ends where the first basic value becomes negative, or reaches its upper bound.
+        int rhsStart = 4 * columnCount;
+        for (int k = 0; k < _constraintCount; ++k) {
+            _ftran(_variableCount + k);
+            double decrease = Double.POSITIVE_INFINITY;
+            double increase = Double.POSITIVE_INFINITY;
+            for (int p = 0; p < _constraintCount; ++p) {
+                double cell = _column[p];
+                if (Math.abs(cell) <= CUT_OFF) {
+                    continue;
+                }
+                double value = Math.max(_basicValues[p], 0);
+                double room = _bounded ? Math.max(_upperBounds[_basis[p]] - value, 0) : Double.POSITIVE_INFINITY;
+                if (cell > 0) {
+                    decrease = Math.min(decrease, value / cell);
+                    increase = Math.min(increase, room / cell);
+                } else {
+                    increase = Math.min(increase, value / -cell);
+                    decrease = Math.min(decrease, room / -cell);
+                }
+            }
+            if (_rowSigns[k] < 0) {
+                // The row has been negated by the two-phase method, so the analysis of its constraint is mirrored.
+                analysis[columnCount + _inputVariableCount + k] *= -1;
+                analysis[rhsStart + k] = (float)increase;
+                analysis[rhsStart + _constraintCount + k] = (float)decrease;
+            } else {
+                analysis[rhsStart + k] = (float)decrease;
+                analysis[rhsStart + _constraintCount + k] = (float)increase;
+            }
+        }
+        SensitivityReport report = SensitivityReport.fromTableau(analysis, _constraintCount + 1, _inputVariableCount + 1,
+                _dualProgram, _negatedObjective);
+        _stats.record(SolvePhase.READBACK, time);
+        return report;
+    }
+}
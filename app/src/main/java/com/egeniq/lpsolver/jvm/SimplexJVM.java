@@ -0,0 +1,1616 @@
+package com.egeniq.lpsolver.jvm;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.DenseTableau;
+import com.egeniq.lpsolver.simplex.PricingRule;
+import com.egeniq.lpsolver.simplex.SensitivityReport;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolvePhase;
+import com.egeniq.lpsolver.simplex.SolveStats;
+import com.egeniq.lpsolver.simplex.SolveStatsListener;
+import com.egeniq.lpsolver.simplex.SolveStatsRecorder;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+import com.egeniq.lpsolver.simplex.TableauBuilder;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pure Java implementation of the simplex algorithm, which does not need a RenderScript context.
+ * It executes the same tableau algorithm as simplex.rs, but in double precision.
+ * The tableau is stored in a flat array, which is kept between the solves, and only grows when a larger problem arrives.
+ * The rows can be eliminated in parallel while pivoting, see {@link #setParallelPivot(boolean)}.
+ * Batches of small problems are solved in parallel on the same pool, see {@link #solveBatch(List, boolean[])}.
+ * The final tableau of the last solve is kept, so the problem can be re-solved from its optimal basis,
+ * see {@link #resolveWithObjective(float[])} and {@link #resolveWithRhs(float[])}.
+ * The entering column is chosen by the pricing rule set in {@link #setPricingRule(PricingRule)}.
+ * The time spent in each phase of a solve is returned in its result, and passed to the listener set in
+ * {@link #setStatsListener(SolveStatsListener)}.
+ * The optimal results can contain the sensitivity analysis of the final tableau, see {@link #setSensitivityAnalysis(boolean)}.
+ * Problems with equality constraints are solved with the two-phase method, see {@link #solveTwoPhase(float[][], Relationship[], boolean)},
+ * which also handles the bounds of the variables without constraint rows, see {@link #solveTwoPhase(float[][], Relationship[], VariableBounds, boolean)}.
+ * Instances are not thread-safe, use one instance per thread.
+ */
+public class SimplexJVM implements SimplexEngine {
+
+    // When comparing two values, if the difference between them is smaller than epsilon, they are considered equal.
+    private static final double EPSILON = 1.0e-6;
+    // The value below which we treat values as zero.
+    private static final double CUT_OFF = 1.0e-10;
+
+    // Below this amount of cells in the tableau, the pivoting is done serially even in parallel mode,
+    // because splitting up the work costs more than it saves.
+    private static final int PARALLEL_PIVOT_THRESHOLD = 16 * 1024;
+    // The amount of cells one block of rows contains at least in parallel mode.
+    private static final int PARALLEL_BLOCK_SIZE = 4 * 1024;
+    // The amount of problems one block solves at most when solving a batch.
+    private static final int BATCH_BLOCK_SIZE = 16;
+    // After this many degenerate pivots in a row, Bland's rule is used to choose the pivot, until the objective improves again.
+    private static final int DEGENERATE_PIVOT_LIMIT = 10;
+    // Partial pricing splits the objective row into this many segments, and only scans until it finds a negative cell.
+    private static final int PARTIAL_PRICING_SEGMENTS = 8;
+    // The amount of threads in the shared pool, and the amount of blocks the rows are split into at most when pivoting.
+    private static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    // Returned by the ratio test when the entering variable reaches its own upper bound first, so there is nothing to pivot.
+    private static final int BOUND_FLIP = -2;
+
+    private static ExecutorService _sharedPool;
+
+    private final ExecutorService _pool;
+    private boolean _parallelPivot;
+    private PricingRule _pricingRule = PricingRule.DANTZIG;
+    private boolean _sensitivityAnalysis;
+
+    // The tableau, with the rows concatenated after each other.
+    private double[] _matrix = new double[0];
+    // For each constraint row, the index of the column which is in the basis.
+    private int[] _basis = new int[0];
+    private int _rows;
+    private int _columns;
+    private boolean _dualProgram;
+    // The artificial columns of the two-phase method are the last ones before the 'b' vector, they can never enter the basis.
+    private int _artificialColumns;
+    // The amount of columns the pricing rules choose from.
+    private int _pricedColumns;
+    // For each constraint row, -1 if the two-phase method has negated it to make its 'b' value non-negative, 1 otherwise.
+    private float[] _rowSigns = new float[0];
+    // If the objective row maximizes the negated objective function of a minimization problem.
+    private boolean _negatedObjective;
+    // If the variables have bounds. The lower bounds are subtracted from the variables, so each column is between zero
+    // and its upper bound. A column is complemented when its variable is at the upper bound: it then stands for the
+    // distance to the bound, so the variable can be nonbasic at zero again.
+    private boolean _bounded;
+    private double[] _lowerBounds = new double[0];
+    private double[] _upperBounds = new double[0];
+    private boolean[] _complemented = new boolean[0];
+    // The 'b' vector of the last solve of a bounded problem, the re-solves apply the change to it.
+    private double[] _boundedRhs = new double[0];
+    // If the basic variable of the departing row leaves at its upper bound instead of at zero.
+    private boolean _departingAtUpperBound;
+    // If the matrix contains the final tableau of a solve, which can be used to re-solve from.
+    private boolean _hasFinalTableau;
+    // The amount of pivots done since the start of the current solve.
+    private int _iterations;
+    // The reference weights of the devex pricing rule, for each column.
+    private double[] _pricingWeights = new double[0];
+    // If Bland's rule is used instead of the pricing rule, because of degeneracy.
+    private boolean _bland;
+    private int _degeneratePivots;
+    // The segment partial pricing starts the next search with.
+    private int _partialStart;
+    // The time spent in each phase of the current solve.
+    private final SolveStatsRecorder _stats = new SolveStatsRecorder();
+    private SolveStatsListener _statsListener;
+    // The limits of the solves, and the value of System.nanoTime() when the time budget of the current solve runs out.
+    private SolveLimits _limits = SolveLimits.NONE;
+    private long _deadline;
+
+    /**
+     * Creates a new solver, which uses a pool shared between all solvers for the parallel pivoting.
+     */
+    public SimplexJVM() {
+        this(_getSharedPool());
+    }
+
+    /**
+     * Creates a new solver.
+     *
+     * @param pool The pool to use for the parallel pivoting. The calling thread takes part in the work as well,
+     *             so the solver does not block when all threads of the pool are busy.
+     */
+    public SimplexJVM(ExecutorService pool) {
+        _pool = pool;
+    }
+
+    /**
+     * Sets if the rows should be eliminated in parallel while pivoting. Tableaus which are smaller than a threshold
+     * are always pivoted serially. Serial pivoting is the default.
+     *
+     * @param parallelPivot True to enable parallel pivoting, false to pivot serially.
+     */
+    public void setParallelPivot(boolean parallelPivot) {
+        _parallelPivot = parallelPivot;
+    }
+
+    /**
+     * Sets the rule for choosing the entering column. Dantzig's rule is the default.
+     *
+     * @param pricingRule The pricing rule to use from the next solve on.
+     */
+    public void setPricingRule(PricingRule pricingRule) {
+        _pricingRule = pricingRule;
+    }
+
+    /**
+     * Sets the limits of the next solves. Besides the time budget, the solver also stops when its thread is interrupted.
+     * When solving a batch, the limits apply to each problem separately.
+     *
+     * @param limits The limits, or {@link SolveLimits#NONE}.
+     */
+    @Override
+    public void setLimits(SolveLimits limits) {
+        _limits = limits;
+    }
+
+    /**
+     * Enables the sensitivity analysis of the optimal solutions. It is disabled by default.
+     * The problems of a batch are never analysed.
+     *
+     * @param enabled True to add a {@link SensitivityReport} to the optimal results.
+     */
+    @Override
+    public void setSensitivityAnalysis(boolean enabled) {
+        _sensitivityAnalysis = enabled;
+    }
+
+    /**
+     * Sets the listener which receives the statistics of each solve. When solving a batch, it is called for each problem
+     * from the threads of the pool, so it has to be thread-safe in that case.
+     *
+     * @param statsListener The listener, or null to remove it.
+     */
+    public void setStatsListener(SolveStatsListener statsListener) {
+        _statsListener = statsListener;
+    }
+
+    /**
+     * Solves the linear programming problem.
+     *
+     * @param data     The input data. Use the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(float[][] data, boolean minimize) {
+        _startSolve();
+        long time = System.nanoTime();
+        _loadTableau(data, minimize);
+        _checkSlackBasis();
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _addSlackVariables(data[0].length);
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Solves the linear programming problem given as a flat tableau.
+     *
+     * @param tableau  The input data. Use a {@link TableauBuilder} to write the problem straight into it.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(DenseTableau tableau, boolean minimize) {
+        _startSolve();
+        long time = System.nanoTime();
+        _loadTableau(tableau, minimize);
+        _checkSlackBasis();
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _addSlackVariables(tableau.getColumnCount());
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Solves the linear programming problem given as a sparse tableau.
+     *
+     * @param tableau  The input data. Use the sparse methods of the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(SparseTableau tableau, boolean minimize) {
+        _startSolve();
+        long time = System.nanoTime();
+        _loadTableau(tableau, minimize);
+        _checkSlackBasis();
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _addSlackVariables(tableau.getColumnCount());
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method. The tableau gets a slack column for each
+     * inequality constraint, and an artificial column for each row, which holds the inverse of the basis like the slack
+     * columns of the other solves. The first phase minimizes the sum of the artificial variables of the rows without
+     * a slack variable in the starting basis, the second phase optimizes the objective function from the feasible basis.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, boolean minimize) {
+        return solveTwoPhase(data, relationships, null, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method and bounded variables. The lower bounds are
+     * subtracted from the variables when loading the tableau. The upper bounds are checked in the ratio test, next to
+     * the rows: when the entering variable reaches its upper bound first, its column is complemented instead of pivoted,
+     * and when a basic variable reaches its upper bound, it leaves the basis and its column is complemented after the pivot.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, VariableBounds bounds, boolean minimize) {
+        _startSolve();
+        if (bounds != null && bounds.hasEmptyRange()) {
+            SimplexResult result = _finish(new SimplexResult(SolveStatus.INFEASIBLE, null, 0));
+            _hasFinalTableau = false;
+            return result;
+        }
+        long time = System.nanoTime();
+        _loadTwoPhaseTableau(data, relationships, bounds);
+        _negatedObjective = minimize;
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        double infeasibilityLimit = _addTwoPhaseVariables(relationships);
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        SimplexResult result = _iterate();
+        SolveStatus status = result.getStatus();
+        if (status == SolveStatus.OPTIMAL && _getInfeasibility() > infeasibilityLimit) {
+            status = SolveStatus.INFEASIBLE;
+        }
+        if (status != SolveStatus.OPTIMAL) {
+            // The basis of the first phase is not feasible for the problem, so there is no solution, and nothing to re-solve from.
+            result = _finish(new SimplexResult(status, null, _iterations));
+            _hasFinalTableau = false;
+            return result;
+        }
+        time = System.nanoTime();
+        if (!_driveOutArtificials()) {
+            // Theoretically this should not happen.
+            result = _finish(new SimplexResult(SolveStatus.FAILED, null, _iterations));
+            return result;
+        }
+        _setObjective(data[data.length - 1]);
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Re-solves the last problem with a different objective row, starting from the final basis of the last solve.
+     * Since the basis stays feasible, the primal simplex continues from there, which usually only takes a few pivots.
+     * Note that for dual programs the objective row contains the constraint values of the original problem.
+     *
+     * @param objective The new objective row, in the same format as the last row of the input data.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithObjective(float[] objective) {
+        _checkFinalTableau();
+        _startSolve();
+        long time = System.nanoTime();
+        _setObjective(objective);
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_iterate());
+    }
+
+    /**
+     * Re-solves the last problem with a different 'b' vector, starting from the final basis of the last solve.
+     * The basis stays optimal, but it can become infeasible, which is fixed by the dual simplex method.
+     * Note that for dual programs the 'b' vector contains the objective function of the original problem.
+     *
+     * @param rhs The new 'b' vector, in the same format as the last column of the input data, including the objective row.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithRhs(float[] rhs) {
+        _checkFinalTableau();
+        _startSolve();
+        long time = System.nanoTime();
+        // The columns of the slack variables contain the inverse of the basis,
+        // so the new 'b' column of the final tableau is the product of those columns and the new 'b' vector.
+        // The rows which the two-phase method has negated get a negated 'b' value as well.
+        // For bounded problems the 'b' column also contains the bounds, so only the change of the 'b' vector is applied.
+        int slackStart = _columns - _rows;
+        for (int i = 0; i < _rows; ++i) {
+            int offset = i * _columns;
+            double value = _bounded ? _matrix[offset + _columns - 1] : 0;
+            if (i == _rows - 1) {
+                value += _getRhsChange(rhs, i);
+            }
+            for (int k = 0; k < _rows - 1; ++k) {
+                value += _matrix[offset + slackStart + k] * _rowSigns[k] * _getRhsChange(rhs, k);
+            }
+            _matrix[offset + _columns - 1] = value;
+        }
+        if (_bounded) {
+            for (int i = 0; i < _rows; ++i) {
+                _boundedRhs[i] = rhs[i];
+            }
+        }
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_dualSimplex());
+    }
+
+    /**
+     * Re-solves the last problem with different bounds of the variables, starting from the final basis of the last solve,
+     * which has to be a bounded two-phase solve. A column stands for the distance of its variable to the bound it is at,
+     * so moving that bound moves the 'b' column by a multiple of the tableau column. The basis stays optimal, but it can
+     * become infeasible, which is fixed by the dual simplex method. This makes it cheap to solve the child problems of
+     * a branch-and-bound search from the basis of their parent.
+     *
+     * @param bounds The new bounds of the variables.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithBounds(VariableBounds bounds) {
+        _checkFinalTableau();
+        if (!_bounded) {
+            throw new IllegalStateException("The last solve had no bounds to change, solve the problem with bounds first.");
+        }
+        _startSolve();
+        if (bounds.hasEmptyRange()) {
+            // The basis is left as it is, so the next re-solve can still start from it.
+            return _finish(new SimplexResult(SolveStatus.INFEASIBLE, null, 0));
+        }
+        long time = System.nanoTime();
+        for (int j = 0; j < bounds.getVariableCount(); ++j) {
+            double lower = bounds.getLower(j);
+            double range = (double)bounds.getUpper(j) - lower;
+            if (_complemented[j] && range == Double.POSITIVE_INFINITY) {
+                // Without an upper bound the variable has to be measured from its lower bound again.
+                int row = _findBasisRow(j);
+                if (row < 0) {
+                    _complementColumn(j);
+                } else {
+                    _complementBasicVariable(row);
+                }
+            }
+            double shift = _complemented[j] ? _lowerBounds[j] + _upperBounds[j] - lower - range : lower - _lowerBounds[j];
+            if (shift != 0) {
+                for (int i = 0; i < _rows; ++i) {
+                    int offset = i * _columns;
+                    _matrix[offset + _columns - 1] -= _matrix[offset + j] * shift;
+                }
+            }
+            _lowerBounds[j] = lower;
+            _upperBounds[j] = range;
+        }
+        _stats.record(SolvePhase.SLACK_SETUP, time);
+        return _finish(_dualSimplex());
+    }
+
+    /**
+     * Solves multiple independent linear programming problems at once.
+     * The batch is split up into blocks, which are solved in parallel on the pool, each with its own buffers.
+     * The problems themselves are pivoted serially, even if parallel pivoting is enabled.
+     *
+     * @param problems The input data of each problem. Use the {@link TableauConverter} to generate these.
+     * @param minimize For each problem, if it is a minimization problem.
+     * @return The result of each problem, in the same order as the input.
+     */
+    @Override
+    public List<SimplexResult> solveBatch(List<float[][]> problems, boolean[] minimize) {
+        SimplexResult[] results = new SimplexResult[problems.size()];
+        int blockCount = (results.length + BATCH_BLOCK_SIZE - 1) / BATCH_BLOCK_SIZE;
+        new BatchTask(problems, minimize, results, blockCount).invoke();
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Runs the primal simplex method from the current basis, which has to be feasible.
+     *
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    private SimplexResult _iterate() {
+        _resetPricing();
+        int iterationLimit = _getIterationLimit();
+        long time = System.nanoTime();
+        int iter = 0;
+        while (true) {
+            ++iter;
+            // The entering column is chosen by the pricing rule from the columns with a negative cell in the bottom row.
+            int enteringColumn = _bland ? _findBlandColumn() : _findEnteringColumn();
+            time = _stats.record(SolvePhase.PRICING, time);
+            if (enteringColumn < 0) {
+                // If all values in the bottom row are positive, we have reached the optimal solution.
+                return new SimplexResult(SolveStatus.OPTIMAL, _writeResult(), _iterations);
+            }
+            // The departing row is the row with the smallest non-negative ratio.
+            int departingRow = _findDepartingRow(enteringColumn);
+            time = _stats.record(SolvePhase.RATIO_TEST, time);
+            if (departingRow == BOUND_FLIP) {
+                // The entering variable reaches its upper bound before any basic variable reaches one of its bounds,
+                // so it stays nonbasic at the other end of its range.
+                _complementColumn(enteringColumn);
+            } else if (departingRow < 0) {
+                // The solution is unbound, so we can't find a max possible value.
+                return new SimplexResult(SolveStatus.UNBOUNDED, null, _iterations);
+            } else {
+                _updateDegeneracy(departingRow, enteringColumn);
+                int leavingColumn = _basis[departingRow];
+                boolean leavingAtUpperBound = _departingAtUpperBound;
+                if (!_doPivoting(departingRow, enteringColumn)) {
+                    // Theoretically this should not happen.
+                    return new SimplexResult(SolveStatus.FAILED, null, _iterations);
+                }
+                if (leavingAtUpperBound) {
+                    // The leaving variable is nonbasic at its upper bound.
+                    _complementColumn(leavingColumn);
+                }
+                if (_pricingRule == PricingRule.DEVEX) {
+                    _updateDevexWeights(departingRow, enteringColumn, leavingColumn);
+                }
+            }
+            ++_iterations;
+            time = _stats.record(SolvePhase.PIVOT, time);
+            if (iter > iterationLimit) {
+                // Too many iterations, we return the suboptimal result, which is only feasible for maximization problems.
+                return new SimplexResult(SolveStatus.ITERATION_LIMIT, _dualProgram ? null : _writeResult(), _iterations);
+            }
+            SolveStatus interruption = _checkInterruption();
+            if (interruption != null) {
+                // The basis is feasible, but for dual programs the solution is only feasible for the original problem
+                // when it is optimal, so we can only return the current solution of maximization problems.
+                return new SimplexResult(interruption, _dualProgram ? null : _writeResult(), _iterations);
+            }
+        }
+    }
+
+    /**
+     * Runs the dual simplex method from the current basis, which has to be dual feasible, until it is feasible again,
+     * and then continues with the primal simplex method.
+     *
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    private SimplexResult _dualSimplex() {
+        int iterationLimit = _getIterationLimit();
+        long time = System.nanoTime();
+        int iter = 0;
+        while (true) {
+            ++iter;
+            int departingRow = _findDualDepartingRow();
+            time = _stats.record(SolvePhase.PRICING, time);
+            if (departingRow < 0) {
+                // The basis is feasible again, the primal simplex takes care of the rest.
+                return _iterate();
+            }
+            if (_matrix[departingRow * _columns + _columns - 1] > 0) {
+                // The basic variable is above its upper bound, its distance to the bound is negative instead.
+                _complementBasicVariable(departingRow);
+            }
+            int enteringColumn = _findDualEnteringColumn(departingRow);
+            time = _stats.record(SolvePhase.RATIO_TEST, time);
+            if (enteringColumn < 0) {
+                // The row can not become non-negative, so there are no feasible solutions.
+                return new SimplexResult(SolveStatus.INFEASIBLE, null, _iterations);
+            }
+            if (!_doPivoting(departingRow, enteringColumn)) {
+                // Theoretically this should not happen.
+                return new SimplexResult(SolveStatus.FAILED, null, _iterations);
+            }
+            time = _stats.record(SolvePhase.PIVOT, time);
+            ++_iterations;
+            if (iter > iterationLimit) {
+                // Too many iterations, the current basis is not feasible, so there is no solution.
+                return new SimplexResult(SolveStatus.ITERATION_LIMIT, null, _iterations);
+            }
+            SolveStatus interruption = _checkInterruption();
+            if (interruption != null) {
+                // The current basis is not feasible, so there is no solution.
+                return new SimplexResult(interruption, null, _iterations);
+            }
+        }
+    }
+
+    /**
+     * Replaces the objective row, and eliminates the basic columns from it, so the primal simplex can continue
+     * from the current basis.
+     *
+     * @param objective The new objective row, in the same format as the last row of the input data.
+     */
+    private void _setObjective(float[] objective) {
+        int objectiveOffset = (_rows - 1) * _columns;
+        int variableCount = _columns - _rows - _artificialColumns;
+        double constant = objective[variableCount];
+        for (int j = 0; j < variableCount; ++j) {
+            double value = objective[j];
+            if (_bounded) {
+                // The columns stand for the distance to the lower bound, or to the upper bound when complemented.
+                constant -= value * _lowerBounds[j];
+                if (_complemented[j]) {
+                    constant -= value * _upperBounds[j];
+                    value = -value;
+                }
+            }
+            _matrix[objectiveOffset + j] = value;
+        }
+        // The slack and artificial variables are not part of the objective function.
+        for (int j = variableCount; j < _columns - 1; ++j) {
+            _matrix[objectiveOffset + j] = 0;
+        }
+        _matrix[objectiveOffset + _columns - 1] = constant;
+        // The objective row is expressed in the original variables, so we have to eliminate the basic columns from it.
+        for (int i = 0; i < _rows - 1; ++i) {
+            double multiplier = _matrix[objectiveOffset + _basis[i]];
+            if (multiplier == 0) {
+                continue;
+            }
+            int offset = i * _columns;
+            for (int j = 0; j < _columns; ++j) {
+                _matrix[objectiveOffset + j] -= multiplier * _matrix[offset + j];
+            }
+        }
+    }
+
+    /**
+     * Calculates how far the basis of the first phase is from being feasible for the problem.
+     *
+     * @return The largest value of an artificial variable in the basis.
+     */
+    private double _getInfeasibility() {
+        int artificialStart = _columns - _rows;
+        double infeasibility = 0;
+        for (int i = 0; i < _rows - 1; ++i) {
+            if (_basis[i] >= artificialStart) {
+                infeasibility = Math.max(infeasibility, _matrix[i * _columns + _columns - 1]);
+            }
+        }
+        return infeasibility;
+    }
+
+    /**
+     * Pivots the artificial variables which are still in the basis after the first phase out of it.
+     * Their values are zero, so the pivots do not change the solution, even with a negative pivot cell.
+     * If the row of an artificial variable has no nonzero cells in the other columns, the constraint is redundant,
+     * and the artificial variable stays in the basis at zero. It can never leave it, since the row stays zero in those columns.
+     *
+     * @return True if everything went fine. False if there was an unexpected problem, the program should abort in this case.
+     */
+    private boolean _driveOutArtificials() {
+        int artificialStart = _columns - _rows;
+        for (int i = 0; i < _rows - 1; ++i) {
+            if (_basis[i] < artificialStart) {
+                continue;
+            }
+            int offset = i * _columns;
+            int enteringColumn = -1;
+            double largest = EPSILON;
+            for (int j = 0; j < _pricedColumns; ++j) {
+                double cell = Math.abs(_matrix[offset + j]);
+                if (cell > largest) {
+                    largest = cell;
+                    enteringColumn = j;
+                }
+            }
+            if (enteringColumn < 0) {
+                continue;
+            }
+            if (!_doPivoting(i, enteringColumn)) {
+                return false;
+            }
+            ++_iterations;
+        }
+        return true;
+    }
+
+    /**
+     * Resets the state of the pricing rule before running the primal simplex method.
+     */
+    private void _resetPricing() {
+        _bland = false;
+        _degeneratePivots = 0;
+        _partialStart = 0;
+        if (_pricingRule == PricingRule.DEVEX) {
+            // The reference framework starts with the current nonbasic columns.
+            if (_pricingWeights.length < _columns) {
+                _pricingWeights = new double[_columns];
+            }
+            Arrays.fill(_pricingWeights, 0, _columns, 1);
+        }
+    }
+
+    /**
+     * Switches to Bland's rule after too many degenerate pivots in a row, and back when the objective improves again.
+     *
+     * @param departingRow   The departing row of the next pivot.
+     * @param enteringColumn The entering column of the next pivot.
+     */
+    private void _updateDegeneracy(int departingRow, int enteringColumn) {
+        int offset = departingRow * _columns;
+        double step = _matrix[offset + _columns - 1] / _matrix[offset + enteringColumn];
+        if (_departingAtUpperBound) {
+            step = (_upperBounds[_basis[departingRow]] - _matrix[offset + _columns - 1]) / -_matrix[offset + enteringColumn];
+        }
+        if (step < EPSILON) {
+            ++_degeneratePivots;
+            _bland = _bland || _degeneratePivots >= DEGENERATE_PIVOT_LIMIT;
+        } else {
+            _degeneratePivots = 0;
+            _bland = false;
+        }
+    }
+
+    /**
+     * Resets the counters of the solver at the start of a solve.
+     */
+    private void _startSolve() {
+        _iterations = 0;
+        _stats.reset();
+        _deadline = System.nanoTime() + _limits.getTimeBudgetNanos();
+    }
+
+    /**
+     * @return The iteration limit of the loaded problem, the default limit depends on its size.
+     */
+    private int _getIterationLimit() {
+        // The constraint rows, and the columns before the slack variables.
+        return _limits.getIterationLimit(_rows - 1, _columns - _rows - _artificialColumns);
+    }
+
+    /**
+     * Checks if the solve has to stop before it could finish.
+     *
+     * @return The status to stop with, or null if the solve can continue.
+     */
+    private SolveStatus _checkInterruption() {
+        if (Thread.currentThread().isInterrupted()) {
+            return SolveStatus.CANCELLED;
+        }
+        // The difference is compared, because the value of System.nanoTime() can overflow.
+        if (_limits.hasTimeBudget() && System.nanoTime() - _deadline >= 0) {
+            return SolveStatus.TIME_LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * Remembers if the tableau can be used to re-solve from after this result, and adds the statistics to it,
+     * and the sensitivity analysis if it is enabled and the solution is optimal.
+     *
+     * @param result The result of the solve.
+     * @return The same result, with the statistics of the solve.
+     */
+    private SimplexResult _finish(SimplexResult result) {
+        // After a failed pivot the tableau is broken, in all other cases it still has a valid basis.
+        _hasFinalTableau = result.getStatus() != SolveStatus.FAILED;
+        SensitivityReport sensitivity = null;
+        if (_sensitivityAnalysis && result.getStatus() == SolveStatus.OPTIMAL) {
+            sensitivity = _writeSensitivity();
+        }
+        SolveStats stats = _stats.build(result.getStatus(), result.getIterations());
+        if (_statsListener != null) {
+            _statsListener.onSolveFinished(stats);
+        }
+        return new SimplexResult(result.getStatus(), result.getSolution(), result.getIterations(), stats, sensitivity);
+    }
+
+    /**
+     * Makes sure there is a final tableau to re-solve from.
+     */
+    private void _checkFinalTableau() {
+        if (!_hasFinalTableau) {
+            throw new IllegalStateException("There is no final tableau to re-solve from, solve the problem first.");
+        }
+    }
+
+    /**
+     * Copies the input data to the flat matrix. The matrix is laid out with the final column count already,
+     * so the slack variables can be added without moving the data around.
+     *
+     * @param data     The input tableau.
+     * @param minimize If the program is a minimization problem, solved as the dual program.
+     */
+    private void _loadTableau(float[][] data, boolean minimize) {
+        int inputColumns = data[0].length;
+        _resize(data.length, inputColumns, 0, minimize);
+        for (int i = 0; i < _rows; ++i) {
+            float[] row = data[i];
+            int offset = i * _columns;
+            // The 'b' vector is moved to the end of the row when adding the slack variables.
+            for (int j = 0; j < inputColumns - 1; ++j) {
+                _matrix[offset + j] = row[j];
+            }
+            _matrix[offset + _columns - 1] = row[inputColumns - 1];
+        }
+    }
+
+    /**
+     * Copies the flat input data to the flat matrix.
+     *
+     * @param tableau  The input tableau.
+     * @param minimize If the program is a minimization problem, solved as the dual program.
+     * @see #_loadTableau(float[][], boolean)
+     */
+    private void _loadTableau(DenseTableau tableau, boolean minimize) {
+        int inputColumns = tableau.getColumnCount();
+        _resize(tableau.getRowCount(), inputColumns, 0, minimize);
+        float[] values = tableau.getValues();
+        for (int i = 0; i < _rows; ++i) {
+            int inputOffset = i * inputColumns;
+            int offset = i * _columns;
+            // The 'b' vector is moved to the end of the row when adding the slack variables.
+            for (int j = 0; j < inputColumns - 1; ++j) {
+                _matrix[offset + j] = values[inputOffset + j];
+            }
+            _matrix[offset + _columns - 1] = values[inputOffset + inputColumns - 1];
+        }
+    }
+
+    /**
+     * Copies the nonzeros of the sparse input data to the flat matrix, the rest of the matrix is cleared.
+     *
+     * @param tableau  The input tableau.
+     * @param minimize If the program is a minimization problem, solved as the dual program.
+     * @see #_loadTableau(float[][], boolean)
+     */
+    private void _loadTableau(SparseTableau tableau, boolean minimize) {
+        int inputColumns = tableau.getColumnCount();
+        _resize(tableau.getRowCount(), inputColumns, 0, minimize);
+        Arrays.fill(_matrix, 0, _rows * _columns, 0);
+        int[] rowStart = tableau.getRowStart();
+        int[] columnIndices = tableau.getColumnIndices();
+        float[] values = tableau.getValues();
+        for (int i = 0; i < _rows; ++i) {
+            int offset = i * _columns;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                int column = columnIndices[k];
+                // The 'b' vector is moved to the end of the row when adding the slack variables.
+                _matrix[offset + (column == inputColumns - 1 ? _columns - 1 : column)] = values[k];
+            }
+        }
+    }
+
+    /**
+     * Makes sure the slack variables are a feasible starting basis, which the single-phase solves need.
+     * That is the case when the 'b' value of each constraint row is non-negative.
+     *
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value.
+     */
+    private void _checkSlackBasis() {
+        for (int i = 0; i < _rows - 1; ++i) {
+            if (_matrix[i * _columns + _columns - 1] < -CUT_OFF) {
+                // The matrix has been overwritten, so there is nothing to re-solve from either.
+                _hasFinalTableau = false;
+                throw new IllegalArgumentException("Row " + i + " of the tableau has a negative 'b' value, "
+                        + "so the slack variables are not a feasible basis. Use the two-phase method for this problem.");
+            }
+        }
+    }
+
+    /**
+     * Copies the input data of the two-phase method to the flat matrix. The lower bounds of the variables are subtracted
+     * from the 'b' values first. Rows with a negative 'b' value are negated, so the starting basis is non-negative,
+     * and the relationship of their constraint is reversed.
+     *
+     * @param data          The input tableau.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     */
+    private void _loadTwoPhaseTableau(float[][] data, Relationship[] relationships, VariableBounds bounds) {
+        int inputColumns = data[0].length;
+        _resize(data.length, inputColumns, data.length - 1, false);
+        if (bounds != null) {
+            _loadBounds(bounds, data);
+        }
+        for (int i = 0; i < _rows; ++i) {
+            float[] row = data[i];
+            int offset = i * _columns;
+            double value = row[inputColumns - 1];
+            if (_bounded) {
+                for (int j = 0; j < inputColumns - 1; ++j) {
+                    value -= row[j] * _lowerBounds[j];
+                }
+            }
+            if (i < _rows - 1 && value < 0) {
+                _rowSigns[i] = -1;
+            }
+            double sign = i < _rows - 1 ? _rowSigns[i] : 1;
+            for (int j = 0; j < inputColumns - 1; ++j) {
+                _matrix[offset + j] = sign * row[j];
+            }
+            _matrix[offset + _columns - 1] = sign * value;
+        }
+    }
+
+    /**
+     * Copies the bounds of the variables, as the ranges of the columns. The slack and artificial columns are non-negative
+     * without upper bound.
+     *
+     * @param bounds The bounds of the variables.
+     * @param data   The input tableau, of which the 'b' vector is kept for the re-solves.
+     */
+    private void _loadBounds(VariableBounds bounds, float[][] data) {
+        int variableCount = bounds.getVariableCount();
+        _bounded = true;
+        if (_upperBounds.length < _columns) {
+            _lowerBounds = new double[_columns];
+            _upperBounds = new double[_columns];
+            _complemented = new boolean[_columns];
+        }
+        if (_boundedRhs.length < _rows) {
+            _boundedRhs = new double[_rows];
+        }
+        for (int j = 0; j < variableCount; ++j) {
+            _lowerBounds[j] = bounds.getLower(j);
+            _upperBounds[j] = (double)bounds.getUpper(j) - bounds.getLower(j);
+        }
+        Arrays.fill(_lowerBounds, variableCount, _columns, 0);
+        Arrays.fill(_upperBounds, variableCount, _columns, Double.POSITIVE_INFINITY);
+        Arrays.fill(_complemented, 0, _columns, false);
+        for (int i = 0; i < _rows; ++i) {
+            _boundedRhs[i] = data[i][data[i].length - 1];
+        }
+    }
+
+    /**
+     * Sets the size of the tableau, and grows the buffers if they are too small for it.
+     *
+     * @param rows              The row count of the input tableau, including the objective row.
+     * @param inputColumns      The column count of the input tableau, including the 'b' vector.
+     * @param artificialColumns The amount of artificial columns of the two-phase method, zero for the other solves.
+     * @param dualProgram       If the program is a minimization problem, solved as the dual program.
+     */
+    private void _resize(int rows, int inputColumns, int artificialColumns, boolean dualProgram) {
+        _rows = rows;
+        _columns = inputColumns + _rows - 1 + artificialColumns;
+        _artificialColumns = artificialColumns;
+        _pricedColumns = _columns - 1 - artificialColumns;
+        _dualProgram = dualProgram;
+        _negatedObjective = false;
+        _bounded = false;
+        int size = _rows * _columns;
+        if (_matrix.length < size) {
+            _matrix = new double[size];
+        }
+        if (_basis.length < _rows - 1) {
+            _basis = new int[_rows - 1];
+        }
+        if (_rowSigns.length < _rows - 1) {
+            _rowSigns = new float[_rows - 1];
+        }
+        Arrays.fill(_rowSigns, 0, _rows - 1, 1);
+    }
+
+    /**
+     * We extend the 'A' matrix with the entity matrix, by adding extra columns between the 'A' matrix and the 'b' vector.
+     *
+     * @param inputColumns The column count of the input tableau, including the 'b' vector.
+     */
+    private void _addSlackVariables(int inputColumns) {
+        int slackStart = inputColumns - 1;
+        for (int i = 0; i < _rows; ++i) {
+            int offset = i * _columns + slackStart;
+            for (int j = 0; j < _rows - 1; ++j) {
+                // Each row will contain exactly one '1' number, other elements in the row are 0.
+                // The objective row contains only zeroes.
+                _matrix[offset + j] = i == j ? 1 : 0;
+            }
+        }
+        for (int i = 0; i < _rows - 1; ++i) {
+            _basis[i] = slackStart + i;
+        }
+    }
+
+    /**
+     * Adds the slack and artificial columns of the two-phase method between the 'A' matrix and the 'b' vector,
+     * and sets up the objective row of the first phase. Less-or-equal rows start with their slack variable in the basis,
+     * the other rows with their artificial variable, which the first phase tries to bring to zero.
+     *
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @return The value below which an artificial variable counts as zero after the first phase.
+     */
+    private double _addTwoPhaseVariables(Relationship[] relationships) {
+        int rowCount = _rows - 1;
+        int slackStart = _columns - _rows - rowCount;
+        int artificialStart = _columns - _rows;
+        int objectiveOffset = rowCount * _columns;
+        Arrays.fill(_matrix, objectiveOffset, objectiveOffset + _columns, 0);
+        double largestValue = 0;
+        for (int i = 0; i < rowCount; ++i) {
+            int offset = i * _columns;
+            Relationship relationship = relationships[i];
+            if (_rowSigns[i] < 0 && relationship != Relationship.EQ) {
+                relationship = relationship == Relationship.LEQ ? Relationship.GEQ : Relationship.LEQ;
+            }
+            for (int k = 0; k < rowCount; ++k) {
+                double slack = 0;
+                if (i == k && relationship != Relationship.EQ) {
+                    slack = relationship == Relationship.LEQ ? 1 : -1;
+                }
+                _matrix[offset + slackStart + k] = slack;
+                _matrix[offset + artificialStart + k] = i == k ? 1 : 0;
+            }
+            largestValue = Math.max(largestValue, _matrix[offset + _columns - 1]);
+            if (relationship == Relationship.LEQ) {
+                _basis[i] = slackStart + i;
+                continue;
+            }
+            _basis[i] = artificialStart + i;
+            // The objective row of the first phase maximizes the negated sum of the artificial variables,
+            // with the basic artificial columns eliminated from it.
+            for (int j = 0; j < artificialStart; ++j) {
+                _matrix[objectiveOffset + j] -= _matrix[offset + j];
+            }
+            _matrix[objectiveOffset + _columns - 1] -= _matrix[offset + _columns - 1];
+        }
+        return EPSILON * (1 + largestValue);
+    }
+
+    /**
+     * Finds the entering column with the pricing rule.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findEnteringColumn() {
+        switch (_pricingRule) {
+            case DEVEX:
+            case STEEPEST_EDGE:
+                return _findWeightedColumn();
+            case PARTIAL:
+                return _findPartialColumn();
+            default:
+                return _findDantzigColumn();
+        }
+    }
+
+    /**
+     * Finds the entering column by Dantzig's rule, which is the most negative column in the objective row.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findDantzigColumn() {
+        return _findMostNegativeColumn(0, _pricedColumns);
+    }
+
+    /**
+     * Finds the most negative column in a range of the objective row.
+     *
+     * @param fromColumn The first column to check, inclusive.
+     * @param toColumn   The last column to check, exclusive.
+     * @return The column index of the most negative column, or -1 if there are no negative columns in the range.
+     */
+    private int _findMostNegativeColumn(int fromColumn, int toColumn) {
+        int objectiveOffset = (_rows - 1) * _columns;
+        int enteringColumn = -1;
+        double lowest = -CUT_OFF;
+        for (int j = fromColumn; j < toColumn; ++j) {
+            double value = _matrix[objectiveOffset + j];
+            if (value < lowest) {
+                lowest = value;
+                enteringColumn = j;
+            }
+        }
+        return enteringColumn;
+    }
+
+    /**
+     * Finds the entering column by Bland's rule, which is the first column with a negative cell in the objective row.
+     * Slower than the other rules, but it can not cycle.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findBlandColumn() {
+        int objectiveOffset = (_rows - 1) * _columns;
+        for (int j = 0; j < _pricedColumns; ++j) {
+            if (_matrix[objectiveOffset + j] < -CUT_OFF) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the entering column by partial pricing. The objective row is split into segments, and only the segments
+     * until the first one containing a negative cell are scanned. The next search continues with the segment after that one.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findPartialColumn() {
+        int columnCount = _pricedColumns;
+        int segmentSize = (columnCount + PARTIAL_PRICING_SEGMENTS - 1) / PARTIAL_PRICING_SEGMENTS;
+        for (int s = 0; s < PARTIAL_PRICING_SEGMENTS; ++s) {
+            int segment = (_partialStart + s) % PARTIAL_PRICING_SEGMENTS;
+            int enteringColumn = _findMostNegativeColumn(segment * segmentSize, Math.min((segment + 1) * segmentSize, columnCount));
+            if (enteringColumn >= 0) {
+                _partialStart = (segment + 1) % PARTIAL_PRICING_SEGMENTS;
+                return enteringColumn;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the entering column by a weighted rule, which is the column with the largest squared objective cell
+     * relative to its weight. For devex the weights are the reference weights, for steepest edge the squared norm of the column.
+     *
+     * @return The column index of the entering column, or -1 if the solution is optimal.
+     */
+    private int _findWeightedColumn() {
+        int objectiveOffset = (_rows - 1) * _columns;
+        int enteringColumn = -1;
+        double bestScore = 0;
+        for (int j = 0; j < _pricedColumns; ++j) {
+            double value = _matrix[objectiveOffset + j];
+            if (value >= -CUT_OFF) {
+                continue;
+            }
+            double weight;
+            if (_pricingRule == PricingRule.DEVEX) {
+                weight = _pricingWeights[j];
+            } else {
+                weight = 1;
+                for (int i = 0; i < _rows - 1; ++i) {
+                    double cell = _matrix[i * _columns + j];
+                    weight += cell * cell;
+                }
+            }
+            double score = value * value / weight;
+            if (score > bestScore) {
+                bestScore = score;
+                enteringColumn = j;
+            }
+        }
+        return enteringColumn;
+    }
+
+    /**
+     * Updates the devex reference weights after pivoting.
+     *
+     * @param departingRow   The departing row, which has been divided by the pivot.
+     * @param enteringColumn The entering column.
+     * @param leavingColumn  The column which has left the basis.
+     */
+    private void _updateDevexWeights(int departingRow, int enteringColumn, int leavingColumn) {
+        int offset = departingRow * _columns;
+        double enteringWeight = _pricingWeights[enteringColumn];
+        for (int j = 0; j < _columns - 1; ++j) {
+            double ratio = _matrix[offset + j];
+            double weight = ratio * ratio * enteringWeight;
+            if (j == leavingColumn) {
+                _pricingWeights[j] = Math.max(weight, 1);
+            } else {
+                _pricingWeights[j] = Math.max(_pricingWeights[j], weight);
+            }
+        }
+        _pricingWeights[enteringColumn] = 1;
+    }
+
+    /**
+     * Finds the departing row, which is the one with the smallest non-negative ratio: 'b' / pivot cell.
+     * Only rows with a positive cell in the entering column are considered.
+     * When using Bland's rule, ties are broken by choosing the row with the smallest basis column.
+     * For bounded problems, the rows with a negative cell are considered as well, their basic variable increases
+     * until it reaches its upper bound. If the entering variable reaches its own upper bound first, no row departs.
+     *
+     * @param enteringColumn The entering column, which we check the cells of.
+     * @return The row index of the departing row, {@link #BOUND_FLIP} if the entering variable reaches its upper bound first,
+     * or -1 if the solution is unbound.
+     */
+    private int _findDepartingRow(int enteringColumn) {
+        int departingRow = -1;
+        double smallestRatio = Double.MAX_VALUE;
+        _departingAtUpperBound = false;
+        for (int i = 0; i < _rows - 1; ++i) {
+            int offset = i * _columns;
+            double cell = _matrix[offset + enteringColumn];
+            double ratio;
+            boolean atUpperBound = false;
+            if (cell > CUT_OFF) {
+                ratio = _matrix[offset + _columns - 1] / cell;
+            } else if (_bounded && cell < -CUT_OFF && _upperBounds[_basis[i]] != Double.POSITIVE_INFINITY) {
+                ratio = Math.max(_upperBounds[_basis[i]] - _matrix[offset + _columns - 1], 0) / -cell;
+                atUpperBound = true;
+            } else {
+                continue;
+            }
+            if (ratio < smallestRatio ||
+                    (_bland && Math.abs(ratio - smallestRatio) < EPSILON && _basis[i] < _basis[departingRow])) {
+                smallestRatio = ratio;
+                departingRow = i;
+                _departingAtUpperBound = atUpperBound;
+            }
+        }
+        if (_bounded && _upperBounds[enteringColumn] <= smallestRatio) {
+            return BOUND_FLIP;
+        }
+        return departingRow;
+    }
+
+    /**
+     * Finds the departing row of the dual simplex method, which is the row with the most negative 'b' cell.
+     * For bounded problems, a 'b' cell above the upper bound of its basic variable counts as negative as well,
+     * by the amount it exceeds the bound.
+     *
+     * @return The row index of the departing row, or -1 if all 'b' cells are non-negative.
+     */
+    private int _findDualDepartingRow() {
+        int departingRow = -1;
+        double lowest = -CUT_OFF;
+        for (int i = 0; i < _rows - 1; ++i) {
+            double value = _matrix[i * _columns + _columns - 1];
+            if (_bounded) {
+                value = Math.min(value, _upperBounds[_basis[i]] - value);
+            }
+            if (value < lowest) {
+                lowest = value;
+                departingRow = i;
+            }
+        }
+        return departingRow;
+    }
+
+    /**
+     * @param column The index of the column.
+     * @return The row the column is basic in, or -1 if it is nonbasic.
+     */
+    private int _findBasisRow(int column) {
+        for (int i = 0; i < _rows - 1; ++i) {
+            if (_basis[i] == column) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Complements a nonbasic column of a bounded problem: the column stands for the distance of its variable to the
+     * upper bound from now on, or to the lower bound again. The 'b' values take the variable at the other end of its range.
+     *
+     * @param column The nonbasic column to complement.
+     */
+    private void _complementColumn(int column) {
+        double range = _upperBounds[column];
+        for (int i = 0; i < _rows; ++i) {
+            int offset = i * _columns;
+            double cell = _matrix[offset + column];
+            if (cell == 0) {
+                continue;
+            }
+            _matrix[offset + _columns - 1] -= cell * range;
+            _matrix[offset + column] = -cell;
+        }
+        _complemented[column] = !_complemented[column];
+    }
+
+    /**
+     * Complements the basic variable of a row of a bounded problem. Its column stays a unit vector,
+     * so the rest of the row is negated, and the 'b' value becomes the distance to the other end of the range.
+     *
+     * @param row The constraint row of the basic variable.
+     */
+    private void _complementBasicVariable(int row) {
+        int offset = row * _columns;
+        int column = _basis[row];
+        for (int j = 0; j < _columns - 1; ++j) {
+            if (j != column) {
+                _matrix[offset + j] = -_matrix[offset + j];
+            }
+        }
+        _matrix[offset + _columns - 1] = _upperBounds[column] - _matrix[offset + _columns - 1];
+        _complemented[column] = !_complemented[column];
+    }
+
+    /**
+     * Calculates the change of a 'b' value for re-solving. For bounded problems this is relative to the last 'b' vector,
+     * for the other problems the 'b' column of the final tableau is calculated from scratch.
+     *
+     * @param rhs The new 'b' vector.
+     * @param row The row of the 'b' value.
+     * @return The value to multiply the column of the basis inverse with.
+     */
+    private double _getRhsChange(float[] rhs, int row) {
+        return _bounded ? rhs[row] - _boundedRhs[row] : rhs[row];
+    }
+
+    /**
+     * Finds the entering column of the dual simplex method, which is the column with the smallest ratio:
+     * objective cell / -pivot cell, where the pivot cells are the negative cells of the departing row.
+     * This keeps the objective row non-negative.
+     *
+     * @param departingRow The departing row, which has a negative 'b' cell.
+     * @return The column index of the entering column, or -1 if there are no feasible solutions.
+     */
+    private int _findDualEnteringColumn(int departingRow) {
+        int objectiveOffset = (_rows - 1) * _columns;
+        int offset = departingRow * _columns;
+        int enteringColumn = -1;
+        double smallestRatio = Double.MAX_VALUE;
+        for (int j = 0; j < _pricedColumns; ++j) {
+            double cell = _matrix[offset + j];
+            if (cell >= -CUT_OFF) {
+                continue;
+            }
+            double ratio = Math.max(_matrix[objectiveOffset + j], 0) / -cell;
+            if (ratio < smallestRatio) {
+                smallestRatio = ratio;
+                enteringColumn = j;
+            }
+        }
+        return enteringColumn;
+    }
+
+    /**
+     * Executes the pivoting function on the tableau.
+     *
+     * @param departingRow   The departing row.
+     * @param enteringColumn The entering column.
+     * @return True if everything went fine. False if there was an unexpected problem, the program should abort in this case.
+     */
+    private boolean _doPivoting(int departingRow, int enteringColumn) {
+        int pivotOffset = departingRow * _columns;
+        double pivot = _matrix[pivotOffset + enteringColumn];
+        // The pivot is positive for the primal simplex, and negative for the dual simplex.
+        if (Math.abs(pivot) <= CUT_OFF) {
+            return false;
+        }
+        for (int j = 0; j < _columns; ++j) {
+            _matrix[pivotOffset + j] /= pivot;
+        }
+        if (Math.abs(_matrix[pivotOffset + enteringColumn] - 1) >= EPSILON) {
+            return false;
+        }
+        if (_parallelPivot && _rows * _columns >= PARALLEL_PIVOT_THRESHOLD) {
+            int blockCount = Math.min(_rows * _columns / PARALLEL_BLOCK_SIZE, THREAD_COUNT);
+            new RowEliminationTask(departingRow, enteringColumn, blockCount).invoke();
+        } else {
+            _eliminateRows(0, _rows, departingRow, enteringColumn);
+        }
+        _basis[departingRow] = enteringColumn;
+        return true;
+    }
+
+    /**
+     * Subtracts the multiple of the departing row from the given rows, so that the cells of the entering column become zero.
+     *
+     * @param fromRow        The first row to eliminate, inclusive.
+     * @param toRow          The last row to eliminate, exclusive.
+     * @param departingRow   The departing row, which has already been divided by the pivot.
+     * @param enteringColumn The entering column.
+     */
+    private void _eliminateRows(int fromRow, int toRow, int departingRow, int enteringColumn) {
+        int pivotOffset = departingRow * _columns;
+        for (int i = fromRow; i < toRow; ++i) {
+            if (i == departingRow) {
+                // We skip the pivot row.
+                continue;
+            }
+            int offset = i * _columns;
+            double multiplier = _matrix[offset + enteringColumn];
+            if (multiplier == 0) {
+                continue;
+            }
+            for (int j = 0; j < _columns; ++j) {
+                _matrix[offset + j] -= multiplier * _matrix[pivotOffset + j];
+            }
+        }
+    }
+
+    /**
+     * Reads out the final values from the tableau.
+     *
+     * @return The solution vector. For dual programs, this contains the slack variable solutions.
+     */
+    private float[] _writeResult() {
+        long time = System.nanoTime();
+        int objectiveOffset = (_rows - 1) * _columns;
+        float[] result;
+        if (_dualProgram) {
+            // The last N - 1 columns before the 'b' vector belong to the slack variables,
+            // their values in the objective row are the solutions of the dual program.
+            int startIndex = _columns - _rows;
+            result = new float[_rows - 1];
+            for (int j = 0; j < result.length; ++j) {
+                result[j] = (float)_matrix[objectiveOffset + startIndex + j];
+            }
+        } else {
+            // Non-basic variables are zero, the basic variables have the value of the 'b' cell in their row.
+            result = new float[_columns - _rows - _artificialColumns];
+            if (_bounded) {
+                for (int j = 0; j < result.length; ++j) {
+                    result[j] = (float)_getVariableValue(j, 0);
+                }
+            }
+            for (int i = 0; i < _rows - 1; ++i) {
+                if (_basis[i] < result.length) {
+                    result[_basis[i]] = (float)_getVariableValue(_basis[i], _matrix[i * _columns + _columns - 1]);
+                }
+            }
+        }
+        _stats.record(SolvePhase.READBACK, time);
+        return result;
+    }
+
+    /**
+     * Calculates the value of a variable from the value of its column.
+     *
+     * @param column      The column of the variable.
+     * @param columnValue The value of the column, zero for nonbasic columns.
+     * @return The value of the variable. For bounded problems, the column stands for the distance to the lower bound,
+     * or to the upper bound when it is complemented.
+     */
+    private double _getVariableValue(int column, double columnValue) {
+        if (!_bounded) {
+            return columnValue;
+        }
+        double distance = _complemented[column] ? _upperBounds[column] - columnValue : columnValue;
+        return _lowerBounds[column] + distance;
+    }
+
+    /**
+     * Reads the sensitivity analysis from the final tableau. Each basic column is a unit vector, and the cells
+     * of the other basic columns in its row are exactly zero, so only the nonbasic columns take part in the ratios.
+     * The artificial columns of the two-phase method can not enter the basis, so they do not take part either,
+     * but they hold the inverse of the basis, so they are analysed instead of the slack columns.
+     * The complemented columns of bounded problems stand for the distance of their variable to the upper bound,
+     * so their reduced costs and objective ranges are mirrored, and the basic values are limited by their upper bounds too.
+     *
+     * @return The analysis of the original problem.
+     */
+    private SensitivityReport _writeSensitivity() {
+        long time = System.nanoTime();
+        int columnCount = _pricedColumns;
+        int rowCount = _rows - 1;
+        int variableCount = columnCount - rowCount;
+        int slackStart = _columns - _rows;
+        int objectiveOffset = rowCount * _columns;
+        float[] analysis = new float[SensitivityReport.getTableauSize(_rows, variableCount + 1)];
+        // The nonbasic columns are zero, and their objective coefficient can decrease without limit.
+        // It can increase until their cell in the objective row becomes negative.
+        for (int a = 0; a < columnCount; ++a) {
+            int j = a < variableCount ? a : slackStart + a - variableCount;
+            double reducedCost = _matrix[objectiveOffset + j];
+            analysis[a] = (float)_getVariableValue(j, 0);
+            if (_bounded && _complemented[j]) {
+                // The variable is at its upper bound, its objective coefficient can increase without limit.
+                analysis[columnCount + a] = (float)-reducedCost;
+                analysis[2 * columnCount + a] = (float)Math.max(reducedCost, 0);
+                analysis[3 * columnCount + a] = Float.POSITIVE_INFINITY;
+                continue;
+            }
+            analysis[columnCount + a] = (float)reducedCost;
+            analysis[2 * columnCount + a] = Float.POSITIVE_INFINITY;
+            analysis[3 * columnCount + a] = (float)Math.max(reducedCost, 0);
+        }
+        for (int i = 0; i < rowCount; ++i) {
+            int offset = i * _columns;
+            int basicColumn = _basis[i];
+            if (basicColumn >= variableCount && basicColumn < slackStart) {
+                // A slack column of the two-phase method, which is not analysed.
+                continue;
+            }
+            int a = basicColumn < variableCount ? basicColumn : basicColumn - slackStart + variableCount;
+            analysis[a] = (float)_getVariableValue(basicColumn, _matrix[offset + _columns - 1]);
+            // Changing the objective coefficient of a basic column changes the objective row by a multiple of its row,
+            // the range ends where the first nonbasic cell of the objective row becomes negative.
+            double decrease = Double.POSITIVE_INFINITY;
+            double increase = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < _pricedColumns; ++j) {
+                double cell = _matrix[offset + j];
+                if (j == basicColumn || Math.abs(cell) <= CUT_OFF) {
+                    continue;
+                }
+                double reducedCost = Math.max(_matrix[objectiveOffset + j], 0);
+                if (cell > 0) {
+                    decrease = Math.min(decrease, reducedCost / cell);
+                } else {
+                    increase = Math.min(increase, reducedCost / -cell);
+                }
+            }
+            if (_bounded && _complemented[basicColumn]) {
+                analysis[2 * columnCount + a] = (float)increase;
+                analysis[3 * columnCount + a] = (float)decrease;
+            } else {
+                analysis[2 * columnCount + a] = (float)decrease;
+                analysis[3 * columnCount + a] = (float)increase;
+            }
+        }
+        // Changing the 'b' value of a row changes the basic values by a multiple of the slack column of the row,
+        // the range ends where the first basic value becomes negative, or reaches its upper bound.
+        int rhsStart = 4 * columnCount;
+        for (int k = 0; k < rowCount; ++k) {
+            double decrease = Double.POSITIVE_INFINITY;
+            double increase = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < rowCount; ++i) {
+                int offset = i * _columns;
+                double cell = _matrix[offset + slackStart + k];
+                if (Math.abs(cell) <= CUT_OFF) {
+                    continue;
+                }
+                double value = Math.max(_matrix[offset + _columns - 1], 0);
+                double room = _bounded ? Math.max(_upperBounds[_basis[i]] - value, 0) : Double.POSITIVE_INFINITY;
+                if (cell > 0) {
+                    decrease = Math.min(decrease, value / cell);
+                    increase = Math.min(increase, room / cell);
+                } else {
+                    increase = Math.min(increase, value / -cell);
+                    decrease = Math.min(decrease, room / -cell);
+                }
+            }
+            if (_rowSigns[k] < 0) {
+                // The row has been negated by the two-phase method, so the analysis of its constraint is mirrored.
+                analysis[columnCount + variableCount + k] *= -1;
+                analysis[rhsStart + k] = (float)increase;
+                analysis[rhsStart + rowCount + k] = (float)decrease;
+            } else {
+                analysis[rhsStart + k] = (float)decrease;
+                analysis[rhsStart + rowCount + k] = (float)increase;
+            }
+        }
+        SensitivityReport report = SensitivityReport.fromTableau(analysis, _rows, variableCount + 1, _dualProgram, _negatedObjective);
+        _stats.record(SolvePhase.READBACK, time);
+        return report;
+    }
+
+    private static synchronized ExecutorService _getSharedPool() {
+        if (_sharedPool == null) {
+            _sharedPool = Executors.newFixedThreadPool(THREAD_COUNT, new PoolThreadFactory());
+        }
+        return _sharedPool;
+    }
+
+    /**
+     * Work which is split up into blocks, which are run on the pool and on the calling thread.
+     * Each thread takes the next block which has not been started yet, until all of them have been taken,
+     * and the calling thread waits until the blocks taken by the others have finished as well.
+     * The calling thread can run all the blocks by itself, so queued tasks which only start afterwards find nothing to do.
+     */
+    private abstract class ParallelTask implements Runnable {
+
+        private final int _blockCount;
+        private final AtomicInteger _nextBlock = new AtomicInteger();
+        private final CountDownLatch _finished;
+        private volatile RuntimeException _error;
+
+        ParallelTask(int blockCount) {
+            _blockCount = blockCount;
+            _finished = new CountDownLatch(blockCount);
+        }
+
+        /**
+         * Runs all the blocks, and returns when they have finished.
+         * An exception thrown by one of the blocks is thrown again on the calling thread.
+         */
+        void invoke() {
+            for (int t = 1; t < Math.min(_blockCount, THREAD_COUNT); ++t) {
+                _pool.execute(this);
+            }
+            run();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    _finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // The blocks write into the buffers of the solver, so they have to finish before it returns.
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (_error != null) {
+                throw _error;
+            }
+        }
+
+        @Override
+        public void run() {
+            int block;
+            while ((block = _nextBlock.getAndIncrement()) < _blockCount) {
+                try {
+                    runBlock(block, _blockCount);
+                } catch (RuntimeException e) {
+                    _error = e;
+                } finally {
+                    _finished.countDown();
+                }
+            }
+        }
+
+        /**
+         * Runs a single block of the work.
+         *
+         * @param block      The index of the block.
+         * @param blockCount The amount of blocks the work is split into.
+         */
+        abstract void runBlock(int block, int blockCount);
+    }
+
+    /**
+     * Task which eliminates the rows in blocks of about the same size.
+     */
+    private class RowEliminationTask extends ParallelTask {
+
+        private final int _departingRow;
+        private final int _enteringColumn;
+
+        RowEliminationTask(int departingRow, int enteringColumn, int blockCount) {
+            super(blockCount);
+            _departingRow = departingRow;
+            _enteringColumn = enteringColumn;
+        }
+
+        @Override
+        void runBlock(int block, int blockCount) {
+            int fromRow = (int)((long)_rows * block / blockCount);
+            int toRow = (int)((long)_rows * (block + 1) / blockCount);
+            _eliminateRows(fromRow, toRow, _departingRow, _enteringColumn);
+        }
+    }
+
+    /**
+     * Task which solves the problems of a batch in blocks.
+     */
+    private class BatchTask extends ParallelTask {
+
+        private final List<float[][]> _problems;
+        private final boolean[] _minimize;
+        private final SimplexResult[] _results;
+
+        BatchTask(List<float[][]> problems, boolean[] minimize, SimplexResult[] results, int blockCount) {
+            super(blockCount);
+            _problems = problems;
+            _minimize = minimize;
+            _results = results;
+        }
+
+        @Override
+        void runBlock(int block, int blockCount) {
+            // Each block has its own solver, so the buffers are not shared between the threads.
+            SimplexJVM solver = new SimplexJVM(_pool);
+            solver.setPricingRule(_pricingRule);
+            solver.setStatsListener(_statsListener);
+            solver.setLimits(_limits);
+            int toProblem = Math.min(_results.length, (block + 1) * BATCH_BLOCK_SIZE);
+            for (int p = block * BATCH_BLOCK_SIZE; p < toProblem; ++p) {
+                _results[p] = solver.solve(_problems.get(p), _minimize[p]);
+            }
+        }
+    }
+
+    /**
+     * Creates the daemon threads of the shared pool, so an idle pool does not keep the application alive.
+     */
+    private static class PoolThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger _threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SimplexJVM-" + _threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
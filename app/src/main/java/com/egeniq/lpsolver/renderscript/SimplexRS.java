@@ -1,25 +1,33 @@
 package com.egeniq.lpsolver.renderscript;
 
 
-import android.support.v8.renderscript.Allocation;
-import android.support.v8.renderscript.Element;
 import android.support.v8.renderscript.RenderScript;
-import android.support.v8.renderscript.Type;
 
-import java.util.Arrays;
+import com.egeniq.lpsolver.simplex.DenseTableau;
+import com.egeniq.lpsolver.simplex.PricingRule;
+import com.egeniq.lpsolver.simplex.SensitivityReport;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolveStatsListener;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.List;
 
 /**
  * Handler which takes care of setting up the custom RenderScript.
+ * The script and its allocations are kept in a {@link SimplexSession}, so they are reused between the solves.
  * Created by Daniel Zolnai on 2017-01-05.
  */
-public class SimplexRS {
+public class SimplexRS implements SimplexEngine {
 
-    private ScriptC_simplex _script;
-    private RenderScript _renderScript;
+    private SimplexSession _session;
 
     public SimplexRS(RenderScript renderScript) {
-        _renderScript = renderScript;
-        _script = new ScriptC_simplex(renderScript);
+        _session = new SimplexSession(renderScript);
     }
 
     /**
@@ -27,60 +35,173 @@ public class SimplexRS {
      *
      * @param data     The input data. Use the {@link TableauConverter} to generate this from Apache Math objects.
      * @param minimize If the program is a minimization problem.
-     * @return Null if there was no solution found. Otherwise the (sub)optimal solution.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(float[][] data, boolean minimize) {
+        return _session.solve(data, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem given as a flat tableau.
+     *
+     * @param tableau  The input data. Use a {@link com.egeniq.lpsolver.simplex.TableauBuilder} to write the problem straight into it.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#solve(DenseTableau, boolean)
+     */
+    @Override
+    public SimplexResult solve(DenseTableau tableau, boolean minimize) {
+        return _session.solve(tableau, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem given as a sparse tableau.
+     *
+     * @param tableau  The input data. Use the sparse methods of the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#solve(SparseTableau, boolean)
+     */
+    @Override
+    public SimplexResult solve(SparseTableau tableau, boolean minimize) {
+        return _session.solve(tableau, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method, which accepts equality constraints.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#solveTwoPhase(float[][], Relationship[], boolean)
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, boolean minimize) {
+        return _session.solveTwoPhase(data, relationships, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method and bounded variables.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#solveTwoPhase(float[][], Relationship[], VariableBounds, boolean)
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, VariableBounds bounds, boolean minimize) {
+        return _session.solveTwoPhase(data, relationships, bounds, minimize);
+    }
+
+    /**
+     * Solves multiple independent linear programming problems in a single kernel launch.
+     *
+     * @param problems The input data of each problem. Use the {@link TableauConverter} to generate these.
+     * @param minimize For each problem, if it is a minimization problem.
+     * @return The result of each problem, in the same order as the input.
+     * @see SimplexSession#solveBatch(List, boolean[])
+     */
+    @Override
+    public List<SimplexResult> solveBatch(List<float[][]> problems, boolean[] minimize) {
+        return _session.solveBatch(problems, minimize);
+    }
+
+    /**
+     * Re-solves the last problem with a different objective row, starting from the final basis of the last solve.
+     *
+     * @param objective The new objective row, in the same format as the last row of the input data.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#resolveWithObjective(float[])
      */
-    public float[] solve(float[][] data, boolean minimize) {
-        int arraySize = _script.get_MAX_COLS() * _script.get_MAX_ROWS();
-        // Supply the input tableau to the script.
-        ScriptField_Tableau tableau = new ScriptField_Tableau(_renderScript, 1);
-        int rowCount = data.length;
-        int columnCount = data[0].length;
-        tableau.set_rows(0, rowCount, false);
-        tableau.set_columns(0, columnCount, false);
-        tableau.set_dual_program(0, minimize, false);
-        tableau.set_matrix(0, reduceToOneDimensional(data, arraySize), false);
-        // Copy all values at once to struct in the C code.
-        tableau.copyAll();
-        _script.bind_tableau(tableau);
-        // The following allocations will contain the solution and the size of it.
-        Type solutionVectorType = new Type.Builder(_renderScript, Element.F32(_renderScript)).setX(_script.get_MAX_COLS()).create();
-        Type resultSizeType = new Type.Builder(_renderScript, Element.I32(_renderScript)).create();
-        Allocation arrayAllocation = Allocation.createTyped(_renderScript, solutionVectorType);
-        Allocation resultSizeAllocation = Allocation.createTyped(_renderScript, resultSizeType);
-        _script.set_solution_vector(arrayAllocation);
-        _script.set_result_size(resultSizeAllocation);
-        _script.invoke_solve();
-        float[] solutionVector = new float[_script.get_MAX_COLS()];
-        arrayAllocation.copyTo(solutionVector);
-        int[] resultSizeVector = new int[1];
-        resultSizeAllocation.copyTo(resultSizeVector);
-        // If the solution vector size is -1, no solution has been found.
-        if (resultSizeVector[0] <= 0) {
-            // No result
-            return null;
-        }
-        // Only the first N elements contain the result.
-        return Arrays.copyOf(solutionVector, resultSizeVector[0]);
+    @Override
+    public SimplexResult resolveWithObjective(float[] objective) {
+        return _session.resolveWithObjective(objective);
     }
 
+    /**
+     * Re-solves the last problem with a different 'b' vector, starting from the final basis of the last solve.
+     *
+     * @param rhs The new 'b' vector, in the same format as the last column of the input data, including the objective row.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#resolveWithRhs(float[])
+     */
+    @Override
+    public SimplexResult resolveWithRhs(float[] rhs) {
+        return _session.resolveWithRhs(rhs);
+    }
+
+    /**
+     * Re-solves the last problem with different bounds of the variables, starting from the final basis of the last solve.
+     *
+     * @param bounds The new bounds of the variables.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @see SimplexSession#resolveWithBounds(VariableBounds)
+     */
+    @Override
+    public SimplexResult resolveWithBounds(VariableBounds bounds) {
+        return _session.resolveWithBounds(bounds);
+    }
+
+    /**
+     * Sets if the rows should be eliminated in parallel while pivoting.
+     *
+     * @param parallelPivot True to enable parallel pivoting, false to pivot serially.
+     * @see SimplexSession#setParallelPivot(boolean)
+     */
+    public void setParallelPivot(boolean parallelPivot) {
+        _session.setParallelPivot(parallelPivot);
+    }
+
+    /**
+     * Sets the rule for choosing the entering column.
+     *
+     * @param pricingRule The pricing rule to use from the next solve on.
+     * @see SimplexSession#setPricingRule(PricingRule)
+     */
+    public void setPricingRule(PricingRule pricingRule) {
+        _session.setPricingRule(pricingRule);
+    }
 
     /**
-     * Utility method to convert a two-dimensional array (matrix) to a one-dimensional (vector).
-     * This is required because RenderScript does not support two-dimensional arrays.
+     * Sets the limits of the next solves.
      *
-     * @param input     The input matrix.
-     * @param arraySize The size of the final array (at least the product of the rows and columns of the input).
-     * @return The rows of the matrix concatenated into a single vector.
+     * @param limits The limits, or {@link SolveLimits#NONE}.
+     * @see SimplexSession#setLimits(SolveLimits)
      */
-    private float[] reduceToOneDimensional(float[][] input, int arraySize) {
-        int rows = input.length;
-        int columns = input[0].length;
-        float[] result = new float[arraySize];
-        for (int i = 0; i < rows; ++i) {
-            for (int j = 0; j < columns; ++j) {
-                result[i * columns + j] = (float)input[i][j];
-            }
-        }
-        return result;
-    }
-}
\ No newline at end of file
+    @Override
+    public void setLimits(SolveLimits limits) {
+        _session.setLimits(limits);
+    }
+
+    /**
+     * Enables the sensitivity analysis of the optimal solutions.
+     *
+     * @param enabled True to add a {@link SensitivityReport} to the optimal results.
+     * @see SimplexSession#setSensitivityAnalysis(boolean)
+     */
+    @Override
+    public void setSensitivityAnalysis(boolean enabled) {
+        _session.setSensitivityAnalysis(enabled);
+    }
+
+    /**
+     * Sets the listener which receives the statistics of each solve.
+     *
+     * @param statsListener The listener, or null to remove it.
+     * @see SimplexSession#setStatsListener(SolveStatsListener)
+     */
+    public void setStatsListener(SolveStatsListener statsListener) {
+        _session.setStatsListener(statsListener);
+    }
+
+    /**
+     * Releases the script and its allocations. The RenderScript context is not destroyed.
+     */
+    public void destroy() {
+        _session.destroy();
+    }
+}
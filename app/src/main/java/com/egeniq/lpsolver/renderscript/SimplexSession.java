@@ -0,0 +1,1054 @@
+package com.egeniq.lpsolver.renderscript;
+
+import android.content.Context;
+import android.support.v8.renderscript.Allocation;
+import android.support.v8.renderscript.Element;
+import android.support.v8.renderscript.RenderScript;
+import android.support.v8.renderscript.Script;
+import android.support.v8.renderscript.Type;
+
+import com.egeniq.lpsolver.simplex.DenseTableau;
+import com.egeniq.lpsolver.simplex.PricingRule;
+import com.egeniq.lpsolver.simplex.SensitivityReport;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolvePhase;
+import com.egeniq.lpsolver.simplex.SolveStats;
+import com.egeniq.lpsolver.simplex.SolveStatsListener;
+import com.egeniq.lpsolver.simplex.SolveStatsRecorder;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+import com.egeniq.lpsolver.simplex.TableauBuilder;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Long-lived RenderScript solver, which keeps the script, the allocations and the staging buffers alive between the solves.
+ * The allocations are only recreated when a larger problem arrives than the ones solved before.
+ * The rows can be eliminated in parallel while pivoting, see {@link #setParallelPivot(boolean)}.
+ * Batches of small problems are solved in a single kernel launch, see {@link #solveBatch(List, boolean[])}.
+ * The final tableau of the last solve stays on the device, so the problem can be re-solved from its optimal basis,
+ * see {@link #resolveWithObjective(float[])} and {@link #resolveWithRhs(float[])}.
+ * The entering column is chosen by the pricing rule set in {@link #setPricingRule(PricingRule)}.
+ * The time spent in each phase of a solve is returned in its result, and passed to the listener set in
+ * {@link #setStatsListener(SolveStatsListener)}. The phases on the device are timed by the script itself.
+ * The optimal results can contain the sensitivity analysis of the final tableau, which is calculated on the device,
+ * see {@link #setSensitivityAnalysis(boolean)}.
+ * Problems with equality constraints are solved with the two-phase method on the device,
+ * see {@link #solveTwoPhase(float[][], Relationship[], boolean)}, which also handles the bounds of the variables
+ * without constraint rows, see {@link #solveTwoPhase(float[][], Relationship[], VariableBounds, boolean)}.
+ * Call {@link #destroy()} when the session is not needed anymore.
+ * Instances are not thread-safe, use one session per thread.
+ */
+public class SimplexSession implements SimplexEngine {
+
+    // The value below which the script treats values as zero, the same as CUT_OFF in simplex.rsh.
+    private static final float CUT_OFF = 1.0e-10f;
+
+    private RenderScript _renderScript;
+    private final boolean _ownsRenderScript;
+    private ScriptC_simplex _script;
+    private ScriptField_Tableau _tableau;
+    // The tableaus of the last batch, recreated when a larger batch arrives.
+    private ScriptField_Tableau _batchTableaus;
+
+    private Allocation _matrixAllocation;
+    private Allocation _solutionAllocation;
+    private Allocation _resultInfoAllocation;
+    private Allocation _pivotRowsAllocation;
+    private Allocation _batchStatusAllocation;
+    private Allocation _updateAllocation;
+    private Allocation _basisAllocation;
+    private Allocation _pricingWeightsAllocation;
+    private Allocation _batchIterationsAllocation;
+    private Allocation _sparseRowStartAllocation;
+    private Allocation _sparseColumnIndexAllocation;
+    private Allocation _sparseValuesAllocation;
+    private Allocation _phaseStatsAllocation;
+    private Allocation _sensitivityAllocation;
+    private Allocation _rowTypesAllocation;
+    private Allocation _rowSignsAllocation;
+    private Allocation _lowerBoundsAllocation;
+    private Allocation _upperBoundsAllocation;
+    private Allocation _complementedAllocation;
+    // Staging buffers on the Java side, these also only grow.
+    private float[] _matrixBuffer = new float[0];
+    private float[] _solutionBuffer = new float[0];
+    private final int[] _resultInfoBuffer = new int[3];
+    private int[] _batchStatusBuffer = new int[0];
+    private int[] _batchIterationsBuffer = new int[0];
+    private final long[] _phaseStatsBuffer = new long[SolvePhase.values().length * 2];
+    private float[] _sensitivityBuffer = new float[0];
+    private int[] _rowTypesBuffer = new int[0];
+    private float[] _lowerBoundsBuffer = new float[0];
+    private float[] _upperBoundsBuffer = new float[0];
+
+    // The size of the input tableau of the last single problem solve.
+    private int _rowCount;
+    private int _columnCount;
+    private boolean _dualProgram;
+    // If the tableau maximizes the negated objective function of a minimization problem, which the two-phase method does.
+    private boolean _negatedObjective;
+    private boolean _sensitivityAnalysis;
+    // If the last solve had bounded variables, in which case the 'b' column of the tableau contains the bounds as well,
+    // so the re-solves only upload the change of the 'b' vector.
+    private boolean _bounded;
+    private float[] _boundedRhs = new float[0];
+    private float[] _rhsChangeBuffer = new float[0];
+    // The new lower bounds of the variables followed by their ranges, uploaded by the re-solves with new bounds.
+    private float[] _boundsUpdateBuffer = new float[0];
+
+    // If the matrix allocation contains the final tableau of a solve, which can be used to re-solve from.
+    private boolean _hasFinalTableau;
+
+    private int _reusedAllocationCount;
+    private int _grownAllocationCount;
+
+    // The time spent in each phase of the current solve, on the Java side.
+    private final SolveStatsRecorder _stats = new SolveStatsRecorder();
+    private SolveStatsListener _statsListener;
+    private SolveLimits _limits = SolveLimits.NONE;
+
+    /**
+     * Creates a new session with its own RenderScript context, which is destroyed together with the session.
+     *
+     * @param context The context to create the RenderScript context with.
+     */
+    public SimplexSession(Context context) {
+        this(RenderScript.create(context), true);
+    }
+
+    /**
+     * Creates a new session on an existing RenderScript context. The context is not destroyed together with the session.
+     *
+     * @param renderScript The RenderScript context to run the script in.
+     */
+    public SimplexSession(RenderScript renderScript) {
+        this(renderScript, false);
+    }
+
+    private SimplexSession(RenderScript renderScript, boolean ownsRenderScript) {
+        _renderScript = renderScript;
+        _ownsRenderScript = ownsRenderScript;
+        _script = new ScriptC_simplex(renderScript);
+        _tableau = new ScriptField_Tableau(renderScript, 1);
+        _script.bind_tableau(_tableau);
+        // The script computes the default iteration limit of each tableau itself, since a batch has tableaus of different sizes.
+        _script.set_iterations_per_dimension(SolveLimits.ITERATIONS_PER_DIMENSION);
+        _script.set_min_iteration_limit(SolveLimits.MIN_ITERATION_LIMIT);
+        Type resultInfoType = new Type.Builder(renderScript, Element.I32(renderScript)).setX(_resultInfoBuffer.length).create();
+        _resultInfoAllocation = Allocation.createTyped(renderScript, resultInfoType);
+        _script.set_result_info(_resultInfoAllocation);
+        Type phaseStatsType = new Type.Builder(renderScript, Element.I64(renderScript)).setX(_phaseStatsBuffer.length).create();
+        _phaseStatsAllocation = Allocation.createTyped(renderScript, phaseStatsType);
+        _script.set_phase_stats(_phaseStatsAllocation);
+    }
+
+    /**
+     * Sets if the rows should be eliminated in parallel while pivoting, by launching a kernel over the rows.
+     * Tableaus which are smaller than a threshold are always pivoted serially. Serial pivoting is the default.
+     *
+     * @param parallelPivot True to enable parallel pivoting, false to pivot serially.
+     */
+    public void setParallelPivot(boolean parallelPivot) {
+        _script.set_parallel_pivot(parallelPivot);
+    }
+
+    /**
+     * Sets the rule for choosing the entering column. Dantzig's rule is the default.
+     * When solving a batch, Dantzig's rule is used instead of devex, because the reference weights can not be shared
+     * between the problems.
+     *
+     * @param pricingRule The pricing rule to use from the next solve on.
+     */
+    public void setPricingRule(PricingRule pricingRule) {
+        _script.set_pricing_rule(pricingRule.getCode());
+    }
+
+    /**
+     * Sets the limits of the next solves. The time budget is checked by the script after each iteration.
+     * The script can not be interrupted, so interrupting the calling thread does not stop the solve.
+     * When solving a batch, the time budget is shared by all the problems.
+     *
+     * @param limits The limits, or {@link SolveLimits#NONE}.
+     */
+    @Override
+    public void setLimits(SolveLimits limits) {
+        _limits = limits;
+    }
+
+    /**
+     * Enables the sensitivity analysis of the optimal solutions. It is disabled by default.
+     * The analysis is calculated by the script from the final tableau, only the result is copied back.
+     * The problems of a batch are never analysed.
+     *
+     * @param enabled True to add a {@link SensitivityReport} to the optimal results.
+     */
+    @Override
+    public void setSensitivityAnalysis(boolean enabled) {
+        _sensitivityAnalysis = enabled;
+        _script.set_sensitivity_analysis(enabled);
+        if (enabled && _hasFinalTableau) {
+            // The next re-solve can already be analysed.
+            _ensureSensitivityCapacity(SensitivityReport.getTableauSize(_rowCount, _columnCount));
+        }
+    }
+
+    /**
+     * Sets the listener which receives the statistics of each solve.
+     * When solving a batch, it is called for each problem, but only with the status and the iteration count,
+     * because the problems run concurrently in the same kernel launch, so their phases can not be timed separately.
+     *
+     * @param statsListener The listener, or null to remove it.
+     */
+    public void setStatsListener(SolveStatsListener statsListener) {
+        _statsListener = statsListener;
+    }
+
+    /**
+     * Solves the linear programming problem.
+     *
+     * @param data     The input data. Use the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(float[][] data, boolean minimize) {
+        _checkNotDestroyed();
+        _checkSlackBasis(data);
+        _stats.reset();
+        _applyLimits();
+        long time = System.nanoTime();
+        int rowCount = data.length;
+        int columnCount = data[0].length;
+        _prepareTableau(rowCount, columnCount, 0, minimize);
+        // The matrix is sized for the tableau with the slack variables, but we only copy the input values.
+        TableauConverter.flatten(data, _matrixBuffer, 0);
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _matrixAllocation.copy1DRangeFrom(0, rowCount * columnCount, _matrixBuffer);
+        _stats.record(SolvePhase.UPLOAD, time);
+        _script.invoke_solve();
+        return _readResult();
+    }
+
+    /**
+     * Solves the linear programming problem given as a flat tableau.
+     * The array is copied straight into the allocation, so there is no conversion on the Java side.
+     *
+     * @param tableau  The input data. Use a {@link TableauBuilder} to write the problem straight into it.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(DenseTableau tableau, boolean minimize) {
+        _checkNotDestroyed();
+        _checkSlackBasis(tableau);
+        _stats.reset();
+        _applyLimits();
+        long time = System.nanoTime();
+        int rowCount = tableau.getRowCount();
+        int columnCount = tableau.getColumnCount();
+        _prepareTableau(rowCount, columnCount, 0, minimize);
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _matrixAllocation.copy1DRangeFrom(0, rowCount * columnCount, tableau.getValues());
+        _stats.record(SolvePhase.UPLOAD, time);
+        _script.invoke_solve();
+        return _readResult();
+    }
+
+    /**
+     * Solves the linear programming problem given as a sparse tableau.
+     * Only the nonzeros are copied to the device, where they are scattered into the matrix by a kernel launched over the rows.
+     *
+     * @param tableau  The input data. Use the sparse methods of the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solve(SparseTableau tableau, boolean minimize) {
+        _checkNotDestroyed();
+        _checkSlackBasis(tableau);
+        _stats.reset();
+        _applyLimits();
+        long time = System.nanoTime();
+        int rowCount = tableau.getRowCount();
+        _prepareTableau(rowCount, tableau.getColumnCount(), 0, minimize);
+        int nonZeroCount = tableau.getNonZeroCount();
+        Allocation allocation = _ensureCapacity(_sparseRowStartAllocation, Element.I32(_renderScript), rowCount + 1);
+        if (allocation != _sparseRowStartAllocation) {
+            _sparseRowStartAllocation = allocation;
+            _script.set_sparse_row_start(allocation);
+        }
+        // Allocations can not be empty, so there is always room for at least one nonzero.
+        allocation = _ensureCapacity(_sparseColumnIndexAllocation, Element.I32(_renderScript), Math.max(nonZeroCount, 1));
+        if (allocation != _sparseColumnIndexAllocation) {
+            _sparseColumnIndexAllocation = allocation;
+            _script.set_sparse_column_index(allocation);
+        }
+        allocation = _ensureCapacity(_sparseValuesAllocation, Element.F32(_renderScript), Math.max(nonZeroCount, 1));
+        if (allocation != _sparseValuesAllocation) {
+            _sparseValuesAllocation = allocation;
+            _script.set_sparse_values(allocation);
+        }
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _sparseRowStartAllocation.copy1DRangeFrom(0, rowCount + 1, tableau.getRowStart());
+        if (nonZeroCount > 0) {
+            _sparseColumnIndexAllocation.copy1DRangeFrom(0, nonZeroCount, tableau.getColumnIndices());
+            _sparseValuesAllocation.copy1DRangeFrom(0, nonZeroCount, tableau.getValues());
+        }
+        time = _stats.record(SolvePhase.UPLOAD, time);
+        // The output of the kernel is not needed, the pivot rows allocation is only used to launch it over the rows.
+        Script.LaunchOptions launchOptions = new Script.LaunchOptions().setX(0, rowCount);
+        _script.forEach_scatter_row(_pivotRowsAllocation, launchOptions);
+        // Scattering the nonzeros is the conversion of the sparse tableau, so we wait for it to be able to time it.
+        _renderScript.finish();
+        _stats.record(SolvePhase.CONVERSION, time);
+        _script.invoke_solve();
+        return _readResult();
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method on the device. The tableau gets a slack column
+     * for each inequality constraint, and an artificial column for each row. The objective row of the second phase
+     * is uploaded as the update vector, since the first phase overwrites the objective row of the tableau.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, boolean minimize) {
+        return solveTwoPhase(data, relationships, null, minimize);
+    }
+
+    /**
+     * Solves the linear programming problem with the two-phase method and bounded variables on the device.
+     * The lower bounds are subtracted from the variables by the script, the upper bounds are checked in its ratio test,
+     * next to the rows. The columns of the variables which are at their upper bound are complemented on the device.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, VariableBounds bounds, boolean minimize) {
+        _checkNotDestroyed();
+        _stats.reset();
+        _applyLimits();
+        if (bounds != null && bounds.hasEmptyRange()) {
+            _hasFinalTableau = false;
+            return _finish(new SimplexResult(SolveStatus.INFEASIBLE, null, 0));
+        }
+        long time = System.nanoTime();
+        int rowCount = data.length;
+        int columnCount = data[0].length;
+        _prepareTableau(rowCount, columnCount, rowCount - 1, false);
+        _negatedObjective = minimize;
+        _ensureRowCapacity(rowCount - 1);
+        for (int i = 0; i < rowCount - 1; ++i) {
+            _rowTypesBuffer[i] = _getRowType(relationships[i]);
+        }
+        TableauConverter.flatten(data, _matrixBuffer, 0);
+        if (bounds != null) {
+            // Each column before the 'b' vector gets a bound, including the slack and artificial columns.
+            _loadBounds(bounds, data, columnCount - 1 + 2 * (rowCount - 1));
+        }
+        time = _stats.record(SolvePhase.CONVERSION, time);
+        _matrixAllocation.copy1DRangeFrom(0, rowCount * columnCount, _matrixBuffer);
+        if (rowCount > 1) {
+            _rowTypesAllocation.copy1DRangeFrom(0, rowCount - 1, _rowTypesBuffer);
+        }
+        if (_bounded) {
+            _lowerBoundsAllocation.copy1DRangeFrom(0, _lowerBoundsBuffer.length, _lowerBoundsBuffer);
+            _upperBoundsAllocation.copy1DRangeFrom(0, _upperBoundsBuffer.length, _upperBoundsBuffer);
+        }
+        _stats.record(SolvePhase.UPLOAD, time);
+        _copyUpdateVector(data[rowCount - 1]);
+        _script.invoke_solve_two_phase();
+        SimplexResult result = _readResult();
+        // When the first phase has not found a feasible basis, there is no solution, and nothing to re-solve from.
+        // The second phase always has a solution, except for unbounded problems.
+        _hasFinalTableau = result.getSolution() != null || result.getStatus() == SolveStatus.UNBOUNDED;
+        return result;
+    }
+
+    /**
+     * Re-solves the last problem with a different objective row, starting from the final basis of the last solve,
+     * which is still on the device. Since the basis stays feasible, the primal simplex continues from there.
+     * Note that for dual programs the objective row contains the constraint values of the original problem.
+     *
+     * @param objective The new objective row, in the same format as the last row of the input data.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithObjective(float[] objective) {
+        _checkFinalTableau();
+        _stats.reset();
+        _applyLimits();
+        _copyUpdateVector(objective);
+        _script.invoke_resolve_objective();
+        return _readResult();
+    }
+
+    /**
+     * Re-solves the last problem with a different 'b' vector, starting from the final basis of the last solve,
+     * which is still on the device. The basis stays optimal, but it can become infeasible,
+     * which is fixed by the dual simplex method.
+     * Note that for dual programs the 'b' vector contains the objective function of the original problem.
+     *
+     * @param rhs The new 'b' vector, in the same format as the last column of the input data, including the objective row.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithRhs(float[] rhs) {
+        _checkFinalTableau();
+        _stats.reset();
+        _applyLimits();
+        if (_bounded) {
+            // The 'b' column of the final tableau contains the bounds as well, so only the change of the 'b' vector is applied.
+            for (int i = 0; i < rhs.length; ++i) {
+                _rhsChangeBuffer[i] = rhs[i] - _boundedRhs[i];
+                _boundedRhs[i] = rhs[i];
+            }
+            _copyUpdateVector(_rhsChangeBuffer);
+        } else {
+            _copyUpdateVector(rhs);
+        }
+        _script.invoke_resolve_rhs();
+        return _readResult();
+    }
+
+    /**
+     * Re-solves the last problem with different bounds of the variables, starting from the final basis of the last solve,
+     * which is still on the device, and has to be a bounded two-phase solve. Only the new lower bounds and ranges are
+     * uploaded, the script moves the 'b' column to them, and fixes the basis with the dual simplex method.
+     *
+     * @param bounds The new bounds of the variables.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    @Override
+    public SimplexResult resolveWithBounds(VariableBounds bounds) {
+        _checkFinalTableau();
+        if (!_bounded) {
+            throw new IllegalStateException("The last solve had no bounds to change, solve the problem with bounds first.");
+        }
+        _stats.reset();
+        _applyLimits();
+        if (bounds.hasEmptyRange()) {
+            // The tableau is left as it is, so the next re-solve can still start from it.
+            return _finish(new SimplexResult(SolveStatus.INFEASIBLE, null, 0));
+        }
+        int variableCount = bounds.getVariableCount();
+        if (_boundsUpdateBuffer.length != 2 * variableCount) {
+            _boundsUpdateBuffer = new float[2 * variableCount];
+        }
+        for (int j = 0; j < variableCount; ++j) {
+            _boundsUpdateBuffer[j] = bounds.getLower(j);
+            _boundsUpdateBuffer[variableCount + j] = bounds.getUpper(j) - bounds.getLower(j);
+        }
+        _copyUpdateVector(_boundsUpdateBuffer);
+        _script.invoke_resolve_bounds();
+        return _readResult();
+    }
+
+    /**
+     * Solves multiple independent linear programming problems at once.
+     * All the tableaus are packed into one allocation, and solved in a single kernel launch, one problem per thread.
+     * The problems are pivoted serially, even if parallel pivoting is enabled.
+     *
+     * @param problems The input data of each problem. Use the {@link TableauConverter} to generate these.
+     * @param minimize For each problem, if it is a minimization problem.
+     * @return The result of each problem, in the same order as the input.
+     */
+    @Override
+    public List<SimplexResult> solveBatch(List<float[][]> problems, boolean[] minimize) {
+        _checkNotDestroyed();
+        int problemCount = problems.size();
+        if (problemCount == 0) {
+            return new ArrayList<>();
+        }
+        for (float[][] data : problems) {
+            _checkSlackBasis(data);
+        }
+        _applyLimits();
+        // The bounds of the last two-phase solve do not apply to the problems of the batch.
+        _bounded = false;
+        _script.set_bounded(false);
+        _ensureBatchCapacity(problemCount);
+        // Calculate where each tableau and solution is located in the shared allocations.
+        int[] matrixOffsets = new int[problemCount + 1];
+        int[] solutionOffsets = new int[problemCount + 1];
+        int basisOffset = 0;
+        for (int p = 0; p < problemCount; ++p) {
+            float[][] data = problems.get(p);
+            int rowCount = data.length;
+            int columnCount = data[0].length;
+            _batchTableaus.set_rows(p, rowCount, false);
+            _batchTableaus.set_columns(p, columnCount, false);
+            _batchTableaus.set_dual_program(p, minimize[p], false);
+            _batchTableaus.set_offset(p, matrixOffsets[p], false);
+            _batchTableaus.set_solution_offset(p, solutionOffsets[p], false);
+            _batchTableaus.set_basis_offset(p, basisOffset, false);
+            _batchTableaus.set_artificial_columns(p, 0, false);
+            basisOffset += rowCount - 1;
+            // After adding the slack variables, the tableau will have an extra column for each constraint row.
+            matrixOffsets[p + 1] = matrixOffsets[p] + rowCount * (columnCount + rowCount - 1);
+            // The solution has an item for each variable, or for each constraint row in case of a dual program.
+            solutionOffsets[p + 1] = solutionOffsets[p] + (minimize[p] ? rowCount : columnCount) - 1;
+        }
+        _batchTableaus.copyAll();
+        _ensureMatrixCapacity(matrixOffsets[problemCount]);
+        for (int p = 0; p < problemCount; ++p) {
+            TableauConverter.flatten(problems.get(p), _matrixBuffer, matrixOffsets[p]);
+        }
+        _matrixAllocation.copy1DRangeFrom(0, matrixOffsets[problemCount], _matrixBuffer);
+        _ensureSolutionCapacity(solutionOffsets[problemCount]);
+        _ensureBasisCapacity(basisOffset);
+        Script.LaunchOptions launchOptions = new Script.LaunchOptions().setX(0, problemCount);
+        _script.forEach_solve_problem(_batchTableaus.getAllocation(), _batchStatusAllocation, launchOptions);
+        // The batch has overwritten the final tableau of the last solve.
+        _hasFinalTableau = false;
+        _batchStatusAllocation.copy1DRangeTo(0, problemCount, _batchStatusBuffer);
+        _batchIterationsAllocation.copy1DRangeTo(0, problemCount, _batchIterationsBuffer);
+        _solutionAllocation.copy1DRangeTo(0, solutionOffsets[problemCount], _solutionBuffer);
+        List<SimplexResult> results = new ArrayList<>(problemCount);
+        // The problems are not timed separately, so their statistics only contain the status and the iterations.
+        _stats.reset();
+        for (int p = 0; p < problemCount; ++p) {
+            SolveStatus status = SolveStatus.fromCode(_batchStatusBuffer[p]);
+            float[] solution = null;
+            // Minimization problems have no feasible solution before they are optimal.
+            if (status.hasSolution() && !(minimize[p] && status != SolveStatus.OPTIMAL)) {
+                solution = Arrays.copyOfRange(_solutionBuffer, solutionOffsets[p], solutionOffsets[p + 1]);
+            }
+            results.add(_finish(new SimplexResult(status, solution, _batchIterationsBuffer[p])));
+        }
+        return results;
+    }
+
+    /**
+     * Releases the script and the allocations, and the RenderScript context if it was created by this session.
+     * The session can not be used anymore after calling this.
+     */
+    public void destroy() {
+        if (_script == null) {
+            return;
+        }
+        if (_matrixAllocation != null) {
+            _matrixAllocation.destroy();
+            _matrixAllocation = null;
+        }
+        if (_solutionAllocation != null) {
+            _solutionAllocation.destroy();
+            _solutionAllocation = null;
+        }
+        if (_pivotRowsAllocation != null) {
+            _pivotRowsAllocation.destroy();
+            _pivotRowsAllocation = null;
+        }
+        if (_batchStatusAllocation != null) {
+            _batchStatusAllocation.destroy();
+            _batchStatusAllocation = null;
+        }
+        if (_updateAllocation != null) {
+            _updateAllocation.destroy();
+            _updateAllocation = null;
+        }
+        if (_basisAllocation != null) {
+            _basisAllocation.destroy();
+            _basisAllocation = null;
+        }
+        if (_pricingWeightsAllocation != null) {
+            _pricingWeightsAllocation.destroy();
+            _pricingWeightsAllocation = null;
+        }
+        if (_batchIterationsAllocation != null) {
+            _batchIterationsAllocation.destroy();
+            _batchIterationsAllocation = null;
+        }
+        if (_sparseRowStartAllocation != null) {
+            _sparseRowStartAllocation.destroy();
+            _sparseRowStartAllocation = null;
+        }
+        if (_sparseColumnIndexAllocation != null) {
+            _sparseColumnIndexAllocation.destroy();
+            _sparseColumnIndexAllocation = null;
+        }
+        if (_sparseValuesAllocation != null) {
+            _sparseValuesAllocation.destroy();
+            _sparseValuesAllocation = null;
+        }
+        if (_batchTableaus != null) {
+            _batchTableaus.getAllocation().destroy();
+            _batchTableaus = null;
+        }
+        if (_sensitivityAllocation != null) {
+            _sensitivityAllocation.destroy();
+            _sensitivityAllocation = null;
+        }
+        if (_rowTypesAllocation != null) {
+            _rowTypesAllocation.destroy();
+            _rowTypesAllocation = null;
+            _rowSignsAllocation.destroy();
+            _rowSignsAllocation = null;
+        }
+        if (_lowerBoundsAllocation != null) {
+            _lowerBoundsAllocation.destroy();
+            _lowerBoundsAllocation = null;
+            _upperBoundsAllocation.destroy();
+            _upperBoundsAllocation = null;
+            _complementedAllocation.destroy();
+            _complementedAllocation = null;
+        }
+        _resultInfoAllocation.destroy();
+        _resultInfoAllocation = null;
+        _phaseStatsAllocation.destroy();
+        _phaseStatsAllocation = null;
+        _tableau.getAllocation().destroy();
+        _tableau = null;
+        _script.destroy();
+        _script = null;
+        if (_ownsRenderScript) {
+            _renderScript.destroy();
+        }
+        _renderScript = null;
+    }
+
+    /**
+     * @return How many times an existing allocation was large enough for the problem, and could be reused.
+     */
+    public int getReusedAllocationCount() {
+        return _reusedAllocationCount;
+    }
+
+    /**
+     * @return How many times an allocation had to be (re)created, because the problem did not fit in the existing one.
+     */
+    public int getGrownAllocationCount() {
+        return _grownAllocationCount;
+    }
+
+    /**
+     * Sets up the input tableau, and makes sure the allocations can hold it.
+     *
+     * @param rowCount          The row count of the input tableau, including the objective row.
+     * @param columnCount       The column count of the input tableau, including the 'b' vector.
+     * @param artificialColumns The amount of artificial columns of the two-phase method, zero for the other solves.
+     * @param dualProgram       If the program is a minimization problem, solved as the dual program.
+     */
+    private void _prepareTableau(int rowCount, int columnCount, int artificialColumns, boolean dualProgram) {
+        // After adding the slack variables, the tableau will have an extra column for each constraint row.
+        int slackColumnCount = columnCount + rowCount - 1 + artificialColumns;
+        _tableau.set_rows(0, rowCount, false);
+        _tableau.set_columns(0, columnCount, false);
+        _tableau.set_dual_program(0, dualProgram, false);
+        _tableau.set_offset(0, 0, false);
+        _tableau.set_solution_offset(0, 0, false);
+        _tableau.set_basis_offset(0, 0, false);
+        _tableau.set_artificial_columns(0, artificialColumns, false);
+        // Copy all values at once to struct in the C code.
+        _tableau.copyAll();
+        _rowCount = rowCount;
+        _columnCount = columnCount;
+        _dualProgram = dualProgram;
+        _negatedObjective = false;
+        _bounded = false;
+        _script.set_bounded(false);
+        // The matrix is sized for the tableau with the slack variables.
+        _ensureMatrixCapacity(rowCount * slackColumnCount);
+        // The solution has an item for each variable, or for each constraint row in case of a dual program.
+        _ensureSolutionCapacity(Math.max(columnCount, rowCount) - 1);
+        // The parallel pivoting kernel is launched over an allocation with an element for each row.
+        _ensurePivotRowsCapacity(rowCount);
+        _ensureBasisCapacity(rowCount - 1);
+        // The devex pricing rule has a reference weight for each column.
+        _ensurePricingWeightsCapacity(slackColumnCount);
+        if (_sensitivityAnalysis) {
+            _ensureSensitivityCapacity(SensitivityReport.getTableauSize(rowCount, columnCount));
+        }
+    }
+
+    /**
+     * Passes the limits to the script. The time budget starts now.
+     */
+    private void _applyLimits() {
+        _script.set_iteration_limit(_limits.getIterationLimit());
+        // The uptime of the script uses the same monotonic clock as System.nanoTime().
+        _script.set_deadline(_limits.hasTimeBudget() ? System.nanoTime() + _limits.getTimeBudgetNanos() : 0);
+    }
+
+    /**
+     * Reads the result of the input tableau from the device, together with the time spent in the phases on the device.
+     *
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    private SimplexResult _readResult() {
+        // Wait for the script, so only the copying is timed as the readback.
+        _renderScript.finish();
+        long time = System.nanoTime();
+        _phaseStatsAllocation.copyTo(_phaseStatsBuffer);
+        int phaseCount = SolvePhase.values().length;
+        for (SolvePhase phase : SolvePhase.values()) {
+            _stats.add(phase, _phaseStatsBuffer[phase.getCode()], (int)_phaseStatsBuffer[phaseCount + phase.getCode()]);
+        }
+        _resultInfoAllocation.copyTo(_resultInfoBuffer);
+        int resultSize = _resultInfoBuffer[_script.get_RESULT_SIZE()];
+        SolveStatus status = SolveStatus.fromCode(_resultInfoBuffer[_script.get_RESULT_STATUS()]);
+        int iterations = _resultInfoBuffer[_script.get_RESULT_ITERATIONS()];
+        // After a failed pivot the tableau is broken, in all other cases it still has a valid basis.
+        _hasFinalTableau = status != SolveStatus.FAILED;
+        // If the solution vector size is -1, no solution has been found.
+        float[] solution = null;
+        if (resultSize > 0) {
+            // Only the first N elements contain the result.
+            _solutionAllocation.copy1DRangeTo(0, resultSize, _solutionBuffer);
+            solution = Arrays.copyOf(_solutionBuffer, resultSize);
+        }
+        SensitivityReport sensitivity = null;
+        if (_sensitivityAnalysis && status == SolveStatus.OPTIMAL) {
+            // The script has written the analysis of the tableau program, it only has to be mapped to the original problem.
+            int size = SensitivityReport.getTableauSize(_rowCount, _columnCount);
+            _sensitivityAllocation.copy1DRangeTo(0, size, _sensitivityBuffer);
+            sensitivity = SensitivityReport.fromTableau(_sensitivityBuffer, _rowCount, _columnCount, _dualProgram, _negatedObjective);
+        }
+        _stats.record(SolvePhase.READBACK, time);
+        return _finish(new SimplexResult(status, solution, iterations), sensitivity);
+    }
+
+    /**
+     * Adds the statistics to the result of a solve, and passes them to the listener.
+     *
+     * @param result The result of the solve.
+     * @return The same result, with the statistics of the solve.
+     */
+    private SimplexResult _finish(SimplexResult result) {
+        return _finish(result, null);
+    }
+
+    /**
+     * Adds the statistics and the sensitivity analysis to the result of a solve, and passes the statistics to the listener.
+     *
+     * @param result      The result of the solve.
+     * @param sensitivity The sensitivity analysis of the solution, or null.
+     * @return The same result, with the statistics of the solve.
+     */
+    private SimplexResult _finish(SimplexResult result, SensitivityReport sensitivity) {
+        SolveStats stats = _stats.build(result.getStatus(), result.getIterations());
+        if (_statsListener != null) {
+            _statsListener.onSolveFinished(stats);
+        }
+        return new SimplexResult(result.getStatus(), result.getSolution(), result.getIterations(), stats, sensitivity);
+    }
+
+    /**
+     * Copies the new objective row or 'b' vector to the device, for re-solving the last problem.
+     *
+     * @param vector The vector to copy.
+     */
+    private void _copyUpdateVector(float[] vector) {
+        Allocation allocation = _ensureCapacity(_updateAllocation, Element.F32(_renderScript), vector.length);
+        if (allocation != _updateAllocation) {
+            _updateAllocation = allocation;
+            _script.set_update_vector(allocation);
+        }
+        long time = System.nanoTime();
+        _updateAllocation.copy1DRangeFrom(0, vector.length, vector);
+        _stats.record(SolvePhase.UPLOAD, time);
+    }
+
+    /**
+     * Makes sure the matrix allocation and its staging buffer can hold the given amount of elements.
+     *
+     * @param size The amount of elements required.
+     */
+    private void _ensureMatrixCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_matrixAllocation, Element.F32(_renderScript), size);
+        if (allocation != _matrixAllocation) {
+            _matrixAllocation = allocation;
+            _matrixBuffer = new float[size];
+            _script.set_matrix(allocation);
+        }
+    }
+
+    /**
+     * Makes sure the solution vector allocation and its staging buffer can hold the given amount of elements.
+     *
+     * @param size The amount of elements required.
+     */
+    private void _ensureSolutionCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_solutionAllocation, Element.F32(_renderScript), size);
+        if (allocation != _solutionAllocation) {
+            _solutionAllocation = allocation;
+            _solutionBuffer = new float[size];
+            _script.set_solution_vector(allocation);
+        }
+    }
+
+    /**
+     * Makes sure the allocation which the parallel pivoting kernel is launched over has an element for each row.
+     *
+     * @param size The amount of rows.
+     */
+    private void _ensurePivotRowsCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_pivotRowsAllocation, Element.I32(_renderScript), size);
+        if (allocation != _pivotRowsAllocation) {
+            _pivotRowsAllocation = allocation;
+            _script.set_pivot_rows(allocation);
+        }
+    }
+
+    /**
+     * Makes sure the basis allocation can hold the given amount of constraint rows.
+     *
+     * @param size The amount of constraint rows, summed over all tableaus in case of a batch.
+     */
+    private void _ensureBasisCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_basisAllocation, Element.I32(_renderScript), size);
+        if (allocation != _basisAllocation) {
+            _basisAllocation = allocation;
+            _script.set_basis(allocation);
+        }
+    }
+
+    /**
+     * Makes sure the allocation of the devex reference weights has an element for each column.
+     *
+     * @param size The amount of columns, including the slack variables.
+     */
+    private void _ensurePricingWeightsCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_pricingWeightsAllocation, Element.F32(_renderScript), size);
+        if (allocation != _pricingWeightsAllocation) {
+            _pricingWeightsAllocation = allocation;
+            _script.set_pricing_weights(allocation);
+        }
+    }
+
+    /**
+     * Makes sure the allocation of the sensitivity analysis and its staging buffer can hold the given amount of elements.
+     *
+     * @param size The amount of elements required, see {@link SensitivityReport#getTableauSize(int, int)}.
+     */
+    private void _ensureSensitivityCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_sensitivityAllocation, Element.F32(_renderScript), size);
+        if (allocation != _sensitivityAllocation) {
+            _sensitivityAllocation = allocation;
+            _sensitivityBuffer = new float[size];
+            _script.set_sensitivity(allocation);
+        }
+    }
+
+    /**
+     * Makes sure the row types and the row signs of the two-phase method can hold the given amount of constraint rows.
+     *
+     * @param size The amount of constraint rows.
+     */
+    private void _ensureRowCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_rowTypesAllocation, Element.I32(_renderScript), size);
+        if (allocation != _rowTypesAllocation) {
+            _rowTypesAllocation = allocation;
+            // The allocation has at least one element, even when there are no constraint rows.
+            _rowTypesBuffer = new int[allocation.getType().getX()];
+            _script.set_row_types(allocation);
+            _rowSignsAllocation = _ensureCapacity(_rowSignsAllocation, Element.F32(_renderScript), size);
+            _script.set_row_signs(_rowSignsAllocation);
+        }
+    }
+
+    /**
+     * Copies the bounds of the variables to the staging buffers, as the ranges of the columns.
+     * The slack and artificial columns are non-negative without upper bound.
+     *
+     * @param bounds      The bounds of the variables.
+     * @param data        The input tableau, of which the 'b' vector is kept for the re-solves.
+     * @param columnCount The amount of columns before the 'b' vector, after adding the slack and artificial columns.
+     */
+    private void _loadBounds(VariableBounds bounds, float[][] data, int columnCount) {
+        _ensureBoundsCapacity(columnCount, data.length);
+        int variableCount = bounds.getVariableCount();
+        for (int j = 0; j < variableCount; ++j) {
+            _lowerBoundsBuffer[j] = bounds.getLower(j);
+            _upperBoundsBuffer[j] = bounds.getUpper(j) - bounds.getLower(j);
+        }
+        Arrays.fill(_lowerBoundsBuffer, variableCount, columnCount, 0);
+        Arrays.fill(_upperBoundsBuffer, variableCount, columnCount, Float.POSITIVE_INFINITY);
+        for (int i = 0; i < data.length; ++i) {
+            _boundedRhs[i] = data[i][data[i].length - 1];
+        }
+        _bounded = true;
+        _script.set_bounded(true);
+    }
+
+    /**
+     * Makes sure the bound allocations can hold the given amount of columns. The staging buffers of the bounds
+     * always have the size of the current problem, since they are uploaded completely.
+     *
+     * @param columnCount The amount of columns before the 'b' vector.
+     * @param rowCount    The amount of rows, including the objective row.
+     */
+    private void _ensureBoundsCapacity(int columnCount, int rowCount) {
+        Allocation allocation = _ensureCapacity(_lowerBoundsAllocation, Element.F32(_renderScript), columnCount);
+        if (allocation != _lowerBoundsAllocation) {
+            _lowerBoundsAllocation = allocation;
+            _script.set_lower_bounds(allocation);
+            _upperBoundsAllocation = _ensureCapacity(_upperBoundsAllocation, Element.F32(_renderScript), columnCount);
+            _script.set_upper_bounds(_upperBoundsAllocation);
+            // The script resets the complemented flags of the columns itself.
+            _complementedAllocation = _ensureCapacity(_complementedAllocation, Element.I32(_renderScript), columnCount);
+            _script.set_complemented(_complementedAllocation);
+        }
+        if (_lowerBoundsBuffer.length != columnCount) {
+            _lowerBoundsBuffer = new float[columnCount];
+            _upperBoundsBuffer = new float[columnCount];
+        }
+        if (_boundedRhs.length != rowCount) {
+            _boundedRhs = new float[rowCount];
+            _rhsChangeBuffer = new float[rowCount];
+        }
+    }
+
+    /**
+     * Maps the relationship of a constraint to the row type of the script.
+     *
+     * @param relationship The relationship between the left side and the 'b' value.
+     * @return One of the ROW_ constants of the script.
+     */
+    private int _getRowType(Relationship relationship) {
+        switch (relationship) {
+            case GEQ:
+                return _script.get_ROW_GREATER_OR_EQUAL();
+            case EQ:
+                return _script.get_ROW_EQUAL();
+            default:
+                return _script.get_ROW_LESS_OR_EQUAL();
+        }
+    }
+
+    /**
+     * Makes sure the tableaus, the status and the iteration allocation of the batch can hold the given amount of problems.
+     *
+     * @param size The amount of problems in the batch.
+     */
+    private void _ensureBatchCapacity(int size) {
+        Allocation allocation = _ensureCapacity(_batchStatusAllocation, Element.I32(_renderScript), size);
+        if (allocation != _batchStatusAllocation) {
+            _batchStatusAllocation = allocation;
+            _batchStatusBuffer = new int[size];
+            _batchIterationsAllocation = _ensureCapacity(_batchIterationsAllocation, Element.I32(_renderScript), size);
+            _batchIterationsBuffer = new int[size];
+            _script.set_batch_iterations(_batchIterationsAllocation);
+            // The struct array can not be resized either, so it is recreated together with the status allocation.
+            if (_batchTableaus != null) {
+                _batchTableaus.getAllocation().destroy();
+            }
+            _batchTableaus = new ScriptField_Tableau(_renderScript, size);
+        }
+    }
+
+    /**
+     * Returns an allocation which can hold the given amount of elements.
+     *
+     * @param allocation The current allocation, can be null.
+     * @param element    The element type of the allocation.
+     * @param size       The amount of elements required.
+     * @return The current allocation if it is large enough, otherwise a new one. The current one is destroyed in this case.
+     */
+    private Allocation _ensureCapacity(Allocation allocation, Element element, int size) {
+        if (allocation != null && allocation.getType().getX() >= size) {
+            _reusedAllocationCount++;
+            return allocation;
+        }
+        if (allocation != null) {
+            allocation.destroy();
+        }
+        _grownAllocationCount++;
+        // RenderScript does not allow empty allocations, which are needed for problems without constraint rows.
+        Type type = new Type.Builder(_renderScript, element).setX(Math.max(size, 1)).create();
+        return Allocation.createTyped(_renderScript, type);
+    }
+
+    /**
+     * Makes sure there is a final tableau to re-solve from.
+     */
+    private void _checkFinalTableau() {
+        _checkNotDestroyed();
+        if (!_hasFinalTableau) {
+            throw new IllegalStateException("There is no final tableau to re-solve from, solve the problem first.");
+        }
+    }
+
+    /**
+     * Makes sure the slack variables are a feasible starting basis, which the single-phase solves need.
+     * That is the case when the 'b' value of each constraint row is non-negative.
+     *
+     * @param data The input tableau.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value.
+     */
+    private static void _checkSlackBasis(float[][] data) {
+        int bColumn = data[0].length - 1;
+        for (int i = 0; i < data.length - 1; ++i) {
+            _checkRhs(i, data[i][bColumn]);
+        }
+    }
+
+    /**
+     * @param tableau The input tableau.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value.
+     * @see #_checkSlackBasis(float[][])
+     */
+    private static void _checkSlackBasis(DenseTableau tableau) {
+        int columnCount = tableau.getColumnCount();
+        float[] values = tableau.getValues();
+        for (int i = 0; i < tableau.getRowCount() - 1; ++i) {
+            _checkRhs(i, values[i * columnCount + columnCount - 1]);
+        }
+    }
+
+    /**
+     * @param tableau The input tableau.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value.
+     * @see #_checkSlackBasis(float[][])
+     */
+    private static void _checkSlackBasis(SparseTableau tableau) {
+        int bColumn = tableau.getColumnCount() - 1;
+        int[] rowStart = tableau.getRowStart();
+        int[] columnIndices = tableau.getColumnIndices();
+        float[] values = tableau.getValues();
+        for (int i = 0; i < tableau.getRowCount() - 1; ++i) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                if (columnIndices[k] == bColumn) {
+                    _checkRhs(i, values[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param row   The index of the constraint row.
+     * @param value The 'b' value of the row.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    private static void _checkRhs(int row, float value) {
+        if (value < -CUT_OFF) {
+            throw new IllegalArgumentException("Row " + row + " of the tableau has a negative 'b' value, "
+                    + "so the slack variables are not a feasible basis. Use the two-phase method for this problem.");
+        }
+    }
+
+    /**
+     * Makes sure the session can still be used.
+     */
+    private void _checkNotDestroyed() {
+        if (_script == null) {
+            throw new IllegalStateException("The session has already been destroyed.");
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.egeniq.lpsolver.renderscript;
 
+import com.egeniq.lpsolver.simplex.DenseTableau;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+import com.egeniq.lpsolver.simplex.TableauBuilder;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.optim.linear.LinearConstraint;
 import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
 import org.apache.commons.math3.optim.linear.Relationship;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * Converts the Apache objects to a Simplex Tableau.
+ * To skip the intermediate matrix, write the problem into a {@link TableauBuilder} with {@link #convert}, or use the builder directly.
  * Created by Daniel Zolnai on 2017-01-05.
  */
 public class TableauConverter {
@@ -23,7 +33,8 @@ public class TableauConverter {
     public static float[][] convertMaximize(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints) {
         // Last row contains the negated objective function.
         int rows = linearConstraints.size() + 1;
-        int columns = linearConstraints.get(0).getCoefficients().getDimension() + 1;
+        // The amount of variables is taken from the objective function, so there can be no constraints at all.
+        int columns = objectiveFunction.getCoefficients().getDimension() + 1;
         float[][] result = new float[rows][columns];
         for (int j = 0; j < objectiveFunction.getCoefficients().getDimension(); j++) {
             result[rows - 1][j] = (float)-objectiveFunction.getCoefficients().getEntry(j);
@@ -50,7 +61,8 @@ public class TableauConverter {
      */
     public static float[][] convertMinimize(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints) {
         // In this case, we don't want to maximize, but minimize, so we do not negate the objective function.
-        int rows = linearConstraints.get(0).getCoefficients().getDimension() + 1;
+        // The amount of variables is taken from the objective function, so there can be no constraints at all.
+        int rows = objectiveFunction.getCoefficients().getDimension() + 1;
         int columns = linearConstraints.size() + 1;
         float[][] result = new float[rows][columns];
         // Last row contains the negated 'b' vector.
@@ -79,4 +91,395 @@ public class TableauConverter {
         }
         return result;
     }
+
+    /**
+     * Use this to convert your Apache Math objective function and constraints to a matrix for the two-phase solve,
+     * which also accepts equality constraints. The constraints are copied as they are, their relationships are
+     * passed separately, see {@link #getRelationships(List)}.
+     *
+     * @param objectiveFunction The objective function which's value has to be optimized.
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @param minimize          If the objective function has to be minimized. Pass the same value to the solve function.
+     * @return The matrix, which can be used with {@link SimplexRS#solveTwoPhase}.
+     */
+    public static float[][] convertTwoPhase(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints,
+                                            boolean minimize) {
+        // The tableau always maximizes, so minimization problems maximize the negated objective function,
+        // which means the last row contains the objective function itself.
+        float[][] result = convertMaximize(objectiveFunction, linearConstraints);
+        if (minimize) {
+            float[] objective = result[result.length - 1];
+            for (int j = 0; j < objective.length - 1; j++) {
+                objective[j] = -objective[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the relationships of the constraints, for the two-phase solve.
+     *
+     * @param linearConstraints The constraints, in the same order as the rows of the matrix.
+     * @return The relationship of each constraint.
+     */
+    public static Relationship[] getRelationships(List<LinearConstraint> linearConstraints) {
+        Relationship[] result = new Relationship[linearConstraints.size()];
+        for (int i = 0; i < linearConstraints.size(); i++) {
+            result[i] = linearConstraints.get(i).getRelationship();
+        }
+        return result;
+    }
+
+    /**
+     * Takes the constraints on a single variable out of the list, and adds them to the bounds of the variables instead.
+     * Pass the bounds and the remaining constraints to the bounded two-phase solve, so they do not become constraint rows.
+     *
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @param bounds            The bounds to tighten, usually new {@link VariableBounds} for the amount of variables.
+     * @return The constraints which are on more than one variable, in the same order as in the input.
+     */
+    public static List<LinearConstraint> extractBounds(List<LinearConstraint> linearConstraints, VariableBounds bounds) {
+        List<LinearConstraint> result = new ArrayList<>(linearConstraints.size());
+        for (LinearConstraint constraint : linearConstraints) {
+            RealVector coefficients = constraint.getCoefficients();
+            int variable = -1;
+            int variableCount = 0;
+            for (int j = 0; j < coefficients.getDimension(); j++) {
+                if (coefficients.getEntry(j) != 0) {
+                    variable = j;
+                    variableCount++;
+                }
+            }
+            if (variableCount != 1) {
+                result.add(constraint);
+                continue;
+            }
+            double coefficient = coefficients.getEntry(variable);
+            float bound = (float)(constraint.getValue() / coefficient);
+            Relationship relationship = constraint.getRelationship();
+            if (coefficient < 0 && relationship != Relationship.EQ) {
+                // Dividing by a negative coefficient reverses the relationship.
+                relationship = relationship == Relationship.LEQ ? Relationship.GEQ : Relationship.LEQ;
+            }
+            if (relationship != Relationship.LEQ) {
+                bounds.setLower(variable, Math.max(bounds.getLower(variable), bound));
+            }
+            if (relationship != Relationship.GEQ) {
+                bounds.setUpper(variable, Math.min(bounds.getUpper(variable), bound));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Use this to write your Apache Math objective function and constraints straight into the flat tableau of a builder,
+     * without creating a matrix first. The coefficients are read with the sparse iterator of the vectors, so the sparse vectors only visit their stored entries.
+     * Unlike {@link #convertMaximize(LinearObjectiveFunction, List)}, greater-or-equal constraints of maximization problems are negated.
+     *
+     * @param builder           The builder to write the problem into. It is reset first.
+     * @param objectiveFunction The objective function which's value has to be optimized.
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @param minimize          If the objective function has to be minimized. Pass the same value to the solve function.
+     * @return The tableau, which can be used with the solvers until the builder is reset.
+     */
+    public static DenseTableau convert(TableauBuilder builder, LinearObjectiveFunction objectiveFunction,
+                                       List<LinearConstraint> linearConstraints, boolean minimize) {
+        builder.reset(objectiveFunction.getCoefficients().getDimension(), linearConstraints.size(), minimize);
+        BuilderRowWriter writer = new BuilderRowWriter(builder);
+        writer.writeObjective(objectiveFunction.getCoefficients());
+        for (LinearConstraint constraint : linearConstraints) {
+            int row = builder.addConstraint(constraint.getRelationship(), (float)constraint.getValue());
+            writer.writeConstraint(row, constraint.getCoefficients());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Extracts the 'b' vector from a matrix, which can be used for re-solving a problem with a different 'b' vector.
+     * For minimization problems, this contains the objective function.
+     *
+     * @param tableau The matrix generated by one of the convert methods.
+     * @return The last column of the matrix, including the objective row.
+     */
+    public static float[] getRhs(float[][] tableau) {
+        float[] result = new float[tableau.length];
+        for (int i = 0; i < tableau.length; i++) {
+            result[i] = tableau[i][tableau[i].length - 1];
+        }
+        return result;
+    }
+
+    /**
+     * Utility method to convert a two-dimensional array (matrix) to a one-dimensional (vector).
+     * This is required because RenderScript does not support two-dimensional arrays.
+     *
+     * @param tableau     The input matrix.
+     * @param destination The vector to copy the rows into, after each other.
+     * @param offset      The index in the destination where the matrix starts.
+     */
+    public static void flatten(float[][] tableau, float[] destination, int offset) {
+        int rows = tableau.length;
+        int columns = tableau[0].length;
+        for (int i = 0; i < rows; ++i) {
+            System.arraycopy(tableau[i], 0, destination, offset + i * columns, columns);
+        }
+    }
+
+    /**
+     * Sparse version of {@link #convertMaximize(LinearObjectiveFunction, List)}, which only stores the nonzeros.
+     * Use this for large problems with mostly zero coefficients.
+     *
+     * @param objectiveFunction The objective function which's value has to be maximized.
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @return The sparse tableau, which can be used with the solvers.
+     */
+    public static SparseTableau convertMaximizeSparse(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints) {
+        int rows = linearConstraints.size() + 1;
+        // The amount of variables is taken from the objective function, so there can be no constraints at all.
+        int columns = objectiveFunction.getCoefficients().getDimension() + 1;
+        NonZeroCollector collector = new NonZeroCollector(rows * 4);
+        for (int i = 0; i < linearConstraints.size(); i++) {
+            LinearConstraint constraint = linearConstraints.get(i);
+            collector.collectRow(i, constraint.getCoefficients(), 1);
+            // Last column has the 'b' vector.
+            collector.add(i, columns - 1, constraint.getValue());
+        }
+        // Last row contains the negated objective function.
+        collector.collectRow(rows - 1, objectiveFunction.getCoefficients(), -1);
+        return collector.toSparseTableau(rows, columns);
+    }
+
+    /**
+     * Sparse version of {@link #convertMinimize(LinearObjectiveFunction, List)}, which only stores the nonzeros.
+     * Use this for large problems with mostly zero coefficients.
+     *
+     * @param objectiveFunction The objective function which's value has to be minimized.
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @return The sparse tableau, which can be used with the solvers. Make sure the second parameter of the
+     * solve function is set to true, so you get the correct results.
+     */
+    public static SparseTableau convertMinimizeSparse(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints) {
+        // The amount of variables is taken from the objective function, so there can be no constraints at all.
+        int rows = objectiveFunction.getCoefficients().getDimension() + 1;
+        int columns = linearConstraints.size() + 1;
+        NonZeroCollector collector = new NonZeroCollector(columns * 4);
+        for (int i = 0; i < linearConstraints.size(); i++) {
+            LinearConstraint constraint = linearConstraints.get(i);
+            boolean negate = constraint.getRelationship() == Relationship.GEQ;
+            // The constraints are transposed, and negated unless it is a GEQ constraint.
+            collector.collectColumn(i, constraint.getCoefficients(), negate ? 1 : -1);
+            // Last row contains the 'b' vector, negated for GEQ constraints.
+            collector.add(rows - 1, i, negate ? -constraint.getValue() : constraint.getValue());
+        }
+        // Last column contains the non-negated objective function.
+        collector.collectColumn(columns - 1, objectiveFunction.getCoefficients(), 1);
+        return collector.toSparseTableau(rows, columns);
+    }
+
+    /**
+     * Extracts the 'b' vector from a sparse tableau, which can be used for re-solving a problem with a different 'b' vector.
+     * For minimization problems, this contains the objective function.
+     *
+     * @param tableau The sparse tableau generated by one of the convert methods.
+     * @return The last column of the tableau, including the objective row.
+     */
+    public static float[] getRhs(SparseTableau tableau) {
+        float[] result = new float[tableau.getRowCount()];
+        int[] rowStart = tableau.getRowStart();
+        int[] columnIndices = tableau.getColumnIndices();
+        float[] values = tableau.getValues();
+        for (int i = 0; i < tableau.getRowCount(); i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                if (columnIndices[k] == tableau.getColumnCount() - 1) {
+                    result[i] = values[k];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the nonzeros of the Apache vectors into a {@link TableauBuilder}.
+     * The vectors are read with {@link SparseEntries}, so only the stored entries of the sparse vector implementations are visited.
+     */
+    private static class BuilderRowWriter implements EntryVisitor {
+
+        private final TableauBuilder _builder;
+        // The constraint of the vector being walked, or -1 for the objective function.
+        private int _constraint;
+
+        BuilderRowWriter(TableauBuilder builder) {
+            _builder = builder;
+        }
+
+        /**
+         * Writes the coefficients of the objective function.
+         *
+         * @param vector The coefficients.
+         */
+        void writeObjective(RealVector vector) {
+            _constraint = -1;
+            SparseEntries.walk(vector, this);
+        }
+
+        /**
+         * Writes the coefficients of a constraint which has been added to the builder.
+         *
+         * @param constraint The index of the constraint in the builder.
+         * @param vector     The coefficients.
+         */
+        void writeConstraint(int constraint, RealVector vector) {
+            _constraint = constraint;
+            SparseEntries.walk(vector, this);
+        }
+
+        @Override
+        public void visit(int index, double value) {
+            if (_constraint < 0) {
+                _builder.setObjectiveCoefficient(index, (float)value);
+            } else {
+                _builder.setCoefficient(_constraint, index, (float)value);
+            }
+        }
+    }
+
+    /**
+     * Collects the nonzero cells of a tableau in any order, and sorts them into rows afterwards.
+     * The vectors are read with {@link SparseEntries}, so only the stored entries of the sparse vector implementations are visited.
+     */
+    private static class NonZeroCollector {
+
+        private int[] _rows;
+        private int[] _columns;
+        private float[] _values;
+        private int _count;
+
+        NonZeroCollector(int capacity) {
+            _rows = new int[capacity];
+            _columns = new int[capacity];
+            _values = new float[capacity];
+        }
+
+        /**
+         * Adds the nonzeros of a vector as a row of the tableau.
+         *
+         * @param row        The row of the tableau.
+         * @param vector     The vector to add.
+         * @param multiplier The multiplier of the values.
+         */
+        void collectRow(final int row, RealVector vector, final double multiplier) {
+            SparseEntries.walk(vector, new EntryVisitor() {
+                @Override
+                public void visit(int index, double value) {
+                    add(row, index, multiplier * value);
+                }
+            });
+        }
+
+        /**
+         * Adds the nonzeros of a vector as a column of the tableau.
+         *
+         * @param column     The column of the tableau.
+         * @param vector     The vector to add.
+         * @param multiplier The multiplier of the values.
+         */
+        void collectColumn(final int column, RealVector vector, final double multiplier) {
+            SparseEntries.walk(vector, new EntryVisitor() {
+                @Override
+                public void visit(int index, double value) {
+                    add(index, column, multiplier * value);
+                }
+            });
+        }
+
+        /**
+         * Adds a single cell to the tableau, if it is not zero.
+         *
+         * @param row    The row of the cell.
+         * @param column The column of the cell.
+         * @param value  The value of the cell.
+         */
+        void add(int row, int column, double value) {
+            if (value == 0) {
+                return;
+            }
+            if (_count == _values.length) {
+                int capacity = Math.max(_count * 2, 16);
+                _rows = Arrays.copyOf(_rows, capacity);
+                _columns = Arrays.copyOf(_columns, capacity);
+                _values = Arrays.copyOf(_values, capacity);
+            }
+            _rows[_count] = row;
+            _columns[_count] = column;
+            _values[_count] = (float)value;
+            _count++;
+        }
+
+        /**
+         * Sorts the collected cells into rows.
+         *
+         * @param rows    The row count of the tableau.
+         * @param columns The column count of the tableau.
+         * @return The sparse tableau with the collected cells.
+         */
+        SparseTableau toSparseTableau(int rows, int columns) {
+            int[] rowStart = new int[rows + 1];
+            for (int k = 0; k < _count; k++) {
+                rowStart[_rows[k] + 1]++;
+            }
+            for (int i = 0; i < rows; i++) {
+                rowStart[i + 1] += rowStart[i];
+            }
+            // The next free index of each row.
+            int[] next = Arrays.copyOf(rowStart, rows);
+            int[] columnIndices = new int[_count];
+            float[] values = new float[_count];
+            for (int k = 0; k < _count; k++) {
+                int index = next[_rows[k]]++;
+                columnIndices[index] = _columns[k];
+                values[index] = _values[k];
+            }
+            return new SparseTableau(rows, columns, rowStart, columnIndices, values);
+        }
+    }
+
+    /**
+     * Receives the entries of a vector from {@link SparseEntries}.
+     */
+    private interface EntryVisitor {
+
+        /**
+         * Called for each stored entry of the vector, in no particular order.
+         *
+         * @param index The index of the entry.
+         * @param value The value of the entry.
+         */
+        void visit(int index, double value);
+    }
+
+    /**
+     * Walks the nonzero entries of a vector with its sparse iterator. For the sparse vectors this only visits the stored entries,
+     * unlike {@link RealVector#walkInOptimizedOrder}, which visits every index in all the vector implementations.
+     * This class is never instantiated, it only extends the vector to be able to refer to the protected entry class.
+     */
+    private abstract static class SparseEntries extends RealVector {
+
+        private SparseEntries() {
+        }
+
+        /**
+         * Passes the nonzero entries of a vector to a visitor.
+         *
+         * @param vector  The vector to walk.
+         * @param visitor The visitor which receives the entries.
+         */
+        static void walk(RealVector vector, EntryVisitor visitor) {
+            Iterator<Entry> iterator = vector.sparseIterator();
+            while (iterator.hasNext()) {
+                // The iterator can reuse the entry object, so it is read right away.
+                Entry entry = iterator.next();
+                visitor.visit(entry.getIndex(), entry.getValue());
+            }
+        }
+    }
 }
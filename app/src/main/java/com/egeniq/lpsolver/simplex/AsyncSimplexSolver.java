@@ -0,0 +1,163 @@
+package com.egeniq.lpsolver.simplex;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves problems asynchronously on a dedicated pool of worker threads, each with its own solver.
+ * The queue of waiting problems is bounded: when it is full, new problems are rejected instead of waiting
+ * for an unbounded time, so the callers can shed the load.
+ * Each solve can have its own limits. The time budget starts when the problem is submitted,
+ * so the time spent in the queue counts too. A solve can be cancelled with {@link Future#cancel(boolean)}:
+ * if it has not started yet, it never runs, otherwise the worker thread is interrupted, which stops the JVM solvers.
+ * Call {@link #shutdown()} when the solver is not needed anymore.
+ */
+public class AsyncSimplexSolver {
+
+    private final WorkerThreadFactory _threadFactory;
+    private final ThreadPoolExecutor _executor;
+
+    /**
+     * Creates a new solver.
+     *
+     * @param engineFactory The factory which creates the solver of each worker thread.
+     * @param threadCount   The amount of worker threads, which is also the amount of problems solved at the same time.
+     * @param queueCapacity The amount of problems which can wait for a worker thread, before new problems are rejected.
+     */
+    public AsyncSimplexSolver(SimplexEngineFactory engineFactory, int threadCount, int queueCapacity) {
+        _threadFactory = new WorkerThreadFactory(engineFactory, "SimplexSolver-");
+        _executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), _threadFactory);
+    }
+
+    /**
+     * Solves the linear programming problem asynchronously.
+     *
+     * @param data     The input data. The array is not copied, so do not modify it until the solve has finished.
+     * @param minimize If the program is a minimization problem.
+     * @param limits   The limits of the solve, or {@link SolveLimits#NONE}.
+     * @param callback The callback which receives the result, or null if only the returned future is used.
+     * @return The future of the result. Cancelling it stops the solve.
+     * @throws RejectedExecutionException If the queue is full, or the solver has been shut down.
+     */
+    public Future<SimplexResult> solve(float[][] data, boolean minimize, SolveLimits limits, SolveCallback callback) {
+        SolveTask task = new SolveTask(data, null, null, minimize, limits, System.nanoTime(), callback);
+        _executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Solves the linear programming problem asynchronously.
+     *
+     * @param data     The input data. The array is not copied, so do not modify it until the solve has finished.
+     * @param minimize If the program is a minimization problem.
+     * @param limits   The limits of the solve, or {@link SolveLimits#NONE}.
+     * @return The future of the result. Cancelling it stops the solve.
+     * @throws RejectedExecutionException If the queue is full, or the solver has been shut down.
+     */
+    public Future<SimplexResult> solve(float[][] data, boolean minimize, SolveLimits limits) {
+        return solve(data, minimize, limits, null);
+    }
+
+    /**
+     * Solves the linear programming problem asynchronously with the two-phase method,
+     * see {@link SimplexEngine#solveTwoPhase(float[][], Relationship[], VariableBounds, boolean)}.
+     *
+     * @param data          The input data. The array is not copied, so do not modify it until the solve has finished.
+     * @param relationships The relationship of each constraint row.
+     * @param bounds        The bounds of the variables, or null if they are only non-negative. Not copied either.
+     * @param minimize      If the program is a minimization problem.
+     * @param limits        The limits of the solve, or {@link SolveLimits#NONE}.
+     * @param callback      The callback which receives the result, or null if only the returned future is used.
+     * @return The future of the result. Cancelling it stops the solve.
+     * @throws RejectedExecutionException If the queue is full, or the solver has been shut down.
+     */
+    public Future<SimplexResult> solveTwoPhase(float[][] data, Relationship[] relationships, VariableBounds bounds,
+                                               boolean minimize, SolveLimits limits, SolveCallback callback) {
+        SolveTask task = new SolveTask(data, relationships, bounds, minimize, limits, System.nanoTime(), callback);
+        _executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Stops accepting new problems. The waiting problems are still solved, after that the worker threads
+     * stop and release their solvers.
+     */
+    public void shutdown() {
+        _executor.shutdown();
+    }
+
+    /**
+     * Solves a problem on a worker thread.
+     *
+     * @param data          The input data.
+     * @param relationships The relationships of the constraint rows for the two-phase method, or null for the normal solve.
+     * @param bounds        The bounds of the variables for the two-phase method, or null.
+     * @param minimize      If the program is a minimization problem.
+     * @param limits        The limits of the solve.
+     * @param submitNanos   The value of {@link System#nanoTime()} when the problem was submitted.
+     * @return The result of the solve.
+     */
+    private SimplexResult _solve(float[][] data, Relationship[] relationships, VariableBounds bounds, boolean minimize,
+                                 SolveLimits limits, long submitNanos) {
+        if (limits.hasTimeBudget()) {
+            long remainingNanos = limits.getTimeBudgetNanos() - (System.nanoTime() - submitNanos);
+            if (remainingNanos <= 0) {
+                // The budget has run out while waiting in the queue, there is no point in starting.
+                return new SimplexResult(SolveStatus.TIME_LIMIT, null, 0, new SolveStatsRecorder().build(SolveStatus.TIME_LIMIT, 0));
+            }
+            limits = limits.withTimeBudget(remainingNanos);
+        }
+        SimplexEngine engine = _threadFactory.getEngine();
+        engine.setLimits(limits);
+        if (relationships != null) {
+            return engine.solveTwoPhase(data, relationships, bounds, minimize);
+        }
+        return engine.solve(data, minimize);
+    }
+
+    /**
+     * The future of a solve, which also passes the outcome to the callback.
+     */
+    private class SolveTask extends FutureTask<SimplexResult> {
+
+        private final SolveCallback _callback;
+
+        SolveTask(final float[][] data, final Relationship[] relationships, final VariableBounds bounds, final boolean minimize,
+                  final SolveLimits limits, final long submitNanos, SolveCallback callback) {
+            super(new Callable<SimplexResult>() {
+                @Override
+                public SimplexResult call() {
+                    return _solve(data, relationships, bounds, minimize, limits, submitNanos);
+                }
+            });
+            _callback = callback;
+        }
+
+        @Override
+        protected void done() {
+            if (_callback == null) {
+                return;
+            }
+            try {
+                _callback.onSolved(get());
+            } catch (CancellationException e) {
+                _callback.onFailed(e);
+            } catch (ExecutionException e) {
+                _callback.onFailed(e.getCause());
+            } catch (InterruptedException e) {
+                // The task is done, so get() does not wait.
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
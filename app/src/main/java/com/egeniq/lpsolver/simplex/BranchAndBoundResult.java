@@ -0,0 +1,83 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The result of the {@link BranchAndBoundSolver}, with the bound on the optimal value and the size of the search.
+ * The iterations are the pivots of all the relaxations together, and the statistics add up the phases of their solves.
+ */
+public class BranchAndBoundResult extends SimplexResult {
+
+    private final double _objectiveValue;
+    private final double _bestBound;
+    private final int _nodeCount;
+    private final int[] _workerNodeCounts;
+    private final long _elapsedNanos;
+
+    BranchAndBoundResult(SolveStatus status, float[] solution, int iterations, SolveStats stats, double objectiveValue,
+                         double bestBound, int nodeCount, int[] workerNodeCounts, long elapsedNanos) {
+        super(status, solution, iterations, stats);
+        _objectiveValue = objectiveValue;
+        _bestBound = bestBound;
+        _nodeCount = nodeCount;
+        _workerNodeCounts = workerNodeCounts;
+        _elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The objective value of the solution, or NaN if no solution has been found.
+     */
+    public double getObjectiveValue() {
+        return _objectiveValue;
+    }
+
+    /**
+     * @return The best objective value any solution can have, according to the relaxations which were still open
+     * when the search stopped. Equal to the objective value when the whole tree has been searched.
+     * NaN if the problem has no solutions, or the search stopped before the first relaxation was solved.
+     */
+    public double getBestBound() {
+        return _bestBound;
+    }
+
+    /**
+     * @return The difference between the best bound and the objective value, relative to the objective value.
+     * Zero when the whole tree has been searched, infinity if no solution has been found.
+     */
+    public double getGap() {
+        if (Double.isNaN(_objectiveValue)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.abs(_bestBound - _objectiveValue) / Math.max(1, Math.abs(_objectiveValue));
+    }
+
+    /**
+     * @return The amount of relaxations which have been solved.
+     */
+    public int getNodeCount() {
+        return _nodeCount;
+    }
+
+    /**
+     * @return For each worker thread, the amount of relaxations it has solved. When some workers have solved a lot fewer
+     * than the others, they have mostly been waiting for nodes, so the search does not benefit from that many threads.
+     */
+    public int[] getWorkerNodeCounts() {
+        return _workerNodeCounts;
+    }
+
+    /**
+     * @return The wall clock time of the search, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return _elapsedNanos;
+    }
+
+    /**
+     * @return The amount of relaxations solved per second, by all worker threads together.
+     */
+    public double getNodesPerSecond() {
+        if (_elapsedNanos <= 0) {
+            return 0;
+        }
+        return _nodeCount * 1.0e9 / _elapsedNanos;
+    }
+}
@@ -0,0 +1,677 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves problems with integer and semi-continuous variables by branch-and-bound, on a pool of worker threads.
+ * Each node of the search tree is the linear relaxation of the problem with narrowed variable bounds, solved with
+ * the bounded two-phase method. A node whose solution has a fractional integer variable, or a semi-continuous variable
+ * between zero and its minimum, is split into two children which exclude that value.
+ * <p>
+ * The workers share the best solution found so far, and the queue of open nodes, which is ordered by the objective value
+ * of their parent relaxation. A worker dives depth-first into one child of each node it splits, the one in the direction
+ * the variable would be rounded to, and puts the other child in the queue. Diving finds solutions quickly, which prunes
+ * the rest of the tree, and each child is re-solved from the final basis of its parent with
+ * {@link SimplexEngine#resolveWithBounds(VariableBounds)}, which usually only takes a few dual pivots. When a dive ends,
+ * the worker continues with the node with the best bound in the queue, so the gap keeps closing.
+ * <p>
+ * The search stops when the gap between the best solution and the bound of the open nodes is within the relative gap,
+ * or when the node limit or the time budget is reached. Interrupting the thread which calls
+ * {@link #solve} cancels the search. Call {@link #shutdown()} when the solver is not needed anymore.
+ */
+public class BranchAndBoundSolver {
+
+    /**
+     * The default relative gap at which the search stops.
+     */
+    public static final double DEFAULT_RELATIVE_GAP = 1.0e-4;
+
+    // A value counts as a whole number when its distance to one is below this, relative to its size.
+    private static final double INTEGRALITY_TOLERANCE = 1.0e-5;
+
+    private final WorkerThreadFactory _threadFactory;
+    private final int _threadCount;
+    private final ThreadPoolExecutor _executor;
+    private double _relativeGap = DEFAULT_RELATIVE_GAP;
+    private int _nodeLimit;
+    private SolveLimits _limits = SolveLimits.NONE;
+
+    /**
+     * Creates a new solver.
+     *
+     * @param engineFactory The factory which creates the solver of each worker thread.
+     * @param threadCount   The amount of worker threads, which is also the amount of relaxations solved at the same time.
+     */
+    public BranchAndBoundSolver(SimplexEngineFactory engineFactory, int threadCount) {
+        _threadFactory = new WorkerThreadFactory(engineFactory, "BranchAndBound-");
+        _threadCount = threadCount;
+        _executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), _threadFactory);
+    }
+
+    /**
+     * Sets the relative gap of the next solves. The search stops when no open node can improve the best solution by
+     * more than this fraction of its objective value, or of one if the objective value is smaller than one.
+     * The default is {@link #DEFAULT_RELATIVE_GAP}, use 0 to search until the solution is proven optimal.
+     *
+     * @param relativeGap The relative gap.
+     */
+    public void setRelativeGap(double relativeGap) {
+        _relativeGap = relativeGap;
+    }
+
+    /**
+     * Sets the maximum amount of relaxations the next solves may solve. There is no node limit by default.
+     *
+     * @param nodeLimit The node limit, or 0 for no limit.
+     */
+    public void setNodeLimit(int nodeLimit) {
+        _nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Sets the limits of the next solves. The time budget applies to the whole search,
+     * the iteration limit to each relaxation separately. Without an iteration limit,
+     * the relaxations get the default limit of {@link SolveLimits#getDefaultIterationLimit(int, int)}.
+     *
+     * @param limits The limits, or {@link SolveLimits#NONE}.
+     */
+    public void setLimits(SolveLimits limits) {
+        _limits = limits;
+    }
+
+    /**
+     * Solves the mixed integer problem. The status is {@link SolveStatus#OPTIMAL} when the solution is within the
+     * relative gap of the optimum, {@link SolveStatus#ITERATION_LIMIT} when the node limit has been reached or some
+     * relaxations could not be solved, and {@link SolveStatus#TIME_LIMIT} or {@link SolveStatus#CANCELLED} when the
+     * search has been stopped. In those cases the solution is the best one found so far, or null if there is none.
+     *
+     * @param objectiveFunction The objective function which's value has to be optimized.
+     * @param linearConstraints The constraints, at least one. Constraints on a single variable can also be passed as bounds.
+     * @param types             The type of each variable.
+     * @param bounds            The bounds of the variables. For semi-continuous variables, the lower bound is the
+     *                          smallest nonzero value. The bounds are not changed.
+     * @param minimize          If the objective function has to be minimized.
+     * @return The result, with the size of the search.
+     * @throws RejectedExecutionException If the solver has been shut down.
+     */
+    public BranchAndBoundResult solve(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints,
+                                      VariableType[] types, VariableBounds bounds, boolean minimize) {
+        int variableCount = objectiveFunction.getCoefficients().getDimension();
+        if (types.length != variableCount || bounds.getVariableCount() != variableCount) {
+            throw new IllegalArgumentException("There has to be a type and bounds for each of the " + variableCount + " variables.");
+        }
+        if (linearConstraints.isEmpty()) {
+            throw new IllegalArgumentException("The problem needs at least one constraint.");
+        }
+        return new Search(objectiveFunction, linearConstraints, types, bounds, minimize).run();
+    }
+
+    /**
+     * Stops the worker threads, after the running solve. They release their solvers when they stop.
+     */
+    public void shutdown() {
+        _executor.shutdown();
+    }
+
+    /**
+     * A node of the search tree: the bounds of its relaxation, and the objective value of the relaxation of its parent,
+     * which none of its solutions can exceed.
+     */
+    private static class Node {
+
+        private final VariableBounds _bounds;
+        private final double _bound;
+        private final int _depth;
+
+        Node(VariableBounds bounds, double bound, int depth) {
+            _bounds = bounds;
+            _bound = bound;
+            _depth = depth;
+        }
+    }
+
+    /**
+     * Orders the open nodes by their bound, the deepest first when the bounds are equal.
+     */
+    private static class NodeComparator implements Comparator<Node> {
+
+        @Override
+        public int compare(Node a, Node b) {
+            int result = Double.compare(b._bound, a._bound);
+            return result != 0 ? result : b._depth - a._depth;
+        }
+    }
+
+    /**
+     * The state of one solve, shared by its workers. The objective values are maximized internally,
+     * so the values of minimization problems are negated.
+     */
+    private class Search {
+
+        private final LinearObjectiveFunction _objectiveFunction;
+        private final VariableType[] _types;
+        // For each semi-continuous variable, its smallest nonzero value.
+        private final float[] _minimumValues;
+        private final float[][] _data;
+        private final Relationship[] _relationships;
+        private final boolean _minimize;
+        private final double _sign;
+        private final double _relativeGap;
+        private final int _nodeLimit;
+        // The limits of each relaxation, with the time budget of the whole search.
+        private final SolveLimits _limits;
+        private final long _startNanos;
+        private final long _deadline;
+        private final Worker[] _workers;
+        private final CountDownLatch _finished;
+
+        // The fields below are guarded by the lock, except the incumbent value, which is also read without it to prune.
+        private final Object _lock = new Object();
+        private final PriorityQueue<Node> _queue = new PriorityQueue<>(64, new NodeComparator());
+        private int _activeWorkers;
+        private int _nodeCount;
+        private boolean _stopped;
+        private SolveStatus _stopStatus;
+        private float[] _incumbent;
+        private volatile double _incumbentValue = Double.NEGATIVE_INFINITY;
+        // The best bound of the nodes which have been pruned, because they can not improve the best solution by more
+        // than the relative gap. It can still be above the value of the best solution.
+        private double _prunedBound = Double.NEGATIVE_INFINITY;
+        // The best bound of the nodes whose relaxation could not be solved, so they have not been searched.
+        private double _lostBound = Double.NEGATIVE_INFINITY;
+        private SolveStatus _lostStatus;
+        private RuntimeException _error;
+
+        Search(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints, VariableType[] types,
+               VariableBounds bounds, boolean minimize) {
+            _objectiveFunction = objectiveFunction;
+            _types = types;
+            _data = TableauConverter.convertTwoPhase(objectiveFunction, linearConstraints, minimize);
+            _relationships = TableauConverter.getRelationships(linearConstraints);
+            _minimize = minimize;
+            _sign = minimize ? -1 : 1;
+            _relativeGap = BranchAndBoundSolver.this._relativeGap;
+            _nodeLimit = BranchAndBoundSolver.this._nodeLimit;
+            _limits = BranchAndBoundSolver.this._limits;
+            _startNanos = System.nanoTime();
+            _deadline = _startNanos + _limits.getTimeBudgetNanos();
+            _workers = new Worker[_threadCount];
+            _finished = new CountDownLatch(_threadCount);
+            _minimumValues = new float[types.length];
+            VariableBounds rootBounds = new VariableBounds(bounds);
+            for (int j = 0; j < types.length; ++j) {
+                if (types[j] == VariableType.INTEGER) {
+                    rootBounds.setLower(j, (float)Math.ceil(bounds.getLower(j) - INTEGRALITY_TOLERANCE));
+                    rootBounds.setUpper(j, (float)Math.floor(bounds.getUpper(j) + INTEGRALITY_TOLERANCE));
+                } else if (types[j] == VariableType.SEMI_CONTINUOUS) {
+                    if (bounds.getLower(j) < 0) {
+                        throw new IllegalArgumentException("The lower bound of semi-continuous variable " + j + " can not be negative.");
+                    }
+                    // The relaxation allows all values between zero and the upper bound.
+                    _minimumValues[j] = bounds.getLower(j);
+                    rootBounds.setLower(j, 0);
+                }
+            }
+            _queue.add(new Node(rootBounds, Double.POSITIVE_INFINITY, 0));
+        }
+
+        /**
+         * Runs the workers, and waits until they have finished.
+         *
+         * @return The result of the search.
+         */
+        BranchAndBoundResult run() {
+            for (int w = 0; w < _workers.length; ++w) {
+                _workers[w] = new Worker();
+            }
+            for (int w = 0; w < _workers.length; ++w) {
+                try {
+                    _executor.execute(_workers[w]);
+                } catch (RejectedExecutionException e) {
+                    // The workers which did start stop right away, and the others never run.
+                    synchronized (_lock) {
+                        _stop(SolveStatus.FAILED);
+                    }
+                    for (int k = w; k < _workers.length; ++k) {
+                        _finished.countDown();
+                    }
+                    _awaitWorkers();
+                    throw e;
+                }
+            }
+            _awaitWorkers();
+            if (_error != null) {
+                throw _error;
+            }
+            return _buildResult();
+        }
+
+        /**
+         * Waits until all workers have finished. When the calling thread is interrupted, the search is cancelled,
+         * and it still waits until the workers have put their nodes back.
+         */
+        private void _awaitWorkers() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    _finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    synchronized (_lock) {
+                        _stop(SolveStatus.CANCELLED);
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return The result of the finished search.
+         */
+        private BranchAndBoundResult _buildResult() {
+            SolveStatsRecorder stats = new SolveStatsRecorder();
+            int iterations = 0;
+            int[] workerNodeCounts = new int[_workers.length];
+            for (int w = 0; w < _workers.length; ++w) {
+                iterations += _workers[w]._iterations;
+                workerNodeCounts[w] = _workers[w]._solvedNodes;
+                SolveStats workerStats = _workers[w]._stats.build(null, _workers[w]._iterations);
+                for (SolvePhase phase : SolvePhase.values()) {
+                    stats.add(phase, workerStats.getPhaseNanos(phase), workerStats.getPhaseCount(phase));
+                }
+            }
+            synchronized (_lock) {
+                // The open nodes can still contain better solutions, and so can the nodes which were lost.
+                double openBound = _lostBound;
+                for (Node node : _queue) {
+                    openBound = Math.max(openBound, node._bound);
+                }
+                SolveStatus status;
+                if (_stopped) {
+                    status = _stopStatus;
+                } else if (_incumbent != null) {
+                    status = _isPruned(openBound) ? SolveStatus.OPTIMAL : SolveStatus.ITERATION_LIMIT;
+                } else {
+                    status = _lostStatus != null ? _lostStatus : SolveStatus.INFEASIBLE;
+                }
+                float[] solution = status == SolveStatus.UNBOUNDED ? null : _incumbent;
+                double objectiveValue = solution != null ? _sign * _incumbentValue : Double.NaN;
+                double bestBound;
+                if (status == SolveStatus.UNBOUNDED) {
+                    bestBound = _sign * Double.POSITIVE_INFINITY;
+                } else if (solution == null && openBound == Double.NEGATIVE_INFINITY) {
+                    bestBound = Double.NaN;
+                } else {
+                    bestBound = _sign * Math.max(Math.max(openBound, _prunedBound), _incumbentValue);
+                }
+                return new BranchAndBoundResult(status, solution, iterations, stats.build(status, iterations),
+                        objectiveValue, bestBound, _nodeCount, workerNodeCounts, System.nanoTime() - _startNanos);
+            }
+        }
+
+        /**
+         * Checks if a node can not improve the best solution by more than the relative gap.
+         *
+         * @param bound The bound of the node.
+         * @return True if the node does not have to be searched.
+         */
+        private boolean _isPruned(double bound) {
+            double incumbentValue = _incumbentValue;
+            if (incumbentValue == Double.NEGATIVE_INFINITY) {
+                return false;
+            }
+            return bound - incumbentValue <= _relativeGap * Math.max(1, Math.abs(incumbentValue));
+        }
+
+        /**
+         * Checks if a node can be pruned, and keeps its bound if so. Call this with the lock.
+         *
+         * @param bound The bound of the node.
+         * @return True if the node does not have to be searched.
+         */
+        private boolean _prune(double bound) {
+            if (!_isPruned(bound)) {
+                return false;
+            }
+            _prunedBound = Math.max(_prunedBound, bound);
+            return true;
+        }
+
+        /**
+         * Stops the search, the workers put the nodes they are working on back into the queue.
+         * When cancelled, the workers are interrupted, so their solvers stop as well. Call this with the lock.
+         *
+         * @param status The status of the result.
+         */
+        private void _stop(SolveStatus status) {
+            if (!_stopped) {
+                _stopped = true;
+                _stopStatus = status;
+                if (status == SolveStatus.CANCELLED) {
+                    for (Worker worker : _workers) {
+                        if (worker._thread != null && worker._thread != Thread.currentThread()) {
+                            worker._thread.interrupt();
+                        }
+                    }
+                }
+            }
+            _lock.notifyAll();
+        }
+
+        /**
+         * The worker which searches the tree on one thread, with the solver of that thread.
+         */
+        private class Worker implements Runnable {
+
+            // Written by the worker thread, and read after the search has finished.
+            private final SolveStatsRecorder _stats = new SolveStatsRecorder();
+            private int _iterations;
+            private int _solvedNodes;
+            // The worker thread while it is running, guarded by the lock.
+            private Thread _thread;
+            // If the worker holds a node, and counts as active.
+            private boolean _active;
+            // If the solver of the thread has a dual feasible final basis of this search, which the next relaxation can start from.
+            private boolean _warm;
+
+            @Override
+            public void run() {
+                try {
+                    synchronized (_lock) {
+                        if (_stopped) {
+                            return;
+                        }
+                        _thread = Thread.currentThread();
+                    }
+                    Node node = _takeNode();
+                    while (node != null) {
+                        Node child = _processNode(node);
+                        node = child != null ? child : _takeNode();
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (_lock) {
+                        if (_error == null) {
+                            _error = e;
+                        }
+                        _stop(SolveStatus.FAILED);
+                    }
+                } finally {
+                    synchronized (_lock) {
+                        _thread = null;
+                        if (_active) {
+                            _active = false;
+                            --_activeWorkers;
+                            _lock.notifyAll();
+                        }
+                    }
+                    // Make sure a cancellation does not interrupt the next task of the thread.
+                    Thread.interrupted();
+                    _finished.countDown();
+                }
+            }
+
+            /**
+             * Takes the node with the best bound from the queue. Waits while the queue is empty and other workers
+             * are still searching, since they can add new nodes.
+             *
+             * @return The node, or null if the search has finished.
+             */
+            private Node _takeNode() {
+                synchronized (_lock) {
+                    if (_active) {
+                        _active = false;
+                        --_activeWorkers;
+                    }
+                    while (true) {
+                        if (_stopped) {
+                            return null;
+                        }
+                        Node node = _queue.poll();
+                        if (node != null) {
+                            if (_prune(node._bound)) {
+                                continue;
+                            }
+                            _active = true;
+                            ++_activeWorkers;
+                            return node;
+                        }
+                        if (_activeWorkers == 0) {
+                            // Nobody can add nodes anymore, so the whole tree has been searched.
+                            _lock.notifyAll();
+                            return null;
+                        }
+                        try {
+                            _lock.wait();
+                        } catch (InterruptedException e) {
+                            _stop(SolveStatus.CANCELLED);
+                            return null;
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Solves the relaxation of a node, and splits it if its solution is not valid for the problem.
+             *
+             * @param node The node to search.
+             * @return The child to dive into, or null if the node has been pruned or has a valid solution.
+             */
+            private Node _processNode(Node node) {
+                synchronized (_lock) {
+                    if (_stopped) {
+                        _queue.add(node);
+                        return null;
+                    }
+                    if (_prune(node._bound)) {
+                        return null;
+                    }
+                    if (_nodeLimit > 0 && _nodeCount >= _nodeLimit) {
+                        _queue.add(node);
+                        _stop(SolveStatus.ITERATION_LIMIT);
+                        return null;
+                    }
+                    ++_nodeCount;
+                }
+                ++_solvedNodes;
+                SimplexResult result = _solveRelaxation(node._bounds);
+                SolveStatus status = result.getStatus();
+                if (status == SolveStatus.OPTIMAL) {
+                    return _branch(node, result.getSolution());
+                }
+                if (status == SolveStatus.INFEASIBLE) {
+                    return null;
+                }
+                synchronized (_lock) {
+                    if (status == SolveStatus.UNBOUNDED) {
+                        _stop(status);
+                    } else if (status == SolveStatus.TIME_LIMIT || status == SolveStatus.CANCELLED) {
+                        _queue.add(node);
+                        _stop(status);
+                    } else {
+                        // The relaxation can not be solved, so the node can not be searched.
+                        _lostBound = Math.max(_lostBound, node._bound);
+                        _lostStatus = status;
+                    }
+                }
+                return null;
+            }
+
+            /**
+             * Solves the relaxation of a node, from the final basis of the last relaxation of the worker if possible.
+             *
+             * @param bounds The bounds of the variables in the node.
+             * @return The result of the relaxation.
+             */
+            private SimplexResult _solveRelaxation(VariableBounds bounds) {
+                SimplexEngine engine = _threadFactory.getEngine();
+                if (_limits.hasTimeBudget()) {
+                    long remainingNanos = _deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        return new SimplexResult(SolveStatus.TIME_LIMIT, null, 0);
+                    }
+                    engine.setLimits(_limits.withTimeBudget(remainingNanos));
+                } else {
+                    engine.setLimits(_limits);
+                }
+                boolean warm = _warm;
+                SimplexResult result = warm ? engine.resolveWithBounds(bounds)
+                        : engine.solveTwoPhase(_data, _relationships, bounds, _minimize);
+                _record(result);
+                SolveStatus status = result.getStatus();
+                if (warm && (status == SolveStatus.ITERATION_LIMIT || status == SolveStatus.FAILED)) {
+                    // The re-solves accumulate rounding errors, which a fresh start gets rid of.
+                    warm = false;
+                    result = engine.solveTwoPhase(_data, _relationships, bounds, _minimize);
+                    _record(result);
+                    status = result.getStatus();
+                }
+                // An infeasible re-solve keeps a dual feasible basis, an infeasible solve has no final basis at all.
+                _warm = status == SolveStatus.OPTIMAL || (warm && status == SolveStatus.INFEASIBLE);
+                return result;
+            }
+
+            /**
+             * Adds the iterations and phases of a relaxation to the statistics of the worker.
+             *
+             * @param result The result of the relaxation.
+             */
+            private void _record(SimplexResult result) {
+                _iterations += result.getIterations();
+                SolveStats solveStats = result.getStats();
+                if (solveStats != null) {
+                    for (SolvePhase phase : SolvePhase.values()) {
+                        _stats.add(phase, solveStats.getPhaseNanos(phase), solveStats.getPhaseCount(phase));
+                    }
+                }
+            }
+
+            /**
+             * Splits a node on the variable whose value is the furthest from a valid one, or stores the solution
+             * if all values are valid.
+             *
+             * @param node     The node.
+             * @param solution The optimal solution of the relaxation of the node.
+             * @return The child to dive into, or null if the node has been pruned or has a valid solution.
+             */
+            private Node _branch(Node node, float[] solution) {
+                double value = _sign * _getObjectiveValue(solution);
+                synchronized (_lock) {
+                    if (_prune(value)) {
+                        return null;
+                    }
+                }
+                int variable = -1;
+                double largestScore = 0;
+                for (int j = 0; j < _types.length; ++j) {
+                    double score = _getInfeasibility(j, solution[j], node._bounds);
+                    if (score > largestScore) {
+                        largestScore = score;
+                        variable = j;
+                    }
+                }
+                if (variable < 0) {
+                    _storeSolution(solution);
+                    return null;
+                }
+                float x = solution[variable];
+                VariableBounds lowerBounds = new VariableBounds(node._bounds);
+                VariableBounds upperBounds = new VariableBounds(node._bounds);
+                boolean diveUp;
+                if (_types[variable] == VariableType.INTEGER) {
+                    lowerBounds.setUpper(variable, (float)Math.floor(x));
+                    upperBounds.setLower(variable, (float)Math.ceil(x));
+                    diveUp = x - Math.floor(x) >= 0.5;
+                } else {
+                    // The variable is either zero, or at least its minimum value.
+                    lowerBounds.setUpper(variable, 0);
+                    upperBounds.setLower(variable, _minimumValues[variable]);
+                    diveUp = x >= 0.5 * _minimumValues[variable];
+                }
+                Node lowerChild = new Node(lowerBounds, value, node._depth + 1);
+                Node upperChild = new Node(upperBounds, value, node._depth + 1);
+                synchronized (_lock) {
+                    _queue.add(diveUp ? lowerChild : upperChild);
+                    _lock.notifyAll();
+                }
+                return diveUp ? upperChild : lowerChild;
+            }
+
+            /**
+             * Measures how far the value of a variable is from a valid one.
+             *
+             * @param variable The index of the variable.
+             * @param x        The value of the variable in the relaxation.
+             * @param bounds   The bounds of the variables in the node.
+             * @return Zero if the value is valid, otherwise a positive number, at most 0.5.
+             */
+            private double _getInfeasibility(int variable, float x, VariableBounds bounds) {
+                double tolerance = INTEGRALITY_TOLERANCE * Math.max(1, Math.abs(x));
+                if (_types[variable] == VariableType.INTEGER) {
+                    double fraction = x - Math.floor(x);
+                    double distance = Math.min(fraction, 1 - fraction);
+                    return distance > tolerance ? distance : 0;
+                }
+                if (_types[variable] == VariableType.SEMI_CONTINUOUS) {
+                    float minimum = _minimumValues[variable];
+                    if (bounds.getLower(variable) >= minimum || x <= tolerance || x >= minimum - tolerance) {
+                        return 0;
+                    }
+                    return 0.5 * Math.min(x, minimum - x) / minimum;
+                }
+                return 0;
+            }
+
+            /**
+             * Rounds the values of a valid solution, and stores it if it is better than the best solution so far.
+             *
+             * @param solution The solution of a relaxation, which is valid for the problem.
+             */
+            private void _storeSolution(float[] solution) {
+                float[] rounded = solution.clone();
+                for (int j = 0; j < _types.length; ++j) {
+                    if (_types[j] == VariableType.INTEGER) {
+                        rounded[j] = (float)Math.rint(rounded[j]);
+                    } else if (_types[j] == VariableType.SEMI_CONTINUOUS && rounded[j] < _minimumValues[j] * 0.5) {
+                        rounded[j] = 0;
+                    }
+                }
+                double value = _sign * _getObjectiveValue(rounded);
+                synchronized (_lock) {
+                    if (value > _incumbentValue) {
+                        _incumbent = rounded;
+                        _incumbentValue = value;
+                    }
+                }
+            }
+
+            /**
+             * @param solution The values of the variables.
+             * @return The value of the objective function, in double precision.
+             */
+            private double _getObjectiveValue(float[] solution) {
+                double[] point = new double[solution.length];
+                for (int j = 0; j < solution.length; ++j) {
+                    point[j] = solution[j];
+                }
+                return _objectiveFunction.value(point);
+            }
+        }
+    }
+}
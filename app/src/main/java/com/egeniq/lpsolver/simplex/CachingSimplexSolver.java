@@ -0,0 +1,268 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the results of a solver, so a problem which has been solved before is not solved again.
+ * The problems are identified by their {@link ProblemFingerprint}, so a problem with the same constraints
+ * in a different order is also found in the cache. The problems are solved with the two-phase method,
+ * so they can mix less-or-equal, greater-or-equal and equality constraints.
+ * The least recently used results are evicted when the cache is full, and results expire after the time to live.
+ * Only the final results are cached: optimal, unbounded and infeasible. Results which depend on the limits
+ * of the solver, or on an interruption, are returned but not cached.
+ * The solver is thread safe. When multiple threads ask for the same problem at the same time, only the first one solves it,
+ * and the others wait for its result. Different problems are solved one by one, because they share the solver.
+ */
+public class CachingSimplexSolver {
+
+    private final SimplexEngine _engine;
+    private final int _maxSize;
+    private final long _timeToLiveNanos;
+    // The cached results, with the least recently used first. Guarded by this.
+    private final LinkedHashMap<ProblemFingerprint, CacheEntry> _cache;
+    // The solves which are running right now, so others asking for the same problem can wait for them. Guarded by this.
+    private final Map<ProblemFingerprint, FutureTask<SimplexResult>> _pendingSolves = new HashMap<>();
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+
+    /**
+     * Creates a new caching solver.
+     *
+     * @param engine     The solver to use on a miss. Set its limits before passing it, and do not use it directly afterwards.
+     * @param maxSize    The maximum amount of cached results.
+     * @param timeToLive The time after which a cached result expires, or 0 if they never expire.
+     * @param unit       The unit of the time to live.
+     */
+    public CachingSimplexSolver(SimplexEngine engine, int maxSize, long timeToLive, TimeUnit unit) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive: " + maxSize);
+        }
+        _engine = engine;
+        _maxSize = maxSize;
+        _timeToLiveNanos = unit.toNanos(timeToLive);
+        _cache = new LinkedHashMap<ProblemFingerprint, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProblemFingerprint, CacheEntry> eldest) {
+                if (size() > _maxSize) {
+                    _evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Solves the linear programming problem, or returns the cached result if it has been solved before.
+     *
+     * @param objectiveFunction The objective function.
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @param goalType          If the objective function has to be minimized or maximized.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * The solution is a copy, so it can be modified. The statistics and the sensitivity report are the ones of the solve
+     * which produced the result.
+     */
+    public SimplexResult solve(final LinearObjectiveFunction objectiveFunction, final Collection<LinearConstraint> linearConstraints,
+                               final GoalType goalType) {
+        ProblemFingerprint fingerprint = ProblemFingerprint.of(objectiveFunction, linearConstraints, goalType);
+        FutureTask<SimplexResult> solveTask;
+        boolean ownsSolve = false;
+        synchronized (this) {
+            CacheEntry entry = _cache.get(fingerprint);
+            if (entry != null) {
+                if (!_isExpired(entry, System.nanoTime())) {
+                    _hitCount++;
+                    return _copy(entry._result);
+                }
+                _cache.remove(fingerprint);
+                _evictionCount++;
+            }
+            solveTask = _pendingSolves.get(fingerprint);
+            if (solveTask == null) {
+                solveTask = new FutureTask<>(new Callable<SimplexResult>() {
+                    @Override
+                    public SimplexResult call() {
+                        return _solve(objectiveFunction, linearConstraints, goalType);
+                    }
+                });
+                _pendingSolves.put(fingerprint, solveTask);
+                ownsSolve = true;
+                _missCount++;
+            } else {
+                // Somebody else is solving the same problem, it counts as a hit, because we do not solve it.
+                _hitCount++;
+            }
+        }
+        if (ownsSolve) {
+            try {
+                solveTask.run();
+            } finally {
+                _completeSolve(fingerprint, solveTask);
+            }
+        }
+        return _copy(_awaitResult(solveTask));
+    }
+
+    /**
+     * @return The amount of solves answered from the cache, or by waiting for the same problem being solved.
+     */
+    public synchronized long getHitCount() {
+        return _hitCount;
+    }
+
+    /**
+     * @return The amount of solves which had to be solved by the solver.
+     */
+    public synchronized long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * @return The amount of results removed from the cache, because it was full or because they expired.
+     */
+    public synchronized long getEvictionCount() {
+        return _evictionCount;
+    }
+
+    /**
+     * @return The amount of cached results, including the expired ones which have not been removed yet.
+     */
+    public synchronized int size() {
+        return _cache.size();
+    }
+
+    /**
+     * Removes all cached results. The counters are kept.
+     */
+    public synchronized void clear() {
+        _cache.clear();
+    }
+
+    /**
+     * Converts and solves a problem with the solver.
+     *
+     * @param objectiveFunction The objective function.
+     * @param linearConstraints The constraints.
+     * @param goalType          If the objective function has to be minimized or maximized.
+     * @return The result of the solver.
+     */
+    private SimplexResult _solve(LinearObjectiveFunction objectiveFunction, Collection<LinearConstraint> linearConstraints,
+                                 GoalType goalType) {
+        List<LinearConstraint> constraints = new ArrayList<>(linearConstraints);
+        boolean minimize = goalType == GoalType.MINIMIZE;
+        // The two-phase method solves any mix of relationships, the single-phase solves need a feasible slack basis.
+        float[][] tableau = TableauConverter.convertTwoPhase(objectiveFunction, constraints, minimize);
+        Relationship[] relationships = TableauConverter.getRelationships(constraints);
+        synchronized (_engine) {
+            return _engine.solveTwoPhase(tableau, relationships, minimize);
+        }
+    }
+
+    /**
+     * Stores the result of a finished solve in the cache, if it is a final one.
+     *
+     * @param fingerprint The fingerprint of the problem.
+     * @param solveTask   The finished solve.
+     */
+    private synchronized void _completeSolve(ProblemFingerprint fingerprint, FutureTask<SimplexResult> solveTask) {
+        _pendingSolves.remove(fingerprint);
+        SimplexResult result;
+        try {
+            result = solveTask.get();
+        } catch (InterruptedException | ExecutionException e) {
+            // Failed solves are not cached, the callers get the exception from the task.
+            return;
+        }
+        SolveStatus status = result.getStatus();
+        if (status != SolveStatus.OPTIMAL && status != SolveStatus.UNBOUNDED && status != SolveStatus.INFEASIBLE) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Make room by removing the expired results first, so only the fresh ones are evicted by the size limit.
+        Iterator<CacheEntry> iterator = _cache.values().iterator();
+        while (iterator.hasNext()) {
+            if (_isExpired(iterator.next(), now)) {
+                iterator.remove();
+                _evictionCount++;
+            }
+        }
+        _cache.put(fingerprint, new CacheEntry(result, now));
+    }
+
+    /**
+     * Waits for a solve to finish.
+     *
+     * @param solveTask The solve.
+     * @return The result of the solve, or a cancelled result if the waiting thread has been interrupted.
+     */
+    private SimplexResult _awaitResult(FutureTask<SimplexResult> solveTask) {
+        try {
+            return solveTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SimplexResult(SolveStatus.CANCELLED, null, 0, new SolveStatsRecorder().build(SolveStatus.CANCELLED, 0));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException("The solver has failed", cause);
+        }
+    }
+
+    /**
+     * @param entry The cached result.
+     * @param now   The current value of {@link System#nanoTime()}.
+     * @return True if the result is older than the time to live.
+     */
+    private boolean _isExpired(CacheEntry entry, long now) {
+        return _timeToLiveNanos > 0 && now - entry._createdNanos >= _timeToLiveNanos;
+    }
+
+    /**
+     * Copies a result, so the callers can not modify the cached solution.
+     * The statistics and the sensitivity report have no setters, so they are shared with the cached result.
+     *
+     * @param result The result to copy.
+     * @return The copy of the result.
+     */
+    private static SimplexResult _copy(SimplexResult result) {
+        float[] solution = result.getSolution() == null ? null : result.getSolution().clone();
+        return new SimplexResult(result.getStatus(), solution, result.getIterations(), result.getStats(),
+                result.getSensitivity());
+    }
+
+    /**
+     * A cached result, with the time it has been stored at.
+     */
+    private static class CacheEntry {
+
+        private final SimplexResult _result;
+        private final long _createdNanos;
+
+        CacheEntry(SimplexResult result, long createdNanos) {
+            _result = result;
+            _createdNanos = createdNanos;
+        }
+    }
+}
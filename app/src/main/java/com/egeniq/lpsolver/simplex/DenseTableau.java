@@ -0,0 +1,53 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Tableau stored as a single flat array, row after row. It has the same layout as the two-dimensional tableaus:
+ * the constraint rows, then the objective row, and the 'b' vector in the last column.
+ * The solvers read the array directly, so it is not copied again before it reaches them.
+ * Use a {@link TableauBuilder} to create one without building the problem as objects first.
+ */
+public class DenseTableau {
+
+    private final int _rowCount;
+    private final int _columnCount;
+    private final float[] _values;
+
+    /**
+     * Creates a new dense tableau. The array is not copied.
+     *
+     * @param rowCount    The amount of rows, including the objective row.
+     * @param columnCount The amount of columns, including the 'b' vector.
+     * @param values      The cells, row after row. Can be longer than the cell count.
+     */
+    public DenseTableau(int rowCount, int columnCount, float[] values) {
+        if (values.length < rowCount * columnCount) {
+            throw new IllegalArgumentException("The array has " + values.length + " elements, but the tableau has " +
+                    rowCount * columnCount + " cells.");
+        }
+        _rowCount = rowCount;
+        _columnCount = columnCount;
+        _values = values;
+    }
+
+    /**
+     * @return The amount of rows, including the objective row.
+     */
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    /**
+     * @return The amount of columns, including the 'b' vector.
+     */
+    public int getColumnCount() {
+        return _columnCount;
+    }
+
+    /**
+     * @return The cells, row after row. The cell in row i and column j is at index i * columnCount + j.
+     * Can be longer than the cell count.
+     */
+    public float[] getValues() {
+        return _values;
+    }
+}
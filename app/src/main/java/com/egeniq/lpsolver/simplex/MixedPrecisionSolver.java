@@ -0,0 +1,576 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Solves the problems with the fast single precision pivots of a solver, and refines the solution in double precision.
+ * The float tableau loses precision on ill-conditioned problems, but the basis it ends in is usually still the optimal one.
+ * So the basis is recovered from the solution, and the primal and dual values belonging to it are calculated again
+ * from the original coefficients of the problem, with a few rounds of iterative refinement.
+ * Only if the refined basis turns out to be infeasible or not optimal, the simplex method continues in double precision from there.
+ * The problem is solved as a tableau program: maximize c x, subject to A x &lt;= b and x &gt;= 0.
+ * For minimization problems that is the dual program, the same way the solvers see it.
+ */
+public class MixedPrecisionSolver {
+
+    // The maximum amount of iterative refinement rounds.
+    private static final int REFINEMENT_STEPS = 3;
+    // The values below these are considered negative in the feasibility and optimality checks.
+    private static final double FEASIBILITY_TOLERANCE = 1.0e-9;
+    private static final double OPTIMALITY_TOLERANCE = 1.0e-9;
+    // The cells below this are not used as pivots.
+    private static final double PIVOT_TOLERANCE = 1.0e-9;
+    // The columns with a smaller cell than this in the free rows are considered dependent when recovering the basis.
+    private static final double BASIS_PIVOT_TOLERANCE = 1.0e-7;
+
+    private final SimplexEngine _engine;
+    private final TableauBuilder _builder = new TableauBuilder();
+
+    // The tableau program in double precision, with the constraint matrix row after row.
+    private double[] _a = new double[0];
+    private double[] _b = new double[0];
+    private double[] _c = new double[0];
+    // The amount of constraint rows and structural columns of the tableau program.
+    private int _rows;
+    private int _variables;
+    private boolean _dualProgram;
+    // The tableau with the slack variables, row after row. The slack columns contain the inverse of the basis.
+    private double[] _matrix = new double[0];
+    // The column count of the matrix, including the 'b' vector.
+    private int _columns;
+    // For each constraint row, the index of the column which is in the basis.
+    private int[] _basis = new int[0];
+    // For each column of the tableau, the value of the variable.
+    private double[] _primal = new double[0];
+    // For each constraint row, the value of the dual variable.
+    private double[] _dual = new double[0];
+    private double[] _residual = new double[0];
+    private int _pivotCount;
+
+    /**
+     * Creates a new mixed precision solver.
+     *
+     * @param engine The solver which does the single precision pivots.
+     */
+    public MixedPrecisionSolver(SimplexEngine engine) {
+        _engine = engine;
+    }
+
+    /**
+     * Solves the linear programming problem with the solver, and refines the solution in double precision.
+     *
+     * @param objectiveFunction The objective function which's value has to be optimized.
+     * @param linearConstraints The constraints, which define the area of possible solutions.
+     * @param minimize          If the objective function has to be minimized.
+     * @return The result, with the refined solution, and the errors of it. If the solver has not found a solution,
+     * the result of the solver is returned without refinement.
+     */
+    public RefinedSimplexResult solve(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints,
+                                      boolean minimize) {
+        DenseTableau tableau = TableauConverter.convert(_builder, objectiveFunction, linearConstraints, minimize);
+        SimplexResult result = _engine.solve(tableau, minimize);
+        float[] solution = result.getSolution();
+        SolveStatus status = result.getStatus();
+        if (solution == null || (status != SolveStatus.OPTIMAL && status != SolveStatus.ITERATION_LIMIT)) {
+            return _unrefined(result);
+        }
+        _loadProblem(objectiveFunction, linearConstraints, minimize);
+        _loadSlackBasis();
+        if (!_recoverBasis(solution)) {
+            return _unrefined(result);
+        }
+        _pivotCount = 0;
+        _refine();
+        status = SolveStatus.OPTIMAL;
+        if (!_isPrimalFeasible() || !_isDualFeasible()) {
+            // The pivots done in double precision have the same default limit as the solvers.
+            int iterationLimit = SolveLimits.getDefaultIterationLimit(_rows, _variables);
+            if (_isPrimalFeasible()) {
+                status = _primalSimplex(iterationLimit);
+            } else if (_isDualFeasible()) {
+                status = _dualSimplex(iterationLimit);
+            } else {
+                // The recovered basis is of no use, start over from the slack basis, which is feasible if 'b' is non-negative.
+                _loadSlackBasis();
+                if (!_isPrimalFeasible()) {
+                    return _unrefined(result);
+                }
+                status = _primalSimplex(iterationLimit);
+            }
+            if (status == SolveStatus.OPTIMAL || status == SolveStatus.ITERATION_LIMIT) {
+                _refine();
+            }
+        }
+        int iterations = result.getIterations() + _pivotCount;
+        if (!status.hasSolution()) {
+            return new RefinedSimplexResult(status, null, null, iterations, result.getStats(), false, _pivotCount,
+                    Double.NaN, Double.NaN, Double.NaN);
+        }
+        double primalObjective = 0;
+        for (int j = 0; j < _variables; ++j) {
+            primalObjective += _c[j] * _primal[j];
+        }
+        double dualObjective = 0;
+        for (int i = 0; i < _rows; ++i) {
+            dualObjective += _b[i] * _dual[i];
+        }
+        double objective = _dualProgram ? dualObjective : primalObjective;
+        double unrefinedObjective = 0;
+        for (int k = 0; k < solution.length; ++k) {
+            unrefinedObjective += (_dualProgram ? _b[k] : _c[k]) * solution[k];
+        }
+        double[] refinedSolution = _writeSolution();
+        float[] floatSolution = new float[refinedSolution.length];
+        for (int k = 0; k < refinedSolution.length; ++k) {
+            floatSolution[k] = (float)refinedSolution[k];
+        }
+        return new RefinedSimplexResult(status, floatSolution, refinedSolution, iterations, result.getStats(), true, _pivotCount,
+                _dualProgram ? _dualResidual() : _primalResidual(), Math.abs(primalObjective - dualObjective),
+                Math.abs(unrefinedObjective - objective));
+    }
+
+    /**
+     * Wraps the result of the solver, when there is nothing to refine.
+     *
+     * @param result The result of the solver.
+     * @return The same result, without refinement.
+     */
+    private static RefinedSimplexResult _unrefined(SimplexResult result) {
+        return new RefinedSimplexResult(result.getStatus(), result.getSolution(), null, result.getIterations(), result.getStats(),
+                false, 0, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Reads the tableau program from the Apache objects in double precision, and sizes the buffers for it.
+     * The signs and the transposition are the same as in the {@link TableauBuilder}.
+     *
+     * @param objectiveFunction The objective function.
+     * @param linearConstraints The constraints.
+     * @param minimize          If the objective function has to be minimized, so the tableau program is the dual program.
+     */
+    private void _loadProblem(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints, boolean minimize) {
+        RealVector objective = objectiveFunction.getCoefficients();
+        int variableCount = objective.getDimension();
+        int constraintCount = linearConstraints.size();
+        _dualProgram = minimize;
+        // The dual program has a row for each variable, and a column for each constraint.
+        _rows = minimize ? variableCount : constraintCount;
+        _variables = minimize ? constraintCount : variableCount;
+        _columns = _variables + _rows + 1;
+        if (_a.length < _rows * _variables) {
+            _a = new double[_rows * _variables];
+        }
+        if (_b.length < _rows) {
+            _b = new double[_rows];
+            _basis = new int[_rows];
+            _dual = new double[_rows];
+            _residual = new double[_rows];
+        }
+        if (_c.length < _variables) {
+            _c = new double[_variables];
+        }
+        if (_matrix.length < (_rows + 1) * _columns) {
+            _matrix = new double[(_rows + 1) * _columns];
+        }
+        if (_primal.length < _columns - 1) {
+            _primal = new double[_columns - 1];
+        }
+        for (int i = 0; i < constraintCount; ++i) {
+            LinearConstraint constraint = linearConstraints.get(i);
+            double sign = TableauBuilder.getConstraintSign(constraint.getRelationship(), minimize);
+            RealVector coefficients = constraint.getCoefficients();
+            for (int j = 0; j < variableCount; ++j) {
+                double value = sign * coefficients.getEntry(j);
+                if (minimize) {
+                    // The constraints are transposed.
+                    _a[j * _variables + i] = value;
+                } else {
+                    _a[i * _variables + j] = value;
+                }
+            }
+            if (minimize) {
+                _c[i] = sign * constraint.getValue();
+            } else {
+                _b[i] = sign * constraint.getValue();
+            }
+        }
+        for (int j = 0; j < variableCount; ++j) {
+            if (minimize) {
+                _b[j] = objective.getEntry(j);
+            } else {
+                _c[j] = objective.getEntry(j);
+            }
+        }
+    }
+
+    /**
+     * Fills the matrix with the tableau of the slack basis: the constraint matrix, the identity of the slack variables,
+     * the 'b' vector, and the negated objective function in the last row.
+     */
+    private void _loadSlackBasis() {
+        Arrays.fill(_matrix, 0, (_rows + 1) * _columns, 0);
+        for (int i = 0; i < _rows; ++i) {
+            int offset = i * _columns;
+            System.arraycopy(_a, i * _variables, _matrix, offset, _variables);
+            _matrix[offset + _variables + i] = 1;
+            _matrix[offset + _columns - 1] = _b[i];
+            _basis[i] = _variables + i;
+        }
+        int objectiveOffset = _rows * _columns;
+        for (int j = 0; j < _variables; ++j) {
+            _matrix[objectiveOffset + j] = -_c[j];
+        }
+    }
+
+    /**
+     * Recovers the basis of the single precision solution, and pivots the tableau to it.
+     * The columns are ranked by how likely they are basic: the ones with the largest values for a primal solution,
+     * and the ones with the smallest reduced costs for a dual solution. Then the columns are pivoted in one by one,
+     * skipping the ones which are dependent on the previous ones, until all the rows have a basic column.
+     *
+     * @param solution The solution of the solver. For dual programs, the values of the dual variables.
+     * @return True if a basis has been found. False if the columns turned out to be dependent because of the tolerance.
+     */
+    private boolean _recoverBasis(float[] solution) {
+        int columnCount = _columns - 1;
+        final double[] scores = new double[columnCount];
+        if (_dualProgram) {
+            for (int j = 0; j < _variables; ++j) {
+                double reducedCost = -_c[j];
+                for (int i = 0; i < _rows; ++i) {
+                    reducedCost += _a[i * _variables + j] * solution[i];
+                }
+                scores[j] = -Math.abs(reducedCost);
+            }
+            for (int i = 0; i < _rows; ++i) {
+                scores[_variables + i] = -Math.abs(solution[i]);
+            }
+        } else {
+            for (int i = 0; i < _rows; ++i) {
+                double slack = _b[i];
+                for (int j = 0; j < _variables; ++j) {
+                    slack -= _a[i * _variables + j] * solution[j];
+                }
+                scores[_variables + i] = slack;
+            }
+            for (int j = 0; j < _variables; ++j) {
+                scores[j] = solution[j];
+            }
+        }
+        Integer[] order = new Integer[columnCount];
+        for (int k = 0; k < columnCount; ++k) {
+            order[k] = k;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer left, Integer right) {
+                return Double.compare(scores[right], scores[left]);
+            }
+        });
+        boolean[] assigned = new boolean[_rows];
+        int assignedCount = 0;
+        for (int k = 0; k < columnCount && assignedCount < _rows; ++k) {
+            int column = order[k];
+            int pivotRow = -1;
+            double largest = BASIS_PIVOT_TOLERANCE;
+            for (int i = 0; i < _rows; ++i) {
+                double cell = Math.abs(_matrix[i * _columns + column]);
+                if (!assigned[i] && cell > largest) {
+                    largest = cell;
+                    pivotRow = i;
+                }
+            }
+            if (pivotRow >= 0) {
+                _pivot(pivotRow, column);
+                assigned[pivotRow] = true;
+                ++assignedCount;
+            }
+        }
+        return assignedCount == _rows;
+    }
+
+    /**
+     * Calculates the primal and dual values of the current basis again from the original coefficients,
+     * correcting them with the inverse of the basis until the residuals are gone. Then the 'b' vector and the objective row
+     * of the tableau are overwritten with the refined values, so the feasibility and optimality checks use those.
+     */
+    private void _refine() {
+        int objectiveOffset = _rows * _columns;
+        for (int i = 0; i < _rows; ++i) {
+            _dual[i] = _matrix[objectiveOffset + _variables + i];
+        }
+        for (int step = 0; step < REFINEMENT_STEPS; ++step) {
+            _readPrimal();
+            // The residual of the constraints: b - A x - s.
+            double largestResidual = 0;
+            for (int i = 0; i < _rows; ++i) {
+                double residual = _b[i] - _primal[_variables + i];
+                for (int j = 0; j < _variables; ++j) {
+                    residual -= _a[i * _variables + j] * _primal[j];
+                }
+                _residual[i] = residual;
+                largestResidual = Math.max(largestResidual, Math.abs(residual));
+            }
+            if (largestResidual == 0) {
+                break;
+            }
+            // The slack columns of the tableau contain the inverse of the basis.
+            for (int r = 0; r < _rows; ++r) {
+                int offset = r * _columns;
+                double correction = 0;
+                for (int i = 0; i < _rows; ++i) {
+                    correction += _matrix[offset + _variables + i] * _residual[i];
+                }
+                _matrix[offset + _columns - 1] += correction;
+            }
+        }
+        _readPrimal();
+        for (int step = 0; step < REFINEMENT_STEPS; ++step) {
+            // The reduced costs of the basic columns should be zero.
+            double largestResidual = 0;
+            for (int r = 0; r < _rows; ++r) {
+                _residual[r] = _reducedCost(_basis[r]);
+                largestResidual = Math.max(largestResidual, Math.abs(_residual[r]));
+            }
+            if (largestResidual == 0) {
+                break;
+            }
+            for (int i = 0; i < _rows; ++i) {
+                double correction = 0;
+                for (int r = 0; r < _rows; ++r) {
+                    correction += _residual[r] * _matrix[r * _columns + _variables + i];
+                }
+                _dual[i] -= correction;
+            }
+        }
+        double objective = 0;
+        for (int i = 0; i < _rows; ++i) {
+            objective += _b[i] * _dual[i];
+        }
+        for (int k = 0; k < _columns - 1; ++k) {
+            _matrix[objectiveOffset + k] = _reducedCost(k);
+        }
+        _matrix[objectiveOffset + _columns - 1] = objective;
+    }
+
+    /**
+     * Reads the values of the variables from the 'b' vector of the tableau. The non-basic variables are zero.
+     */
+    private void _readPrimal() {
+        Arrays.fill(_primal, 0, _columns - 1, 0);
+        for (int r = 0; r < _rows; ++r) {
+            _primal[_basis[r]] = _matrix[r * _columns + _columns - 1];
+        }
+    }
+
+    /**
+     * Calculates the reduced cost of a column from the original coefficients and the dual values.
+     *
+     * @param column The column of the tableau.
+     * @return The reduced cost, which is negative if the column would improve the objective function.
+     */
+    private double _reducedCost(int column) {
+        if (column >= _variables) {
+            return _dual[column - _variables];
+        }
+        double reducedCost = -_c[column];
+        for (int i = 0; i < _rows; ++i) {
+            reducedCost += _a[i * _variables + column] * _dual[i];
+        }
+        return reducedCost;
+    }
+
+    /**
+     * @return True if the values of the basic variables are non-negative.
+     */
+    private boolean _isPrimalFeasible() {
+        for (int r = 0; r < _rows; ++r) {
+            if (_matrix[r * _columns + _columns - 1] < -FEASIBILITY_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the reduced costs are non-negative, so no column could improve the objective function.
+     */
+    private boolean _isDualFeasible() {
+        int objectiveOffset = _rows * _columns;
+        for (int k = 0; k < _columns - 1; ++k) {
+            if (_matrix[objectiveOffset + k] < -OPTIMALITY_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Continues with the primal simplex method from a feasible basis. Bland's rule is used,
+     * because only a few pivots are expected, and the refined values are often degenerate.
+     *
+     * @param iterationLimit The maximum amount of pivots.
+     * @return The status of the tableau after pivoting.
+     */
+    private SolveStatus _primalSimplex(int iterationLimit) {
+        int objectiveOffset = _rows * _columns;
+        while (true) {
+            int enteringColumn = -1;
+            for (int k = 0; k < _columns - 1; ++k) {
+                if (_matrix[objectiveOffset + k] < -OPTIMALITY_TOLERANCE) {
+                    enteringColumn = k;
+                    break;
+                }
+            }
+            if (enteringColumn < 0) {
+                return SolveStatus.OPTIMAL;
+            }
+            if (_pivotCount >= iterationLimit) {
+                return SolveStatus.ITERATION_LIMIT;
+            }
+            int departingRow = -1;
+            double smallestRatio = Double.MAX_VALUE;
+            for (int r = 0; r < _rows; ++r) {
+                int offset = r * _columns;
+                double cell = _matrix[offset + enteringColumn];
+                if (cell <= PIVOT_TOLERANCE) {
+                    continue;
+                }
+                double ratio = Math.max(_matrix[offset + _columns - 1], 0) / cell;
+                if (ratio < smallestRatio || (ratio == smallestRatio && _basis[r] < _basis[departingRow])) {
+                    smallestRatio = ratio;
+                    departingRow = r;
+                }
+            }
+            if (departingRow < 0) {
+                return SolveStatus.UNBOUNDED;
+            }
+            _pivot(departingRow, enteringColumn);
+            ++_pivotCount;
+        }
+    }
+
+    /**
+     * Continues with the dual simplex method from a basis which is optimal, but not feasible.
+     *
+     * @param iterationLimit The maximum amount of pivots.
+     * @return The status of the tableau after pivoting.
+     */
+    private SolveStatus _dualSimplex(int iterationLimit) {
+        int objectiveOffset = _rows * _columns;
+        while (true) {
+            int departingRow = -1;
+            double lowest = -FEASIBILITY_TOLERANCE;
+            for (int r = 0; r < _rows; ++r) {
+                double value = _matrix[r * _columns + _columns - 1];
+                if (value < lowest) {
+                    lowest = value;
+                    departingRow = r;
+                }
+            }
+            if (departingRow < 0) {
+                return SolveStatus.OPTIMAL;
+            }
+            if (_pivotCount >= iterationLimit) {
+                return SolveStatus.ITERATION_LIMIT;
+            }
+            int offset = departingRow * _columns;
+            int enteringColumn = -1;
+            double smallestRatio = Double.MAX_VALUE;
+            for (int k = 0; k < _columns - 1; ++k) {
+                double cell = _matrix[offset + k];
+                if (cell >= -PIVOT_TOLERANCE) {
+                    continue;
+                }
+                double ratio = Math.max(_matrix[objectiveOffset + k], 0) / -cell;
+                if (ratio < smallestRatio) {
+                    smallestRatio = ratio;
+                    enteringColumn = k;
+                }
+            }
+            if (enteringColumn < 0) {
+                return SolveStatus.INFEASIBLE;
+            }
+            _pivot(departingRow, enteringColumn);
+            ++_pivotCount;
+        }
+    }
+
+    /**
+     * Pivots the whole tableau, including the objective row, on the given cell.
+     *
+     * @param pivotRow    The row which the column enters the basis in.
+     * @param pivotColumn The column which enters the basis.
+     */
+    private void _pivot(int pivotRow, int pivotColumn) {
+        int pivotOffset = pivotRow * _columns;
+        double pivot = _matrix[pivotOffset + pivotColumn];
+        for (int k = 0; k < _columns; ++k) {
+            _matrix[pivotOffset + k] /= pivot;
+        }
+        for (int i = 0; i <= _rows; ++i) {
+            if (i == pivotRow) {
+                continue;
+            }
+            int offset = i * _columns;
+            double multiplier = _matrix[offset + pivotColumn];
+            if (multiplier == 0) {
+                continue;
+            }
+            for (int k = 0; k < _columns; ++k) {
+                _matrix[offset + k] -= multiplier * _matrix[pivotOffset + k];
+            }
+        }
+        _basis[pivotRow] = pivotColumn;
+    }
+
+    /**
+     * @return The largest violation of the tableau program by the primal values.
+     */
+    private double _primalResidual() {
+        double largest = 0;
+        for (int i = 0; i < _rows; ++i) {
+            double activity = 0;
+            for (int j = 0; j < _variables; ++j) {
+                activity += _a[i * _variables + j] * _primal[j];
+            }
+            largest = Math.max(largest, activity - _b[i]);
+        }
+        for (int j = 0; j < _variables; ++j) {
+            largest = Math.max(largest, -_primal[j]);
+        }
+        return largest;
+    }
+
+    /**
+     * @return The largest violation of the dual of the tableau program by the dual values.
+     * For dual programs, these are the constraints of the original problem.
+     */
+    private double _dualResidual() {
+        double largest = 0;
+        for (int j = 0; j < _variables; ++j) {
+            largest = Math.max(largest, -_reducedCost(j));
+        }
+        for (int i = 0; i < _rows; ++i) {
+            largest = Math.max(largest, -_dual[i]);
+        }
+        return largest;
+    }
+
+    /**
+     * Writes out the solution in the format of the solvers.
+     *
+     * @return The values of the variables. For dual programs, the values of the dual variables.
+     */
+    private double[] _writeSolution() {
+        return Arrays.copyOf(_dualProgram ? _dual : _primal, _dualProgram ? _rows : _variables);
+    }
+}
@@ -0,0 +1,144 @@
+package com.egeniq.lpsolver.simplex;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of the {@link Presolver}: the reduced (and scaled) problem, and the information to map its solution back
+ * to the variables of the original problem.
+ * The upper bounds of the reduced variables are not constraint rows, pass them to the bounded two-phase solve,
+ * or use {@link #getConstraintsWithBounds()} for the solves which do not handle bounds.
+ */
+public class PresolvedProblem {
+
+    private final LinearObjectiveFunction _objectiveFunction;
+    private final List<LinearConstraint> _constraints;
+    private final VariableBounds _bounds;
+    private final boolean _infeasible;
+    private final int _removedRowCount;
+    private final int _removedColumnCount;
+    // For each original variable, the index of the variable in the reduced problem, or -1 if it has been removed.
+    private final int[] _reducedIndex;
+    // For each original variable, the value it is shifted by. For removed variables, this is their value.
+    private final double[] _offset;
+    // For each original variable, the scale of its variable in the reduced problem.
+    private final double[] _columnScale;
+
+    PresolvedProblem(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> constraints, VariableBounds bounds,
+                     boolean infeasible, int removedRowCount, int removedColumnCount, int[] reducedIndex, double[] offset, double[] columnScale) {
+        _objectiveFunction = objectiveFunction;
+        _constraints = constraints;
+        _bounds = bounds;
+        _infeasible = infeasible;
+        _removedRowCount = removedRowCount;
+        _removedColumnCount = removedColumnCount;
+        _reducedIndex = reducedIndex;
+        _offset = offset;
+        _columnScale = columnScale;
+    }
+
+    /**
+     * @return The objective function of the reduced problem. Its constant term contains the value of the removed variables.
+     */
+    public LinearObjectiveFunction getObjectiveFunction() {
+        return _objectiveFunction;
+    }
+
+    /**
+     * @return The constraints of the reduced problem, without the upper bounds of the variables, see {@link #getBounds()}.
+     * Empty if all variables have been determined by the presolve, in that case call {@link #postsolve(float[])}
+     * with an empty array to get the solution. Also empty if the problem is infeasible or unbounded,
+     * or if only the bounds of the variables are left.
+     */
+    public List<LinearConstraint> getConstraints() {
+        return _constraints;
+    }
+
+    /**
+     * @return The bounds of the variables of the reduced problem. The lower bounds are zero, because the variables have been
+     * shifted by them, and the upper bounds are infinite for the variables without one. Pass them with the constraints
+     * and their relationships to the bounded two-phase solve.
+     */
+    public VariableBounds getBounds() {
+        return _bounds;
+    }
+
+    /**
+     * Adds a single constraint for each finite upper bound to the constraints, for the solves which do not handle bounds.
+     *
+     * @return The constraints of the reduced problem, followed by the upper bounds of the variables.
+     */
+    public List<LinearConstraint> getConstraintsWithBounds() {
+        List<LinearConstraint> result = new ArrayList<>(_constraints);
+        int variableCount = _bounds.getVariableCount();
+        for (int j = 0; j < variableCount; ++j) {
+            if (!Float.isInfinite(_bounds.getUpper(j))) {
+                double[] coefficients = new double[variableCount];
+                coefficients[j] = 1;
+                result.add(new LinearConstraint(coefficients, Relationship.LEQ, _bounds.getUpper(j)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return True if the presolve has found that the constraints contradict each other, so there is no solution.
+     */
+    public boolean isInfeasible() {
+        return _infeasible;
+    }
+
+    /**
+     * @return True if all variables have been determined by the presolve, so there is nothing left to solve.
+     */
+    public boolean isSolved() {
+        return !_infeasible && _objectiveFunction.getCoefficients().getDimension() == 0;
+    }
+
+    /**
+     * @return True if variables are left which are not in any constraint, and improve the objective function without limit.
+     */
+    public boolean isUnbounded() {
+        return !_infeasible && _constraints.isEmpty() && _objectiveFunction.getCoefficients().getDimension() > 0;
+    }
+
+    /**
+     * @return The amount of constraints which have been removed, or merged into another constraint.
+     * The constraints with a single variable count as removed, they are in the bounds of the variables instead.
+     */
+    public int getRemovedRowCount() {
+        return _removedRowCount;
+    }
+
+    /**
+     * @return The amount of variables which have been removed, because their value could be determined by the presolve.
+     */
+    public int getRemovedColumnCount() {
+        return _removedColumnCount;
+    }
+
+    /**
+     * Maps the solution of the reduced problem back to the variables of the original problem.
+     *
+     * @param reducedSolution The solution of the reduced problem, as returned by the solvers. Can be null.
+     * @return The solution of the original problem, or null if the reduced solution is null.
+     */
+    public float[] postsolve(float[] reducedSolution) {
+        if (reducedSolution == null) {
+            return null;
+        }
+        float[] result = new float[_reducedIndex.length];
+        for (int j = 0; j < result.length; ++j) {
+            double value = _offset[j];
+            if (_reducedIndex[j] >= 0) {
+                value += _columnScale[j] * reducedSolution[_reducedIndex[j]];
+            }
+            result[j] = (float)value;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,456 @@
+package com.egeniq.lpsolver.simplex;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces a linear programming problem with non-negative variables before it is converted to a tableau.
+ * The following reductions are repeated until none of them apply anymore:
+ * <ul>
+ * <li>Empty constraints are removed, or the problem is reported to be infeasible.</li>
+ * <li>Constraints with a single variable are removed, and turned into a bound of the variable.</li>
+ * <li>Variables with equal lower and upper bounds are fixed, and removed from the constraints.</li>
+ * <li>Variables which are not in any constraint are set to their best bound, and removed.</li>
+ * <li>Proportional constraints with the same direction are merged into the tightest one.</li>
+ * </ul>
+ * Afterwards the variables are shifted by their lower bound, so the reduced problem only has the upper bounds,
+ * which are returned separately for the bounded two-phase solve, see {@link PresolvedProblem#getBounds()}.
+ * Finally the rows and columns are scaled with powers of two, so the coefficients are close to one,
+ * which reduces the rounding errors of the single precision solvers.
+ * The solution of the reduced problem is mapped back with {@link PresolvedProblem#postsolve(float[])}.
+ */
+public class Presolver {
+
+    // Differences below this are treated as zero when comparing bounds and values.
+    private static final double TOLERANCE = 1.0e-9;
+    // The amount of geometric scaling passes, before the final equilibration pass.
+    private static final int GEOMETRIC_SCALING_PASSES = 4;
+
+    private boolean _scaling = true;
+
+    // The problem being reduced. The rows and columns are not removed from the arrays, only marked as inactive.
+    private double[][] _matrix;
+    private double[] _rhs;
+    private Relationship[] _relationships;
+    private double[] _cost;
+    private double _constant;
+    private boolean[] _activeRows;
+    private boolean[] _activeColumns;
+    private double[] _lowerBounds;
+    private double[] _upperBounds;
+    private boolean _infeasible;
+
+    /**
+     * Sets if the reduced problem should be scaled. Scaling is enabled by default.
+     *
+     * @param scaling True to scale the reduced problem, false to leave the coefficients as they are.
+     */
+    public void setScaling(boolean scaling) {
+        _scaling = scaling;
+    }
+
+    /**
+     * Reduces the problem. All variables are assumed to be non-negative, like in the tableaus of the solvers.
+     *
+     * @param objectiveFunction The objective function of the problem.
+     * @param linearConstraints The constraints of the problem.
+     * @param goalType          If the objective function should be minimized or maximized.
+     * @return The reduced problem, and the information to map its solution back to the original variables.
+     */
+    public PresolvedProblem presolve(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints, GoalType goalType) {
+        _load(objectiveFunction, linearConstraints);
+        boolean changed = true;
+        while (changed && !_infeasible) {
+            changed = _removeSmallRows();
+            changed |= _removeDeterminedColumns(goalType);
+            changed |= _mergeDuplicateRows();
+        }
+        int rowCount = _rhs.length;
+        int columnCount = _cost.length;
+        int[] reducedIndex = new int[columnCount];
+        double[] offset = new double[columnCount];
+        double[] columnScale = new double[columnCount];
+        if (_infeasible) {
+            Arrays.fill(reducedIndex, -1);
+            return new PresolvedProblem(objectiveFunction, new ArrayList<LinearConstraint>(), new VariableBounds(0), true,
+                    0, 0, reducedIndex, offset, columnScale);
+        }
+        // Remaining variables start from their lower bound, the removed variables have their value as lower bound.
+        for (int j = 0; j < columnCount; ++j) {
+            offset[j] = _lowerBounds[j];
+            if (_activeColumns[j] && _lowerBounds[j] != 0) {
+                _moveToRhs(j, _lowerBounds[j]);
+            }
+        }
+        List<Integer> rows = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        for (int i = 0; i < rowCount; ++i) {
+            if (_activeRows[i]) {
+                rows.add(i);
+            }
+        }
+        for (int j = 0; j < columnCount; ++j) {
+            reducedIndex[j] = -1;
+            if (_activeColumns[j]) {
+                reducedIndex[j] = columns.size();
+                columns.add(j);
+            }
+        }
+        double[][] matrix = new double[rows.size()][columns.size()];
+        double[] rhs = new double[matrix.length];
+        Relationship[] relationships = new Relationship[matrix.length];
+        for (int r = 0; r < rows.size(); ++r) {
+            int row = rows.get(r);
+            for (int c = 0; c < columns.size(); ++c) {
+                matrix[r][c] = _matrix[row][columns.get(c)];
+            }
+            rhs[r] = _rhs[row];
+            relationships[r] = _relationships[row];
+        }
+        double[] cost = new double[columns.size()];
+        for (int c = 0; c < columns.size(); ++c) {
+            cost[c] = _cost[columns.get(c)];
+        }
+        double[] scales = new double[columns.size()];
+        Arrays.fill(scales, 1);
+        if (_scaling && matrix.length > 0 && columns.size() > 0) {
+            _scale(matrix, rhs, cost, scales);
+        }
+        // The shifted variables start at zero, and the scaled ones end at their range divided by their scale.
+        VariableBounds bounds = new VariableBounds(columns.size());
+        for (int c = 0; c < columns.size(); ++c) {
+            int column = columns.get(c);
+            columnScale[column] = scales[c];
+            if (!Double.isInfinite(_upperBounds[column])) {
+                bounds.setUpper(c, (float)((_upperBounds[column] - _lowerBounds[column]) / scales[c]));
+            }
+        }
+        List<LinearConstraint> constraints = new ArrayList<>(matrix.length);
+        for (int r = 0; r < matrix.length; ++r) {
+            constraints.add(new LinearConstraint(matrix[r], relationships[r], rhs[r]));
+        }
+        return new PresolvedProblem(new LinearObjectiveFunction(cost, _constant), constraints, bounds, false,
+                linearConstraints.size() - matrix.length, columnCount - columns.size(), reducedIndex, offset, columnScale);
+    }
+
+    /**
+     * Copies the problem into the arrays which the reductions work on.
+     *
+     * @param objectiveFunction The objective function of the problem.
+     * @param linearConstraints The constraints of the problem.
+     */
+    private void _load(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> linearConstraints) {
+        int rowCount = linearConstraints.size();
+        int columnCount = objectiveFunction.getCoefficients().getDimension();
+        _matrix = new double[rowCount][];
+        _rhs = new double[rowCount];
+        _relationships = new Relationship[rowCount];
+        for (int i = 0; i < rowCount; ++i) {
+            LinearConstraint constraint = linearConstraints.get(i);
+            _matrix[i] = constraint.getCoefficients().toArray();
+            _rhs[i] = constraint.getValue();
+            _relationships[i] = constraint.getRelationship();
+        }
+        _cost = objectiveFunction.getCoefficients().toArray();
+        _constant = objectiveFunction.getConstantTerm();
+        _activeRows = new boolean[rowCount];
+        Arrays.fill(_activeRows, true);
+        _activeColumns = new boolean[columnCount];
+        Arrays.fill(_activeColumns, true);
+        _lowerBounds = new double[columnCount];
+        _upperBounds = new double[columnCount];
+        Arrays.fill(_upperBounds, Double.POSITIVE_INFINITY);
+        _infeasible = false;
+    }
+
+    /**
+     * Removes the constraints without variables, and turns the constraints with a single variable into bounds.
+     *
+     * @return True if a constraint has been removed.
+     */
+    private boolean _removeSmallRows() {
+        boolean changed = false;
+        for (int i = 0; i < _rhs.length; ++i) {
+            if (!_activeRows[i]) {
+                continue;
+            }
+            int nonZeroCount = 0;
+            int column = -1;
+            for (int j = 0; j < _cost.length; ++j) {
+                if (_activeColumns[j] && _matrix[i][j] != 0) {
+                    nonZeroCount++;
+                    column = j;
+                }
+            }
+            if (nonZeroCount == 0) {
+                // 0 has to satisfy the constraint, otherwise there are no feasible solutions.
+                double rhs = _rhs[i];
+                boolean satisfied = _relationships[i] == Relationship.LEQ ? rhs >= -TOLERANCE
+                        : _relationships[i] == Relationship.GEQ ? rhs <= TOLERANCE : Math.abs(rhs) <= TOLERANCE;
+                _infeasible |= !satisfied;
+                _activeRows[i] = false;
+                changed = true;
+            } else if (nonZeroCount == 1) {
+                double coefficient = _matrix[i][column];
+                double bound = _rhs[i] / coefficient;
+                // Dividing by a negative coefficient flips the direction of the constraint.
+                boolean upper = _relationships[i] == Relationship.LEQ ? coefficient > 0 : coefficient < 0;
+                if (_relationships[i] == Relationship.EQ || upper) {
+                    _upperBounds[column] = Math.min(_upperBounds[column], bound);
+                }
+                if (_relationships[i] == Relationship.EQ || !upper) {
+                    _lowerBounds[column] = Math.max(_lowerBounds[column], bound);
+                }
+                _activeRows[i] = false;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the variables which are fixed by their bounds, and the variables which are not in any constraint.
+     *
+     * @param goalType If the objective function should be minimized or maximized.
+     * @return True if a variable has been removed.
+     */
+    private boolean _removeDeterminedColumns(GoalType goalType) {
+        boolean changed = false;
+        for (int j = 0; j < _cost.length; ++j) {
+            if (!_activeColumns[j]) {
+                continue;
+            }
+            double lower = _lowerBounds[j];
+            double upper = _upperBounds[j];
+            if (upper < lower - TOLERANCE * Math.max(1, Math.abs(lower))) {
+                _infeasible = true;
+                return false;
+            }
+            if (upper - lower <= TOLERANCE * Math.max(1, Math.abs(lower))) {
+                _fixColumn(j, lower);
+                changed = true;
+                continue;
+            }
+            boolean empty = true;
+            for (int i = 0; i < _rhs.length && empty; ++i) {
+                empty = !_activeRows[i] || _matrix[i][j] == 0;
+            }
+            if (!empty) {
+                continue;
+            }
+            // The variable only affects the objective function, so it is set to the bound which is the best for it.
+            double cost = goalType == GoalType.MINIMIZE ? _cost[j] : -_cost[j];
+            if (cost <= 0 && Double.isInfinite(upper)) {
+                if (cost < 0) {
+                    // The objective function has no bound, which the solver will report.
+                    continue;
+                }
+                _fixColumn(j, lower);
+            } else {
+                _fixColumn(j, cost > 0 ? lower : upper);
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Merges the constraints which are proportional to each other and have the same direction, into the tightest one.
+     *
+     * @return True if a constraint has been removed.
+     */
+    private boolean _mergeDuplicateRows() {
+        boolean changed = false;
+        // The rows are normalized so that their first coefficient is 1, which makes proportional rows equal.
+        Map<RowKey, Integer> kept = new HashMap<>();
+        for (int i = 0; i < _rhs.length; ++i) {
+            if (!_activeRows[i]) {
+                continue;
+            }
+            double first = 0;
+            for (int j = 0; j < _cost.length && first == 0; ++j) {
+                if (_activeColumns[j]) {
+                    first = _matrix[i][j];
+                }
+            }
+            double[] normalized = new double[_cost.length];
+            for (int j = 0; j < _cost.length; ++j) {
+                if (_activeColumns[j]) {
+                    normalized[j] = _matrix[i][j] / first;
+                }
+            }
+            Relationship relationship = first < 0 ? _relationships[i].oppositeRelationship() : _relationships[i];
+            RowKey key = new RowKey(normalized, relationship);
+            Integer other = kept.get(key);
+            if (other == null) {
+                kept.put(key, i);
+                continue;
+            }
+            double rhs = _rhs[i] / first;
+            double otherRhs = _rhs[other] / _normalizer(other);
+            boolean tighter = relationship == Relationship.LEQ ? rhs < otherRhs : relationship == Relationship.GEQ && rhs > otherRhs;
+            if (relationship == Relationship.EQ && Math.abs(rhs - otherRhs) > TOLERANCE * Math.max(1, Math.abs(rhs))) {
+                _infeasible = true;
+                return false;
+            }
+            if (tighter) {
+                _activeRows[other] = false;
+                kept.put(key, i);
+            } else {
+                _activeRows[i] = false;
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * @param row The index of the row.
+     * @return The first coefficient of the row with an active variable.
+     */
+    private double _normalizer(int row) {
+        for (int j = 0; j < _cost.length; ++j) {
+            if (_activeColumns[j] && _matrix[row][j] != 0) {
+                return _matrix[row][j];
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Removes a variable with a known value from the problem.
+     *
+     * @param column The index of the variable.
+     * @param value  The value of the variable.
+     */
+    private void _fixColumn(int column, double value) {
+        _moveToRhs(column, value);
+        _lowerBounds[column] = value;
+        _activeColumns[column] = false;
+    }
+
+    /**
+     * Moves the given value of a variable from the constraints to the 'b' vector, and to the constant of the objective function.
+     *
+     * @param column The index of the variable.
+     * @param value  The value of the variable.
+     */
+    private void _moveToRhs(int column, double value) {
+        for (int i = 0; i < _rhs.length; ++i) {
+            if (_activeRows[i]) {
+                _rhs[i] -= _matrix[i][column] * value;
+            }
+        }
+        _constant += _cost[column] * value;
+    }
+
+    /**
+     * Scales the rows and the columns of the reduced problem in place. First the geometric mean of the largest and smallest
+     * coefficient of each row and column is moved towards one, then the rows are scaled so their largest coefficient is about one.
+     * All scales are powers of two, so the scaling itself does not cause rounding errors.
+     *
+     * @param matrix The constraint matrix.
+     * @param rhs    The 'b' vector.
+     * @param cost   The objective function.
+     * @param scales The scales of the columns are written into this. The value of a variable is its scale times the reduced value.
+     */
+    private static void _scale(double[][] matrix, double[] rhs, double[] cost, double[] scales) {
+        int rowCount = matrix.length;
+        int columnCount = scales.length;
+        double[] rowScales = new double[rowCount];
+        Arrays.fill(rowScales, 1);
+        for (int pass = 0; pass < GEOMETRIC_SCALING_PASSES; ++pass) {
+            for (int i = 0; i < rowCount; ++i) {
+                double smallest = Double.POSITIVE_INFINITY;
+                double largest = 0;
+                for (int j = 0; j < columnCount; ++j) {
+                    double value = Math.abs(matrix[i][j] * rowScales[i] * scales[j]);
+                    if (value != 0) {
+                        smallest = Math.min(smallest, value);
+                        largest = Math.max(largest, value);
+                    }
+                }
+                if (largest > 0) {
+                    rowScales[i] *= _powerOfTwo(1 / Math.sqrt(smallest * largest));
+                }
+            }
+            for (int j = 0; j < columnCount; ++j) {
+                double smallest = Double.POSITIVE_INFINITY;
+                double largest = 0;
+                for (int i = 0; i < rowCount; ++i) {
+                    double value = Math.abs(matrix[i][j] * rowScales[i] * scales[j]);
+                    if (value != 0) {
+                        smallest = Math.min(smallest, value);
+                        largest = Math.max(largest, value);
+                    }
+                }
+                if (largest > 0) {
+                    scales[j] *= _powerOfTwo(1 / Math.sqrt(smallest * largest));
+                }
+            }
+        }
+        // Equilibration, so the largest coefficient of each row is about one.
+        for (int i = 0; i < rowCount; ++i) {
+            double largest = 0;
+            for (int j = 0; j < columnCount; ++j) {
+                largest = Math.max(largest, Math.abs(matrix[i][j] * rowScales[i] * scales[j]));
+            }
+            if (largest > 0) {
+                rowScales[i] *= _powerOfTwo(1 / largest);
+            }
+        }
+        for (int i = 0; i < rowCount; ++i) {
+            for (int j = 0; j < columnCount; ++j) {
+                matrix[i][j] *= rowScales[i] * scales[j];
+            }
+            rhs[i] *= rowScales[i];
+        }
+        for (int j = 0; j < columnCount; ++j) {
+            cost[j] *= scales[j];
+        }
+    }
+
+    /**
+     * @param value A positive value.
+     * @return The power of two which is the closest to the value.
+     */
+    private static double _powerOfTwo(double value) {
+        return Math.scalb(1.0, (int)Math.round(Math.log(value) / Math.log(2)));
+    }
+
+    /**
+     * The key of a normalized row, which is used to find the proportional rows.
+     */
+    private static class RowKey {
+
+        private final double[] _coefficients;
+        private final Relationship _relationship;
+
+        RowKey(double[] coefficients, Relationship relationship) {
+            _coefficients = coefficients;
+            _relationship = relationship;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RowKey)) {
+                return false;
+            }
+            RowKey key = (RowKey)other;
+            return _relationship == key._relationship && Arrays.equals(_coefficients, key._coefficients);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(_coefficients) + _relationship.hashCode();
+        }
+    }
+}
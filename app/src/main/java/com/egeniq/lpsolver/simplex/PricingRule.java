@@ -0,0 +1,42 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The rule for choosing the entering column in each iteration. The codes match the PRICING_ constants in simplex.rsh.
+ * Regardless of the rule, the solvers switch to Bland's rule after a number of degenerate pivots in a row,
+ * so the solver can not cycle. They switch back as soon as the objective improves again.
+ */
+public enum PricingRule {
+
+    /**
+     * The column with the most negative cell in the objective row. Cheap, but may need a lot of iterations.
+     */
+    DANTZIG(0),
+    /**
+     * The column with the largest objective cell relative to an approximation of its edge length,
+     * which is updated after each pivot. Usually needs a lot fewer iterations than Dantzig's rule.
+     */
+    DEVEX(1),
+    /**
+     * The column with the largest objective cell relative to its exact edge length, which is calculated each iteration.
+     * Needs the least iterations, but each iteration scans the whole tableau.
+     */
+    STEEPEST_EDGE(2),
+    /**
+     * The objective row is split into segments, and only scanned until a segment with a negative cell is found.
+     * Cheaper iterations on problems with a lot of columns.
+     */
+    PARTIAL(3);
+
+    private final int _code;
+
+    PricingRule(int code) {
+        _code = code;
+    }
+
+    /**
+     * @return The code of the rule, as used by the RenderScript code.
+     */
+    public int getCode() {
+        return _code;
+    }
+}
@@ -0,0 +1,144 @@
+package com.egeniq.lpsolver.simplex;
+
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * A canonical form of a linear programming problem, which is equal for problems which only differ in the order
+ * of their constraints. Used as the key of the {@link CachingSimplexSolver}.
+ * Besides the 64 bit hash, the whole canonical form is kept and compared, so two different problems with the same
+ * hash are never mistaken for each other.
+ */
+public final class ProblemFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // The goal, the constant term and the coefficients of the objective function.
+    private final double[] _objective;
+    // Each constraint as its relationship, value and coefficients, sorted.
+    private final double[][] _constraints;
+    private final long _hash;
+
+    private ProblemFingerprint(double[] objective, double[][] constraints) {
+        _objective = objective;
+        _constraints = constraints;
+        long hash = _hash(FNV_OFFSET_BASIS, objective);
+        for (double[] constraint : constraints) {
+            hash = _hash(hash, constraint);
+        }
+        _hash = hash;
+    }
+
+    /**
+     * Computes the fingerprint of a problem.
+     *
+     * @param objectiveFunction The objective function.
+     * @param linearConstraints The constraints, in any order.
+     * @param goalType          If the objective function has to be minimized or maximized.
+     * @return The fingerprint of the problem.
+     */
+    public static ProblemFingerprint of(LinearObjectiveFunction objectiveFunction, Collection<LinearConstraint> linearConstraints,
+                                        GoalType goalType) {
+        RealVector coefficients = objectiveFunction.getCoefficients();
+        double[] objective = new double[coefficients.getDimension() + 2];
+        objective[0] = goalType.ordinal();
+        objective[1] = _canonical(objectiveFunction.getConstantTerm());
+        for (int j = 0; j < coefficients.getDimension(); j++) {
+            objective[j + 2] = _canonical(coefficients.getEntry(j));
+        }
+        double[][] constraints = new double[linearConstraints.size()][];
+        int i = 0;
+        for (LinearConstraint constraint : linearConstraints) {
+            RealVector constraintCoefficients = constraint.getCoefficients();
+            double[] row = new double[constraintCoefficients.getDimension() + 2];
+            row[0] = constraint.getRelationship().ordinal();
+            row[1] = _canonical(constraint.getValue());
+            for (int j = 0; j < constraintCoefficients.getDimension(); j++) {
+                row[j + 2] = _canonical(constraintCoefficients.getEntry(j));
+            }
+            constraints[i++] = row;
+        }
+        Arrays.sort(constraints, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] left, double[] right) {
+                int length = Math.min(left.length, right.length);
+                for (int j = 0; j < length; j++) {
+                    int result = Double.compare(left[j], right[j]);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return left.length - right.length;
+            }
+        });
+        return new ProblemFingerprint(objective, constraints);
+    }
+
+    /**
+     * @return The 64 bit hash of the canonical form.
+     */
+    public long getHash() {
+        return _hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ProblemFingerprint)) {
+            return false;
+        }
+        ProblemFingerprint fingerprint = (ProblemFingerprint)other;
+        return _hash == fingerprint._hash && Arrays.equals(_objective, fingerprint._objective) &&
+                Arrays.deepEquals(_constraints, fingerprint._constraints);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int)(_hash ^ (_hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x", _hash);
+    }
+
+    /**
+     * Makes the values which are equal, but have a different bit pattern, the same.
+     *
+     * @param value The value.
+     * @return The value, with negative zero replaced by zero.
+     */
+    private static double _canonical(double value) {
+        return value == 0 ? 0 : value;
+    }
+
+    /**
+     * Adds the values to a FNV-1a hash, byte by byte.
+     *
+     * @param hash   The hash so far.
+     * @param values The values to add.
+     * @return The new hash.
+     */
+    private static long _hash(long hash, double[] values) {
+        for (double value : values) {
+            long bits = Double.doubleToLongBits(value);
+            for (int b = 0; b < 8; b++) {
+                hash ^= (bits >>> (b * 8)) & 0xff;
+                hash *= FNV_PRIME;
+            }
+        }
+        // Separates the rows, so moving a value from the end of a row to the start of the next changes the hash.
+        hash ^= values.length;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
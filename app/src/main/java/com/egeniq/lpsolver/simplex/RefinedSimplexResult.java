@@ -0,0 +1,73 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The result of the {@link MixedPrecisionSolver}, with the accuracy of the solution after the refinement.
+ * The errors are calculated in double precision, on the original coefficients of the problem.
+ */
+public class RefinedSimplexResult extends SimplexResult {
+
+    private final double[] _refinedSolution;
+    private final boolean _refined;
+    private final int _repivotCount;
+    private final double _residual;
+    private final double _objectiveError;
+    private final double _unrefinedObjectiveError;
+
+    RefinedSimplexResult(SolveStatus status, float[] solution, double[] refinedSolution, int iterations, SolveStats stats,
+                         boolean refined, int repivotCount, double residual, double objectiveError, double unrefinedObjectiveError) {
+        super(status, solution, iterations, stats);
+        _refinedSolution = refinedSolution;
+        _refined = refined;
+        _repivotCount = repivotCount;
+        _residual = residual;
+        _objectiveError = objectiveError;
+        _unrefinedObjectiveError = unrefinedObjectiveError;
+    }
+
+    /**
+     * @return The refined solution in double precision, in the same format as {@link #getSolution()}.
+     * Null if there is no solution, or it has not been refined.
+     */
+    public double[] getRefinedSolution() {
+        return _refinedSolution;
+    }
+
+    /**
+     * @return True if the solution has been refined. False if the solver has not found a solution to refine,
+     * in that case the errors are NaN.
+     */
+    public boolean isRefined() {
+        return _refined;
+    }
+
+    /**
+     * @return The amount of pivots done in double precision, because the basis found by the solver
+     * turned out to be infeasible or not optimal. Also included in the iteration count.
+     */
+    public int getRepivotCount() {
+        return _repivotCount;
+    }
+
+    /**
+     * @return The largest violation of a constraint or a non-negativity bound by the solution.
+     */
+    public double getResidual() {
+        return _residual;
+    }
+
+    /**
+     * @return The difference between the objective value of the solution, and the objective value of the dual solution
+     * belonging to the same basis. This is zero for an exact optimal solution.
+     */
+    public double getObjectiveError() {
+        return _objectiveError;
+    }
+
+    /**
+     * @return The difference between the objective value of the solution returned by the solver, before the refinement,
+     * and the objective value of the refined solution.
+     */
+    public double getUnrefinedObjectiveError() {
+        return _unrefinedObjectiveError;
+    }
+}
@@ -0,0 +1,189 @@
+package com.egeniq.lpsolver.simplex;
+
+import java.util.Arrays;
+
+/**
+ * The sensitivity analysis of an optimal solution, read from the final tableau: the shadow prices of the constraints,
+ * the reduced costs of the variables, and how much the objective coefficients and the right hand sides can change
+ * before the optimal basis changes. Within those ranges, the same variables stay in the solution, so the effect of a
+ * change can be calculated without solving again.
+ * The constraints are the ones of the input tableau. The {@link com.egeniq.lpsolver.renderscript.TableauConverter} negates
+ * the greater-or-equal constraints of maximization problems and the other constraints of minimization problems,
+ * so for those the shadow prices are negated, and the allowable decrease and increase of the right hand side are swapped.
+ * The two-phase solves do not negate any constraints, their reports belong to the constraints as they are.
+ */
+public class SensitivityReport {
+
+    // The solvers calculate the analysis of the tableau program: maximize c x, subject to A x <= b and x >= 0,
+    // and write it to a single vector with these parts, for each column (including the slack columns) or each row.
+    private static final int TABLEAU_VALUES = 0;
+    private static final int TABLEAU_REDUCED_COSTS = 1;
+    private static final int TABLEAU_OBJECTIVE_DECREASE = 2;
+    private static final int TABLEAU_OBJECTIVE_INCREASE = 3;
+    private static final int TABLEAU_COLUMN_PARTS = 4;
+    private static final int TABLEAU_RHS_DECREASE = 0;
+    private static final int TABLEAU_RHS_INCREASE = 1;
+
+    private final float[] _shadowPrices;
+    private final float[] _reducedCosts;
+    private final float[] _objectiveDecrease;
+    private final float[] _objectiveIncrease;
+    private final float[] _rhsDecrease;
+    private final float[] _rhsIncrease;
+
+    private SensitivityReport(int variableCount, int constraintCount) {
+        _shadowPrices = new float[constraintCount];
+        _reducedCosts = new float[variableCount];
+        _objectiveDecrease = new float[variableCount];
+        _objectiveIncrease = new float[variableCount];
+        _rhsDecrease = new float[constraintCount];
+        _rhsIncrease = new float[constraintCount];
+    }
+
+    /**
+     * Calculates the size of the vector the solvers write the analysis of a tableau to.
+     *
+     * @param rowCount    The row count of the input tableau, including the objective row.
+     * @param columnCount The column count of the input tableau, including the 'b' vector.
+     * @return The size of the vector.
+     */
+    public static int getTableauSize(int rowCount, int columnCount) {
+        int constraintCount = rowCount - 1;
+        return TABLEAU_COLUMN_PARTS * (columnCount - 1 + constraintCount) + 2 * constraintCount;
+    }
+
+    /**
+     * Creates the report from the analysis of the tableau program, which is laid out as follows,
+     * where N is the amount of columns including the slack columns, and M is the amount of constraint rows:
+     * the values of the columns, their reduced costs, the allowable decrease and increase of their objective coefficients
+     * (N elements each), then the allowable decrease and increase of the 'b' value of each row (M elements each).
+     * For dual programs, the columns belong to the constraints of the original problem and the rows to its variables,
+     * so the two are swapped here.
+     *
+     * @param tableau     The analysis of the tableau program.
+     * @param rowCount    The row count of the input tableau, including the objective row.
+     * @param columnCount The column count of the input tableau, including the 'b' vector.
+     * @param dualProgram If the tableau is the dual program of a minimization problem.
+     * @return The report in terms of the original problem.
+     */
+    public static SensitivityReport fromTableau(float[] tableau, int rowCount, int columnCount, boolean dualProgram) {
+        return fromTableau(tableau, rowCount, columnCount, dualProgram, false);
+    }
+
+    /**
+     * Creates the report from the analysis of the tableau program, like {@link #fromTableau(float[], int, int, boolean)}.
+     * Minimization problems which are not transposed maximize the negated objective function, for these the shadow prices
+     * and the reduced costs are negated, and the allowable decrease and increase of the objective coefficients are swapped.
+     *
+     * @param tableau          The analysis of the tableau program.
+     * @param rowCount         The row count of the input tableau, including the objective row.
+     * @param columnCount      The column count of the input tableau, including the 'b' vector.
+     * @param dualProgram      If the tableau is the dual program of a minimization problem.
+     * @param negatedObjective If the tableau maximizes the negated objective function of a minimization problem.
+     * @return The report in terms of the original problem.
+     */
+    public static SensitivityReport fromTableau(float[] tableau, int rowCount, int columnCount, boolean dualProgram,
+                                                boolean negatedObjective) {
+        int rows = rowCount - 1;
+        int structuralColumns = columnCount - 1;
+        int columns = structuralColumns + rows;
+        int rhsStart = TABLEAU_COLUMN_PARTS * columns;
+        SensitivityReport report;
+        if (dualProgram) {
+            // The structural columns are the dual variables of the constraints, and the slack columns belong to the variables.
+            report = new SensitivityReport(rows, structuralColumns);
+            for (int i = 0; i < structuralColumns; ++i) {
+                report._shadowPrices[i] = tableau[TABLEAU_VALUES * columns + i];
+                report._rhsDecrease[i] = tableau[TABLEAU_OBJECTIVE_DECREASE * columns + i];
+                report._rhsIncrease[i] = tableau[TABLEAU_OBJECTIVE_INCREASE * columns + i];
+            }
+            for (int j = 0; j < rows; ++j) {
+                // The slack of the dual constraint is the reduced cost of the variable.
+                report._reducedCosts[j] = tableau[TABLEAU_VALUES * columns + structuralColumns + j];
+                report._objectiveDecrease[j] = tableau[rhsStart + TABLEAU_RHS_DECREASE * rows + j];
+                report._objectiveIncrease[j] = tableau[rhsStart + TABLEAU_RHS_INCREASE * rows + j];
+            }
+        } else {
+            report = new SensitivityReport(structuralColumns, rows);
+            for (int j = 0; j < structuralColumns; ++j) {
+                // The objective row contains how much the objective would decrease with a unit of the variable.
+                report._reducedCosts[j] = -tableau[TABLEAU_REDUCED_COSTS * columns + j];
+                report._objectiveDecrease[j] = tableau[TABLEAU_OBJECTIVE_DECREASE * columns + j];
+                report._objectiveIncrease[j] = tableau[TABLEAU_OBJECTIVE_INCREASE * columns + j];
+            }
+            for (int i = 0; i < rows; ++i) {
+                // The objective row cells of the slack columns are the dual values.
+                report._shadowPrices[i] = tableau[TABLEAU_REDUCED_COSTS * columns + structuralColumns + i];
+                report._rhsDecrease[i] = tableau[rhsStart + TABLEAU_RHS_DECREASE * rows + i];
+                report._rhsIncrease[i] = tableau[rhsStart + TABLEAU_RHS_INCREASE * rows + i];
+            }
+        }
+        if (negatedObjective) {
+            for (int i = 0; i < report._shadowPrices.length; ++i) {
+                report._shadowPrices[i] = -report._shadowPrices[i];
+            }
+            for (int j = 0; j < report._reducedCosts.length; ++j) {
+                report._reducedCosts[j] = -report._reducedCosts[j];
+                float decrease = report._objectiveDecrease[j];
+                report._objectiveDecrease[j] = report._objectiveIncrease[j];
+                report._objectiveIncrease[j] = decrease;
+            }
+        }
+        return report;
+    }
+
+    /**
+     * @return For each constraint, how much the optimal objective value changes when its right hand side increases by one.
+     */
+    public float[] getShadowPrices() {
+        return _shadowPrices;
+    }
+
+    /**
+     * @return For each variable, how much the objective value changes when the variable is forced to increase by one.
+     * Zero for the variables in the solution.
+     */
+    public float[] getReducedCosts() {
+        return _reducedCosts;
+    }
+
+    /**
+     * @return For each variable, how much its objective coefficient can decrease before the solution changes.
+     * Can be infinite.
+     */
+    public float[] getObjectiveDecrease() {
+        return _objectiveDecrease;
+    }
+
+    /**
+     * @return For each variable, how much its objective coefficient can increase before the solution changes.
+     * Can be infinite.
+     */
+    public float[] getObjectiveIncrease() {
+        return _objectiveIncrease;
+    }
+
+    /**
+     * @return For each constraint, how much its right hand side can decrease while the shadow prices stay valid.
+     * Can be infinite.
+     */
+    public float[] getRhsDecrease() {
+        return _rhsDecrease;
+    }
+
+    /**
+     * @return For each constraint, how much its right hand side can increase while the shadow prices stay valid.
+     * Can be infinite.
+     */
+    public float[] getRhsIncrease() {
+        return _rhsIncrease;
+    }
+
+    @Override
+    public String toString() {
+        return "SensitivityReport{shadowPrices=" + Arrays.toString(_shadowPrices) +
+                ", reducedCosts=" + Arrays.toString(_reducedCosts) +
+                ", objectiveRange=-" + Arrays.toString(_objectiveDecrease) + "/+" + Arrays.toString(_objectiveIncrease) +
+                ", rhsRange=-" + Arrays.toString(_rhsDecrease) + "/+" + Arrays.toString(_rhsIncrease) + "}";
+    }
+}
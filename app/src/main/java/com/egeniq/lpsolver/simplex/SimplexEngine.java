@@ -0,0 +1,135 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.List;
+
+/**
+ * Common interface of the simplex solver backends.
+ * All backends work on the same tableau format, so the caller can pick one at runtime.
+ */
+public interface SimplexEngine {
+
+    /**
+     * Sets the limits of the next solves. The time budget starts again with each solve.
+     * Without limits, the solvers have no time budget, and use the default iteration limit of {@link SolveLimits#getDefaultIterationLimit(int, int)}.
+     *
+     * @param limits The limits, or {@link SolveLimits#NONE}.
+     */
+    void setLimits(SolveLimits limits);
+
+    /**
+     * Enables the sensitivity analysis of the optimal solutions of the next solves and re-solves.
+     * It is read from the final tableau, which costs about as much as a few iterations. Batches are never analysed.
+     *
+     * @param enabled True to add a {@link SensitivityReport} to the optimal results.
+     */
+    void setSensitivityAnalysis(boolean enabled);
+
+    /**
+     * Solves the linear programming problem. The solve starts from the basis of the slack variables, so the 'b' value
+     * of each constraint row has to be non-negative. Problems where that is not the case, like maximization problems with
+     * greater-or-equal constraints, have to be solved with {@link #solveTwoPhase(float[][], Relationship[], boolean)}.
+     *
+     * @param data     The input data. Use the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value.
+     */
+    SimplexResult solve(float[][] data, boolean minimize);
+
+    /**
+     * Solves the linear programming problem given as a flat tableau.
+     * The array is read directly, so this saves the copies of building a two-dimensional array first.
+     *
+     * @param tableau  The input data. Use a {@link TableauBuilder} to write the problem straight into it.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value, see {@link #solve(float[][], boolean)}.
+     */
+    SimplexResult solve(DenseTableau tableau, boolean minimize);
+
+    /**
+     * Solves the linear programming problem given as a sparse tableau.
+     * Only the nonzeros are read, so this is faster for large problems with mostly zero coefficients.
+     *
+     * @param tableau  The input data. Use the sparse methods of the {@link TableauConverter} to generate this from Apache Math objects.
+     * @param minimize If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalArgumentException If a constraint row has a negative 'b' value, see {@link #solve(float[][], boolean)}.
+     */
+    SimplexResult solve(SparseTableau tableau, boolean minimize);
+
+    /**
+     * Solves the linear programming problem with the two-phase method, which accepts less-or-equal, greater-or-equal
+     * and equality constraints in either direction of the objective, without transposing minimization problems.
+     * The first phase looks for a feasible basis with artificial variables, and finishes with {@link SolveStatus#INFEASIBLE}
+     * if there is none. The second phase optimizes the objective function from there.
+     * The final tableau can be re-solved from, like the one of the other solves.
+     *
+     * @param data          The input data. Use {@link TableauConverter#convertTwoPhase} to generate this from Apache Math objects.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, boolean minimize);
+
+    /**
+     * Solves the linear programming problem with the two-phase method, like {@link #solveTwoPhase(float[][], Relationship[], boolean)},
+     * with bounds on the variables. The bounds are not added as constraint rows, the lower bounds are subtracted from
+     * the variables, and the upper bounds are handled in the ratio test: a variable which reaches its upper bound is
+     * replaced by its distance to the bound. This keeps the tableau small for problems with a lot of bounds.
+     *
+     * @param data          The input data. Use {@link TableauConverter#extractBounds} to take the bounds out of the constraints
+     *                      first, and {@link TableauConverter#convertTwoPhase} to generate this from the rest.
+     * @param relationships For each constraint row, the relationship between the left side and the 'b' value.
+     * @param bounds        The bounds of the variables, or null if they are all non-negative without upper bound.
+     * @param minimize      If the program is a minimization problem.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     */
+    SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, VariableBounds bounds, boolean minimize);
+
+    /**
+     * Solves multiple independent linear programming problems at once.
+     * This has a better throughput than solving them one by one, if there are a lot of small problems.
+     *
+     * @param problems The input data of each problem. Use the {@link TableauConverter} to generate these.
+     * @param minimize For each problem, if it is a minimization problem.
+     * @return The result of each problem, in the same order as the input.
+     * @throws IllegalArgumentException If a constraint row of a problem has a negative 'b' value, see {@link #solve(float[][], boolean)}.
+     */
+    List<SimplexResult> solveBatch(List<float[][]> problems, boolean[] minimize);
+
+    /**
+     * Re-solves the last problem with a different objective row, starting from the final basis of the last solve.
+     * Note that for dual programs the objective row contains the constraint values of the original problem.
+     *
+     * @param objective The new objective row, in the same format as the last row of the input data.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalStateException If there is no final tableau to start from.
+     */
+    SimplexResult resolveWithObjective(float[] objective);
+
+    /**
+     * Re-solves the last problem with a different 'b' vector, starting from the final basis of the last solve.
+     * Note that for dual programs the 'b' vector contains the objective function of the original problem.
+     *
+     * @param rhs The new 'b' vector, in the same format as the last column of the input data, including the objective row.
+     *            Use {@link TableauConverter#getRhs(float[][])} to extract it from the input data.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalStateException If there is no final tableau to start from.
+     */
+    SimplexResult resolveWithRhs(float[] rhs);
+
+    /**
+     * Re-solves the last problem with different bounds of the variables, starting from the final basis of the last solve,
+     * which has to be a bounded two-phase solve. The relationships, the constraint rows and the objective stay the same.
+     *
+     * @param bounds The new bounds of the variables.
+     * @return The result, containing the status and the (sub)optimal solution if there is one.
+     * @throws IllegalStateException If there is no final tableau to start from, or the last solve had no bounds.
+     */
+    SimplexResult resolveWithBounds(VariableBounds bounds);
+}
@@ -0,0 +1,23 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Creates the solvers of the {@link AsyncSimplexSolver} and the {@link BranchAndBoundSolver}. The solvers are not thread-safe,
+ * so each worker thread gets its own solver, which is created when the thread starts solving,
+ * and released when the thread stops.
+ */
+public interface SimplexEngineFactory {
+
+    /**
+     * Creates a new solver. Called on the worker thread which will use it.
+     *
+     * @return The new solver.
+     */
+    SimplexEngine create();
+
+    /**
+     * Releases a solver when its worker thread stops, for example to destroy a RenderScript session.
+     *
+     * @param engine The solver created by {@link #create()}.
+     */
+    void release(SimplexEngine engine);
+}
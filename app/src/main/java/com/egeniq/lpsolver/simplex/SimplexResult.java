@@ -0,0 +1,66 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The result of solving a linear programming problem.
+ */
+public class SimplexResult {
+
+    private final SolveStatus _status;
+    private final float[] _solution;
+    private final int _iterations;
+    private final SolveStats _stats;
+    private final SensitivityReport _sensitivity;
+
+    public SimplexResult(SolveStatus status, float[] solution, int iterations) {
+        this(status, solution, iterations, null);
+    }
+
+    public SimplexResult(SolveStatus status, float[] solution, int iterations, SolveStats stats) {
+        this(status, solution, iterations, stats, null);
+    }
+
+    public SimplexResult(SolveStatus status, float[] solution, int iterations, SolveStats stats, SensitivityReport sensitivity) {
+        _status = status;
+        _solution = solution;
+        _iterations = iterations;
+        _stats = stats;
+        _sensitivity = sensitivity;
+    }
+
+    /**
+     * @return The reason why the solver stopped.
+     */
+    public SolveStatus getStatus() {
+        return _status;
+    }
+
+    /**
+     * @return Null if there was no solution found. Otherwise the (sub)optimal solution.
+     * For dual programs this contains the slack variable solutions.
+     */
+    public float[] getSolution() {
+        return _solution;
+    }
+
+    /**
+     * @return The amount of pivots the solver has done, including the ones of the dual simplex method when re-solving.
+     */
+    public int getIterations() {
+        return _iterations;
+    }
+
+    /**
+     * @return The statistics of the solve, with the time spent in each phase. The solvers always set these.
+     */
+    public SolveStats getStats() {
+        return _stats;
+    }
+
+    /**
+     * @return The sensitivity analysis of the optimal solution. Null if the analysis is not enabled on the solver,
+     * or there is no optimal solution.
+     */
+    public SensitivityReport getSensitivity() {
+        return _sensitivity;
+    }
+}
@@ -0,0 +1,21 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Receives the outcome of an asynchronous solve. Called on the worker thread which did the solve.
+ */
+public interface SolveCallback {
+
+    /**
+     * Called when the solve has finished, also when it has been stopped by its limits.
+     *
+     * @param result The result of the solve.
+     */
+    void onSolved(SimplexResult result);
+
+    /**
+     * Called when the solve has thrown an exception, or has been cancelled before it could finish.
+     *
+     * @param error The exception, a {@link java.util.concurrent.CancellationException} if the solve has been cancelled.
+     */
+    void onFailed(Throwable error);
+}
@@ -0,0 +1,101 @@
+package com.egeniq.lpsolver.simplex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of a solve: the maximum amount of iterations, and the wall-clock time budget.
+ * When the time budget runs out, the solver stops with {@link SolveStatus#TIME_LIMIT}.
+ * Without an iteration limit, all the solvers use the default limit of {@link #getDefaultIterationLimit(int, int)}.
+ */
+public class SolveLimits {
+
+    /**
+     * The default iteration limit is this multiple of the amount of constraints and variables.
+     */
+    public static final int ITERATIONS_PER_DIMENSION = 4;
+    /**
+     * The default iteration limit of the smallest problems.
+     */
+    public static final int MIN_ITERATION_LIMIT = 100;
+
+    /**
+     * No time budget, and the default iteration limit.
+     */
+    public static final SolveLimits NONE = new SolveLimits(0, 0, TimeUnit.NANOSECONDS);
+
+    private final int _iterationLimit;
+    private final long _timeBudgetNanos;
+
+    /**
+     * Creates new limits.
+     *
+     * @param iterationLimit The maximum amount of iterations, or 0 to use the default limit.
+     * @param timeBudget     The wall-clock time the solve may take, or 0 for no time budget.
+     * @param unit           The unit of the time budget.
+     */
+    public SolveLimits(int iterationLimit, long timeBudget, TimeUnit unit) {
+        _iterationLimit = iterationLimit;
+        _timeBudgetNanos = unit.toNanos(timeBudget);
+    }
+
+    /**
+     * @return The maximum amount of iterations, or 0 if the default limit is used.
+     */
+    public int getIterationLimit() {
+        return _iterationLimit;
+    }
+
+    /**
+     * @return The wall-clock time the solve may take in nanoseconds, or 0 if there is no time budget.
+     */
+    public long getTimeBudgetNanos() {
+        return _timeBudgetNanos;
+    }
+
+    /**
+     * @return True if there is a time budget.
+     */
+    public boolean hasTimeBudget() {
+        return _timeBudgetNanos > 0;
+    }
+
+    /**
+     * @param defaultIterationLimit The default iteration limit of the solver.
+     * @return The iteration limit to use.
+     */
+    public int getIterationLimit(int defaultIterationLimit) {
+        return _iterationLimit > 0 ? _iterationLimit : defaultIterationLimit;
+    }
+
+    /**
+     * @param constraintCount The amount of constraints of the problem.
+     * @param variableCount   The amount of variables of the problem.
+     * @return The iteration limit to use for the problem.
+     */
+    public int getIterationLimit(int constraintCount, int variableCount) {
+        return getIterationLimit(getDefaultIterationLimit(constraintCount, variableCount));
+    }
+
+    /**
+     * The iteration limit used when the limits do not set one. Larger problems need more pivots, so it grows with the
+     * amount of constraints and variables. A minimization problem is solved as the dual program, which has the same sum.
+     *
+     * @param constraintCount The amount of constraints of the problem.
+     * @param variableCount   The amount of variables of the problem.
+     * @return The default iteration limit.
+     */
+    public static int getDefaultIterationLimit(int constraintCount, int variableCount) {
+        return Math.max(MIN_ITERATION_LIMIT, ITERATIONS_PER_DIMENSION * (constraintCount + variableCount));
+    }
+
+    /**
+     * Creates limits with the same iteration limit, and a different time budget.
+     * Used to subtract the time a solve has spent waiting in a queue from its budget.
+     *
+     * @param timeBudgetNanos The new time budget in nanoseconds, or 0 for no time budget.
+     * @return The new limits.
+     */
+    public SolveLimits withTimeBudget(long timeBudgetNanos) {
+        return new SolveLimits(_iterationLimit, timeBudgetNanos, TimeUnit.NANOSECONDS);
+    }
+}
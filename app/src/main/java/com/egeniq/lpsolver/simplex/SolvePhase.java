@@ -0,0 +1,50 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The phases of a solve, which the time is split across in the {@link SolveStats}.
+ * The codes match the PHASE_ constants in simplex.rsh, which are the indices in the phase_stats allocation.
+ */
+public enum SolvePhase {
+
+    /**
+     * Copying the input tableau into the layout of the solver.
+     */
+    CONVERSION(0),
+    /**
+     * Copying the tableau from the host to the device. Always zero for the JVM solvers.
+     */
+    UPLOAD(1),
+    /**
+     * Adding the slack variables, or preparing the final tableau of the last solve for a re-solve.
+     */
+    SLACK_SETUP(2),
+    /**
+     * Choosing the entering column, or the departing row in the dual simplex method.
+     */
+    PRICING(3),
+    /**
+     * Choosing the departing row, or the entering column in the dual simplex method.
+     */
+    RATIO_TEST(4),
+    /**
+     * Pivoting, including the update of the pricing weights and the factorization.
+     */
+    PIVOT(5),
+    /**
+     * Reading the solution out of the tableau, and copying it back from the device.
+     */
+    READBACK(6);
+
+    private final int _code;
+
+    SolvePhase(int code) {
+        _code = code;
+    }
+
+    /**
+     * @return The code of the phase, as used by the RenderScript code.
+     */
+    public int getCode() {
+        return _code;
+    }
+}
@@ -0,0 +1,80 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Statistics of a single solve: why and after how many iterations it stopped, and how the time was split across the phases.
+ * The solvers collect these for every solve, and pass them to their {@link SolveStatsListener}.
+ */
+public class SolveStats {
+
+    private final SolveStatus _status;
+    private final int _iterations;
+    private final long[] _phaseNanos;
+    private final int[] _phaseCounts;
+
+    /**
+     * Creates new statistics. The arrays are not copied.
+     *
+     * @param status      The reason why the solver stopped.
+     * @param iterations  The amount of pivots done.
+     * @param phaseNanos  For each phase, indexed by its ordinal, the time spent in it in nanoseconds.
+     * @param phaseCounts For each phase, indexed by its ordinal, how many times it has been executed.
+     */
+    public SolveStats(SolveStatus status, int iterations, long[] phaseNanos, int[] phaseCounts) {
+        _status = status;
+        _iterations = iterations;
+        _phaseNanos = phaseNanos;
+        _phaseCounts = phaseCounts;
+    }
+
+    /**
+     * @return The reason why the solver stopped.
+     */
+    public SolveStatus getStatus() {
+        return _status;
+    }
+
+    /**
+     * @return The amount of pivots done, including the ones of the dual simplex method when re-solving.
+     */
+    public int getIterations() {
+        return _iterations;
+    }
+
+    /**
+     * @param phase The phase of the solve.
+     * @return The time spent in the phase, in nanoseconds.
+     */
+    public long getPhaseNanos(SolvePhase phase) {
+        return _phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @param phase The phase of the solve.
+     * @return How many times the phase has been executed. The iteration phases are executed once per iteration.
+     */
+    public int getPhaseCount(SolvePhase phase) {
+        return _phaseCounts[phase.ordinal()];
+    }
+
+    /**
+     * @return The time spent in all phases together, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : _phaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(_status).append(" after ").append(_iterations).append(" iterations");
+        for (SolvePhase phase : SolvePhase.values()) {
+            builder.append(", ").append(phase).append(": ")
+                    .append(getPhaseNanos(phase) / 1000).append("us (").append(getPhaseCount(phase)).append("x)");
+        }
+        return builder.toString();
+    }
+}
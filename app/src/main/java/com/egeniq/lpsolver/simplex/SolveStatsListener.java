@@ -0,0 +1,15 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Receives the statistics of each solve, for example to export them to a monitoring system.
+ * The listener is called on the thread which did the solve, so it should return quickly.
+ */
+public interface SolveStatsListener {
+
+    /**
+     * Called when a solve has finished, just before its result is returned.
+     *
+     * @param stats The statistics of the solve.
+     */
+    void onSolveFinished(SolveStats stats);
+}
@@ -0,0 +1,67 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Collects the time spent in each phase while solving. Used by the solvers, one instance per solver.
+ * Recording a phase only costs a call to {@link System#nanoTime()} and two additions, so it can always stay enabled.
+ * Typical usage, where each phase starts when the previous one ends:
+ * <pre>
+ * long time = System.nanoTime();
+ * findEnteringColumn();
+ * time = recorder.record(SolvePhase.PRICING, time);
+ * findDepartingRow();
+ * time = recorder.record(SolvePhase.RATIO_TEST, time);
+ * </pre>
+ */
+public class SolveStatsRecorder {
+
+    private static final int PHASE_COUNT = SolvePhase.values().length;
+
+    private final long[] _phaseNanos = new long[PHASE_COUNT];
+    private final int[] _phaseCounts = new int[PHASE_COUNT];
+
+    /**
+     * Clears the collected times, call this at the start of each solve.
+     */
+    public void reset() {
+        for (int p = 0; p < PHASE_COUNT; ++p) {
+            _phaseNanos[p] = 0;
+            _phaseCounts[p] = 0;
+        }
+    }
+
+    /**
+     * Records one execution of a phase, which has lasted until now.
+     *
+     * @param phase      The phase which has been executed.
+     * @param startNanos The value of {@link System#nanoTime()} when the phase started.
+     * @return The current value of {@link System#nanoTime()}, which can be used as the start of the next phase.
+     */
+    public long record(SolvePhase phase, long startNanos) {
+        long now = System.nanoTime();
+        add(phase, now - startNanos, 1);
+        return now;
+    }
+
+    /**
+     * Adds time which has been measured elsewhere, for example on the device.
+     *
+     * @param phase The phase the time has been spent in.
+     * @param nanos The time spent in the phase, in nanoseconds.
+     * @param count How many times the phase has been executed.
+     */
+    public void add(SolvePhase phase, long nanos, int count) {
+        _phaseNanos[phase.ordinal()] += nanos;
+        _phaseCounts[phase.ordinal()] += count;
+    }
+
+    /**
+     * Creates the statistics from the collected times.
+     *
+     * @param status     The reason why the solver stopped.
+     * @param iterations The amount of pivots done.
+     * @return A copy of the collected times, with the status and the iterations.
+     */
+    public SolveStats build(SolveStatus status, int iterations) {
+        return new SolveStats(status, iterations, _phaseNanos.clone(), _phaseCounts.clone());
+    }
+}
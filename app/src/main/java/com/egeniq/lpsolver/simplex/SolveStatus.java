@@ -0,0 +1,82 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The reason why the solver stopped. The codes match the STATUS_ constants in simplex.rsh.
+ */
+public enum SolveStatus {
+
+    /**
+     * The optimal solution has been found.
+     */
+    OPTIMAL(0),
+    /**
+     * The objective function has no maximum, so there is no solution.
+     */
+    UNBOUNDED(1),
+    /**
+     * The solver ran out of iterations, the solution is suboptimal.
+     * Like with {@link #TIME_LIMIT}, only maximization problems have a solution with this status.
+     */
+    ITERATION_LIMIT(2),
+    /**
+     * There was an unexpected problem while pivoting, so there is no solution.
+     */
+    FAILED(3),
+    /**
+     * The constraints contradict each other, so there is no solution.
+     */
+    INFEASIBLE(4),
+    /**
+     * The time budget ran out. For maximization problems the solution is the best feasible point found so far.
+     * Minimization problems are solved as their dual program, whose intermediate points are not feasible
+     * for the original problem, so those have no solution with this status.
+     */
+    TIME_LIMIT(5),
+    /**
+     * The thread of the solver has been interrupted. The solution is the same as with {@link #TIME_LIMIT}.
+     */
+    CANCELLED(6);
+
+    private final int _code;
+
+    SolveStatus(int code) {
+        _code = code;
+    }
+
+    /**
+     * @return The code of the status, as used by the RenderScript code.
+     */
+    public int getCode() {
+        return _code;
+    }
+
+    /**
+     * @return True if the solver returns a solution with this status.
+     * For {@link #ITERATION_LIMIT}, {@link #TIME_LIMIT} and {@link #CANCELLED} this is only the case for maximization problems.
+     */
+    public boolean hasSolution() {
+        return this == OPTIMAL || this == ITERATION_LIMIT || this == TIME_LIMIT || this == CANCELLED;
+    }
+
+    /**
+     * @return True if the solver has been stopped by the limits or by an interruption, before it could finish.
+     */
+    public boolean isInterrupted() {
+        return this == TIME_LIMIT || this == CANCELLED;
+    }
+
+    /**
+     * Looks up the status belonging to a code.
+     *
+     * @param code The code of the status, as used by the RenderScript code.
+     * @return The status with the given code.
+     */
+    public static SolveStatus fromCode(int code) {
+        for (SolveStatus status : values()) {
+            if (status._code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown status code: " + code);
+    }
+}
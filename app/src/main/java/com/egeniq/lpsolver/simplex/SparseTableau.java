@@ -0,0 +1,76 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * Tableau in compressed sparse row (CSR) format, which only stores the nonzero cells.
+ * It has the same layout as the dense tableaus: the constraint rows, then the objective row,
+ * and the 'b' vector in the last column.
+ * The nonzeros of row i are at the indices from rowStart[i] (inclusive) to rowStart[i + 1] (exclusive)
+ * of the column index and value arrays.
+ */
+public class SparseTableau {
+
+    private final int _rowCount;
+    private final int _columnCount;
+    private final int[] _rowStart;
+    private final int[] _columnIndices;
+    private final float[] _values;
+
+    /**
+     * Creates a new sparse tableau. The arrays are not copied.
+     *
+     * @param rowCount      The amount of rows, including the objective row.
+     * @param columnCount   The amount of columns, including the 'b' vector.
+     * @param rowStart      For each row, the index of its first nonzero. Has an extra element at the end with the nonzero count.
+     * @param columnIndices For each nonzero, the column it is located in.
+     * @param values        For each nonzero, its value.
+     */
+    public SparseTableau(int rowCount, int columnCount, int[] rowStart, int[] columnIndices, float[] values) {
+        _rowCount = rowCount;
+        _columnCount = columnCount;
+        _rowStart = rowStart;
+        _columnIndices = columnIndices;
+        _values = values;
+    }
+
+    /**
+     * @return The amount of rows, including the objective row.
+     */
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    /**
+     * @return The amount of columns, including the 'b' vector.
+     */
+    public int getColumnCount() {
+        return _columnCount;
+    }
+
+    /**
+     * @return The amount of nonzero cells.
+     */
+    public int getNonZeroCount() {
+        return _rowStart[_rowCount];
+    }
+
+    /**
+     * @return For each row, the index of its first nonzero, and the nonzero count as the last element.
+     */
+    public int[] getRowStart() {
+        return _rowStart;
+    }
+
+    /**
+     * @return For each nonzero, the column it is located in. Can be longer than the nonzero count.
+     */
+    public int[] getColumnIndices() {
+        return _columnIndices;
+    }
+
+    /**
+     * @return For each nonzero, its value. Can be longer than the nonzero count.
+     */
+    public float[] getValues() {
+        return _values;
+    }
+}
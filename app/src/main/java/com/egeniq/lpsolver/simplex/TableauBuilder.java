@@ -0,0 +1,216 @@
+package com.egeniq.lpsolver.simplex;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.Arrays;
+
+/**
+ * Builds a {@link DenseTableau} by writing the objective function and the constraints straight into the flat array
+ * which the solvers read, in its final layout. For minimization problems, that is the transposed tableau of the dual program.
+ * The array is kept between the problems, and only grows when a larger problem arrives, so a builder can be reused
+ * without allocating. This also means that a built tableau is only valid until the builder is reset.
+ * Constraints are negated to fit the tableau format: for maximization problems all constraints become less-or-equal
+ * constraints, for minimization problems greater-or-equal ones. The single-phase solves start from the slack variables,
+ * which is only a feasible basis if the last column of the constraint rows is non-negative, so they reject the other tableaus.
+ * That column holds the right sides of maximization problems, so a negated greater-or-equal constraint with a positive
+ * right side can not be solved this way. For minimization problems it holds the objective function, which then has to be
+ * non-negative. Solve the other problems with the two-phase method, see
+ * {@link com.egeniq.lpsolver.renderscript.TableauConverter#convertTwoPhase}. Equality constraints can not be expressed
+ * in the tableau format either, they are handled as less-or-equal constraints, like the
+ * {@link com.egeniq.lpsolver.renderscript.TableauConverter} does, so problems with those need the two-phase method too.
+ */
+public class TableauBuilder {
+
+    private float[] _values = new float[0];
+    private int _variableCount;
+    private int _constraintCount;
+    private int _addedConstraintCount;
+    private int _rowCount;
+    private int _columnCount;
+    private boolean _minimize;
+    // For each constraint, 1 or -1, the multiplier of its coefficients.
+    private float[] _constraintSigns = new float[0];
+
+    /**
+     * Starts a new problem. The previously built tableau must not be used anymore after this.
+     *
+     * @param variableCount   The amount of variables of the problem.
+     * @param constraintCount The amount of constraints of the problem, all of them have to be added before building. Can be zero.
+     * @param minimize        If the program is a minimization problem.
+     * @return This builder.
+     */
+    public TableauBuilder reset(int variableCount, int constraintCount, boolean minimize) {
+        if (variableCount <= 0 || constraintCount < 0) {
+            throw new IllegalArgumentException("The problem must have variables: " + variableCount + "x" + constraintCount);
+        }
+        _variableCount = variableCount;
+        _constraintCount = constraintCount;
+        _addedConstraintCount = 0;
+        _minimize = minimize;
+        // The dual program has a row for each variable, and a column for each constraint.
+        _rowCount = (minimize ? variableCount : constraintCount) + 1;
+        _columnCount = (minimize ? constraintCount : variableCount) + 1;
+        int size = _rowCount * _columnCount;
+        if (_values.length < size) {
+            _values = new float[size];
+        } else {
+            Arrays.fill(_values, 0, size, 0);
+        }
+        if (_constraintSigns.length < constraintCount) {
+            _constraintSigns = new float[constraintCount];
+        }
+        return this;
+    }
+
+    /**
+     * Sets a coefficient of the objective function. The coefficients which are not set are zero.
+     *
+     * @param variable The index of the variable.
+     * @param value    The coefficient of the variable.
+     * @return This builder.
+     */
+    public TableauBuilder setObjectiveCoefficient(int variable, float value) {
+        _checkVariable(variable);
+        if (_minimize) {
+            // Last column contains the non-negated objective function.
+            _values[variable * _columnCount + _columnCount - 1] = value;
+        } else {
+            // Last row contains the negated objective function.
+            _values[(_rowCount - 1) * _columnCount + variable] = -value;
+        }
+        return this;
+    }
+
+    /**
+     * Sets all coefficients of the objective function.
+     *
+     * @param coefficients The coefficient of each variable.
+     * @return This builder.
+     */
+    public TableauBuilder setObjective(float[] coefficients) {
+        _checkLength(coefficients);
+        for (int j = 0; j < _variableCount; ++j) {
+            setObjectiveCoefficient(j, coefficients[j]);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a constraint with only zero coefficients. Set the coefficients with {@link #setCoefficient(int, int, float)}.
+     *
+     * @param relationship The relationship between the left and the right side of the constraint.
+     * @param value        The right side of the constraint.
+     * @return The index of the new constraint.
+     */
+    public int addConstraint(Relationship relationship, float value) {
+        if (_addedConstraintCount == _constraintCount) {
+            throw new IllegalStateException("All " + _constraintCount + " constraints have been added already.");
+        }
+        int constraint = _addedConstraintCount++;
+        float sign = getConstraintSign(relationship, _minimize);
+        _constraintSigns[constraint] = sign;
+        if (_minimize) {
+            // Last row contains the 'b' vector, negated for greater-or-equal constraints.
+            _values[(_rowCount - 1) * _columnCount + constraint] = -sign * value;
+        } else {
+            // Last column has the 'b' vector.
+            _values[constraint * _columnCount + _columnCount - 1] = sign * value;
+        }
+        return constraint;
+    }
+
+    /**
+     * Adds a constraint with all its coefficients.
+     *
+     * @param coefficients The coefficient of each variable.
+     * @param relationship The relationship between the left and the right side of the constraint.
+     * @param value        The right side of the constraint.
+     * @return The index of the new constraint.
+     */
+    public int addConstraint(float[] coefficients, Relationship relationship, float value) {
+        _checkLength(coefficients);
+        int constraint = addConstraint(relationship, value);
+        for (int j = 0; j < _variableCount; ++j) {
+            if (coefficients[j] != 0) {
+                setCoefficient(constraint, j, coefficients[j]);
+            }
+        }
+        return constraint;
+    }
+
+    /**
+     * Sets a coefficient of a constraint which has been added already. The coefficients which are not set are zero.
+     *
+     * @param constraint The index of the constraint, as returned when adding it.
+     * @param variable   The index of the variable.
+     * @param value      The coefficient of the variable.
+     * @return This builder.
+     */
+    public TableauBuilder setCoefficient(int constraint, int variable, float value) {
+        if (constraint < 0 || constraint >= _addedConstraintCount) {
+            throw new IndexOutOfBoundsException("Constraint " + constraint + " has not been added.");
+        }
+        _checkVariable(variable);
+        value *= _constraintSigns[constraint];
+        if (_minimize) {
+            // The constraints are transposed.
+            _values[variable * _columnCount + constraint] = value;
+        } else {
+            _values[constraint * _columnCount + variable] = value;
+        }
+        return this;
+    }
+
+    /**
+     * @return True if the current problem is a minimization problem, so the tableau has to be solved as a dual program.
+     */
+    public boolean isMinimize() {
+        return _minimize;
+    }
+
+    /**
+     * Determines if a constraint has to be negated to fit the tableau format. For maximization problems all constraints
+     * become less-or-equal constraints, for minimization problems greater-or-equal ones, before transposing them.
+     *
+     * @param relationship The relationship of the constraint.
+     * @param minimize     If the program is a minimization problem.
+     * @return 1 if the constraint can be used as it is, -1 if it has to be negated.
+     */
+    static float getConstraintSign(Relationship relationship, boolean minimize) {
+        boolean negate = minimize ? relationship != Relationship.GEQ : relationship == Relationship.GEQ;
+        return negate ? -1 : 1;
+    }
+
+    /**
+     * Creates the tableau on top of the array of the builder, without copying it.
+     *
+     * @return The tableau, valid until the builder is reset.
+     * @throws IllegalStateException If not all the constraints have been added.
+     */
+    public DenseTableau build() {
+        if (_addedConstraintCount != _constraintCount) {
+            throw new IllegalStateException("Only " + _addedConstraintCount + " of the " + _constraintCount + " constraints have been added.");
+        }
+        return new DenseTableau(_rowCount, _columnCount, _values);
+    }
+
+    /**
+     * @param variable The index of the variable to check.
+     * @throws IndexOutOfBoundsException If the problem has no such variable.
+     */
+    private void _checkVariable(int variable) {
+        if (variable < 0 || variable >= _variableCount) {
+            throw new IndexOutOfBoundsException("Variable " + variable + " is not in the problem of " + _variableCount + " variables.");
+        }
+    }
+
+    /**
+     * @param coefficients The coefficients to check.
+     * @throws IllegalArgumentException If there is not a coefficient for each variable.
+     */
+    private void _checkLength(float[] coefficients) {
+        if (coefficients.length != _variableCount) {
+            throw new IllegalArgumentException("Expected " + _variableCount + " coefficients, got " + coefficients.length);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.egeniq.lpsolver.simplex;
+
+import java.util.Arrays;
+
+/**
+ * The lower and upper bounds of the variables of a problem, which the bounded solves handle in the ratio test,
+ * instead of adding a constraint row for each of them. By default each variable is between zero and infinity.
+ * The lower bounds have to be finite.
+ */
+public class VariableBounds {
+
+    private final float[] _lower;
+    private final float[] _upper;
+
+    /**
+     * Creates the default bounds: each variable is non-negative, and has no upper bound.
+     *
+     * @param variableCount The amount of variables of the problem.
+     */
+    public VariableBounds(int variableCount) {
+        _lower = new float[variableCount];
+        _upper = new float[variableCount];
+        Arrays.fill(_upper, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Creates a copy of the bounds, which can be changed without affecting the original.
+     *
+     * @param bounds The bounds to copy.
+     */
+    public VariableBounds(VariableBounds bounds) {
+        _lower = bounds._lower.clone();
+        _upper = bounds._upper.clone();
+    }
+
+    /**
+     * @return The amount of variables of the problem.
+     */
+    public int getVariableCount() {
+        return _lower.length;
+    }
+
+    /**
+     * @param variable The index of the variable.
+     * @return The lowest value the variable can have.
+     */
+    public float getLower(int variable) {
+        return _lower[variable];
+    }
+
+    /**
+     * @param variable The index of the variable.
+     * @return The highest value the variable can have, or infinity.
+     */
+    public float getUpper(int variable) {
+        return _upper[variable];
+    }
+
+    /**
+     * @param variable The index of the variable.
+     * @param lower    The lowest value the variable can have. Has to be finite.
+     */
+    public void setLower(int variable, float lower) {
+        if (Float.isInfinite(lower) || Float.isNaN(lower)) {
+            throw new IllegalArgumentException("The lower bound of variable " + variable + " has to be finite.");
+        }
+        _lower[variable] = lower;
+    }
+
+    /**
+     * @param variable The index of the variable.
+     * @param upper    The highest value the variable can have, or infinity.
+     */
+    public void setUpper(int variable, float upper) {
+        _upper[variable] = upper;
+    }
+
+    /**
+     * @return True if the lower bound of a variable is above its upper bound, so the problem has no feasible solutions.
+     */
+    public boolean hasEmptyRange() {
+        for (int j = 0; j < _lower.length; ++j) {
+            if (_lower[j] > _upper[j]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "VariableBounds{lower=" + Arrays.toString(_lower) + ", upper=" + Arrays.toString(_upper) + "}";
+    }
+}
@@ -0,0 +1,21 @@
+package com.egeniq.lpsolver.simplex;
+
+/**
+ * The kind of values a variable can have in the {@link BranchAndBoundSolver}.
+ */
+public enum VariableType {
+
+    /**
+     * Any value between the bounds of the variable.
+     */
+    CONTINUOUS,
+    /**
+     * A whole number between the bounds of the variable.
+     */
+    INTEGER,
+    /**
+     * Either zero, or a value between the bounds of the variable. The lower bound is the smallest nonzero value,
+     * like a minimum batch size, so it has to be non-negative.
+     */
+    SEMI_CONTINUOUS
+}
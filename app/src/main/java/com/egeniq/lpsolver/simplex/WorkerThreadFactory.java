@@ -0,0 +1,62 @@
+package com.egeniq.lpsolver.simplex;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the worker threads of the {@link AsyncSimplexSolver} and the {@link BranchAndBoundSolver}.
+ * Each worker thread gets its own solver from the {@link SimplexEngineFactory}, which is created on its first solve
+ * and released when the thread stops.
+ */
+class WorkerThreadFactory implements ThreadFactory {
+
+    private final SimplexEngineFactory _engineFactory;
+    private final String _namePrefix;
+    private final AtomicInteger _threadCount = new AtomicInteger();
+    // The solver of each worker thread, created on its first solve.
+    private final ThreadLocal<SimplexEngine> _engine = new ThreadLocal<>();
+
+    /**
+     * Creates a new thread factory.
+     *
+     * @param engineFactory The factory which creates the solver of each worker thread.
+     * @param namePrefix    The name of the threads, which is followed by their number.
+     */
+    WorkerThreadFactory(SimplexEngineFactory engineFactory, String namePrefix) {
+        _engineFactory = engineFactory;
+        _namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    SimplexEngine engine = _engine.get();
+                    if (engine != null) {
+                        _engineFactory.release(engine);
+                    }
+                }
+            }
+        }, _namePrefix + _threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Returns the solver of the current worker thread, and creates it on the first call.
+     *
+     * @return The solver of the current thread.
+     */
+    SimplexEngine getEngine() {
+        SimplexEngine engine = _engine.get();
+        if (engine == null) {
+            engine = _engineFactory.create();
+            _engine.set(engine);
+        }
+        return engine;
+    }
+}
@@ -4,6 +4,10 @@
 
 #include "simplex.rsh"
 
+// The pivot cell of the parallel pivoting, set before launching the eliminate_row kernel.
+static int pivot_departing_row;
+static int pivot_entering_column;
+
 /********************************************************
  * Equality function to compare two floats.
  ********************************************************
@@ -27,8 +31,8 @@ static bool equal(float a, float b) {
  * Returns: The element at the specific column and row.
  */
 static float get_element(Tableau_t *tableau, int row, int column) {
-    int index = row * tableau->columns + column;
-    return tableau->matrix[index];
+    int index = tableau->offset + row * tableau->columns + column;
+    return rsGetElementAt_float(matrix, index);
 }
 
 /********************************************************
@@ -40,10 +44,182 @@ static float get_element(Tableau_t *tableau, int row, int column) {
  * value: The value to set at the cell specified by the column and row.
  */
 static void set_element(Tableau_t *tableau, int row, int column, float value) {
-    int index = row * tableau->columns + column;
-    tableau->matrix[index] = value;
+    int index = tableau->offset + row * tableau->columns + column;
+    rsSetElementAt_float(matrix, value, index);
+}
+
+
+/********************************************************
+ * Convenience function to get the basis of a row.
+ ********************************************************
+ * tableau: The tableau to get the basis of.
+ * row: The constraint row to get the basis of.
+ ********************************************************
+ * Returns: The index of the column in the basis.
+ */
+static int get_basis(Tableau_t *tableau, int row) {
+    return rsGetElementAt_int(basis, tableau->basis_offset + row);
+}
+
+/********************************************************
+ * Convenience function to set the basis of a row.
+ ********************************************************
+ * tableau: The tableau to set the basis of.
+ * row: The constraint row to set the basis of.
+ * column: The index of the column in the basis.
+ */
+static void set_basis(Tableau_t *tableau, int row, int column) {
+    rsSetElementAt_int(basis, column, tableau->basis_offset + row);
+}
+
+/********************************************************
+ * Calculates the amount of columns the pricing rules choose
+ * from, which are all the columns before the 'b' vector,
+ * except for the artificial columns of the two-phase method.
+ ********************************************************
+ * tableau: The tableau to get the amount of columns of.
+ ********************************************************
+ * Returns: The amount of columns which can enter the basis.
+ */
+static int get_priced_columns(Tableau_t *tableau) {
+    return tableau->columns - 1 - tableau->artificial_columns;
+}
+
+/********************************************************
+ * Returns the sign the two-phase method has multiplied a
+ * constraint row with.
+ ********************************************************
+ * tableau: The tableau the row belongs to.
+ * row: The constraint row.
+ ********************************************************
+ * Returns: -1 if the row has been negated, otherwise 1.
+ */
+static float get_row_sign(Tableau_t *tableau, int row) {
+    if (tableau->artificial_columns == 0) {
+        return 1;
+    }
+    return rsGetElementAt_float(row_signs, row);
+}
+
+/********************************************************
+ * Checks if the variables of the input tableau have
+ * bounds. Only the two-phase method handles bounds, the
+ * other solves and the batches switch them off. The amount
+ * of artificial columns can not be used for this, since a
+ * problem of which all constraints have become bounds has
+ * none.
+ ********************************************************
+ * Returns: True if the bounds apply to the input tableau.
+ */
+static bool is_bounded() {
+    return bounded;
+}
+
+/********************************************************
+ * Returns the range of a column, which is the distance
+ * between the lower and upper bound of its variable.
+ ********************************************************
+ * column: The column to get the range of.
+ ********************************************************
+ * Returns: The range, or infinity if the variable has no
+ *          upper bound.
+ */
+static float get_upper_bound(int column) {
+    if (!is_bounded()) {
+        return 1.0f / 0.0f;
+    }
+    return rsGetElementAt_float(upper_bounds, column);
+}
+
+/********************************************************
+ * Checks if a column stands for the distance of its
+ * variable to the upper bound.
+ ********************************************************
+ * column: The column to check.
+ ********************************************************
+ * Returns: True if the column has been complemented.
+ */
+static bool is_complemented(int column) {
+    return is_bounded() && rsGetElementAt_int(complemented, column) != 0;
+}
+
+/********************************************************
+ * Calculates the value of a variable from the value of its
+ * column.
+ ********************************************************
+ * column: The column of the variable.
+ * column_value: The value of the column, zero for the
+ *               nonbasic columns.
+ ********************************************************
+ * Returns: The value of the variable.
+ */
+static float get_variable_value(int column, float column_value) {
+    if (!is_bounded()) {
+        return column_value;
+    }
+    float distance = is_complemented(column) ? get_upper_bound(column) - column_value : column_value;
+    return rsGetElementAt_float(lower_bounds, column) + distance;
+}
+
+/********************************************************
+ * Complements a nonbasic column: it stands for the distance
+ * of its variable to the upper bound from now on, or to the
+ * lower bound again. The 'b' values take the variable at
+ * the other end of its range.
+ ********************************************************
+ * tableau: The tableau the column belongs to.
+ * column: The nonbasic column to complement.
+ */
+static void complement_column(Tableau_t *tableau, int column) {
+    float range = get_upper_bound(column);
+    for (int i = 0; i < tableau->rows; i++) {
+        float cell = get_element(tableau, i, column);
+        if (cell == 0) {
+            continue;
+        }
+        set_element(tableau, i, tableau->columns - 1, get_element(tableau, i, tableau->columns - 1) - cell * range);
+        set_element(tableau, i, column, -cell);
+    }
+    rsSetElementAt_int(complemented, !is_complemented(column), column);
 }
 
+/********************************************************
+ * Complements the basic variable of a row. Its column stays
+ * a unit vector, so the rest of the row is negated, and the
+ * 'b' value becomes the distance to the other end of the
+ * range.
+ ********************************************************
+ * tableau: The tableau the row belongs to.
+ * row: The constraint row of the basic variable.
+ */
+static void complement_basic_variable(Tableau_t *tableau, int row) {
+    int column = get_basis(tableau, row);
+    for (int j = 0; j < tableau->columns - 1; j++) {
+        if (j != column) {
+            set_element(tableau, row, j, -get_element(tableau, row, j));
+        }
+    }
+    set_element(tableau, row, tableau->columns - 1, get_upper_bound(column) - get_element(tableau, row, tableau->columns - 1));
+    rsSetElementAt_int(complemented, !is_complemented(column), column);
+}
+
+/********************************************************
+ * Finds the row a column is basic in.
+ ********************************************************
+ * tableau: The tableau the column belongs to.
+ * column: The column to find.
+ ********************************************************
+ * Returns: The constraint row of the column, or -1 if it
+ *          is nonbasic.
+ */
+static int find_basis_row(Tableau_t *tableau, int column) {
+    for (int i = 0; i < tableau->rows - 1; i++) {
+        if (get_basis(tableau, i) == column) {
+            return i;
+        }
+    }
+    return -1;
+}
 
 /********************************************************
  * We extend the 'A' matrix with the entity matrix (NxN),
@@ -58,55 +234,60 @@ static void set_element(Tableau_t *tableau, int row, int column, float value) {
 static void add_slack_variables(Tableau_t *tableau) {
     // Here we are resizing the table, so we need to re-layout the array.
     int old_column_count = tableau->columns;
-    int new_column_count = tableau->columns + tableau->rows - 1;
+    int new_column_count = tableau->columns + tableau->rows - 1 + tableau->artificial_columns;
     // This won't destroy the data while copying, because we start from the back
     int previous_index = -1;
     for (int i = tableau->rows - 1; i >= 0; i--) {
         for (int j = tableau->columns - 1; j >= 0; j--) {
-            int old_index = i * tableau->columns + j;
-            float value = tableau->matrix[old_index];
-            int new_index = i * new_column_count + j;
-            tableau->matrix[new_index] = value;
+            int old_index = tableau->offset + i * tableau->columns + j;
+            float value = rsGetElementAt_float(matrix, old_index);
+            int new_index = tableau->offset + i * new_column_count + j;
+            rsSetElementAt_float(matrix, value, new_index);
             // Remove all the rubbish inbetween, if there's some.
             if (previous_index > new_index + 1) {
                 for(int k = new_index + 1; k < previous_index; k++) {
-                    tableau->matrix[k] = 0;
+                    rsSetElementAt_float(matrix, 0, k);
                 }
             }
             previous_index = new_index;
         }
     }
     // Do the resize, now that data has been moved.
-    tableau->columns += tableau->rows - 1;
+    tableau->columns = new_column_count;
     // We will add an entity matrix after the 'A' matrix,
     // but before the 'b' vector.
     // So we need to copy the 'b' vector to the most-right.
-    for (int i = 0; i < tableau->rows - 1; i++) {
+    // The objective row is included, because the allocation is not cleared between solves.
+    for (int i = 0; i < tableau->rows; i++) {
         float bi = get_element(tableau, i, old_column_count - 1);
         set_element(tableau, i, tableau->columns - 1, bi);
     }
-    for (int i = 0; i < tableau->rows - 1; i++) {
+    for (int i = 0; i < tableau->rows; i++) {
         for (int j = 0; j < tableau->rows - 1; j++) {
             // Each row will contain exactly one '1' number.
-            // Other elements in the row are 0.
+            // Other elements in the row are 0, the objective row only contains zeroes.
             set_element(tableau, i, j + old_column_count - 1, i == j);
         }
     }
+    // The slack variables form the starting basis.
+    for (int i = 0; i < tableau->rows - 1; i++) {
+        set_basis(tableau, i, i + old_column_count - 1);
+    }
 }
 
 /********************************************************
- * Finds the entering column, which is the most negative
- * column in the matrix.
+ * Finds the entering column by Dantzig's rule, which is
+ * the most negative column in the matrix.
  ********************************************************
  * tableau: The tableau to find the pivot column in.
  ********************************************************
  * Returns: The column index of the entering column.
  */
-static int find_entering_column(Tableau_t *tab) {
+static int find_dantzig_column(Tableau_t *tableau) {
     int entering_column = 0;
     // Get the 'c' value for this column
     float lowest = get_element(tableau, tableau->rows - 1, entering_column);
-    for(int j = 0; j < tab->columns - 1; j++) {
+    for(int j = 0; j < get_priced_columns(tableau); j++) {
          // Check if we can find a lower 'c' cell than before.
         if (get_element(tableau, tableau->rows - 1, j) < lowest) {
             lowest = get_element(tableau, tableau->rows - 1, j);
@@ -122,52 +303,289 @@ static int find_entering_column(Tableau_t *tab) {
     return entering_column;
 }
 
+/********************************************************
+ * Finds the entering column by Bland's rule, which is the
+ * first column with a negative cell in the objective row.
+ * Slower than the other rules, but it can not cycle.
+ ********************************************************
+ * tableau: The tableau to find the pivot column in.
+ ********************************************************
+ * Returns: The column index of the entering column.
+ */
+static int find_bland_column(Tableau_t *tableau) {
+    for(int j = 0; j < get_priced_columns(tableau); j++) {
+        if (get_element(tableau, tableau->rows - 1, j) < -CUT_OFF) {
+            LOG("First negative column in 'c' is col: ", j);
+            return j;
+        }
+    }
+    return -1;
+}
+
+/********************************************************
+ * Finds the entering column by partial pricing. The
+ * objective row is split into segments, and only the
+ * segments until the first one containing a negative cell
+ * are scanned. The next search continues with the segment
+ * after that one.
+ ********************************************************
+ * tableau: The tableau to find the pivot column in.
+ * partial_start: The segment to start the search with.
+ *                Updated for the next search.
+ ********************************************************
+ * Returns: The column index of the entering column.
+ */
+static int find_partial_column(Tableau_t *tableau, int *partial_start) {
+    int column_count = get_priced_columns(tableau);
+    int segment_size = (column_count + PARTIAL_PRICING_SEGMENTS - 1) / PARTIAL_PRICING_SEGMENTS;
+    for (int s = 0; s < PARTIAL_PRICING_SEGMENTS; s++) {
+        int segment = (*partial_start + s) % PARTIAL_PRICING_SEGMENTS;
+        int end = min((segment + 1) * segment_size, column_count);
+        int entering_column = -1;
+        float lowest = -CUT_OFF;
+        for (int j = segment * segment_size; j < end; j++) {
+            float value = get_element(tableau, tableau->rows - 1, j);
+            if (value < lowest) {
+                lowest = value;
+                entering_column = j;
+            }
+        }
+        if (entering_column >= 0) {
+            LOG("Most negative column in the segment is col: ", entering_column);
+            *partial_start = (segment + 1) % PARTIAL_PRICING_SEGMENTS;
+            return entering_column;
+        }
+    }
+    return -1;
+}
+
+/********************************************************
+ * Finds the entering column by a weighted rule, which is
+ * the column with the largest squared objective cell
+ * relative to its weight. For devex the weights are the
+ * reference weights, for steepest edge the squared norm
+ * of the column.
+ ********************************************************
+ * tableau: The tableau to find the pivot column in.
+ * rule: Either PRICING_DEVEX or PRICING_STEEPEST_EDGE.
+ ********************************************************
+ * Returns: The column index of the entering column.
+ */
+static int find_weighted_column(Tableau_t *tableau, int rule) {
+    int entering_column = -1;
+    float best_score = 0;
+    for(int j = 0; j < get_priced_columns(tableau); j++) {
+        float value = get_element(tableau, tableau->rows - 1, j);
+        if (value >= -CUT_OFF) {
+            continue;
+        }
+        float weight = 1;
+        if (rule == PRICING_DEVEX) {
+            weight = rsGetElementAt_float(pricing_weights, j);
+        } else {
+            for(int i = 0; i < tableau->rows - 1; i++) {
+                float cell = get_element(tableau, i, j);
+                weight += cell * cell;
+            }
+        }
+        float score = value * value / weight;
+        if (score > best_score) {
+            best_score = score;
+            entering_column = j;
+        }
+    }
+    LOG("Best weighted column in 'c' is col: ", entering_column);
+    return entering_column;
+}
+
+/********************************************************
+ * Finds the entering column with the given pricing rule.
+ ********************************************************
+ * tableau: The tableau to find the pivot column in.
+ * rule: The pricing rule, one of the PRICING_ constants.
+ * bland: If Bland's rule should be used instead, because
+ *        of degeneracy.
+ * partial_start: The segment to start partial pricing with.
+ ********************************************************
+ * Returns: The column index of the entering column, or -1
+ *          if the solution is optimal.
+ */
+static int find_entering_column(Tableau_t *tableau, int rule, bool bland, int *partial_start) {
+    if (bland) {
+        return find_bland_column(tableau);
+    }
+    if (rule == PRICING_PARTIAL) {
+        return find_partial_column(tableau, partial_start);
+    }
+    if (rule == PRICING_DEVEX || rule == PRICING_STEEPEST_EDGE) {
+        return find_weighted_column(tableau, rule);
+    }
+    return find_dantzig_column(tableau);
+}
+
+/********************************************************
+ * Updates the devex reference weights after pivoting.
+ ********************************************************
+ * tableau: The tableau which has been pivoted.
+ * departing_row: The departing row, divided by the pivot.
+ * entering_column: The entering column.
+ * leaving_column: The column which has left the basis.
+ */
+static void update_devex_weights(Tableau_t *tableau, int departing_row, int entering_column, int leaving_column) {
+    float entering_weight = rsGetElementAt_float(pricing_weights, entering_column);
+    for(int j = 0; j < tableau->columns - 1; j++) {
+        float ratio = get_element(tableau, departing_row, j);
+        float weight = fmax(rsGetElementAt_float(pricing_weights, j), ratio * ratio * entering_weight);
+        if (j == leaving_column) {
+            weight = fmax(ratio * ratio * entering_weight, 1);
+        }
+        rsSetElementAt_float(pricing_weights, weight, j);
+    }
+    rsSetElementAt_float(pricing_weights, 1, entering_column);
+}
+
 /********************************************************
  * Finds the departing row, which is the one with the smallest
  * non-negative ratio: 'b' / pivot cell. Where the pivot cells are
- * all cells of the entering column.
+ * the positive cells of the entering column.
+ * For bounded variables, the rows with a negative cell are
+ * considered as well, their basic variable increases until
+ * it reaches its upper bound. If the entering variable
+ * reaches its own upper bound first, no row departs.
  ********************************************************
  * tableau: The tableau to find the departing row in.
  * entering_column: The entering column, which we check the cells of.
+ * bland: If ties should be broken by Bland's rule, choosing
+ *        the row with the smallest basis column.
+ * step: The smallest ratio is written here. If it is zero,
+ *       the pivot is degenerate.
+ * at_upper_bound: Set to true if the basic variable of the
+ *                 departing row reaches its upper bound.
  ********************************************************
- * Returns: The row index of the departing row.
+ * Returns: The row index of the departing row, BOUND_FLIP
+ *          if the entering variable reaches its upper bound
+ *          first, or -1 if the solution is unbound.
  */
-static int find_departing_row(Tableau_t *tableau, int entering_column) {
-    int departing_row = 0;
-    float smallest_ratio = -1;
+static int find_departing_row(Tableau_t *tableau, int entering_column, bool bland, float *step, bool *at_upper_bound) {
+    const float no_limit = 1.0f / 0.0f;
+    int departing_row = -1;
+    float smallest_ratio = no_limit;
+    *at_upper_bound = false;
     LOG("Checking ratios inside entering column: ", entering_column);
     for(int i = 0; i < tableau->rows - 1; i++){
-        float ratio = get_element(tableau, i, tableau->columns - 1) / get_element(tableau, i, entering_column);
-        if ((ratio > 0 && ratio < smallest_ratio ) || smallest_ratio < 0) {
+        float cell = get_element(tableau, i, entering_column);
+        float ratio;
+        bool upper = false;
+        if (cell > CUT_OFF) {
+            // The positive cells limit the increase of the entering variable.
+            ratio = get_element(tableau, i, tableau->columns - 1) / cell;
+        } else if (cell < -CUT_OFF && get_upper_bound(get_basis(tableau, i)) < no_limit) {
+            // The negative cells only limit it if their basic variable has an upper bound.
+            ratio = fmax(get_upper_bound(get_basis(tableau, i)) - get_element(tableau, i, tableau->columns - 1), 0) / -cell;
+            upper = true;
+        } else {
+            continue;
+        }
+        if (departing_row < 0 || ratio < smallest_ratio ||
+                (bland && equal(ratio, smallest_ratio) && get_basis(tableau, i) < get_basis(tableau, departing_row))) {
             smallest_ratio = ratio;
             departing_row = i;
+            *at_upper_bound = upper;
         }
     }
-    if (smallest_ratio <= CUT_OFF) {
-        // If all ratios are not more than zero,
+    float range = get_upper_bound(entering_column);
+    if (range < no_limit && range <= smallest_ratio) {
+        LOG("Entering variable reaches its upper bound: ", range);
+        return BOUND_FLIP;
+    }
+    if (departing_row < 0) {
+        // If there are no positive cells,
         // then the solutions do not have a maximum.
         return -1;
     }
     LOG("Found pivot row: ", departing_row);
     LOG("Min ratio: ", smallest_ratio);
+    *step = smallest_ratio;
     return departing_row;
 }
 
+/********************************************************
+ * Finds the departing row of the dual simplex method,
+ * which is the row with the most negative 'b' cell.
+ * For bounded variables, a 'b' cell above the upper bound
+ * of its basic variable counts as negative as well, by the
+ * amount it exceeds the bound.
+ ********************************************************
+ * tableau: The tableau to find the departing row in.
+ ********************************************************
+ * Returns: The row index of the departing row, or -1 if
+ *          all 'b' cells are non-negative.
+ */
+static int find_dual_departing_row(Tableau_t *tableau) {
+    int departing_row = -1;
+    float lowest = -CUT_OFF;
+    for(int i = 0; i < tableau->rows - 1; i++) {
+        float value = get_element(tableau, i, tableau->columns - 1);
+        // Without an upper bound, the distance to it is infinite.
+        value = fmin(value, get_upper_bound(get_basis(tableau, i)) - value);
+        if (value < lowest) {
+            lowest = value;
+            departing_row = i;
+        }
+    }
+    LOG("Found dual departing row: ", departing_row);
+    return departing_row;
+}
+
+/********************************************************
+ * Finds the entering column of the dual simplex method,
+ * which is the column with the smallest ratio:
+ * objective cell / -pivot cell. Where the pivot cells are
+ * the negative cells of the departing row.
+ * This keeps the objective row non-negative.
+ ********************************************************
+ * tableau: The tableau to find the entering column in.
+ * departing_row: The departing row, which has a negative
+ *                'b' cell.
+ ********************************************************
+ * Returns: The column index of the entering column, or -1
+ *          if there are no feasible solutions.
+ */
+static int find_dual_entering_column(Tableau_t *tableau, int departing_row) {
+    int entering_column = -1;
+    float smallest_ratio = 0;
+    for(int j = 0; j < get_priced_columns(tableau); j++) {
+        float cell = get_element(tableau, departing_row, j);
+        if (cell >= -CUT_OFF) {
+            continue;
+        }
+        float ratio = fmax(get_element(tableau, tableau->rows - 1, j), 0) / -cell;
+        if (entering_column < 0 || ratio < smallest_ratio) {
+            smallest_ratio = ratio;
+            entering_column = j;
+        }
+    }
+    LOG("Found dual entering column: ", entering_column);
+    return entering_column;
+}
+
 /********************************************************
  * Executes the pivoting function on the tableau.
  ********************************************************
  * tableau: The tableau to execute the pivoting function on.
  * departing_row: The departing row.
  * entering_column: The entering column.
+ * parallel: If the rows can be eliminated in parallel.
  ********************************************************
  * Returns: True if everything went fine.
  *          False if there was an unexpected problem.
  *          The program should abort in this case.
  */
-static bool do_pivoting(Tableau_t *tableau, int departing_row, int entering_column) {
+static bool do_pivoting(Tableau_t *tableau, int departing_row, int entering_column, bool parallel) {
     float pivot = get_element(tableau, departing_row, entering_column);
-    if (pivot <= CUT_OFF) {
-        LOG("Pivot is not more than 0", pivot);
+    // The pivot is positive for the primal simplex, and negative for the dual simplex.
+    if (fabs(pivot) <= CUT_OFF) {
+        LOG("Pivot is 0", pivot);
         return false;
     }
     for(int j = 0; j < tableau->columns; j++) {
@@ -178,6 +596,14 @@ static bool do_pivoting(Tableau_t *tableau, int departing_row, int entering_colu
         LOG("Pivot does not equal 1, it's value is: ", get_element(tableau, departing_row, entering_column));
         return false;
     }
+    set_basis(tableau, departing_row, entering_column);
+    if (parallel && tableau->rows * tableau->columns >= PARALLEL_PIVOT_THRESHOLD) {
+        // Each row is independent from the others, so we can eliminate them in parallel.
+        pivot_departing_row = departing_row;
+        pivot_entering_column = entering_column;
+        rsForEach(eliminate_row, pivot_rows);
+        return true;
+    }
     for(int i = 0; i < tableau->rows; i++) {
         float multiplier = get_element(tableau, i, entering_column);
         if (i == departing_row) {
@@ -192,6 +618,61 @@ static bool do_pivoting(Tableau_t *tableau, int departing_row, int entering_colu
     return true;
 }
 
+/********************************************************
+ * Kernel which copies a single row of the sparse input
+ * tableau into the matrix. The cells which are not in the
+ * sparse tableau are cleared. Launched over the rows from
+ * the Java side, before solving the input tableau.
+ ********************************************************
+ * x: The index of the row to copy.
+ ********************************************************
+ * Returns: The amount of nonzeros in the row.
+ */
+int __attribute__((kernel)) scatter_row(uint32_t x) {
+    int row = x;
+    if (row >= tableau->rows) {
+        // We skip the unused elements of the allocation.
+        return 0;
+    }
+    for(int j = 0; j < tableau->columns; j++) {
+        set_element(tableau, row, j, 0);
+    }
+    int start = rsGetElementAt_int(sparse_row_start, row);
+    int end = rsGetElementAt_int(sparse_row_start, row + 1);
+    for(int k = start; k < end; k++) {
+        set_element(tableau, row, rsGetElementAt_int(sparse_column_index, k), rsGetElementAt_float(sparse_values, k));
+    }
+    return end - start;
+}
+
+/********************************************************
+ * Kernel which eliminates the entering column from a
+ * single row, by subtracting the multiple of the departing
+ * row. Launched over the rows by do_pivoting, after the
+ * departing row of the input tableau has been divided by
+ * the pivot.
+ ********************************************************
+ * x: The index of the row to eliminate.
+ ********************************************************
+ * Returns: 1 if the row was changed, otherwise 0.
+ */
+int __attribute__((kernel)) eliminate_row(uint32_t x) {
+    int row = x;
+    if (row >= tableau->rows || row == pivot_departing_row) {
+        // We skip the pivot row, and the unused elements of the allocation.
+        return 0;
+    }
+    float multiplier = get_element(tableau, row, pivot_entering_column);
+    if (multiplier == 0) {
+        return 0;
+    }
+    for(int j = 0; j < tableau->columns; j++) {
+        float new_value = get_element(tableau, row, j) - multiplier * get_element(tableau, pivot_departing_row, j);
+        set_element(tableau, row, j, new_value);
+    }
+    return 1;
+}
+
 
 /********************************************************
  * Given a column of the identity matrix, find the row
@@ -227,6 +708,22 @@ static int find_entity_row(Tableau_t *tableau, int column) {
     return entity_row;
 }
 
+/********************************************************
+ * Calculates the amount of elements write_result writes.
+ ********************************************************
+ * tableau: The tableau with the slack variables added.
+ ********************************************************
+ * Returns: The size of the solution of the tableau.
+ */
+static int get_result_size(Tableau_t *tableau) {
+    if (tableau->dual_program) {
+        // One solution for each slack variable.
+        return tableau->rows - 1;
+    }
+    // One solution for each column before the slack and artificial variables.
+    return tableau->columns - tableau->rows - tableau->artificial_columns;
+}
+
 /********************************************************
  * Writes the final optimal values to the output allocation,
  * so that the Java side can read it out.
@@ -248,78 +745,802 @@ static void write_result(Tableau_t *tableau) {
         int end_index = tableau->columns - 1;
         for (int j = start_index; j < end_index; j++) {
             float value = get_element(tableau, tableau->rows - 1, j);
-            rsSetElementAt_float(solution_vector, value, j - start_index);
+            rsSetElementAt_float(solution_vector, value, tableau->solution_offset + j - start_index);
             LOG("", value);
         }
-        rsSetElementAt_int(result_size, end_index - start_index, 0);
         return;
     }
     // For each column we find the basis variable.
+    // Only the columns before the slack variables belong to the LP solution.
     LOG("Retrieving LP solutions.", 0);
-    for(int j = 0; j < tableau->columns - 1; j++) {
+    if (tableau->artificial_columns > 0 || is_bounded()) {
+        // The two-phase method keeps the basis up to date, and a nonbasic column can look like a unit vector there.
+        // The nonbasic variables are at one of their bounds, the basic variables have the value of the 'b' cell in their row.
+        for (int j = 0; j < get_result_size(tableau); j++) {
+            rsSetElementAt_float(solution_vector, get_variable_value(j, 0), tableau->solution_offset + j);
+        }
+        for (int i = 0; i < tableau->rows - 1; i++) {
+            int basic_column = get_basis(tableau, i);
+            if (basic_column < get_result_size(tableau)) {
+                float value = get_variable_value(basic_column, get_element(tableau, i, tableau->columns - 1));
+                rsSetElementAt_float(solution_vector, value, tableau->solution_offset + basic_column);
+            }
+        }
+        return;
+    }
+    for(int j = 0; j < get_result_size(tableau); j++) {
         int entity_row = find_entity_row(tableau, j);
         if (entity_row != -1) {
             // We write the value to the output allocation.
             float value = get_element(tableau, entity_row, tableau->columns - 1);
-            rsSetElementAt_float(solution_vector, value, j);
+            rsSetElementAt_float(solution_vector, value, tableau->solution_offset + j);
             LOG("", value);
         } else {
             // In this case we write zero.
-            rsSetElementAt_float(solution_vector, 0, j);
+            rsSetElementAt_float(solution_vector, 0, tableau->solution_offset + j);
             LOG("", 0);
         }
     }
-    rsSetElementAt_int(result_size, tableau->columns - tableau->rows, 0);
 }
 
 /********************************************************
- * Entry function, which starts the optimization process.
- * Make sure you have allocated the memory for the output
- * variables, and supplied the input tableau from the Java
- * part.
+ * Convenience function to set an element of a part of the
+ * sensitivity analysis.
+ ********************************************************
+ * tableau: The tableau which is analysed.
+ * part: One of the SENSITIVITY_ constants.
+ * index: The column or row the element belongs to.
+ * value: The value to set.
  */
-void solve() {
-    // The tableau has been already set from the Java side.
-    // Start with the optimization loop.
-    add_slack_variables(tableau);
+static void set_sensitivity(Tableau_t *tableau, int part, int index, float value) {
+    int column_count = get_priced_columns(tableau);
+    int row_count = tableau->rows - 1;
+    int start = part < SENSITIVITY_RHS_DECREASE ? part * column_count
+            : SENSITIVITY_RHS_DECREASE * column_count + (part - SENSITIVITY_RHS_DECREASE) * row_count;
+    rsSetElementAt_float(sensitivity, value, start + index);
+}
+
+/********************************************************
+ * Writes the sensitivity analysis of the optimal tableau
+ * to the sensitivity allocation. The Java side maps it to
+ * the variables and constraints of the original problem.
+ * Each basic column is a unit vector, and the cells of the
+ * other basic columns in its row are exactly zero, so only
+ * the nonbasic columns take part in the ratios.
+ * The artificial columns of the two-phase method can not
+ * enter the basis, so they do not take part either, but
+ * they hold the inverse of the basis, so they are analysed
+ * instead of the slack columns.
+ * The complemented columns of bounded variables stand for
+ * the distance to the upper bound, so their reduced costs
+ * and objective ranges are mirrored, and the basic values
+ * are limited by their upper bounds too.
+ ********************************************************
+ * tableau: The tableau which contains the final results.
+ */
+static void write_sensitivity(Tableau_t *tableau) {
+    const float no_limit = 1.0f / 0.0f;
+    int column_count = get_priced_columns(tableau);
+    int b_column = tableau->columns - 1;
+    int objective_row = tableau->rows - 1;
+    int variable_count = column_count - objective_row;
+    int slack_start = tableau->columns - tableau->rows;
+    // The nonbasic columns are zero, and their objective coefficient can decrease without limit.
+    // It can increase until their cell in the objective row becomes negative.
+    for (int a = 0; a < column_count; a++) {
+        int j = a < variable_count ? a : slack_start + a - variable_count;
+        float reduced_cost = get_element(tableau, objective_row, j);
+        set_sensitivity(tableau, SENSITIVITY_VALUES, a, get_variable_value(j, 0));
+        if (is_complemented(j)) {
+            // The variable is at its upper bound, its objective coefficient can increase without limit.
+            set_sensitivity(tableau, SENSITIVITY_REDUCED_COSTS, a, -reduced_cost);
+            set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_DECREASE, a, fmax(reduced_cost, 0));
+            set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_INCREASE, a, no_limit);
+            continue;
+        }
+        set_sensitivity(tableau, SENSITIVITY_REDUCED_COSTS, a, reduced_cost);
+        set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_DECREASE, a, no_limit);
+        set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_INCREASE, a, fmax(reduced_cost, 0));
+    }
+    for (int i = 0; i < objective_row; i++) {
+        int basic_column = get_basis(tableau, i);
+        if (basic_column >= variable_count && basic_column < slack_start) {
+            // A slack column of the two-phase method, which is not analysed.
+            continue;
+        }
+        int a = basic_column < variable_count ? basic_column : basic_column - slack_start + variable_count;
+        set_sensitivity(tableau, SENSITIVITY_VALUES, a, get_variable_value(basic_column, get_element(tableau, i, b_column)));
+        // Changing the objective coefficient of a basic column changes the objective row by a multiple of its row,
+        // the range ends where the first nonbasic cell of the objective row becomes negative.
+        float decrease = no_limit;
+        float increase = no_limit;
+        for (int j = 0; j < get_priced_columns(tableau); j++) {
+            float cell = get_element(tableau, i, j);
+            if (j == basic_column || fabs(cell) <= CUT_OFF) {
+                continue;
+            }
+            float reduced_cost = fmax(get_element(tableau, objective_row, j), 0);
+            if (cell > 0) {
+                decrease = fmin(decrease, reduced_cost / cell);
+            } else {
+                increase = fmin(increase, reduced_cost / -cell);
+            }
+        }
+        if (is_complemented(basic_column)) {
+            set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_DECREASE, a, increase);
+            set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_INCREASE, a, decrease);
+        } else {
+            set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_DECREASE, a, decrease);
+            set_sensitivity(tableau, SENSITIVITY_OBJECTIVE_INCREASE, a, increase);
+        }
+    }
+    // Changing the 'b' value of a row changes the basic values by a multiple of the slack column of the row,
+    // the range ends where the first basic value becomes negative, or reaches its upper bound.
+    for (int k = 0; k < objective_row; k++) {
+        float decrease = no_limit;
+        float increase = no_limit;
+        for (int i = 0; i < objective_row; i++) {
+            float cell = get_element(tableau, i, slack_start + k);
+            if (fabs(cell) <= CUT_OFF) {
+                continue;
+            }
+            float value = fmax(get_element(tableau, i, b_column), 0);
+            float room = fmax(get_upper_bound(get_basis(tableau, i)) - value, 0);
+            if (cell > 0) {
+                decrease = fmin(decrease, value / cell);
+                increase = fmin(increase, room / cell);
+            } else {
+                increase = fmin(increase, value / -cell);
+                decrease = fmin(decrease, room / -cell);
+            }
+        }
+        if (get_row_sign(tableau, k) < 0) {
+            // The row has been negated by the two-phase method, so the analysis of its constraint is mirrored.
+            float shadow_price = get_element(tableau, objective_row, slack_start + k);
+            set_sensitivity(tableau, SENSITIVITY_REDUCED_COSTS, variable_count + k, -shadow_price);
+            set_sensitivity(tableau, SENSITIVITY_RHS_DECREASE, k, increase);
+            set_sensitivity(tableau, SENSITIVITY_RHS_INCREASE, k, decrease);
+        } else {
+            set_sensitivity(tableau, SENSITIVITY_RHS_DECREASE, k, decrease);
+            set_sensitivity(tableau, SENSITIVITY_RHS_INCREASE, k, increase);
+        }
+    }
+}
+
+/********************************************************
+ * Returns the maximum amount of iterations of a solve.
+ * The default limit grows with the size of the problem.
+ ********************************************************
+ * tableau: The tableau being solved, after the slack
+ *          variables have been added.
+ ********************************************************
+ * Returns: The iteration limit.
+ */
+static int get_iteration_limit(Tableau_t *tableau) {
+    if (iteration_limit > 0) {
+        return iteration_limit;
+    }
+    // The constraint rows, and the columns before the slack variables.
+    int dimensions = tableau->columns - 1 - tableau->artificial_columns;
+    return max(min_iteration_limit, iterations_per_dimension * dimensions);
+}
+
+/********************************************************
+ * Returns: True if the time budget of the solve has run
+ *          out.
+ */
+static bool deadline_reached() {
+    return deadline != 0 && rsUptimeNanos() >= deadline;
+}
+
+/********************************************************
+ * Clears the phase statistics at the start of a solve.
+ */
+static void clear_phase_stats() {
+    for (int p = 0; p < PHASE_COUNT * 2; p++) {
+        rsSetElementAt_long(phase_stats, 0, p);
+    }
+}
+
+/********************************************************
+ * Records one execution of a phase, which has lasted
+ * until now. Costs a clock read and two additions, so it
+ * stays enabled, unlike the LOG macro.
+ ********************************************************
+ * timed: If the statistics should be recorded. False for
+ *        the problems of a batch, which run concurrently.
+ * phase: The phase which has been executed.
+ * start: The uptime in nanoseconds when the phase started.
+ ********************************************************
+ * Returns: The current uptime, which can be used as the
+ *          start of the next phase.
+ */
+static int64_t record_phase(bool timed, int phase, int64_t start) {
+    if (!timed) {
+        return start;
+    }
+    int64_t now = rsUptimeNanos();
+    rsSetElementAt_long(phase_stats, rsGetElementAt_long(phase_stats, phase) + now - start, phase);
+    rsSetElementAt_long(phase_stats, rsGetElementAt_long(phase_stats, PHASE_COUNT + phase) + 1, PHASE_COUNT + phase);
+    return now;
+}
+
+/********************************************************
+ * Runs the primal simplex method on a tableau which already
+ * has a feasible basis, and writes the results to the
+ * solution vector if there are any.
+ ********************************************************
+ * tableau: The tableau to optimize.
+ * parallel: If the rows can be eliminated in parallel
+ *           while pivoting.
+ * rule: The pricing rule, one of the PRICING_ constants.
+ * timed: If the time of the phases should be recorded.
+ * iterations: Incremented with each pivot.
+ ********************************************************
+ * Returns: The status code the optimization finished with.
+ */
+static int iterate(Tableau_t *tableau, bool parallel, int rule, bool timed, int *iterations) {
+    if (rule == PRICING_DEVEX) {
+        // The reference framework starts with the current nonbasic columns.
+        for (int j = 0; j < tableau->columns - 1; j++) {
+            rsSetElementAt_float(pricing_weights, 1, j);
+        }
+    }
+    // Bland's rule is used after too many degenerate pivots in a row.
+    bool bland = false;
+    int degenerate_pivots = 0;
+    int partial_start = 0;
+    int64_t time = timed ? rsUptimeNanos() : 0;
     int iter = 0;
     while(++iter) {
-        // The entering column is the column with the most negative cell in the bottom row.
-        int entering_column = find_entering_column(tableau);
+        // The entering column is chosen by the pricing rule from the columns with a negative cell in the bottom row.
+        int entering_column = find_entering_column(tableau, rule, bland, &partial_start);
+        time = record_phase(timed, PHASE_PRICING, time);
         if (entering_column < 0) {
             // If all values in the bottom row are positive, we have reached
             // the optimal solution.
             LOG("No entering column found.", 0);
             LOG("Script finished with an optimal result. Loops: ", iter);
             write_result(tableau);
-            return;
+            record_phase(timed, PHASE_READBACK, time);
+            return STATUS_OPTIMAL;
         }
         // The departing row is the row where the element
         // found in the crossing of the row and the entering column
         // has the most non-negative ratio (closest to zero) from all the rows.
-        int departing_row = find_departing_row(tableau, entering_column);
+        float step = 0;
+        bool at_upper_bound = false;
+        int departing_row = find_departing_row(tableau, entering_column, bland, &step, &at_upper_bound);
+        time = record_phase(timed, PHASE_RATIO_TEST, time);
+        if (departing_row == BOUND_FLIP) {
+            // The entering variable reaches its upper bound before any basic variable reaches one of its bounds,
+            // so it stays nonbasic at the other end of its range.
+            complement_column(tableau, entering_column);
+        } else {
+            if (departing_row < 0) {
+                // If none of the ratios are positive, the solution is unbound,
+                // so we can't find a max possible value.
+                LOG("Solution has no maximum value.", 0);
+                LOG("Script finished without a result.", 0);
+                return STATUS_UNBOUNDED;
+            }
+            if (step < EPSILON) {
+                // The objective does not improve, we might be cycling.
+                degenerate_pivots++;
+                bland = bland || degenerate_pivots >= DEGENERATE_PIVOT_LIMIT;
+            } else {
+                degenerate_pivots = 0;
+                bland = false;
+            }
+            int leaving_column = get_basis(tableau, departing_row);
+            // Do the pivoting around the cell which is in the crossing of the
+            // entering column and departing row.
+            bool successful = do_pivoting(tableau, departing_row, entering_column, parallel);
+            if (!successful) {
+                // Theoretically this should not happen.
+                LOG("Unexpected result while pivoting.", 0);
+                LOG("Script finished without a result. ", 0);
+                return STATUS_FAILED;
+            }
+            if (at_upper_bound) {
+                // The leaving variable is nonbasic at its upper bound.
+                complement_column(tableau, leaving_column);
+            }
+            if (rule == PRICING_DEVEX) {
+                update_devex_weights(tableau, departing_row, entering_column, leaving_column);
+            }
+        }
+        *iterations += 1;
+        time = record_phase(timed, PHASE_PIVOT, time);
+        if (iter > get_iteration_limit(tableau)) {
+            LOG("Too many iterations > ", iter);
+            LOG("Script finished with suboptimal result.", 0);
+            // For dual programs the solution is only feasible for the original problem when it is optimal.
+            if (!tableau->dual_program) {
+                write_result(tableau);
+                record_phase(timed, PHASE_READBACK, time);
+            }
+            return STATUS_ITERATION_LIMIT;
+        }
+        if (deadline_reached()) {
+            LOG("Time budget ran out. Loops: ", iter);
+            // For dual programs the solution is only feasible for the original problem when it is optimal.
+            if (!tableau->dual_program) {
+                write_result(tableau);
+                record_phase(timed, PHASE_READBACK, time);
+            }
+            return STATUS_TIME_LIMIT;
+        }
+    }
+    return STATUS_FAILED;
+}
+
+/********************************************************
+ * Replaces the objective row with the one in the update
+ * vector, and eliminates the basic columns from it, so the
+ * primal simplex can continue from the current basis.
+ ********************************************************
+ * tableau: The tableau to set the objective row of.
+ */
+static void set_objective(Tableau_t *tableau) {
+    int objective_row = tableau->rows - 1;
+    int variable_count = get_result_size(tableau);
+    float constant = rsGetElementAt_float(update_vector, variable_count);
+    for (int j = 0; j < tableau->columns - 1; j++) {
+        // The slack and artificial variables are not part of the objective function.
+        float value = j < variable_count ? rsGetElementAt_float(update_vector, j) : 0;
+        if (j < variable_count && is_bounded()) {
+            // The columns stand for the distance to the lower bound, or to the upper bound when complemented.
+            constant -= value * rsGetElementAt_float(lower_bounds, j);
+            if (is_complemented(j)) {
+                constant -= value * get_upper_bound(j);
+                value = -value;
+            }
+        }
+        set_element(tableau, objective_row, j, value);
+    }
+    set_element(tableau, objective_row, tableau->columns - 1, constant);
+    // The objective row is expressed in the original variables,
+    // so we have to eliminate the basic columns from it.
+    for (int i = 0; i < tableau->rows - 1; i++) {
+        float multiplier = get_element(tableau, objective_row, get_basis(tableau, i));
+        if (multiplier == 0) {
+            continue;
+        }
+        for (int k = 0; k < tableau->columns; k++) {
+            float new_value = get_element(tableau, objective_row, k) - multiplier * get_element(tableau, i, k);
+            set_element(tableau, objective_row, k, new_value);
+        }
+    }
+}
+
+/********************************************************
+ * Adds the slack and artificial columns of the two-phase
+ * method, and sets up the objective row of the first phase.
+ * For bounded variables, the lower bounds are subtracted
+ * from the 'b' values first, and no column is complemented.
+ * Rows with a negative 'b' value are negated first, and the
+ * relationship of their constraint is reversed.
+ * Less-or-equal rows start with their slack variable in the
+ * basis, the other rows with their artificial variable.
+ ********************************************************
+ * tableau: The input tableau, with the artificial columns
+ *          set to the amount of constraint rows.
+ ********************************************************
+ * Returns: The value below which an artificial variable
+ *          counts as zero after the first phase.
+ */
+static float add_two_phase_variables(Tableau_t *tableau) {
+    int input_columns = tableau->columns;
+    // This lays out the columns, and adds the slack variables as if all constraints were less-or-equal.
+    add_slack_variables(tableau);
+    int objective_row = tableau->rows - 1;
+    int slack_start = input_columns - 1;
+    int artificial_start = tableau->columns - tableau->rows;
+    for (int j = 0; j < tableau->columns; j++) {
+        set_element(tableau, objective_row, j, 0);
+    }
+    if (is_bounded()) {
+        // The columns stand for the distance of the variables to their lower bound.
+        for (int j = 0; j < tableau->columns - 1; j++) {
+            rsSetElementAt_int(complemented, 0, j);
+        }
+        for (int i = 0; i < objective_row; i++) {
+            float b = get_element(tableau, i, tableau->columns - 1);
+            for (int j = 0; j < slack_start; j++) {
+                b -= get_element(tableau, i, j) * rsGetElementAt_float(lower_bounds, j);
+            }
+            set_element(tableau, i, tableau->columns - 1, b);
+        }
+    }
+    float largest_value = 0;
+    for (int i = 0; i < objective_row; i++) {
+        int row_type = rsGetElementAt_int(row_types, i);
+        float sign = 1;
+        if (get_element(tableau, i, tableau->columns - 1) < 0) {
+            sign = -1;
+            for (int j = 0; j < slack_start; j++) {
+                set_element(tableau, i, j, -get_element(tableau, i, j));
+            }
+            set_element(tableau, i, tableau->columns - 1, -get_element(tableau, i, tableau->columns - 1));
+            if (row_type != ROW_EQUAL) {
+                row_type = row_type == ROW_LESS_OR_EQUAL ? ROW_GREATER_OR_EQUAL : ROW_LESS_OR_EQUAL;
+            }
+        }
+        rsSetElementAt_float(row_signs, sign, i);
+        float slack = row_type == ROW_LESS_OR_EQUAL ? 1 : (row_type == ROW_GREATER_OR_EQUAL ? -1 : 0);
+        set_element(tableau, i, slack_start + i, slack);
+        for (int k = 0; k < objective_row; k++) {
+            set_element(tableau, i, artificial_start + k, i == k);
+        }
+        largest_value = fmax(largest_value, get_element(tableau, i, tableau->columns - 1));
+        if (row_type == ROW_LESS_OR_EQUAL) {
+            continue;
+        }
+        set_basis(tableau, i, artificial_start + i);
+        // The objective row of the first phase maximizes the negated sum of the artificial variables,
+        // with the basic artificial columns eliminated from it.
+        for (int j = 0; j < artificial_start; j++) {
+            set_element(tableau, objective_row, j, get_element(tableau, objective_row, j) - get_element(tableau, i, j));
+        }
+        float b = get_element(tableau, objective_row, tableau->columns - 1) - get_element(tableau, i, tableau->columns - 1);
+        set_element(tableau, objective_row, tableau->columns - 1, b);
+    }
+    return EPSILON * (1 + largest_value);
+}
+
+/********************************************************
+ * Calculates how far the basis of the first phase is from
+ * being feasible for the problem.
+ ********************************************************
+ * tableau: The tableau after the first phase.
+ ********************************************************
+ * Returns: The largest value of an artificial variable in
+ *          the basis.
+ */
+static float get_infeasibility(Tableau_t *tableau) {
+    int artificial_start = tableau->columns - tableau->rows;
+    float infeasibility = 0;
+    for (int i = 0; i < tableau->rows - 1; i++) {
+        if (get_basis(tableau, i) >= artificial_start) {
+            infeasibility = fmax(infeasibility, get_element(tableau, i, tableau->columns - 1));
+        }
+    }
+    return infeasibility;
+}
+
+/********************************************************
+ * Pivots the artificial variables which are still in the
+ * basis after the first phase out of it. Their values are
+ * zero, so the pivots do not change the solution, even with
+ * a negative pivot cell. If the row of an artificial
+ * variable has no nonzero cells in the other columns, the
+ * constraint is redundant, and the artificial variable
+ * stays in the basis at zero.
+ ********************************************************
+ * tableau: The tableau after the first phase.
+ * parallel: If the rows can be eliminated in parallel
+ *           while pivoting.
+ * iterations: Incremented with each pivot.
+ ********************************************************
+ * Returns: True if everything went fine.
+ *          False if there was an unexpected problem.
+ *          The program should abort in this case.
+ */
+static bool drive_out_artificials(Tableau_t *tableau, bool parallel, int *iterations) {
+    int artificial_start = tableau->columns - tableau->rows;
+    for (int i = 0; i < tableau->rows - 1; i++) {
+        if (get_basis(tableau, i) < artificial_start) {
+            continue;
+        }
+        int entering_column = -1;
+        float largest = EPSILON;
+        for (int j = 0; j < get_priced_columns(tableau); j++) {
+            float cell = fabs(get_element(tableau, i, j));
+            if (cell > largest) {
+                largest = cell;
+                entering_column = j;
+            }
+        }
+        if (entering_column < 0) {
+            continue;
+        }
+        if (!do_pivoting(tableau, i, entering_column, parallel)) {
+            return false;
+        }
+        *iterations += 1;
+    }
+    return true;
+}
+
+/********************************************************
+ * Runs the optimization process on a single tableau, and
+ * writes the results to the solution vector if there are
+ * any.
+ ********************************************************
+ * tableau: The tableau to optimize.
+ * parallel: If the rows can be eliminated in parallel
+ *           while pivoting.
+ * rule: The pricing rule, one of the PRICING_ constants.
+ * timed: If the time of the phases should be recorded.
+ * iterations: Incremented with each pivot.
+ ********************************************************
+ * Returns: The status code the optimization finished with.
+ */
+static int run_simplex(Tableau_t *tableau, bool parallel, int rule, bool timed, int *iterations) {
+    int64_t time = timed ? rsUptimeNanos() : 0;
+    add_slack_variables(tableau);
+    record_phase(timed, PHASE_SLACK_SETUP, time);
+    return iterate(tableau, parallel, rule, timed, iterations);
+}
+
+/********************************************************
+ * Checks if the primal simplex method has written a result
+ * when finishing with the given status.
+ ********************************************************
+ * tableau: The tableau which has been optimized.
+ * status: The status code the optimization finished with.
+ ********************************************************
+ * Returns: True if the solution vector contains a result.
+ */
+static bool has_result(Tableau_t *tableau, int status) {
+    return status == STATUS_OPTIMAL
+            || ((status == STATUS_ITERATION_LIMIT || status == STATUS_TIME_LIMIT) && !tableau->dual_program);
+}
+
+/********************************************************
+ * Writes the status and the size of the solution of the
+ * input tableau to the result info allocation.
+ ********************************************************
+ * status: The status code the optimization finished with.
+ * result_written: If the solution vector contains a result.
+ * iterations: The amount of pivots done.
+ */
+static void write_result_info(int status, bool result_written, int iterations) {
+    rsSetElementAt_int(result_info, result_written ? get_result_size(tableau) : -1, RESULT_SIZE);
+    rsSetElementAt_int(result_info, status, RESULT_STATUS);
+    rsSetElementAt_int(result_info, iterations, RESULT_ITERATIONS);
+}
+
+/********************************************************
+ * Writes the sensitivity analysis of the input tableau if
+ * it is enabled, and the optimization found the optimum.
+ ********************************************************
+ * status: The status code the optimization finished with.
+ */
+static void write_analysis(int status) {
+    if (!sensitivity_analysis || status != STATUS_OPTIMAL) {
+        return;
+    }
+    int64_t time = rsUptimeNanos();
+    write_sensitivity(tableau);
+    record_phase(true, PHASE_READBACK, time);
+}
+
+/********************************************************
+ * Kernel which solves one problem of a batch. All the
+ * tableaus are stored after each other in the matrix
+ * allocation, and their solutions after each other in the
+ * solution vector, at the offsets of the problem.
+ ********************************************************
+ * problem: The tableau of the problem to solve.
+ * x: The index of the problem in the batch.
+ ********************************************************
+ * Returns: The status code the optimization finished with.
+ */
+int __attribute__((kernel)) solve_problem(Tableau_t problem, uint32_t x) {
+    // Each problem is already solved in a separate thread,
+    // and the parallel pivoting only works on the input tableau.
+    // The devex weights can not be shared between the threads, so Dantzig's rule is used instead.
+    int rule = pricing_rule == PRICING_DEVEX ? PRICING_DANTZIG : pricing_rule;
+    int iterations = 0;
+    int status = run_simplex(&problem, false, rule, false, &iterations);
+    rsSetElementAt_int(batch_iterations, iterations, x);
+    return status;
+}
+
+/********************************************************
+ * Entry function, which starts the optimization process.
+ * Make sure you have allocated the memory for the output
+ * variables, and supplied the input tableau from the Java
+ * part.
+ */
+void solve() {
+    // The tableau has been already set from the Java side.
+    clear_phase_stats();
+    int iterations = 0;
+    int status = run_simplex(tableau, parallel_pivot, pricing_rule, true, &iterations);
+    write_analysis(status);
+    write_result_info(status, has_result(tableau, status), iterations);
+}
+
+/********************************************************
+ * Solves the input tableau with the two-phase method, which
+ * accepts less-or-equal, greater-or-equal and equality
+ * constraints, without transposing minimization problems.
+ * The first phase brings the artificial variables to zero,
+ * or finishes with STATUS_INFEASIBLE if it can not, the
+ * second phase optimizes the objective function from the
+ * feasible basis. Make sure the row types contain the
+ * relationship of each constraint row, and the update
+ * vector the objective row, in the format of the input
+ * tableau. The artificial columns of the tableau have to be
+ * set to the amount of constraint rows.
+ */
+void solve_two_phase() {
+    clear_phase_stats();
+    int64_t time = rsUptimeNanos();
+    float infeasibility_limit = add_two_phase_variables(tableau);
+    record_phase(true, PHASE_SLACK_SETUP, time);
+    int iterations = 0;
+    int status = iterate(tableau, parallel_pivot, pricing_rule, true, &iterations);
+    if (status == STATUS_OPTIMAL && get_infeasibility(tableau) > infeasibility_limit) {
+        LOG("The artificial variables can not become zero.", 0);
+        status = STATUS_INFEASIBLE;
+    }
+    if (status != STATUS_OPTIMAL) {
+        // The basis of the first phase is not feasible for the problem, so there is no result to write.
+        write_result_info(status, false, iterations);
+        return;
+    }
+    time = rsUptimeNanos();
+    if (!drive_out_artificials(tableau, parallel_pivot, &iterations)) {
+        LOG("Unexpected result while pivoting.", 0);
+        write_result_info(STATUS_FAILED, false, iterations);
+        return;
+    }
+    set_objective(tableau);
+    record_phase(true, PHASE_SLACK_SETUP, time);
+    status = iterate(tableau, parallel_pivot, pricing_rule, true, &iterations);
+    write_analysis(status);
+    write_result_info(status, has_result(tableau, status), iterations);
+}
+
+/********************************************************
+ * Re-solves the input tableau with a new objective row,
+ * starting from the final basis of the last solve. Since
+ * the basis stays feasible, the primal simplex continues
+ * from there. Make sure the update vector contains the new
+ * objective row, in the format of the input tableau.
+ */
+void resolve_objective() {
+    clear_phase_stats();
+    int64_t time = rsUptimeNanos();
+    set_objective(tableau);
+    record_phase(true, PHASE_SLACK_SETUP, time);
+    int iterations = 0;
+    int status = iterate(tableau, parallel_pivot, pricing_rule, true, &iterations);
+    write_analysis(status);
+    write_result_info(status, has_result(tableau, status), iterations);
+}
+
+/********************************************************
+ * Runs the dual simplex method from the current basis,
+ * which has to be dual feasible, until it is feasible
+ * again, and then continues with the primal simplex method.
+ * Writes the result of the re-solve.
+ ********************************************************
+ * tableau: The tableau to re-solve.
+ * time: The time the current phase started.
+ */
+static void run_dual_simplex(Tableau_t *tableau, int64_t time) {
+    int iterations = 0;
+    int iter = 0;
+    while(++iter) {
+        int departing_row = find_dual_departing_row(tableau);
+        time = record_phase(true, PHASE_PRICING, time);
         if (departing_row < 0) {
-            // If none of the ratios are positive, the solution is unbound,
-            // so we can't find a max possible value.
-            LOG("Solution has no maximum value.", 0);
-            LOG("Script finished without a result.", 0);
-            rsSetElementAt_int(result_size, -1, 0);
+            // The basis is feasible again, the primal simplex takes care of the rest.
+            LOG("Dual simplex finished. Loops: ", iter);
+            int status = iterate(tableau, parallel_pivot, pricing_rule, true, &iterations);
+            write_analysis(status);
+            write_result_info(status, has_result(tableau, status), iterations);
             return;
         }
-        // Do the pivoting around the cell which is in the crossing of the
-        // entering column and departing row.
-        bool successful = do_pivoting(tableau, departing_row, entering_column);
+        if (get_element(tableau, departing_row, tableau->columns - 1) > 0) {
+            // The basic variable is above its upper bound, its distance to the bound is negative instead.
+            complement_basic_variable(tableau, departing_row);
+        }
+        int entering_column = find_dual_entering_column(tableau, departing_row);
+        time = record_phase(true, PHASE_RATIO_TEST, time);
+        if (entering_column < 0) {
+            // The row can not become non-negative, so there are no feasible solutions.
+            LOG("Script finished without a feasible result.", 0);
+            write_result_info(STATUS_INFEASIBLE, false, iterations);
+            return;
+        }
+        bool successful = do_pivoting(tableau, departing_row, entering_column, parallel_pivot);
         if (!successful) {
-            // Theoretically this should not happen.
             LOG("Unexpected result while pivoting.", 0);
-            LOG("Script finished without a result. ", 0);
-            rsSetElementAt_int(result_size, -1, 0);
+            write_result_info(STATUS_FAILED, false, iterations);
+            return;
         }
-        if (iter > MAX_ITER) {
+        time = record_phase(true, PHASE_PIVOT, time);
+        iterations++;
+        if (iter > get_iteration_limit(tableau)) {
+            // The basis is still infeasible, so there is no result to write.
             LOG("Too many iterations > ", iter);
-            LOG("Script finished with suboptimal result.", 0);
-            write_result(tableau);
+            write_result_info(STATUS_ITERATION_LIMIT, false, iterations);
+            return;
+        }
+        if (deadline_reached()) {
+            LOG("Time budget ran out. Loops: ", iter);
+            write_result_info(STATUS_TIME_LIMIT, false, iterations);
             return;
         }
     }
-}
\ No newline at end of file
+}
+
+/********************************************************
+ * Re-solves the input tableau with a new 'b' vector,
+ * starting from the final basis of the last solve. The
+ * basis stays optimal, but it can become infeasible, which
+ * is fixed by the dual simplex method. Make sure the update
+ * vector contains the new 'b' vector, including the
+ * objective row.
+ */
+void resolve_rhs() {
+    clear_phase_stats();
+    int64_t time = rsUptimeNanos();
+    // The columns of the slack variables contain the inverse of the basis,
+    // so the new 'b' column is the product of those columns and the new 'b' vector.
+    // For bounded variables the 'b' column also contains the bounds, so the update vector contains the change
+    // of the 'b' vector instead, which is added to the 'b' column.
+    int slack_start = tableau->columns - tableau->rows;
+    for (int i = 0; i < tableau->rows; i++) {
+        float value = is_bounded() ? get_element(tableau, i, tableau->columns - 1) : 0;
+        if (i == tableau->rows - 1) {
+            value += rsGetElementAt_float(update_vector, i);
+        }
+        for (int k = 0; k < tableau->rows - 1; k++) {
+            // The rows which the two-phase method has negated get a negated 'b' value as well.
+            float rhs = get_row_sign(tableau, k) * rsGetElementAt_float(update_vector, k);
+            value += get_element(tableau, i, slack_start + k) * rhs;
+        }
+        set_element(tableau, i, tableau->columns - 1, value);
+    }
+    time = record_phase(true, PHASE_SLACK_SETUP, time);
+    run_dual_simplex(tableau, time);
+}
+
+/********************************************************
+ * Re-solves the input tableau with new bounds of the
+ * variables, starting from the final basis of the last
+ * bounded two-phase solve. A column stands for the distance
+ * of its variable to the bound it is at, so moving that
+ * bound moves the 'b' column by a multiple of the column.
+ * The basis stays optimal, but it can become infeasible,
+ * which is fixed by the dual simplex method. Make sure the
+ * update vector contains the new lower bounds of the
+ * variables, followed by their new ranges.
+ */
+void resolve_bounds() {
+    clear_phase_stats();
+    int64_t time = rsUptimeNanos();
+    int variable_count = get_result_size(tableau);
+    for (int j = 0; j < variable_count; j++) {
+        float lower = rsGetElementAt_float(update_vector, j);
+        float range = rsGetElementAt_float(update_vector, variable_count + j);
+        if (is_complemented(j) && isinf(range)) {
+            // Without an upper bound the variable has to be measured from its lower bound again.
+            int row = find_basis_row(tableau, j);
+            if (row < 0) {
+                complement_column(tableau, j);
+            } else {
+                complement_basic_variable(tableau, row);
+            }
+        }
+        float old_lower = rsGetElementAt_float(lower_bounds, j);
+        float shift = is_complemented(j) ? old_lower + get_upper_bound(j) - lower - range : lower - old_lower;
+        if (shift != 0) {
+            for (int i = 0; i < tableau->rows; i++) {
+                float value = get_element(tableau, i, tableau->columns - 1) - get_element(tableau, i, j) * shift;
+                set_element(tableau, i, tableau->columns - 1, value);
+            }
+        }
+        rsSetElementAt_float(lower_bounds, lower, j);
+        rsSetElementAt_float(upper_bounds, range, j);
+    }
+    time = record_phase(true, PHASE_SLACK_SETUP, time);
+    run_dual_simplex(tableau, time);
+}
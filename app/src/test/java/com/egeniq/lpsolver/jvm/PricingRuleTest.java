@@ -0,0 +1,105 @@
+package com.egeniq.lpsolver.jvm;
+
+import com.egeniq.lpsolver.TestData;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.PricingRule;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Solves the same problems with each pricing rule, on both JVM solvers, which all have to reach the same optimum.
+ */
+public class PricingRuleTest {
+
+    // The solvers pivot in single precision, so the objective values are compared relative to their size.
+    private static final double TOLERANCE = 1.0e-4;
+    private static final long SEED = 3;
+    private static final int SIZE = 30;
+
+    @Test
+    public void testTestData() {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        _assertSameOptimum(objectiveFunction, TableauConverter.convertMinimize(objectiveFunction, TestData.getLinearConstraints()), true);
+    }
+
+    /**
+     * Half of the constraints are x_a - x_b <= 0 for random pairs of variables, which all go through the origin,
+     * so the pivots at the start are degenerate, which the solvers have to get past without cycling.
+     */
+    @Test
+    public void testDegenerateProblem() {
+        Random random = new Random(SEED);
+        double[] objective = new double[SIZE];
+        for (int j = 0; j < SIZE; ++j) {
+            objective[j] = random.nextInt(10) + 1;
+        }
+        List<LinearConstraint> constraints = new ArrayList<>();
+        for (int i = 0; i < SIZE; ++i) {
+            double[] coefficients = new double[SIZE];
+            for (int j = 0; j < SIZE; ++j) {
+                coefficients[j] = random.nextInt(3) == 0 ? 0 : random.nextInt(9) + 1;
+            }
+            constraints.add(new LinearConstraint(coefficients, Relationship.LEQ, random.nextInt(50) + 1));
+        }
+        for (int i = 0; i < SIZE; ++i) {
+            double[] coefficients = new double[SIZE];
+            int smaller = random.nextInt(SIZE);
+            coefficients[smaller] = 1;
+            coefficients[(smaller + 1 + random.nextInt(SIZE - 1)) % SIZE] = -1;
+            constraints.add(new LinearConstraint(coefficients, Relationship.LEQ, 0));
+        }
+        LinearObjectiveFunction objectiveFunction = new LinearObjectiveFunction(objective, 0);
+        _assertSameOptimum(objectiveFunction, TableauConverter.convertMaximize(objectiveFunction, constraints), false);
+    }
+
+    /**
+     * Solves a problem with Dantzig's rule on the tableau solver, and checks that all other rules on both solvers
+     * reach the same objective value. The solutions themselves can differ, if the problem has more than one optimum.
+     *
+     * @param objectiveFunction The objective function of the problem.
+     * @param tableau           The input data of the problem.
+     * @param minimize          If the program is a minimization problem.
+     */
+    private static void _assertSameOptimum(LinearObjectiveFunction objectiveFunction, float[][] tableau, boolean minimize) {
+        SimplexResult reference = new SimplexJVM().solve(tableau, minimize);
+        assertEquals(SolveStatus.OPTIMAL, reference.getStatus());
+        double expected = _value(objectiveFunction, reference.getSolution());
+        for (PricingRule pricingRule : PricingRule.values()) {
+            SimplexJVM dense = new SimplexJVM();
+            dense.setPricingRule(pricingRule);
+            RevisedSimplexJVM revised = new RevisedSimplexJVM();
+            revised.setPricingRule(pricingRule);
+            SimplexResult denseResult = dense.solve(tableau, minimize);
+            SimplexResult revisedResult = revised.solve(tableau, minimize);
+
+            assertEquals(pricingRule.name(), SolveStatus.OPTIMAL, denseResult.getStatus());
+            assertEquals(pricingRule.name(), SolveStatus.OPTIMAL, revisedResult.getStatus());
+            assertEquals(pricingRule.name(), expected, _value(objectiveFunction, denseResult.getSolution()), TOLERANCE * Math.abs(expected));
+            assertEquals(pricingRule.name(), expected, _value(objectiveFunction, revisedResult.getSolution()), TOLERANCE * Math.abs(expected));
+        }
+    }
+
+    /**
+     * @param objectiveFunction The objective function.
+     * @param solution          The solution of a solver.
+     * @return The objective value of the solution.
+     */
+    private static double _value(LinearObjectiveFunction objectiveFunction, float[] solution) {
+        double result = objectiveFunction.getConstantTerm();
+        for (int j = 0; j < solution.length; ++j) {
+            result += objectiveFunction.getCoefficients().getEntry(j) * solution[j];
+        }
+        return result;
+    }
+}
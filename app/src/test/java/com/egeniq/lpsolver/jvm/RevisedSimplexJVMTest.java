@@ -0,0 +1,110 @@
+package com.egeniq.lpsolver.jvm;
+
+import com.egeniq.lpsolver.TestData;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Solves the test data with the revised simplex method and the tableau simplex method, which have to find the same optimum.
+ */
+public class RevisedSimplexJVMTest {
+
+    // The solvers pivot in single precision, so the objective values are compared relative to their size.
+    private static final double TOLERANCE = 1.0e-4;
+    // Far below the amount of pivots the test data needs.
+    private static final int ITERATION_LIMIT = 3;
+
+    @Test
+    public void testSolveMatchesTableauSolver() {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        float[][] tableau = TableauConverter.convertMinimize(objectiveFunction, TestData.getLinearConstraints());
+
+        SimplexResult revised = new RevisedSimplexJVM().solve(tableau, true);
+        SimplexResult dense = new SimplexJVM().solve(tableau, true);
+
+        _assertSameOptimum(objectiveFunction, revised, dense);
+    }
+
+    @Test
+    public void testSolveTwoPhaseWithBoundsMatchesTableauSolver() {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        VariableBounds bounds = new VariableBounds(objectiveFunction.getCoefficients().getDimension());
+        List<LinearConstraint> constraints = TableauConverter.extractBounds(TestData.getLinearConstraints(), bounds);
+        float[][] tableau = TableauConverter.convertTwoPhase(objectiveFunction, constraints, true);
+        Relationship[] relationships = TableauConverter.getRelationships(constraints);
+
+        SimplexResult revised = new RevisedSimplexJVM().solveTwoPhase(tableau, relationships, bounds, true);
+        SimplexResult dense = new SimplexJVM().solveTwoPhase(tableau, relationships, bounds, true);
+
+        _assertSameOptimum(objectiveFunction, revised, dense);
+    }
+
+    @Test
+    public void testIterationLimitMatchesTableauSolver() {
+        float[][] tableau = TableauConverter.convertMinimize(TestData.getObjectiveFunction(), TestData.getLinearConstraints());
+        SolveLimits limits = new SolveLimits(ITERATION_LIMIT, 0, TimeUnit.MILLISECONDS);
+        SimplexEngine revised = new RevisedSimplexJVM();
+        revised.setLimits(limits);
+        SimplexEngine dense = new SimplexJVM();
+        dense.setLimits(limits);
+
+        SimplexResult revisedResult = revised.solve(tableau, true);
+        SimplexResult denseResult = dense.solve(tableau, true);
+
+        assertEquals(SolveStatus.ITERATION_LIMIT, revisedResult.getStatus());
+        assertEquals(SolveStatus.ITERATION_LIMIT, denseResult.getStatus());
+        assertEquals(denseResult.getIterations(), revisedResult.getIterations());
+        // The intermediate points of the dual program are not feasible for the minimization problem.
+        assertNull(revisedResult.getSolution());
+        assertNull(denseResult.getSolution());
+    }
+
+    /**
+     * Checks that both results are optimal, with the objective value Apache Math finds in double precision.
+     *
+     * @param objectiveFunction The objective function of the test data.
+     * @param revised           The result of the revised simplex method.
+     * @param dense             The result of the tableau simplex method.
+     */
+    private static void _assertSameOptimum(LinearObjectiveFunction objectiveFunction, SimplexResult revised, SimplexResult dense) {
+        double expected = new SimplexSolver().optimize(new MaxIter(100000), objectiveFunction,
+                new LinearConstraintSet(TestData.getLinearConstraints()), GoalType.MINIMIZE, new NonNegativeConstraint(true)).getValue();
+        assertEquals(SolveStatus.OPTIMAL, revised.getStatus());
+        assertEquals(SolveStatus.OPTIMAL, dense.getStatus());
+        assertEquals(expected, _value(objectiveFunction, revised.getSolution()), TOLERANCE * Math.abs(expected));
+        assertEquals(expected, _value(objectiveFunction, dense.getSolution()), TOLERANCE * Math.abs(expected));
+    }
+
+    /**
+     * @param objectiveFunction The objective function.
+     * @param solution          The solution of a solver.
+     * @return The objective value of the solution.
+     */
+    private static double _value(LinearObjectiveFunction objectiveFunction, float[] solution) {
+        double result = objectiveFunction.getConstantTerm();
+        for (int j = 0; j < solution.length; ++j) {
+            result += objectiveFunction.getCoefficients().getEntry(j) * solution[j];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+package com.egeniq.lpsolver.jvm;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Solves small problems with the two-phase method on both JVM solvers, which mix the relationships in ways
+ * the single-phase solves can not handle.
+ */
+public class TwoPhaseTest {
+
+    private static final float TOLERANCE = 1.0e-4f;
+
+    @Test
+    public void testInfeasibleWithTableauSolver() {
+        _assertInfeasible(new SimplexJVM());
+    }
+
+    @Test
+    public void testInfeasibleWithRevisedSolver() {
+        _assertInfeasible(new RevisedSimplexJVM());
+    }
+
+    @Test
+    public void testEqualityWithTableauSolver() {
+        _assertEquality(new SimplexJVM());
+    }
+
+    @Test
+    public void testEqualityWithRevisedSolver() {
+        _assertEquality(new RevisedSimplexJVM());
+    }
+
+    @Test
+    public void testEqualityWithBoundsWithTableauSolver() {
+        _assertEqualityWithBounds(new SimplexJVM());
+    }
+
+    @Test
+    public void testEqualityWithBoundsWithRevisedSolver() {
+        _assertEqualityWithBounds(new RevisedSimplexJVM());
+    }
+
+    /**
+     * Max x + y with x + y <= 10 and x >= 12 has no feasible point, and neither has min x + y with x + y = 5 and x >= 6.
+     *
+     * @param engine The solver to check.
+     */
+    private static void _assertInfeasible(SimplexEngine engine) {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, 10));
+        constraints.add(new LinearConstraint(new double[]{1, 0}, Relationship.GEQ, 12));
+        assertEquals(SolveStatus.INFEASIBLE, _solve(engine, new double[]{1, 1}, constraints, null, false).getStatus());
+
+        constraints.clear();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.EQ, 5));
+        constraints.add(new LinearConstraint(new double[]{1, 0}, Relationship.GEQ, 6));
+        assertEquals(SolveStatus.INFEASIBLE, _solve(engine, new double[]{1, 1}, constraints, null, true).getStatus());
+    }
+
+    /**
+     * Max 2x + y with x + y <= 10 and x - y = 2 has its optimum at (6, 4), where the equality is not at the origin,
+     * and min x + 2y with x + y >= 4 and x = 1 has its optimum at (1, 3). As inequalities, the optima would be
+     * (10, 0) and (4, 0).
+     *
+     * @param engine The solver to check.
+     */
+    private static void _assertEquality(SimplexEngine engine) {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, 10));
+        constraints.add(new LinearConstraint(new double[]{1, -1}, Relationship.EQ, 2));
+        _assertOptimum(_solve(engine, new double[]{2, 1}, constraints, null, false), new float[]{6, 4});
+
+        constraints.clear();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.GEQ, 4));
+        constraints.add(new LinearConstraint(new double[]{1, 0}, Relationship.EQ, 1));
+        _assertOptimum(_solve(engine, new double[]{1, 2}, constraints, null, true), new float[]{1, 3});
+    }
+
+    /**
+     * Min x + 3y + 2z with x + y + z = 6, 1 <= x <= 2 and y <= 1: x and y are limited by their bounds,
+     * so the optimum is (2, 0, 4).
+     *
+     * @param engine The solver to check.
+     */
+    private static void _assertEqualityWithBounds(SimplexEngine engine) {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1, 1}, Relationship.EQ, 6));
+        VariableBounds bounds = new VariableBounds(3);
+        bounds.setLower(0, 1);
+        bounds.setUpper(0, 2);
+        bounds.setUpper(1, 1);
+        _assertOptimum(_solve(engine, new double[]{1, 3, 2}, constraints, bounds, true), new float[]{2, 0, 4});
+    }
+
+    /**
+     * @param engine      The solver.
+     * @param objective   The coefficients of the objective function.
+     * @param constraints The constraints.
+     * @param bounds      The bounds of the variables, or null if they are all non-negative without upper bound.
+     * @param minimize    If the program is a minimization problem.
+     * @return The result of the two-phase solve.
+     */
+    private static SimplexResult _solve(SimplexEngine engine, double[] objective, List<LinearConstraint> constraints,
+                                        VariableBounds bounds, boolean minimize) {
+        float[][] tableau = TableauConverter.convertTwoPhase(new LinearObjectiveFunction(objective, 0), constraints, minimize);
+        return engine.solveTwoPhase(tableau, TableauConverter.getRelationships(constraints), bounds, minimize);
+    }
+
+    /**
+     * @param result   The result of the solve.
+     * @param solution The optimal solution.
+     */
+    private static void _assertOptimum(SimplexResult result, float[] solution) {
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        assertArrayEquals(solution, result.getSolution(), TOLERANCE);
+    }
+}
@@ -0,0 +1,164 @@
+package com.egeniq.lpsolver.jvm;
+
+import com.egeniq.lpsolver.TestData;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.VariableBounds;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Re-solves the test data after changing its prices, one of its limits or the bounds of a variable,
+ * and compares the result with a cold solve of the changed problem.
+ */
+public class WarmStartTest {
+
+    // The solvers pivot in single precision, so the objective values are compared relative to their size.
+    private static final double TOLERANCE = 1.0e-4;
+
+    @Test
+    public void testResolveWithRhsWithTableauSolver() {
+        _assertResolveWithRhs(new SimplexJVM(), new SimplexJVM());
+    }
+
+    @Test
+    public void testResolveWithRhsWithRevisedSolver() {
+        _assertResolveWithRhs(new RevisedSimplexJVM(), new RevisedSimplexJVM());
+    }
+
+    @Test
+    public void testResolveWithObjectiveWithTableauSolver() {
+        _assertResolveWithObjective(new SimplexJVM(), new SimplexJVM());
+    }
+
+    @Test
+    public void testResolveWithObjectiveWithRevisedSolver() {
+        _assertResolveWithObjective(new RevisedSimplexJVM(), new RevisedSimplexJVM());
+    }
+
+    @Test
+    public void testResolveWithBoundsWithTableauSolver() {
+        _assertResolveWithBounds(new SimplexJVM(), new SimplexJVM());
+    }
+
+    @Test
+    public void testResolveWithBoundsWithRevisedSolver() {
+        _assertResolveWithBounds(new RevisedSimplexJVM(), new RevisedSimplexJVM());
+    }
+
+    /**
+     * Changes the prices of the test data. The minimization problem is solved as its dual program,
+     * so the prices are in the 'b' vector.
+     *
+     * @param warm The solver which re-solves from its last basis.
+     * @param cold The solver which solves the changed problem from scratch.
+     */
+    private static void _assertResolveWithRhs(SimplexEngine warm, SimplexEngine cold) {
+        List<LinearConstraint> constraints = TestData.getLinearConstraints();
+        assertEquals(SolveStatus.OPTIMAL, warm.solve(TableauConverter.convertMinimize(TestData.getObjectiveFunction(), constraints), true).getStatus());
+        double[] prices = TestData.getObjectiveFunction().getCoefficients().toArray();
+        for (int j = 0; j < prices.length; ++j) {
+            prices[j] *= 1 + 0.1 * (j % 3 - 1);
+        }
+        LinearObjectiveFunction objectiveFunction = new LinearObjectiveFunction(prices, 0);
+        float[][] tableau = TableauConverter.convertMinimize(objectiveFunction, constraints);
+
+        SimplexResult resolved = warm.resolveWithRhs(TableauConverter.getRhs(tableau));
+        SimplexResult solved = cold.solve(tableau, true);
+
+        _assertSameOptimum(objectiveFunction, resolved, solved);
+    }
+
+    /**
+     * Raises the limit of the first constraint of the test data. The minimization problem is solved as its dual program,
+     * so the limits are in the objective row.
+     *
+     * @param warm The solver which re-solves from its last basis.
+     * @param cold The solver which solves the changed problem from scratch.
+     */
+    private static void _assertResolveWithObjective(SimplexEngine warm, SimplexEngine cold) {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        List<LinearConstraint> constraints = TestData.getLinearConstraints();
+        assertEquals(SolveStatus.OPTIMAL, warm.solve(TableauConverter.convertMinimize(objectiveFunction, constraints), true).getStatus());
+        List<LinearConstraint> changedConstraints = new ArrayList<>(constraints);
+        LinearConstraint first = constraints.get(0);
+        changedConstraints.set(0, new LinearConstraint(first.getCoefficients(), first.getRelationship(), first.getValue() * 1.05));
+        float[][] tableau = TableauConverter.convertMinimize(objectiveFunction, changedConstraints);
+
+        SimplexResult resolved = warm.resolveWithObjective(tableau[tableau.length - 1]);
+        SimplexResult solved = cold.solve(tableau, true);
+
+        _assertSameOptimum(objectiveFunction, resolved, solved);
+    }
+
+    /**
+     * Lowers the upper bound of the variable which is the furthest above its lower bound in the optimum of the test data,
+     * to halfway, so the re-solve has to move away from the optimum.
+     *
+     * @param warm The solver which re-solves from its last basis.
+     * @param cold The solver which solves the changed problem from scratch.
+     */
+    private static void _assertResolveWithBounds(SimplexEngine warm, SimplexEngine cold) {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        VariableBounds bounds = new VariableBounds(objectiveFunction.getCoefficients().getDimension());
+        List<LinearConstraint> constraints = TableauConverter.extractBounds(TestData.getLinearConstraints(), bounds);
+        float[][] tableau = TableauConverter.convertTwoPhase(objectiveFunction, constraints, true);
+        Relationship[] relationships = TableauConverter.getRelationships(constraints);
+        SimplexResult first = warm.solveTwoPhase(tableau, relationships, bounds, true);
+        assertEquals(SolveStatus.OPTIMAL, first.getStatus());
+        float[] solution = first.getSolution();
+        int largest = 0;
+        for (int j = 1; j < solution.length; ++j) {
+            if (solution[j] - bounds.getLower(j) > solution[largest] - bounds.getLower(largest)) {
+                largest = j;
+            }
+        }
+        float upper = (bounds.getLower(largest) + solution[largest]) / 2;
+        VariableBounds changedBounds = new VariableBounds(bounds);
+        changedBounds.setUpper(largest, upper);
+
+        SimplexResult resolved = warm.resolveWithBounds(changedBounds);
+        SimplexResult solved = cold.solveTwoPhase(tableau, relationships, changedBounds, true);
+
+        _assertSameOptimum(objectiveFunction, resolved, solved);
+        assertEquals(upper, resolved.getSolution()[largest], TOLERANCE * upper);
+    }
+
+    /**
+     * Checks that both results are optimal with the same objective value. The solutions themselves can differ,
+     * if the problem has more than one optimum.
+     *
+     * @param objectiveFunction The objective function of the changed problem.
+     * @param resolved          The result of the re-solve.
+     * @param solved            The result of the cold solve.
+     */
+    private static void _assertSameOptimum(LinearObjectiveFunction objectiveFunction, SimplexResult resolved, SimplexResult solved) {
+        assertEquals(SolveStatus.OPTIMAL, resolved.getStatus());
+        assertEquals(SolveStatus.OPTIMAL, solved.getStatus());
+        double expected = _value(objectiveFunction, solved.getSolution());
+        assertEquals(expected, _value(objectiveFunction, resolved.getSolution()), TOLERANCE * Math.abs(expected));
+    }
+
+    /**
+     * @param objectiveFunction The objective function.
+     * @param solution          The solution of a solver.
+     * @return The objective value of the solution.
+     */
+    private static double _value(LinearObjectiveFunction objectiveFunction, float[] solution) {
+        double result = objectiveFunction.getConstantTerm();
+        for (int j = 0; j < solution.length; ++j) {
+            result += objectiveFunction.getCoefficients().getEntry(j) * solution[j];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+package com.egeniq.lpsolver.renderscript;
+
+import com.egeniq.lpsolver.TestData;
+import com.egeniq.lpsolver.jvm.RevisedSimplexJVM;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the sparse conversions hold the same cells as the dense ones, and that the solvers find the same optimum
+ * from both.
+ */
+public class TableauConverterTest {
+
+    // The solvers pivot in single precision, so the objective values are compared relative to their size.
+    private static final double TOLERANCE = 1.0e-4;
+    private static final long SEED = 7;
+    private static final int SIZE = 200;
+    // The probability that a coefficient of a constraint is not zero.
+    private static final double DENSITY = 0.02;
+
+    @Test
+    public void testMaximizeSparseMatchesDense() {
+        LinearObjectiveFunction objectiveFunction = _sparseObjective();
+        List<LinearConstraint> constraints = _sparseConstraints();
+        float[][] dense = TableauConverter.convertMaximize(objectiveFunction, constraints);
+        SparseTableau sparse = TableauConverter.convertMaximizeSparse(objectiveFunction, constraints);
+
+        _assertSameCells(dense, sparse);
+        assertArrayEquals(TableauConverter.getRhs(dense), TableauConverter.getRhs(sparse), 0);
+    }
+
+    @Test
+    public void testMinimizeSparseMatchesDense() {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        List<LinearConstraint> constraints = TestData.getLinearConstraints();
+        float[][] dense = TableauConverter.convertMinimize(objectiveFunction, constraints);
+        SparseTableau sparse = TableauConverter.convertMinimizeSparse(objectiveFunction, constraints);
+
+        _assertSameCells(dense, sparse);
+        assertArrayEquals(TableauConverter.getRhs(dense), TableauConverter.getRhs(sparse), 0);
+    }
+
+    @Test
+    public void testSparseSolveWithTableauSolver() {
+        _assertSameOptimum(new SimplexJVM());
+    }
+
+    @Test
+    public void testSparseSolveWithRevisedSolver() {
+        _assertSameOptimum(new RevisedSimplexJVM());
+    }
+
+    /**
+     * Solves the sparse random problem from the dense and the sparse tableau, which have to give the same objective value.
+     *
+     * @param engine The solver to check.
+     */
+    private static void _assertSameOptimum(SimplexEngine engine) {
+        LinearObjectiveFunction objectiveFunction = _sparseObjective();
+        List<LinearConstraint> constraints = _sparseConstraints();
+        SimplexResult dense = engine.solve(TableauConverter.convertMaximize(objectiveFunction, constraints), false);
+        SimplexResult sparse = engine.solve(TableauConverter.convertMaximizeSparse(objectiveFunction, constraints), false);
+
+        assertEquals(SolveStatus.OPTIMAL, dense.getStatus());
+        assertEquals(SolveStatus.OPTIMAL, sparse.getStatus());
+        double expected = objectiveFunction.value(_toDouble(dense.getSolution()));
+        assertEquals(expected, objectiveFunction.value(_toDouble(sparse.getSolution())), TOLERANCE * Math.abs(expected));
+    }
+
+    /**
+     * Checks that the sparse tableau has the same size and cells as the dense one, and stores no zeros.
+     *
+     * @param dense  The dense tableau.
+     * @param sparse The sparse tableau.
+     */
+    private static void _assertSameCells(float[][] dense, SparseTableau sparse) {
+        assertEquals(dense.length, sparse.getRowCount());
+        assertEquals(dense[0].length, sparse.getColumnCount());
+        int[] rowStart = sparse.getRowStart();
+        int nonZeroCount = 0;
+        for (int i = 0; i < dense.length; ++i) {
+            float[] row = new float[dense[i].length];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                row[sparse.getColumnIndices()[k]] = sparse.getValues()[k];
+            }
+            assertArrayEquals(dense[i], row, 0);
+            for (float cell : dense[i]) {
+                if (cell != 0) {
+                    nonZeroCount++;
+                }
+            }
+        }
+        assertEquals(nonZeroCount, sparse.getNonZeroCount());
+    }
+
+    /**
+     * @return The objective function of the sparse random problem.
+     */
+    private static LinearObjectiveFunction _sparseObjective() {
+        Random random = new Random(SEED);
+        double[] objective = new double[SIZE];
+        for (int j = 0; j < SIZE; ++j) {
+            objective[j] = random.nextInt(10) + 1;
+        }
+        return new LinearObjectiveFunction(objective, 0);
+    }
+
+    /**
+     * @return The constraints of the sparse random problem, stored in sparse vectors. The last constraint limits
+     * the sum of the variables, so the problem is bounded.
+     */
+    private static List<LinearConstraint> _sparseConstraints() {
+        Random random = new Random(SEED);
+        List<LinearConstraint> result = new ArrayList<>(SIZE + 1);
+        for (int i = 0; i < SIZE; ++i) {
+            OpenMapRealVector coefficients = new OpenMapRealVector(SIZE);
+            for (int j = 0; j < SIZE; ++j) {
+                if (random.nextDouble() < DENSITY) {
+                    coefficients.setEntry(j, random.nextInt(9) + 1);
+                }
+            }
+            result.add(new LinearConstraint(coefficients, Relationship.LEQ, random.nextInt(50) + 1));
+        }
+        OpenMapRealVector sum = new OpenMapRealVector(SIZE);
+        for (int j = 0; j < SIZE; ++j) {
+            sum.setEntry(j, 1);
+        }
+        result.add(new LinearConstraint(sum, Relationship.LEQ, 100));
+        return result;
+    }
+
+    /**
+     * @param solution The solution of a solver.
+     * @return The solution in double precision.
+     */
+    private static double[] _toDouble(float[] solution) {
+        double[] result = new double[solution.length];
+        for (int j = 0; j < solution.length; ++j) {
+            result[j] = solution[j];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Solves small mixed integer problems with a known optimum, which differs from the optimum of their linear relaxation.
+ */
+public class BranchAndBoundSolverTest {
+
+    private static final double TOLERANCE = 1.0e-4;
+
+    private BranchAndBoundSolver _solver;
+
+    @Before
+    public void setUp() {
+        _solver = new BranchAndBoundSolver(new SimplexEngineFactory() {
+            @Override
+            public SimplexEngine create() {
+                return new SimplexJVM();
+            }
+
+            @Override
+            public void release(SimplexEngine engine) {
+            }
+        }, 2);
+        _solver.setRelativeGap(0);
+    }
+
+    @After
+    public void tearDown() {
+        _solver.shutdown();
+    }
+
+    /**
+     * The relaxation has its optimum of 21 at (3, 1.5), the best integer solution is (4, 0).
+     */
+    @Test
+    public void testIntegerMaximize() {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{6, 4}, Relationship.LEQ, 24));
+        constraints.add(new LinearConstraint(new double[]{1, 2}, Relationship.LEQ, 6));
+        BranchAndBoundResult result = _solve(new double[]{5, 4}, constraints,
+                new VariableType[]{VariableType.INTEGER, VariableType.INTEGER}, new VariableBounds(2), false);
+        _assertOptimum(result, 20, new float[]{4, 0});
+    }
+
+    /**
+     * The relaxation has its optimum of 20 / 3 at (10 / 3, 0), the best integer solution is (2, 1).
+     */
+    @Test
+    public void testIntegerMinimize() {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{3, 4}, Relationship.GEQ, 10));
+        BranchAndBoundResult result = _solve(new double[]{2, 3}, constraints,
+                new VariableType[]{VariableType.INTEGER, VariableType.INTEGER}, new VariableBounds(2), true);
+        _assertOptimum(result, 7, new float[]{2, 1});
+    }
+
+    /**
+     * The relaxation takes 2 of the semi-continuous variable, which is below its minimum of 3, so it is raised to 3.
+     */
+    @Test
+    public void testSemiContinuousMinimize() {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.GEQ, 2));
+        VariableBounds bounds = new VariableBounds(2);
+        bounds.setLower(0, 3);
+        bounds.setUpper(0, 10);
+        BranchAndBoundResult result = _solve(new double[]{2, 4}, constraints,
+                new VariableType[]{VariableType.SEMI_CONTINUOUS, VariableType.CONTINUOUS}, bounds, true);
+        _assertOptimum(result, 6, new float[]{3, 0});
+    }
+
+    /**
+     * The relaxation takes 4 of the semi-continuous variable, but its minimum of 5 does not fit, so it has to be zero.
+     */
+    @Test
+    public void testSemiContinuousMaximize() {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, 4));
+        VariableBounds bounds = new VariableBounds(2);
+        bounds.setLower(0, 5);
+        bounds.setUpper(0, 10);
+        BranchAndBoundResult result = _solve(new double[]{3, 2}, constraints,
+                new VariableType[]{VariableType.SEMI_CONTINUOUS, VariableType.CONTINUOUS}, bounds, false);
+        _assertOptimum(result, 8, new float[]{0, 4});
+    }
+
+    /**
+     * An integer, a semi-continuous and a bounded continuous variable together. The relaxation costs 7.5 with
+     * (0.5, 3, 0), the best solution takes one unit of the integer variable, and less of the semi-continuous one.
+     */
+    @Test
+    public void testMixedTypes() {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1, 1}, Relationship.GEQ, 3.5));
+        VariableBounds bounds = new VariableBounds(3);
+        bounds.setLower(1, 2);
+        bounds.setUpper(1, 3);
+        bounds.setUpper(2, 1);
+        BranchAndBoundResult result = _solve(new double[]{3, 2, 5}, constraints,
+                new VariableType[]{VariableType.INTEGER, VariableType.SEMI_CONTINUOUS, VariableType.CONTINUOUS}, bounds, true);
+        _assertOptimum(result, 8, new float[]{1, 2.5f, 0});
+    }
+
+    /**
+     * @param objective   The coefficients of the objective function.
+     * @param constraints The constraints.
+     * @param types       The type of each variable.
+     * @param bounds      The bounds of the variables.
+     * @param minimize    If the objective function has to be minimized.
+     * @return The result of the search.
+     */
+    private BranchAndBoundResult _solve(double[] objective, List<LinearConstraint> constraints, VariableType[] types,
+                                        VariableBounds bounds, boolean minimize) {
+        return _solver.solve(new LinearObjectiveFunction(objective, 0), constraints, types, bounds, minimize);
+    }
+
+    /**
+     * @param result    The result of the search.
+     * @param objective The optimal objective value.
+     * @param solution  The optimal solution.
+     */
+    private static void _assertOptimum(BranchAndBoundResult result, double objective, float[] solution) {
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        assertEquals(objective, result.getObjectiveValue(), TOLERANCE);
+        assertEquals(0, result.getGap(), TOLERANCE);
+        assertArrayEquals(solution, result.getSolution(), (float)TOLERANCE);
+    }
+}
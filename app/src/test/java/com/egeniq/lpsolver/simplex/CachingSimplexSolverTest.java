@@ -0,0 +1,208 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the hits, the evictions and the deduplication of the cache, and that it solves any mix of relationships.
+ */
+public class CachingSimplexSolverTest {
+
+    private static final float TOLERANCE = 1.0e-4f;
+    // Long enough for a solve of the small problems, so they are never expired when they are asked again.
+    private static final long TIME_TO_LIVE_MILLIS = 50;
+
+    @Test
+    public void testReorderedConstraintsHit() {
+        CountingEngine engine = new CountingEngine();
+        CachingSimplexSolver solver = new CachingSimplexSolver(engine, 10, 0, TimeUnit.MILLISECONDS);
+        List<LinearConstraint> constraints = _constraints(10);
+        SimplexResult first = solver.solve(_objective(), constraints, GoalType.MAXIMIZE);
+        Collections.reverse(constraints);
+        SimplexResult second = solver.solve(_objective(), constraints, GoalType.MAXIMIZE);
+
+        assertEquals(1, engine.getSolveCount());
+        assertEquals(1, solver.getHitCount());
+        assertEquals(1, solver.getMissCount());
+        assertEquals(SolveStatus.OPTIMAL, second.getStatus());
+        assertArrayEquals(first.getSolution(), second.getSolution(), 0);
+    }
+
+    @Test
+    public void testExpiredResultIsSolvedAgain() throws InterruptedException {
+        CountingEngine engine = new CountingEngine();
+        CachingSimplexSolver solver = new CachingSimplexSolver(engine, 10, TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS);
+        solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+        solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+        Thread.sleep(2 * TIME_TO_LIVE_MILLIS);
+        solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+
+        assertEquals(2, engine.getSolveCount());
+        assertEquals(1, solver.getHitCount());
+        assertEquals(2, solver.getMissCount());
+        assertEquals(1, solver.getEvictionCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        CountingEngine engine = new CountingEngine();
+        CachingSimplexSolver solver = new CachingSimplexSolver(engine, 2, 0, TimeUnit.MILLISECONDS);
+        solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+        solver.solve(_objective(), _constraints(20), GoalType.MAXIMIZE);
+        // Uses the first problem again, so the second one is the least recently used.
+        solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+        solver.solve(_objective(), _constraints(30), GoalType.MAXIMIZE);
+
+        assertEquals(2, solver.size());
+        assertEquals(1, solver.getEvictionCount());
+        solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+        assertEquals(3, engine.getSolveCount());
+        solver.solve(_objective(), _constraints(20), GoalType.MAXIMIZE);
+        assertEquals(4, engine.getSolveCount());
+    }
+
+    @Test
+    public void testConcurrentRequestsAreSolvedOnce() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        CountingEngine engine = new CountingEngine(release);
+        final CachingSimplexSolver solver = new CachingSimplexSolver(engine, 10, 0, TimeUnit.MILLISECONDS);
+        final SimplexResult[] results = new SimplexResult[2];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; ++i) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results[index] = solver.solve(_objective(), _constraints(10), GoalType.MAXIMIZE);
+                }
+            });
+            threads[i].start();
+        }
+        // The thread which does not solve counts as a hit as soon as it waits for the other one.
+        while (solver.getHitCount() + solver.getMissCount() < threads.length) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, engine.getSolveCount());
+        assertEquals(1, solver.getHitCount());
+        assertEquals(1, solver.getMissCount());
+        assertEquals(SolveStatus.OPTIMAL, results[0].getStatus());
+        assertArrayEquals(results[0].getSolution(), results[1].getSolution(), 0);
+    }
+
+    /**
+     * Max x + y with x + y <= 10 and x >= 12, the slack basis of which is not feasible.
+     */
+    @Test
+    public void testInfeasible() {
+        CachingSimplexSolver solver = new CachingSimplexSolver(new SimplexJVM(), 10, 0, TimeUnit.MILLISECONDS);
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, 10));
+        constraints.add(new LinearConstraint(new double[]{1, 0}, Relationship.GEQ, 12));
+        SimplexResult result = solver.solve(new LinearObjectiveFunction(new double[]{1, 1}, 0), constraints, GoalType.MAXIMIZE);
+
+        assertEquals(SolveStatus.INFEASIBLE, result.getStatus());
+    }
+
+    /**
+     * Max 2x + y with x + y <= 10 and x - y = 2, the optimum is (6, 4).
+     * As a less-or-equal constraint the equality would allow (10, 0) instead.
+     */
+    @Test
+    public void testEqualityMaximize() {
+        CachingSimplexSolver solver = new CachingSimplexSolver(new SimplexJVM(), 10, 0, TimeUnit.MILLISECONDS);
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, 10));
+        constraints.add(new LinearConstraint(new double[]{1, -1}, Relationship.EQ, 2));
+        SimplexResult result = solver.solve(new LinearObjectiveFunction(new double[]{2, 1}, 0), constraints, GoalType.MAXIMIZE);
+
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        assertArrayEquals(new float[]{6, 4}, result.getSolution(), TOLERANCE);
+    }
+
+    /**
+     * Min x + 2y with x + y >= 4 and x = 1, the optimum is (1, 3).
+     * As a greater-or-equal constraint the equality would allow (4, 0) instead.
+     */
+    @Test
+    public void testEqualityMinimize() {
+        CachingSimplexSolver solver = new CachingSimplexSolver(new SimplexJVM(), 10, 0, TimeUnit.MILLISECONDS);
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.GEQ, 4));
+        constraints.add(new LinearConstraint(new double[]{1, 0}, Relationship.EQ, 1));
+        SimplexResult result = solver.solve(new LinearObjectiveFunction(new double[]{1, 2}, 0), constraints, GoalType.MINIMIZE);
+
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        assertArrayEquals(new float[]{1, 3}, result.getSolution(), TOLERANCE);
+    }
+
+    /**
+     * @return The objective function 3x + 2y.
+     */
+    private static LinearObjectiveFunction _objective() {
+        return new LinearObjectiveFunction(new double[]{3, 2}, 0);
+    }
+
+    /**
+     * @param limit The right side of the first constraint, so different limits give different problems.
+     * @return The constraints x + y <= limit, x <= 4 and y <= 8.
+     */
+    private static List<LinearConstraint> _constraints(double limit) {
+        List<LinearConstraint> result = new ArrayList<>();
+        result.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, limit));
+        result.add(new LinearConstraint(new double[]{1, 0}, Relationship.LEQ, 4));
+        result.add(new LinearConstraint(new double[]{0, 1}, Relationship.LEQ, 8));
+        return result;
+    }
+
+    /**
+     * Counts the solves of the cache, and can hold them until the test releases them.
+     */
+    private static class CountingEngine extends SimplexJVM {
+
+        private final AtomicInteger _solveCount = new AtomicInteger();
+        private final CountDownLatch _release;
+
+        CountingEngine() {
+            this(new CountDownLatch(0));
+        }
+
+        CountingEngine(CountDownLatch release) {
+            _release = release;
+        }
+
+        @Override
+        public SimplexResult solveTwoPhase(float[][] data, Relationship[] relationships, boolean minimize) {
+            _solveCount.incrementAndGet();
+            try {
+                _release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return super.solveTwoPhase(data, relationships, minimize);
+        }
+
+        int getSolveCount() {
+            return _solveCount.get();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.jvm.RevisedSimplexJVM;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Solves an ill-conditioned problem, on which the single precision solution loses several digits,
+ * and checks that the refinement brings the errors down to double precision.
+ */
+public class MixedPrecisionSolverTest {
+
+    // The size of the Hilbert matrix of the constraints. Its condition number is above 10^10.
+    private static final int SIZE = 8;
+    // The accuracy the refined solution has to reach, far beyond the single precision pivots.
+    private static final double TOLERANCE = 1.0e-9;
+
+    @Test
+    public void testMaximizeWithTableauSolver() {
+        _assertRefined(new SimplexJVM(), false);
+    }
+
+    @Test
+    public void testMinimizeWithTableauSolver() {
+        _assertRefined(new SimplexJVM(), true);
+    }
+
+    @Test
+    public void testMaximizeWithRevisedSolver() {
+        _assertRefined(new RevisedSimplexJVM(), false);
+    }
+
+    @Test
+    public void testMinimizeWithRevisedSolver() {
+        _assertRefined(new RevisedSimplexJVM(), true);
+    }
+
+    /**
+     * Solves the Hilbert problem, and compares the refined solution with the double precision solution of Apache Math.
+     *
+     * @param engine   The solver which does the single precision pivots.
+     * @param minimize If the objective function has to be minimized, with greater-or-equal constraints,
+     *                 otherwise it is maximized with less-or-equal constraints.
+     */
+    private static void _assertRefined(SimplexEngine engine, boolean minimize) {
+        double[] objective = new double[SIZE];
+        for (int j = 0; j < SIZE; ++j) {
+            objective[j] = j + 1;
+        }
+        LinearObjectiveFunction objectiveFunction = new LinearObjectiveFunction(objective, 0);
+        List<LinearConstraint> constraints = _hilbertConstraints(minimize ? Relationship.GEQ : Relationship.LEQ);
+        double expected = new SimplexSolver(1.0e-12, 10, 1.0e-15).optimize(new MaxIter(100000), objectiveFunction,
+                new LinearConstraintSet(constraints), minimize ? GoalType.MINIMIZE : GoalType.MAXIMIZE,
+                new NonNegativeConstraint(true)).getValue();
+
+        RefinedSimplexResult result = new MixedPrecisionSolver(engine).solve(objectiveFunction, constraints, minimize);
+
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        assertTrue(result.isRefined());
+        assertEquals(0, result.getResidual(), TOLERANCE);
+        assertEquals(0, result.getObjectiveError(), TOLERANCE * Math.abs(expected));
+        assertEquals(expected, objectiveFunction.value(result.getRefinedSolution()), TOLERANCE * Math.abs(expected));
+    }
+
+    /**
+     * @param relationship The relationship of the constraints.
+     * @return The constraints H x (relationship) H 1, with H the Hilbert matrix.
+     */
+    private static List<LinearConstraint> _hilbertConstraints(Relationship relationship) {
+        List<LinearConstraint> result = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; ++i) {
+            double[] row = new double[SIZE];
+            double rhs = 0;
+            for (int j = 0; j < SIZE; ++j) {
+                row[j] = 1.0 / (i + j + 1);
+                rhs += row[j];
+            }
+            result.add(new LinearConstraint(row, relationship, rhs));
+        }
+        return result;
+    }
+}
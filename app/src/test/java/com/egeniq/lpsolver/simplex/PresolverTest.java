@@ -0,0 +1,123 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.TestData;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Presolves the test data, solves the reduced problem and maps its solution back, which has to be a feasible solution
+ * of the original problem with the same objective value as solving it without presolve.
+ */
+public class PresolverTest {
+
+    // The solvers pivot in single precision, so the objective values are compared relative to their size.
+    private static final double TOLERANCE = 1.0e-4;
+    // The constraints of the original problem are checked relative to their 'b' value, or absolute below one.
+    private static final double FEASIBILITY_TOLERANCE = 1.0e-3;
+
+    @Test
+    public void testPostsolveWithScaling() {
+        _assertSameOptimum(true, false);
+    }
+
+    @Test
+    public void testPostsolveWithoutScaling() {
+        _assertSameOptimum(false, false);
+    }
+
+    @Test
+    public void testPostsolveWithBoundedTwoPhase() {
+        _assertSameOptimum(true, true);
+    }
+
+    @Test
+    public void testConflictingBoundsAreInfeasible() {
+        List<LinearConstraint> constraints = new ArrayList<>();
+        constraints.add(new LinearConstraint(new double[]{1, 1}, Relationship.LEQ, 10));
+        constraints.add(new LinearConstraint(new double[]{1, 0}, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[]{2, 0}, Relationship.GEQ, 4));
+        PresolvedProblem problem = new Presolver().presolve(new LinearObjectiveFunction(new double[]{1, 1}, 0),
+                constraints, GoalType.MAXIMIZE);
+
+        assertTrue(problem.isInfeasible());
+    }
+
+    /**
+     * Solves the test data with and without presolve, and compares the results.
+     *
+     * @param scaling  If the reduced problem is scaled.
+     * @param twoPhase If the reduced problem is solved with the bounded two-phase method, otherwise the bounds are added
+     *                 as constraint rows, and it is solved as a dual program.
+     */
+    private static void _assertSameOptimum(boolean scaling, boolean twoPhase) {
+        LinearObjectiveFunction objectiveFunction = TestData.getObjectiveFunction();
+        List<LinearConstraint> constraints = TestData.getLinearConstraints();
+        SimplexResult unpresolved = new SimplexJVM().solve(TableauConverter.convertMinimize(objectiveFunction, constraints), true);
+        assertEquals(SolveStatus.OPTIMAL, unpresolved.getStatus());
+        double expected = objectiveFunction.value(_toDouble(unpresolved.getSolution()));
+
+        Presolver presolver = new Presolver();
+        presolver.setScaling(scaling);
+        PresolvedProblem problem = presolver.presolve(objectiveFunction, constraints, GoalType.MINIMIZE);
+        assertTrue(problem.getRemovedRowCount() > 0);
+        SimplexResult reduced;
+        if (twoPhase) {
+            float[][] tableau = TableauConverter.convertTwoPhase(problem.getObjectiveFunction(), problem.getConstraints(), true);
+            reduced = new SimplexJVM().solveTwoPhase(tableau, TableauConverter.getRelationships(problem.getConstraints()),
+                    problem.getBounds(), true);
+        } else {
+            reduced = new SimplexJVM().solve(TableauConverter.convertMinimize(problem.getObjectiveFunction(),
+                    problem.getConstraintsWithBounds()), true);
+        }
+        assertEquals(SolveStatus.OPTIMAL, reduced.getStatus());
+        double[] solution = _toDouble(problem.postsolve(reduced.getSolution()));
+
+        assertEquals(expected, objectiveFunction.value(solution), TOLERANCE * Math.abs(expected));
+        _assertFeasible(constraints, solution);
+    }
+
+    /**
+     * @param constraints The constraints of the original problem.
+     * @param solution    The solution which has to satisfy them.
+     */
+    private static void _assertFeasible(List<LinearConstraint> constraints, double[] solution) {
+        for (double value : solution) {
+            assertTrue(value >= -FEASIBILITY_TOLERANCE);
+        }
+        for (LinearConstraint constraint : constraints) {
+            double left = constraint.getCoefficients().dotProduct(new ArrayRealVector(solution, false));
+            double tolerance = FEASIBILITY_TOLERANCE * Math.max(1, Math.abs(constraint.getValue()));
+            if (constraint.getRelationship() != Relationship.GEQ) {
+                assertTrue(left <= constraint.getValue() + tolerance);
+            }
+            if (constraint.getRelationship() != Relationship.LEQ) {
+                assertTrue(left >= constraint.getValue() - tolerance);
+            }
+        }
+    }
+
+    /**
+     * @param solution The solution of a solver.
+     * @return The solution in double precision.
+     */
+    private static double[] _toDouble(float[] solution) {
+        double[] result = new double[solution.length];
+        for (int j = 0; j < solution.length; ++j) {
+            result[j] = solution[j];
+        }
+        return result;
+    }
+}
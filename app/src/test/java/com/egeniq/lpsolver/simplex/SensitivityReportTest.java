@@ -0,0 +1,193 @@
+package com.egeniq.lpsolver.simplex;
+
+import com.egeniq.lpsolver.jvm.RevisedSimplexJVM;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Checks the shadow prices, reduced costs and ranges of the sensitivity analysis by finite differences:
+ * the problems are solved again with a changed right hand side or objective coefficient, and the change of the
+ * optimal objective value has to match the report.
+ */
+public class SensitivityReportTest {
+
+    private static final double TOLERANCE = 1.0e-3;
+    // The step of the finite differences, as long as it is within the allowable range.
+    private static final double STEP = 0.01;
+    // The ranges are checked up to this change, because they can be infinite.
+    private static final double MAX_CHANGE = 10;
+
+    @Test
+    public void testMaximizeWithTableauSolver() {
+        _assertSensitivity(new SimplexJVM(), _maximizeObjective(), _maximizeConstraints(), false);
+    }
+
+    @Test
+    public void testMaximizeWithRevisedSolver() {
+        _assertSensitivity(new RevisedSimplexJVM(), _maximizeObjective(), _maximizeConstraints(), false);
+    }
+
+    @Test
+    public void testMinimizeWithTableauSolver() {
+        _assertSensitivity(new SimplexJVM(), _minimizeObjective(), _minimizeConstraints(), true);
+    }
+
+    @Test
+    public void testMinimizeWithRevisedSolver() {
+        _assertSensitivity(new RevisedSimplexJVM(), _minimizeObjective(), _minimizeConstraints(), true);
+    }
+
+    /**
+     * Solves a problem with the sensitivity analysis, and compares each part of the report with the optimal objective
+     * values of the changed problems.
+     *
+     * @param engine            The solver to check.
+     * @param objectiveFunction The objective function.
+     * @param constraints       The constraints, which have to be less-or-equal for maximization problems, and
+     *                          greater-or-equal for minimization problems, so the converter negates none of them.
+     * @param minimize          If the program is a minimization problem.
+     */
+    private static void _assertSensitivity(SimplexEngine engine, LinearObjectiveFunction objectiveFunction,
+                                           List<LinearConstraint> constraints, boolean minimize) {
+        engine.setSensitivityAnalysis(true);
+        SimplexResult result = engine.solve(_convert(objectiveFunction, constraints, minimize), minimize);
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        SensitivityReport report = result.getSensitivity();
+        assertNotNull(report);
+        double[] objective = objectiveFunction.getCoefficients().toArray();
+        float[] solution = result.getSolution();
+        double optimum = _optimum(objective, constraints, minimize);
+
+        for (int i = 0; i < constraints.size(); ++i) {
+            double shadowPrice = report.getShadowPrices()[i];
+            double rhs = constraints.get(i).getValue();
+            double step = Math.min(STEP, report.getRhsIncrease()[i] / 2);
+            assertEquals("shadow price " + i, shadowPrice,
+                    (_optimum(objective, _withRhs(constraints, i, rhs + step), minimize) - optimum) / step, TOLERANCE);
+            // Within the range, the objective value changes linearly with the shadow price.
+            double increase = Math.min(report.getRhsIncrease()[i], MAX_CHANGE);
+            assertEquals("rhs increase " + i, optimum + shadowPrice * increase,
+                    _optimum(objective, _withRhs(constraints, i, rhs + increase), minimize), TOLERANCE * Math.max(1, optimum));
+            double decrease = Math.min(report.getRhsDecrease()[i], Math.min(rhs, MAX_CHANGE));
+            assertEquals("rhs decrease " + i, optimum - shadowPrice * decrease,
+                    _optimum(objective, _withRhs(constraints, i, rhs - decrease), minimize), TOLERANCE * Math.max(1, optimum));
+        }
+
+        for (int j = 0; j < objective.length; ++j) {
+            double pricedOut = objective[j];
+            for (int i = 0; i < constraints.size(); ++i) {
+                pricedOut -= report.getShadowPrices()[i] * constraints.get(i).getCoefficients().getEntry(j);
+            }
+            assertEquals("reduced cost " + j, pricedOut, report.getReducedCosts()[j], TOLERANCE);
+            // Within the range, the solution stays the same, so the objective value changes with the value of the variable.
+            double increase = Math.min(report.getObjectiveIncrease()[j], MAX_CHANGE);
+            assertEquals("objective increase " + j, optimum + solution[j] * increase,
+                    _optimum(_withCoefficient(objective, j, increase), constraints, minimize), TOLERANCE * Math.max(1, optimum));
+            double decrease = Math.min(report.getObjectiveDecrease()[j], Math.min(objective[j], MAX_CHANGE));
+            assertEquals("objective decrease " + j, optimum - solution[j] * decrease,
+                    _optimum(_withCoefficient(objective, j, -decrease), constraints, minimize), TOLERANCE * Math.max(1, optimum));
+        }
+    }
+
+    /**
+     * Solves a changed problem from scratch.
+     *
+     * @param objective   The coefficients of the objective function.
+     * @param constraints The constraints.
+     * @param minimize    If the program is a minimization problem.
+     * @return The optimal objective value.
+     */
+    private static double _optimum(double[] objective, List<LinearConstraint> constraints, boolean minimize) {
+        LinearObjectiveFunction objectiveFunction = new LinearObjectiveFunction(objective, 0);
+        SimplexResult result = new SimplexJVM().solve(_convert(objectiveFunction, constraints, minimize), minimize);
+        assertEquals(SolveStatus.OPTIMAL, result.getStatus());
+        double value = 0;
+        for (int j = 0; j < objective.length; ++j) {
+            value += objective[j] * result.getSolution()[j];
+        }
+        return value;
+    }
+
+    /**
+     * @param objectiveFunction The objective function.
+     * @param constraints       The constraints.
+     * @param minimize          If the program is a minimization problem.
+     * @return The input tableau of the problem.
+     */
+    private static float[][] _convert(LinearObjectiveFunction objectiveFunction, List<LinearConstraint> constraints, boolean minimize) {
+        return minimize ? TableauConverter.convertMinimize(objectiveFunction, constraints)
+                : TableauConverter.convertMaximize(objectiveFunction, constraints);
+    }
+
+    /**
+     * @param constraints The constraints.
+     * @param index       The index of the constraint to change.
+     * @param rhs         The new right hand side of the constraint.
+     * @return A copy of the constraints, with the changed constraint.
+     */
+    private static List<LinearConstraint> _withRhs(List<LinearConstraint> constraints, int index, double rhs) {
+        List<LinearConstraint> result = new ArrayList<>(constraints);
+        LinearConstraint constraint = constraints.get(index);
+        result.set(index, new LinearConstraint(constraint.getCoefficients(), constraint.getRelationship(), rhs));
+        return result;
+    }
+
+    /**
+     * @param objective The coefficients of the objective function.
+     * @param index     The index of the coefficient to change.
+     * @param change    The amount to add to the coefficient.
+     * @return A copy of the coefficients, with the changed coefficient.
+     */
+    private static double[] _withCoefficient(double[] objective, int index, double change) {
+        double[] result = objective.clone();
+        result[index] += change;
+        return result;
+    }
+
+    /**
+     * @return The objective function 3x + 2y + z, of which the optimum is 11 at (3, 1, 0).
+     */
+    private static LinearObjectiveFunction _maximizeObjective() {
+        return new LinearObjectiveFunction(new double[]{3, 2, 1}, 0);
+    }
+
+    /**
+     * @return The constraints x + y + z <= 4, x + 3y + 2z <= 9 and x <= 3, of which the second one is not binding.
+     */
+    private static List<LinearConstraint> _maximizeConstraints() {
+        List<LinearConstraint> result = new ArrayList<>();
+        result.add(new LinearConstraint(new double[]{1, 1, 1}, Relationship.LEQ, 4));
+        result.add(new LinearConstraint(new double[]{1, 3, 2}, Relationship.LEQ, 9));
+        result.add(new LinearConstraint(new double[]{1, 0, 0}, Relationship.LEQ, 3));
+        return result;
+    }
+
+    /**
+     * @return The objective function 2x + 3y + 4z, of which the optimum is 9 at (3, 1, 0).
+     */
+    private static LinearObjectiveFunction _minimizeObjective() {
+        return new LinearObjectiveFunction(new double[]{2, 3, 4}, 0);
+    }
+
+    /**
+     * @return The constraints x + y + z >= 4, x + 3y + z >= 6 and x >= 1, of which the last one is not binding.
+     */
+    private static List<LinearConstraint> _minimizeConstraints() {
+        List<LinearConstraint> result = new ArrayList<>();
+        result.add(new LinearConstraint(new double[]{1, 1, 1}, Relationship.GEQ, 4));
+        result.add(new LinearConstraint(new double[]{1, 3, 1}, Relationship.GEQ, 6));
+        result.add(new LinearConstraint(new double[]{1, 0, 0}, Relationship.GEQ, 1));
+        return result;
+    }
+}
@@ -0,0 +1,96 @@
+package com.egeniq.lpsolver.benchmark;
+
+import com.egeniq.lpsolver.jvm.RevisedSimplexJVM;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the batch solves on a batch of different small random problems, next to solving the same problems one by one.
+ * Every invocation counts as one operation per problem, so the throughput is in problems per time unit,
+ * and the average time is the time per problem.
+ */
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ITER = 100000;
+
+    @Param({ "10", "30" })
+    public int rows;
+
+    private List<float[][]> _problems;
+    private boolean[] _minimize;
+    private SimplexJVM _simplexJVM;
+    private RevisedSimplexJVM _revisedSimplexJVM;
+
+    @Setup
+    public void setUp() {
+        _problems = new ArrayList<>(BATCH_SIZE);
+        for (int p = 0; p < BATCH_SIZE; ++p) {
+            RandomProblem problem = new RandomProblem(rows, Densities.get("dense"), p);
+            _problems.add(TableauConverter.convertMaximize(problem.getObjectiveFunction(), problem.getConstraints()));
+        }
+        _minimize = new boolean[BATCH_SIZE];
+        SolveLimits limits = new SolveLimits(MAX_ITER, 0, TimeUnit.NANOSECONDS);
+        _simplexJVM = new SimplexJVM();
+        _simplexJVM.setLimits(limits);
+        _revisedSimplexJVM = new RevisedSimplexJVM();
+        _revisedSimplexJVM.setLimits(limits);
+        _checkOptimal("SimplexJVM", _simplexJVM);
+        _checkOptimal("RevisedSimplexJVM", _revisedSimplexJVM);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<SimplexResult> simplexJVMBatch() {
+        return _simplexJVM.solveBatch(_problems, _minimize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<SimplexResult> revisedSimplexJVMBatch() {
+        return _revisedSimplexJVM.solveBatch(_problems, _minimize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void simplexJVMOneByOne(Blackhole blackhole) {
+        for (float[][] problem : _problems) {
+            blackhole.consume(_simplexJVM.solve(problem, false));
+        }
+    }
+
+    /**
+     * Checks if the solver finds the optimum of every problem of the batch.
+     *
+     * @param name   The name of the solver in the error message.
+     * @param engine The solver to check.
+     * @throws IllegalStateException If the solver stops before the optimum of a problem, which fails the trial.
+     */
+    private void _checkOptimal(String name, SimplexEngine engine) {
+        List<SimplexResult> results = engine.solveBatch(_problems, _minimize);
+        for (int p = 0; p < results.size(); ++p) {
+            SimplexResult result = results.get(p);
+            if (result.getStatus() != SolveStatus.OPTIMAL) {
+                throw new IllegalStateException(name + " stopped with status " + result.getStatus()
+                        + " on problem " + p + " after " + result.getIterations() + " iterations.");
+            }
+        }
+    }
+}
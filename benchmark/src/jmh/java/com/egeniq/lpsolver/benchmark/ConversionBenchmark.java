@@ -0,0 +1,60 @@
+package com.egeniq.lpsolver.benchmark;
+
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.DenseTableau;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+import com.egeniq.lpsolver.simplex.TableauBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the conversion of the Apache objects to the tableaus, and the flattening of a tableau into a vector,
+ * which is done before every RenderScript solve. The builder writes the flat tableau directly, so compare it
+ * with the conversion and the flattening together.
+ */
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int rows;
+
+    @Param({ "dense", "sparse" })
+    public String density;
+
+    private RandomProblem _problem;
+    private float[][] _tableau;
+    private float[] _flatTableau;
+    private final TableauBuilder _builder = new TableauBuilder();
+
+    @Setup
+    public void setUp() {
+        _problem = new RandomProblem(rows, Densities.get(density));
+        _tableau = TableauConverter.convertMaximize(_problem.getObjectiveFunction(), _problem.getConstraints());
+        _flatTableau = new float[_tableau.length * _tableau[0].length];
+    }
+
+    @Benchmark
+    public float[][] convertMaximize() {
+        return TableauConverter.convertMaximize(_problem.getObjectiveFunction(), _problem.getConstraints());
+    }
+
+    @Benchmark
+    public SparseTableau convertMaximizeSparse() {
+        return TableauConverter.convertMaximizeSparse(_problem.getObjectiveFunction(), _problem.getConstraints());
+    }
+
+    @Benchmark
+    public DenseTableau convertWithBuilder() {
+        return TableauConverter.convert(_builder, _problem.getObjectiveFunction(), _problem.getConstraints(), false);
+    }
+
+    @Benchmark
+    public float[] flatten() {
+        TableauConverter.flatten(_tableau, _flatTableau, 0);
+        return _flatTableau;
+    }
+}
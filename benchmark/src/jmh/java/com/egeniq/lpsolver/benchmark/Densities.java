@@ -0,0 +1,31 @@
+package com.egeniq.lpsolver.benchmark;
+
+/**
+ * The densities of the random problems, which can be used as a benchmark parameter.
+ */
+class Densities {
+
+    // Every coefficient is nonzero.
+    private static final double DENSE = 1.0;
+    // About 2% of the coefficients are nonzero, which is typical for large real world problems.
+    private static final double SPARSE = 0.02;
+
+    private Densities() {
+        // Only static methods.
+    }
+
+    /**
+     * @param name The name of the density, "dense" or "sparse".
+     * @return The probability that a coefficient is not zero.
+     */
+    static double get(String name) {
+        switch (name) {
+            case "dense":
+                return DENSE;
+            case "sparse":
+                return SPARSE;
+            default:
+                throw new IllegalArgumentException("Unknown density: " + name);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.egeniq.lpsolver.benchmark;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random maximization problems with a fixed seed, so every benchmark run measures the same inputs.
+ * All coefficients and the 'b' vector are positive, so the origin is feasible,
+ * and a constraint on the sum of the variables makes sure the problem is bounded.
+ */
+public class RandomProblem {
+
+    private static final long SEED = 42;
+
+    private final LinearObjectiveFunction _objectiveFunction;
+    private final List<LinearConstraint> _constraints;
+
+    /**
+     * Generates a new problem with as many variables as constraints.
+     *
+     * @param rowCount The amount of constraints, including the bounding constraint.
+     * @param density  The probability that a coefficient of a constraint is not zero, between 0 and 1.
+     */
+    public RandomProblem(int rowCount, double density) {
+        this(rowCount, density, SEED);
+    }
+
+    /**
+     * Generates a new problem with as many variables as constraints, with a different seed than the default one,
+     * for the benchmarks which need several different problems of the same size.
+     *
+     * @param rowCount The amount of constraints, including the bounding constraint.
+     * @param density  The probability that a coefficient of a constraint is not zero, between 0 and 1.
+     * @param seed     The seed of the random generator.
+     */
+    public RandomProblem(int rowCount, double density, long seed) {
+        Random random = new Random(seed);
+        int columnCount = rowCount;
+        double[] objective = new double[columnCount];
+        for (int j = 0; j < columnCount; ++j) {
+            objective[j] = random.nextInt(10) + 1;
+        }
+        _objectiveFunction = new LinearObjectiveFunction(objective, 0);
+        _constraints = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount - 1; ++i) {
+            // Sparse rows are stored sparse, like a real sparse model would be, so the sparse conversion paths are measured.
+            RealVector coefficients = density < 1 ? new OpenMapRealVector(columnCount) : new ArrayRealVector(columnCount);
+            for (int j = 0; j < columnCount; ++j) {
+                if (random.nextDouble() < density) {
+                    coefficients.setEntry(j, random.nextInt(9) + 1);
+                }
+            }
+            // Every constraint has at least one variable, an empty row would only add a slack column which never leaves the basis.
+            coefficients.setEntry(random.nextInt(columnCount), random.nextInt(9) + 1);
+            _constraints.add(new LinearConstraint(coefficients, Relationship.LEQ, random.nextInt(50) + 1));
+        }
+        double[] sum = new double[columnCount];
+        Arrays.fill(sum, 1);
+        _constraints.add(new LinearConstraint(sum, Relationship.LEQ, 100));
+    }
+
+    /**
+     * @return The objective function which has to be maximized.
+     */
+    public LinearObjectiveFunction getObjectiveFunction() {
+        return _objectiveFunction;
+    }
+
+    /**
+     * @return The constraints of the problem.
+     */
+    public List<LinearConstraint> getConstraints() {
+        return _constraints;
+    }
+}
@@ -0,0 +1,112 @@
+package com.egeniq.lpsolver.benchmark;
+
+import com.egeniq.lpsolver.jvm.RevisedSimplexJVM;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.SimplexEngine;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+import com.egeniq.lpsolver.simplex.SolveLimits;
+import com.egeniq.lpsolver.simplex.SolveStatus;
+import com.egeniq.lpsolver.simplex.SparseTableau;
+
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the solver backends on the same random problems. The solvers are created once, and reused between the solves,
+ * like the app does. The conversion is not measured here, see {@link ConversionBenchmark} for that.
+ * All solvers get the same iteration limit, which is high enough for them to reach the optimum.
+ * If one of them still stops before it, the setup fails the trial, because its time would not be comparable with the others.
+ */
+@State(Scope.Thread)
+public class SolveBenchmark {
+
+    private static final int MAX_ITER = 100000;
+
+    @Param({ "10", "100", "1000" })
+    public int rows;
+
+    @Param({ "dense", "sparse" })
+    public String density;
+
+    private RandomProblem _problem;
+    private float[][] _tableau;
+    private SparseTableau _sparseTableau;
+    private SimplexJVM _simplexJVM;
+    private RevisedSimplexJVM _revisedSimplexJVM;
+
+    @Setup
+    public void setUp() {
+        _problem = new RandomProblem(rows, Densities.get(density));
+        _tableau = TableauConverter.convertMaximize(_problem.getObjectiveFunction(), _problem.getConstraints());
+        _sparseTableau = TableauConverter.convertMaximizeSparse(_problem.getObjectiveFunction(), _problem.getConstraints());
+        SolveLimits limits = new SolveLimits(MAX_ITER, 0, TimeUnit.NANOSECONDS);
+        _simplexJVM = new SimplexJVM();
+        _simplexJVM.setLimits(limits);
+        _revisedSimplexJVM = new RevisedSimplexJVM();
+        _revisedSimplexJVM.setLimits(limits);
+        _checkOptimal("SimplexJVM", _simplexJVM);
+        _checkOptimal("RevisedSimplexJVM", _revisedSimplexJVM);
+    }
+
+    @Benchmark
+    public SimplexResult simplexJVM() {
+        return _simplexJVM.solve(_tableau, false);
+    }
+
+    @Benchmark
+    public SimplexResult simplexJVMSparse() {
+        return _simplexJVM.solve(_sparseTableau, false);
+    }
+
+    @Benchmark
+    public SimplexResult revisedSimplexJVM() {
+        return _revisedSimplexJVM.solve(_tableau, false);
+    }
+
+    @Benchmark
+    public SimplexResult revisedSimplexJVMSparse() {
+        return _revisedSimplexJVM.solve(_sparseTableau, false);
+    }
+
+    @Benchmark
+    public PointValuePair apacheSimplexSolver() {
+        return new SimplexSolver().optimize(new MaxIter(MAX_ITER), _problem.getObjectiveFunction(),
+                new LinearConstraintSet(_problem.getConstraints()), GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+    }
+
+    /**
+     * Checks if the solver finds the optimum of the problem, from both the dense and the sparse tableau.
+     *
+     * @param name   The name of the solver in the error message.
+     * @param engine The solver to check.
+     * @throws IllegalStateException If the solver stops before the optimum, which fails the trial.
+     */
+    private void _checkOptimal(String name, SimplexEngine engine) {
+        _checkOptimal(name, engine.solve(_tableau, false));
+        _checkOptimal(name + " (sparse)", engine.solve(_sparseTableau, false));
+    }
+
+    /**
+     * @param name   The name of the solver in the error message.
+     * @param result The result of the solver.
+     * @throws IllegalStateException If the result is not optimal.
+     */
+    private void _checkOptimal(String name, SimplexResult result) {
+        if (result.getStatus() != SolveStatus.OPTIMAL) {
+            throw new IllegalStateException(name + " stopped with status " + result.getStatus()
+                    + " after " + result.getIterations() + " iterations.");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.egeniq.lpsolver.benchmark;
+
+import com.egeniq.lpsolver.TestData;
+import com.egeniq.lpsolver.jvm.RevisedSimplexJVM;
+import com.egeniq.lpsolver.jvm.SimplexJVM;
+import com.egeniq.lpsolver.renderscript.TableauConverter;
+import com.egeniq.lpsolver.simplex.SimplexResult;
+
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Measures the minimization problem of the demo app, with the same steps as the app does them.
+ */
+@State(Scope.Thread)
+public class TestDataBenchmark {
+
+    private LinearObjectiveFunction _objectiveFunction;
+    private List<LinearConstraint> _constraints;
+    private float[][] _tableau;
+    private SimplexJVM _simplexJVM;
+    private RevisedSimplexJVM _revisedSimplexJVM;
+
+    @Setup
+    public void setUp() {
+        _objectiveFunction = TestData.getObjectiveFunction();
+        _constraints = TestData.getLinearConstraints();
+        _tableau = TableauConverter.convertMinimize(_objectiveFunction, _constraints);
+        _simplexJVM = new SimplexJVM();
+        _revisedSimplexJVM = new RevisedSimplexJVM();
+    }
+
+    @Benchmark
+    public float[][] convertMinimize() {
+        return TableauConverter.convertMinimize(_objectiveFunction, _constraints);
+    }
+
+    @Benchmark
+    public SimplexResult simplexJVM() {
+        return _simplexJVM.solve(_tableau, true);
+    }
+
+    @Benchmark
+    public SimplexResult revisedSimplexJVM() {
+        return _revisedSimplexJVM.solve(_tableau, true);
+    }
+
+    @Benchmark
+    public PointValuePair apacheSimplexSolver() {
+        return new SimplexSolver().optimize(new MaxIter(100), _objectiveFunction, new LinearConstraintSet(_constraints),
+                GoalType.MINIMIZE, new NonNegativeConstraint(true));
+    }
+}